@@ -0,0 +1,236 @@
+package com.payroll;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.*;
+import java.util.*;
+
+/**
+ * MoneyReconciliation - Recomputes every payslip with BigDecimal and compares it to the
+ * centavo pipeline.
+ *
+ * The reference works in pesos with BigDecimal from the same time entries and rates:
+ * each daily amount, contribution, tax and prorated benefit is computed exactly and
+ * rounded half up to the centavo once, as the payroll rules prescribe. Every figure of
+ * every PayrollResult must match it to the centavo, and so must the company totals.
+ * Exits with status 1 on the first run with a mismatch, so it can gate a build.
+ *
+ * Usage: MoneyReconciliation [EMPLOYEE_CSV] [TIME_ENTRY_CSV]
+ */
+public class MoneyReconciliation {
+    private static final BigDecimal SIXTY = BigDecimal.valueOf(60);
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final BigDecimal MILLION = BigDecimal.valueOf(Money.PARTS_PER_MILLION);
+    private static final String[] FIGURES = {
+        "Regular Pay", "Overtime Pay", "Holiday Pay", "Rest Day OT Pay", "Late Deductions", "Gross Income",
+        "SSS", "PhilHealth", "Pag-IBIG", "Taxable Income", "Withholding Tax", "De Minimis", "Net Pay"
+    };
+    private static final int MAX_REPORTED = 10;
+
+    private static int mismatches = 0;
+
+    public static void main(String[] args) {
+        String employeeFile = (args.length > 0) ? args[0] : "src/com/payroll/EmployeeData.csv";
+        String timeEntryFile = (args.length > 1) ? args[1] : "src/com/payroll/EmployeeTimeEntries.csv";
+
+        HolidayCalendar.loadHolidaysFromCSV("src/com/payroll/HolidayCalendar.csv");
+        GovernmentDeductions.loadTablesFromCSV("src/com/payroll/GovernmentDeductionTables.csv");
+        EmployeeRoster roster = EmployeeRoster.load(employeeFile);
+        Map<String, EmployeeData> employees = roster.getEmployees();
+        Map<String, DeMinimisBenefits> benefits = roster.getBenefits();
+        List<TimeEntry> entries = TimeEntry.loadTimeEntries(timeEntryFile);
+        if (entries.isEmpty()) {
+            System.err.println("No time entries in " + timeEntryFile);
+            System.exit(1);
+        }
+
+        LocalDate first = LocalDate.MAX, last = LocalDate.MIN;
+        for (TimeEntry entry : entries) {
+            LocalDate date = entry.getClockIn().toLocalDate();
+            if (date.isBefore(first)) first = date;
+            if (date.isAfter(last)) last = date;
+        }
+        LocalDate startDate = first.withDayOfMonth(1);
+        LocalDate endDate = last.withDayOfMonth(last.lengthOfMonth());
+
+        System.out.printf("Employees: %,d | Time entries: %,d | %s to %s%n", employees.size(), entries.size(), startDate, endDate);
+        for (PayrollPeriod.Frequency frequency : new PayrollPeriod.Frequency[] {
+                PayrollPeriod.Frequency.MONTHLY, PayrollPeriod.Frequency.SEMI_MONTHLY, PayrollPeriod.Frequency.WEEKLY }) {
+            reconcile(employees, benefits, entries, startDate, endDate, frequency);
+        }
+
+        if (mismatches > 0) {
+            System.err.println("[Error] " + mismatches + " figure(s) differ from the BigDecimal reference.");
+            System.exit(1);
+        }
+        System.out.println("All figures match the BigDecimal reference.");
+    }
+
+    private static void reconcile(Map<String, EmployeeData> employees, Map<String, DeMinimisBenefits> benefits,
+                                  List<TimeEntry> entries, LocalDate startDate, LocalDate endDate,
+                                  PayrollPeriod.Frequency frequency) {
+        TimeEntrySource source = (from, to, sink) -> {
+            for (TimeEntry entry : entries) {
+                LocalDate date = entry.getClockIn().toLocalDate();
+                if (!date.isBefore(from) && !date.isAfter(to)) sink.accept(entry);
+            }
+        };
+        Map<String, MonthlySummary> summaries = MonthlySummary.calculateWorkedHours(employees, source,
+                startDate, endDate, frequency);
+
+        // Reference: the same entries grouped by employee and period, in entry order
+        List<PayrollPeriod> periods = PayrollPeriod.split(frequency, startDate, endDate);
+        Map<String, List<TimeEntry>> grouped = new HashMap<>();
+        for (TimeEntry entry : entries) {
+            if (!employees.containsKey(entry.getEmpId())) continue;
+            LocalDate date = entry.getClockIn().toLocalDate();
+            for (PayrollPeriod period : periods) {
+                if (period.contains(date)) {
+                    grouped.computeIfAbsent(entry.getEmpId() + "-" + period.getKey(), key -> new ArrayList<>()).add(entry);
+                    break;
+                }
+            }
+        }
+
+        if (!grouped.keySet().equals(summaries.keySet())) {
+            report(frequency, "summary keys", "", grouped.keySet().size() + " keys",
+                   summaries.keySet().size() + " keys");
+        }
+
+        BigDecimal[] expectedTotals = new BigDecimal[FIGURES.length];
+        long[] actualTotals = new long[FIGURES.length];
+        Arrays.fill(expectedTotals, BigDecimal.ZERO);
+
+        for (Map.Entry<String, MonthlySummary> summary : summaries.entrySet()) {
+            List<TimeEntry> days = grouped.get(summary.getKey());
+            if (days == null) continue;
+
+            PayrollResult result = PayrollResult.calculate(summary.getValue(), benefits);
+            BigDecimal[] expected = reference(result.getEmployee(), result.getPeriod(), days,
+                                              benefits.get(result.getEmployee().getEmpId()));
+            long[] actual = figuresOf(result);
+            for (int figure = 0; figure < FIGURES.length; figure++) {
+                if (expected[figure].movePointRight(2).longValueExact() != actual[figure]) {
+                    report(frequency, summary.getKey(), FIGURES[figure], expected[figure].toPlainString(),
+                           BigDecimal.valueOf(actual[figure], 2).toPlainString());
+                }
+                expectedTotals[figure] = expectedTotals[figure].add(expected[figure]);
+                actualTotals[figure] += actual[figure];
+            }
+        }
+
+        for (int figure = 0; figure < FIGURES.length; figure++) {
+            if (expectedTotals[figure].movePointRight(2).longValueExact() != actualTotals[figure]) {
+                report(frequency, "TOTAL", FIGURES[figure], expectedTotals[figure].toPlainString(),
+                       BigDecimal.valueOf(actualTotals[figure], 2).toPlainString());
+            }
+        }
+        System.out.printf("%-13s %,7d payslips | Gross PHP %,18.2f | Net PHP %,18.2f%n", frequency.getLabel(),
+                summaries.size(), expectedTotals[5], expectedTotals[12]);
+    }
+
+    private static long[] figuresOf(PayrollResult result) {
+        MonthlySummary summary = result.getSummary();
+        return new long[] {
+            result.getRegularPayCentavos(), summary.getTotalOvertimePayCentavos(), summary.getTotalHolidayPayCentavos(),
+            summary.getTotalRestDayOTPayCentavos(), summary.getTotalLateDeductionsCentavos(),
+            result.getGrossIncomeCentavos(), result.getSssCentavos(), result.getPhilHealthCentavos(),
+            result.getPagibigCentavos(), result.getTaxableIncomeCentavos(), result.getWithholdingTaxCentavos(),
+            result.getTotalDeMinimisBenefitsCentavos(), result.getNetPayCentavos()
+        };
+    }
+
+    /**
+     * Computes the figures of one payslip in BigDecimal pesos, in the order of FIGURES.
+     */
+    private static BigDecimal[] reference(EmployeeData employee, PayrollPeriod period, List<TimeEntry> days,
+                                          DeMinimisBenefits benefits) {
+        BigDecimal rate = BigDecimal.valueOf(employee.getHourlyRateCentavos(), 2);
+        long totalMinutes = 0;
+        BigDecimal overtimePay = BigDecimal.ZERO, holidayPay = BigDecimal.ZERO;
+        BigDecimal restDayPay = BigDecimal.ZERO, lateDeductions = BigDecimal.ZERO;
+
+        for (TimeEntry entry : days) {
+            long minutes = Math.max(0, Math.max(0, entry.getMinutesWorked()) - 60);
+            long overtime = (minutes >= 540) ? minutes - 480 : 0;
+            long late = Math.max(0L, Duration.between(LocalTime.of(8, 30), entry.getClockIn().toLocalTime()).toMinutes());
+            totalMinutes += minutes;
+
+            overtimePay = overtimePay.add(hoursTimesRate(overtime, rate, new BigDecimal("1.25")));
+            lateDeductions = lateDeductions.add(hoursTimesRate(late, rate, BigDecimal.ONE));
+            if (entry.isRegularHoliday() || entry.isSpecialNonWorking()) {
+                BigDecimal premium = BigDecimal.valueOf(Math.round(entry.getHolidayMultiplier() * 100f) - 100).divide(HUNDRED);
+                holidayPay = holidayPay.add(hoursTimesRate(minutes, rate, premium));
+            }
+            if (entry.isRestDay()) {
+                restDayPay = restDayPay.add(hoursTimesRate(minutes, rate, new BigDecimal("1.5")));
+            }
+        }
+
+        BigDecimal regularPay = hoursTimesRate(totalMinutes, rate, BigDecimal.ONE);
+        BigDecimal gross = regularPay.add(overtimePay).add(holidayPay).add(restDayPay);
+
+        long basicCentavos = employee.getBasicSalaryCentavos();
+        if (basicCentavos <= 0) basicCentavos = employee.getSemiMonthlyRateCentavos() * 2;
+        if (basicCentavos <= 0) basicCentavos = employee.getHourlyRateCentavos() * 8 * 22;
+
+        DeductionSchedule schedule = GovernmentDeductions.getSchedule(period.getStartDate());
+        BigDecimal monthlyGross = toMonthly(gross, period);
+        BigDecimal sss = prorate(bracket(schedule.getTable(DeductionSchedule.SSS), BigDecimal.valueOf(basicCentavos, 2)), period);
+        BigDecimal philHealth = prorate(bracket(schedule.getTable(DeductionSchedule.PHILHEALTH), monthlyGross), period);
+        BigDecimal pagibig = prorate(bracket(schedule.getTable(DeductionSchedule.PAGIBIG), monthlyGross), period);
+        BigDecimal taxable = gross.subtract(sss).subtract(philHealth).subtract(pagibig);
+        BigDecimal tax = prorate(bracket(schedule.getTable(DeductionSchedule.BIR), toMonthly(taxable, period)), period);
+
+        BigDecimal deMinimis = BigDecimal.ZERO;
+        if (benefits != null) {
+            deMinimis = prorate(BigDecimal.valueOf(benefits.getRiceSubsidyCentavos(), 2), period)
+                .add(prorate(BigDecimal.valueOf(benefits.getPhoneAllowanceCentavos(), 2), period))
+                .add(prorate(BigDecimal.valueOf(benefits.getClothingAllowanceCentavos(), 2), period));
+        }
+
+        BigDecimal deductions = sss.add(philHealth).add(pagibig).add(tax).add(lateDeductions);
+        BigDecimal net = gross.subtract(deductions).add(deMinimis);
+        return new BigDecimal[] {
+            regularPay, overtimePay, holidayPay, restDayPay, lateDeductions, gross,
+            sss, philHealth, pagibig, taxable, tax, deMinimis, net
+        };
+    }
+
+    private static BigDecimal hoursTimesRate(long minutes, BigDecimal rate, BigDecimal premium) {
+        return BigDecimal.valueOf(minutes).multiply(rate).multiply(premium).divide(SIXTY, 2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal prorate(BigDecimal monthly, PayrollPeriod period) {
+        return monthly.multiply(BigDecimal.valueOf(period.getShareNumerator()))
+            .divide(BigDecimal.valueOf(period.getShareDenominator()), 2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal toMonthly(BigDecimal amount, PayrollPeriod period) {
+        return amount.multiply(BigDecimal.valueOf(period.getShareDenominator()))
+            .divide(BigDecimal.valueOf(period.getShareNumerator()), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Evaluates a bracket table by linear search: base + rate x (value - excess over), capped.
+     */
+    private static BigDecimal bracket(RateTable table, BigDecimal value) {
+        long[] match = table.getBracket(0);
+        for (int i = 0; i < table.size(); i++) {
+            long[] bracket = table.getBracket(i);
+            int compare = BigDecimal.valueOf(bracket[0], 2).compareTo(value);
+            if (compare < 0 || (compare == 0 && table.isInclusiveLowerBound())) match = bracket;
+        }
+
+        BigDecimal excess = value.subtract(BigDecimal.valueOf(match[3], 2));
+        BigDecimal amount = BigDecimal.valueOf(match[1], 2)
+            .add(excess.multiply(BigDecimal.valueOf(match[2])).divide(MILLION, 2, RoundingMode.HALF_UP));
+        return (match[4] == Long.MAX_VALUE) ? amount : amount.min(BigDecimal.valueOf(match[4], 2));
+    }
+
+    private static void report(PayrollPeriod.Frequency frequency, String key, String figure, String expected, String actual) {
+        if (++mismatches <= MAX_REPORTED) {
+            System.err.printf("[Mismatch] %s %s %s: expected %s, got %s%n", frequency.getLabel(), key, figure, expected, actual);
+        }
+    }
+}
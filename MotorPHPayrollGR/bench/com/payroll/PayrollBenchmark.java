@@ -0,0 +1,347 @@
+package com.payroll;
+
+import java.io.*;
+import java.math.RoundingMode;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * PayrollBenchmark - Micro-benchmarks for the payroll pipeline on synthetic data.
+ *
+ * Each case is run for a number of warm-up iterations, then timed over the measured
+ * iterations; results are printed as one line per case so runs can be compared.
+ *
+ * Usage: PayrollBenchmark [EMPLOYEES] [DATA_DIR] [CASE_FILTER]
+ *  System properties: bench.warmup (default 3), bench.iterations (default 5)
+ */
+public class PayrollBenchmark {
+    private static final int WARMUP = Integer.getInteger("bench.warmup", 3);
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 5);
+    private static final int REPORT_EMPLOYEES = 1000;
+    private static final int DEDUCTION_CALLS = 1_000_000;
+
+    private static volatile Object sink;
+    private static String filter = "";
+
+    public static void main(String[] args) throws Exception {
+        int employeeCount = (args.length > 0) ? Integer.parseInt(args[0]) : 10_000;
+        File dataDir = new File((args.length > 1) ? args[1] : "build/bench/data", String.valueOf(employeeCount));
+        filter = (args.length > 2) ? args[2] : "";
+
+        File employeeFile = new File(dataDir, "EmployeeData.csv");
+        File timeEntryFile = new File(dataDir, "EmployeeTimeEntries.csv");
+        if (!employeeFile.exists() || !timeEntryFile.exists()) {
+            System.out.println("Generating synthetic data for " + employeeCount + " employees in " + dataDir);
+            SyntheticDataGenerator.generate(employeeCount, dataDir, YearMonth.of(2024, 6), 1);
+        }
+
+        HolidayCalendar.loadHolidaysFromCSV("src/com/payroll/HolidayCalendar.csv");
+        EmployeeRoster roster = EmployeeRoster.load(employeeFile.getPath());
+        Map<String, EmployeeData> employees = roster.getEmployees();
+        Map<String, DeMinimisBenefits> benefits = roster.getBenefits();
+        String timeEntries = timeEntryFile.getPath();
+        LocalDate startDate = LocalDate.of(2024, 6, 1);
+        LocalDate endDate = LocalDate.of(2024, 6, 15);
+
+        System.out.printf("Employees: %,d | Time entry file: %,d bytes | warm-up %d, iterations %d%n",
+                employees.size(), timeEntryFile.length(), WARMUP, ITERATIONS);
+        System.out.printf("%-42s %12s %12s %12s%n", "Benchmark", "avg ms/op", "min ms/op", "max ms/op");
+
+        List<TimeEntry> loaded = TimeEntry.loadTimeEntries(timeEntries);
+        List<TimeEntry> filtered = TimeEntry.filterTimeEntriesByDate(loaded, startDate, endDate);
+        Map<String, MonthlySummary> summaries = MonthlySummary.calculateWorkedHours(employees, filtered);
+
+        run("TimeEntry.loadTimeEntries", () -> TimeEntry.loadTimeEntries(timeEntries));
+        run("TimeEntryValidator.validate", () -> TimeEntryValidator.validate(timeEntries, null, null,
+                employees, HolidayCalendar.getDefault()));
+        run("TimeEntry.filterTimeEntriesByDate", () -> TimeEntry.filterTimeEntriesByDate(loaded, startDate, endDate));
+        run("MonthlySummary.calculateWorkedHours", () -> MonthlySummary.calculateWorkedHours(employees, filtered));
+        run("MonthlySummary.calculateWorkedHours(csv)",
+                () -> MonthlySummary.calculateWorkedHours(employees, timeEntries, startDate, endDate));
+        TimeEntryShards shards = TimeEntryShards.open(timeEntries);
+        run("TimeEntryShards.forEach", () -> {
+            List<TimeEntry> entries = new ArrayList<>();
+            shards.forEach(null, null, entries::add);
+            return entries;
+        });
+        run("MonthlySummary.calculateWorkedHours(shards)",
+                () -> MonthlySummary.calculateWorkedHours(employees, shards, startDate, endDate));
+
+        TimeEntryTable table = new TimeEntryTable(loaded.size());
+        loaded.forEach(table::add);
+        System.out.printf("TimeEntryTable: %,d rows in %,d bytes (%d bytes/row)%n",
+                table.size(), table.getMemoryBytes(), table.getMemoryBytes() / Math.max(1, table.size()));
+        run("TimeEntryTable.add x" + loaded.size(), () -> {
+            TimeEntryTable copy = new TimeEntryTable(loaded.size());
+            loaded.forEach(copy::add);
+            return copy;
+        });
+        run("TimeEntryTable.filter", () -> table.filter(startDate, endDate));
+        run("MonthlySummary.calculateWorkedHours(table)", () -> MonthlySummary.calculateWorkedHours(employees,
+                table, startDate, endDate, PayrollPeriod.Frequency.MONTHLY));
+        run("TimeEntryIndex.of", () -> TimeEntryIndex.of(table));
+        TimeEntryIndex index = TimeEntryIndex.of(table);
+        List<String> lookupIds = new ArrayList<>(employees.keySet()).subList(0, Math.min(1000, employees.size()));
+        run("Single-employee lookup (index) x" + lookupIds.size(), () -> {
+            int found = 0;
+            for (String empId : lookupIds) found += MonthlySummary.calculateWorkedHours(employees, index, empId,
+                    startDate, endDate, PayrollPeriod.Frequency.MONTHLY).size();
+            return found;
+        });
+        run("Single-employee lookup (aggregate all)", () -> {
+            String empId = lookupIds.get(lookupIds.size() - 1);
+            for (MonthlySummary summary : MonthlySummary.calculateWorkedHours(employees, table, startDate, endDate,
+                    PayrollPeriod.Frequency.MONTHLY).values()) {
+                if (summary.getEmployee().getEmpId().equals(empId)) return summary;
+            }
+            return null;
+        });
+
+        // Whole batch (aggregate, calculate, write the register) in pools of 1, 2, 4, ... threads up to the cores
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) threadCounts.add(threads);
+        threadCounts.add(cores);
+        for (int threads : threadCounts) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                run("PayrollBatch threads=" + threads, () -> pool.submit(() -> {
+                    SortedMap<String, PayrollResult> register = PayrollBatch.calculateAll(MonthlySummary.calculateWorkedHours(
+                            employees, index, startDate, endDate, PayrollPeriod.Frequency.MONTHLY), benefits);
+                    PayrollBatch.writeRegister(register, startDate, endDate, Writer.nullWriter());
+                    return register;
+                }).get());
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        float[] salaries = new float[DEDUCTION_CALLS];
+        Random random = new Random(7);
+        for (int i = 0; i < salaries.length; i++) salaries[i] = 2000f + random.nextFloat() * 200_000f;
+        run("GovernmentDeductions.calculateSSS x1M", () -> {
+            float total = 0f;
+            for (float salary : salaries) total += GovernmentDeductions.calculateSSS(salary);
+            return total;
+        });
+        run("GovernmentDeductions.calculateBIR x1M", () -> {
+            float total = 0f;
+            for (float salary : salaries) total += GovernmentDeductions.calculateBIR(salary);
+            return total;
+        });
+
+        // Parity of long centavo math with the float math it replaced: same inputs, no allocation
+        DeductionSchedule schedule = GovernmentDeductions.getSchedule(startDate);
+        long[] salaryCentavos = new long[salaries.length];
+        for (int i = 0; i < salaries.length; i++) salaryCentavos[i] = Money.ofPesos(salaries[i]);
+        run("DeductionSchedule.calculateSSSCentavos x1M", () -> {
+            long total = 0L;
+            for (long salary : salaryCentavos) total += schedule.calculateSSSCentavos(salary);
+            return total;
+        });
+        run("DeductionSchedule.calculateBIRCentavos x1M", () -> {
+            long total = 0L;
+            for (long salary : salaryCentavos) total += schedule.calculateBIRCentavos(salary);
+            return total;
+        });
+
+        int[] minutes = new int[DEDUCTION_CALLS];
+        for (int i = 0; i < minutes.length; i++) minutes[i] = random.nextInt(16 * 60);
+        run("Daily OT pay float x1M", () -> {
+            float total = 0f;
+            for (int i = 0; i < minutes.length; i++) total += (minutes[i] / 60f) * (salaries[i] / 176f) * 1.25f;
+            return total;
+        });
+        run("Daily OT pay centavos x1M", () -> {
+            long total = 0L;
+            for (int i = 0; i < minutes.length; i++) {
+                total += Money.multiplyDivide(minutes[i], (salaryCentavos[i] / 176) * 125, 60 * 100, RoundingMode.HALF_UP);
+            }
+            return total;
+        });
+        // Pay rules of every daily entry: the former literals, a rule book compiled once per
+        // employee, and the same rule book interpreted from its declaration on every row
+        File ruleFile = new File(dataDir, "PayRuleBook.csv");
+        try (PrintWriter out = new PrintWriter(new FileWriter(ruleFile))) {
+            out.println("Status,Position,Grace Period End,Lunch Minutes,Regular Hours,Overtime After Hours,Overtime,"
+                        + "Rest Day,Regular Holiday,Regular Holiday Rest Day,Special Holiday");
+            out.println("Probationary,,8:00,,,8,1.30,,,,");
+            out.println("Regular,Account Team Leader,9:00,30,,,1.50,,,,");
+            out.println("*,*,8:30,60,8,9,1.25,1.50,2.00,2.60,1.30");
+        }
+        PayRuleBook ruleBook = PayRuleBook.load(ruleFile.getPath());
+        List<String[]> ruleRows = new ArrayList<>();
+        try (CsvReader csv = new CsvReader(ruleFile.getPath())) {
+            csv.readRecord(); // Skip header row
+            String[] row;
+            while ((row = csv.readRecord()) != null) ruleRows.add(row);
+        }
+        Map<String, PayRules> rulesById = new HashMap<>();
+        for (EmployeeData employee : employees.values()) rulesById.put(employee.getEmpId(), ruleBook.rulesFor(employee));
+        EmployeeData[] employeeOf = new EmployeeData[loaded.size()];
+        PayRules[] rulesOf = new PayRules[loaded.size()];
+        for (int i = 0; i < employeeOf.length; i++) {
+            employeeOf[i] = employees.get(loaded.get(i).getEmpId());
+            rulesOf[i] = rulesById.get(loaded.get(i).getEmpId());
+        }
+        run("Daily pay rules hard-coded x" + loaded.size(), () -> {
+            long total = 0L;
+            for (int i = 0; i < employeeOf.length; i++) {
+                TimeEntry entry = loaded.get(i);
+                long rate = employeeOf[i].getHourlyRateCentavos();
+                LocalTime clockIn = entry.getClockIn().toLocalTime();
+                int late = Math.max(0, clockIn.getHour() * 60 + clockIn.getMinute() - (8 * 60 + 30));
+                int work = Math.max(0, entry.getMinutesWorked() - 60);
+                int overtime = (work >= 9 * 60) ? work - 8 * 60 : 0;
+                total += Money.multiplyDivide(overtime, rate * 125, 60 * 100, RoundingMode.HALF_UP)
+                         - Money.multiplyDivide(late, rate, 60, RoundingMode.HALF_UP);
+                if (entry.isRegularHoliday() || entry.isSpecialNonWorking()) {
+                    int percent = Math.round(entry.getHolidayMultiplier() * 100f);
+                    total += Money.multiplyDivide(work, rate * (percent - 100), 60 * 100, RoundingMode.HALF_UP);
+                }
+                if (entry.isRestDay()) total += Money.multiplyDivide(work, rate * 150, 60 * 100, RoundingMode.HALF_UP);
+            }
+            return total;
+        });
+        run("Daily pay rules compiled x" + loaded.size(), () -> {
+            long total = 0L;
+            for (int i = 0; i < employeeOf.length; i++) {
+                total += dailyPay(rulesOf[i], loaded.get(i), employeeOf[i].getHourlyRateCentavos());
+            }
+            return total;
+        });
+        run("Daily pay rules interpreted x" + loaded.size(), () -> {
+            long total = 0L;
+            for (int i = 0; i < employeeOf.length; i++) {
+                total += interpretedDailyPay(ruleRows, employeeOf[i], loaded.get(i));
+            }
+            return total;
+        });
+
+        run("PayrollResult.calculate x" + summaries.size(), () -> {
+            long net = 0L;
+            for (MonthlySummary summary : summaries.values()) net += PayrollResult.calculate(summary, benefits).getNetPayCentavos();
+            return net;
+        });
+
+        // What-if scenarios: raises of 0.05% to 5% with alternating overtime premiums
+        List<PayRules> scenarios = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            scenarios.add(PayRules.DEFAULT.withName("Raise " + i).withRaise(5 * i).withOvertimePercent((i % 2 == 0) ? 125 : 150));
+        }
+        PayrollSimulator simulator = new PayrollSimulator(summaries, benefits);
+        run("PayrollSimulator.run 100 scenarios x" + summaries.size(), () -> simulator.run(scenarios));
+
+        File exportFile = new File(dataDir, "register.mpcf");
+        run("PayrollExporter.export x" + summaries.size(), () -> {
+            PayrollExporter.export(summaries, benefits, exportFile.getPath());
+            return exportFile.length();
+        });
+        for (PayslipWriter.Format format : PayslipWriter.Format.values()) {
+            File payslipFile = new File(dataDir, "payslips." + format.name().toLowerCase());
+            run("PayslipWriter.write " + format + " x" + summaries.size(), () -> {
+                PayslipWriter.write(summaries, benefits, format, payslipFile.getPath());
+                return payslipFile.length();
+            });
+        }
+
+        List<MonthlySummary> reportSummaries = new ArrayList<>(summaries.values());
+        if (reportSummaries.size() > REPORT_EMPLOYEES) reportSummaries = reportSummaries.subList(0, REPORT_EMPLOYEES);
+        List<MonthlySummary> reports = reportSummaries;
+        run("Per-employee report x" + reports.size(), () -> {
+            PrintStream console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                for (MonthlySummary summary : reports) {
+                    MotorPHPayrollG3.printPayrollReport(summary, summary.getEmployee(), benefits, startDate, endDate);
+                }
+            } finally {
+                System.setOut(console);
+            }
+            return reports;
+        });
+    }
+
+    /**
+     * Computes a day's premiums less its late deduction with compiled rules.
+     */
+    private static long dailyPay(PayRules rules, TimeEntry entry, long rate) {
+        LocalTime clockIn = entry.getClockIn().toLocalTime();
+        int late = rules.lateMinutes(clockIn.getHour() * 60 + clockIn.getMinute());
+        int work = rules.workMinutes(entry.getMinutesWorked());
+        long total = rules.overtimePay(rules.overtimeMinutes(work), rate) - rules.lateDeduction(late, rate);
+        byte dayType = entry.getDayType();
+        if (entry.isRegularHoliday() || entry.isSpecialNonWorking()) {
+            total += rules.holidayPay(work, rate, rules.getHolidayPercent(dayType));
+        }
+        if (entry.isRestDay()) total += rules.restDayPay(work, rate);
+        return total;
+    }
+
+    /**
+     * Computes the same amount as {@link #dailyPay}, finding and reading the employee's rule
+     * row for every entry, as a rule interpreter without a compile step would.
+     */
+    private static long interpretedDailyPay(List<String[]> ruleRows, EmployeeData employee, TimeEntry entry) {
+        String[] rule = null;
+        for (String[] row : ruleRows) {
+            if ((row[0].isEmpty() || row[0].equals("*") || row[0].equalsIgnoreCase(employee.getStatus()))
+                    && (row[1].isEmpty() || row[1].equals("*") || row[1].equalsIgnoreCase(employee.getPosition()))) {
+                rule = row;
+                break;
+            }
+        }
+        String graceText = value(rule, 2, "8:30");
+        LocalTime grace = LocalTime.parse((graceText.length() == 4) ? "0" + graceText : graceText);
+        int lunch = Integer.parseInt(value(rule, 3, "60"));
+        int regular = (int) (Money.parse(value(rule, 4, "8")) * 60 / 100);
+        int overtimeAfter = (int) (Money.parse(value(rule, 5, "9")) * 60 / 100);
+        long overtimePercent = Money.parse(value(rule, 6, "1.25"));
+        long restDayPercent = Money.parse(value(rule, 7, "1.50"));
+
+        long rate = employee.getHourlyRateCentavos();
+        LocalTime clockIn = entry.getClockIn().toLocalTime();
+        int late = Math.max(0, clockIn.getHour() * 60 + clockIn.getMinute() - (grace.getHour() * 60 + grace.getMinute()));
+        int work = Math.max(0, entry.getMinutesWorked() - lunch);
+        int overtime = (work >= overtimeAfter) ? work - regular : 0;
+        long total = Money.multiplyDivide(overtime, rate * overtimePercent, 60 * 100, RoundingMode.HALF_UP)
+                     - Money.multiplyDivide(late, rate, 60, RoundingMode.HALF_UP);
+        if (entry.isRegularHoliday() || entry.isSpecialNonWorking()) {
+            long percent = entry.isRegularHoliday()
+                    ? Money.parse(entry.isRestDay() ? value(rule, 9, "2.60") : value(rule, 8, "2.00"))
+                    : Money.parse(value(rule, 10, "1.30"));
+            total += Money.multiplyDivide(work, rate * (percent - 100), 60 * 100, RoundingMode.HALF_UP);
+        }
+        if (entry.isRestDay()) total += Money.multiplyDivide(work, rate * restDayPercent, 60 * 100, RoundingMode.HALF_UP);
+        return total;
+    }
+
+    private static String value(String[] rule, int column, String fallback) {
+        if (rule == null || column >= rule.length || rule[column].trim().isEmpty()) return fallback;
+        return rule[column].trim();
+    }
+
+    /**
+     * Runs one benchmark case if it matches the filter and prints its timings.
+     */
+    static void run(String name, Callable<Object> operation) throws Exception {
+        if (!name.contains(filter)) return;
+
+        for (int i = 0; i < WARMUP; i++) {
+            sink = operation.call();
+        }
+
+        double total = 0, min = Double.MAX_VALUE, max = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            sink = operation.call();
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+            total += millis;
+            min = Math.min(min, millis);
+            max = Math.max(max, millis);
+        }
+        System.out.printf("%-42s %12.3f %12.3f %12.3f%n", name, total / ITERATIONS, min, max);
+    }
+}
@@ -0,0 +1,543 @@
+package com.payroll;
+
+import java.io.*;
+import java.net.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * PayrollChecks - Regression checks of behaviour the payroll figures depend on but a single
+ * run does not show: stale derived data, schedule selection, duplicate punches and the like.
+ *
+ * Each check works on a scratch copy of the project CSV files, so nothing under src/ or
+ * data/ is changed. Exits with status 1 if any check fails, so it can gate a build.
+ *
+ * Usage: PayrollChecks [CHECK_FILTER]
+ */
+public class PayrollChecks {
+    private static final String DATA_DIR = "src/com/payroll";
+
+    private static int failures = 0;
+    private static String filter = "";
+    private static Map<String, EmployeeData> employees;
+
+    public static void main(String[] args) throws IOException {
+        filter = (args.length > 0) ? args[0] : "";
+        HolidayCalendar.loadHolidaysFromCSV(DATA_DIR + "/HolidayCalendar.csv");
+        GovernmentDeductions.loadTablesFromCSV(DATA_DIR + "/GovernmentDeductionTables.csv");
+        employees = EmployeeRoster.load(DATA_DIR + "/EmployeeData.csv").getEmployees();
+
+        Path scratch = Files.createTempDirectory("payroll-checks");
+        try {
+            if (selected("store")) checkStoreSameLengthEdit(scratch.resolve("store"));
+            if (selected("schedule")) checkScheduleByPayDate();
+            if (selected("cache")) checkCacheSameLengthEdit(scratch.resolve("cache"));
+            if (selected("follow")) checkFollowMatchesBatch(scratch.resolve("follow"));
+            if (selected("table")) checkTableRanges(scratch.resolve("table"));
+            if (selected("server")) checkServerFollowsSource(scratch.resolve("server"));
+            if (selected("scenario")) checkScenarioKeepsRuleBook(scratch.resolve("scenario"));
+            if (selected("repository")) checkRepositoryFiles(scratch.resolve("repository"));
+            if (selected("shards")) checkTinyShards(scratch.resolve("shards"));
+            if (selected("ledger")) checkLedgerRecovery(scratch.resolve("ledger"));
+        } finally {
+            deleteTree(scratch);
+        }
+
+        if (failures > 0) {
+            System.err.println("[Error] " + failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All checks passed.");
+    }
+
+    /**
+     * A DTR row corrected in the middle of the file without changing its length must reach
+     * the results, both through a freshly opened store and through one already open.
+     */
+    private static void checkStoreSameLengthEdit(Path dir) throws IOException {
+        String csv = copyTimeEntries(dir).toString();
+        String storeFile = dir.resolve("time-entries.bin").toString();
+        LocalDate start = LocalDate.of(2024, 1, 1), end = LocalDate.of(2024, 12, 31);
+
+        TimeEntryStore openStore = TimeEntryStore.open(csv, storeFile);
+        check("store: built from the CSV", openStore != null && same(csvSummaries(csv, start, end),
+                MonthlySummary.calculateWorkedHours(employees, openStore, start, end)));
+
+        String edited = editMiddleRowSameLength(Paths.get(csv));
+        System.out.println("  edited row: " + edited);
+
+        Map<String, MonthlySummary> expected = csvSummaries(csv, start, end);
+        check("store: open store serves the corrected row", openStore != null
+                && same(expected, MonthlySummary.calculateWorkedHours(employees, openStore, start, end)));
+        TimeEntryStore reopened = TimeEntryStore.open(csv, storeFile);
+        check("store: reopened store serves the corrected row", reopened != null
+                && same(expected, MonthlySummary.calculateWorkedHours(employees, reopened, start, end)));
+    }
+
+    /**
+     * The same hours worked either side of 1 January 2025 are charged the contributions and tax
+     * of the schedule in effect for each pay period.
+     */
+    private static void checkScheduleByPayDate() {
+        DeductionSchedule before = GovernmentDeductions.getSchedule(LocalDate.of(2024, 12, 31));
+        DeductionSchedule after = GovernmentDeductions.getSchedule(LocalDate.of(2025, 1, 1));
+        check("schedule: 2023 tables up to 2024-12-31", before.getEffectiveDate().equals(LocalDate.of(2023, 1, 1)));
+        check("schedule: 2025 tables from 2025-01-01", after.getEffectiveDate().equals(LocalDate.of(2025, 1, 1)));
+        check("schedule: earliest tables before the first effective date",
+                GovernmentDeductions.getSchedule(LocalDate.of(2020, 1, 1)) == before);
+        check("schedule: SSS maximum PHP 1,125.00 then PHP 1,750.00",
+                before.calculateSSSCentavos(Money.ofPesos(90_000)) == 112_500L
+                && after.calculateSSSCentavos(Money.ofPesos(90_000)) == 175_000L);
+        check("schedule: TRAIN 15% bracket since 2023",
+                before.calculateBIRCentavos(Money.ofPesos(30_000)) == 137_505L
+                && after.calculateBIRCentavos(Money.ofPesos(30_000)) == 137_505L);
+
+        // One regular workday in each month, identical hours
+        String empId = "10001";
+        List<TimeEntry> entries = List.of(
+                new TimeEntry(empId, LocalDateTime.of(2024, 12, 10, 8, 0), LocalDateTime.of(2024, 12, 10, 17, 0), false),
+                new TimeEntry(empId, LocalDateTime.of(2025, 1, 14, 8, 0), LocalDateTime.of(2025, 1, 14, 17, 0), false));
+        Map<String, MonthlySummary> summaries = MonthlySummary.calculateWorkedHours(employees, entries);
+        PayrollResult december = PayrollResult.calculate(summaries.get(empId + "-2024-12"), Map.of());
+        PayrollResult january = PayrollResult.calculate(summaries.get(empId + "-2025-01"), Map.of());
+        long basic = december.getBasicSalaryCentavos();
+
+        check("schedule: payroll picks the schedule by pay period",
+                december.getGrossIncomeCentavos() == january.getGrossIncomeCentavos()
+                && december.getSssCentavos() == before.calculateSSSCentavos(basic)
+                && january.getSssCentavos() == after.calculateSSSCentavos(basic)
+                && december.getPhilHealthCentavos() == before.calculatePhilHealthCentavos(december.getGrossIncomeCentavos())
+                && january.getPhilHealthCentavos() == after.calculatePhilHealthCentavos(january.getGrossIncomeCentavos())
+                && december.getSssCentavos() != january.getSssCentavos());
+    }
+
+    /**
+     * Cached summaries must follow a same-length DTR correction, from memory and from disk,
+     * while the periods the correction does not touch are still restored from disk.
+     */
+    private static void checkCacheSameLengthEdit(Path dir) throws IOException {
+        String csv = copyTimeEntries(dir).toString();
+        String storeFile = dir.resolve("time-entries.bin").toString();
+        String cacheDir = dir.resolve("summaries").toString();
+        LocalDate start = LocalDate.of(2024, 1, 1), end = LocalDate.of(2024, 12, 31);
+
+        TimeEntryStore store = TimeEntryStore.open(csv, storeFile);
+        PayrollCache cache = new PayrollCache(cacheDir, 8);
+        check("cache: first query matches the CSV", store != null
+                && same(csvSummaries(csv, start, end), cache.calculateWorkedHours(employees, store, start, end)));
+        long periods = cache.getMisses();
+
+        editMiddleRowSameLength(Paths.get(csv));
+        Map<String, MonthlySummary> expected = csvSummaries(csv, start, end);
+        check("cache: in-memory query follows the corrected row",
+                same(expected, cache.calculateWorkedHours(employees, store, start, end)));
+        check("cache: only the corrected period is recomputed",
+                cache.getMisses() == periods + 1 && cache.getDiskHits() == periods - 1);
+
+        PayrollCache reopened = new PayrollCache(cacheDir, 8);
+        check("cache: summary files follow the corrected row",
+                same(expected, reopened.calculateWorkedHours(employees, TimeEntryStore.open(csv, storeFile), start, end)));
+        check("cache: every period restored from disk", reopened.getMisses() == 0 && reopened.getDiskHits() == periods);
+
+        PayrollCache csvCache = new PayrollCache(dir.resolve("csv-summaries").toString(), 8);
+        check("cache: CSV source without content hashes",
+                same(expected, csvCache.calculateWorkedHours(employees, TimeEntrySource.csv(csv), start, end)));
+    }
+
+    /**
+     * A correction row for an employee and date that already has one must replace it the same
+     * way whether the file is followed (IncrementalPayroll) or aggregated in one batch.
+     */
+    private static void checkFollowMatchesBatch(Path dir) throws IOException {
+        Path csvPath = copyTimeEntries(dir);
+        String csv = csvPath.toString();
+        LocalDate start = LocalDate.of(2024, 1, 1), end = LocalDate.of(2024, 12, 31);
+        PayrollPeriod.Frequency monthly = PayrollPeriod.Frequency.MONTHLY;
+
+        IncrementalPayroll follow = new IncrementalPayroll(employees, csv, start, end, monthly);
+        follow.refresh();
+        int originalKeys = follow.getMonthlySummaries().size();
+        long originalMinutes = totalWorkMinutes(follow.getMonthlySummaries()); // the summaries change in place
+
+        // Append a correction of a row in the middle of the file, as a terminal re-send would
+        List<String> lines = Files.readAllLines(csvPath, StandardCharsets.UTF_8);
+        String correction = withLaterClockOut(lines.get(rowToEdit(lines)));
+        Files.write(csvPath, (correction + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        System.out.println("  correction row: " + correction);
+        follow.refresh();
+        Map<String, MonthlySummary> followed = follow.getMonthlySummaries();
+
+        check("follow: correction replaces the row it corrects", followed.size() == originalKeys
+                && totalWorkMinutes(followed) == originalMinutes + 60);
+        check("follow: followed file matches a batch CSV run", same(followed, csvSummaries(csv, start, end)));
+        IncrementalPayroll fromScratch = new IncrementalPayroll(employees, csv, start, end, monthly);
+        fromScratch.refresh();
+        check("follow: followed file matches a fresh follow", same(followed, fromScratch.getMonthlySummaries()));
+
+        TimeEntryStore store = TimeEntryStore.open(csv, dir.resolve("time-entries.bin").toString());
+        check("follow: followed file matches a batch store run", store != null
+                && same(followed, MonthlySummary.calculateWorkedHours(employees, store, start, end, monthly)));
+        TimeEntryTable table = TimeEntryTable.load(TimeEntrySource.csv(csv), start, end);
+        check("follow: followed file matches a batch table run",
+                same(followed, MonthlySummary.calculateWorkedHours(employees, table, start, end, monthly)));
+        check("follow: followed file matches a cached run", same(followed,
+                new PayrollCache(dir.resolve("summaries").toString(), 8).calculateWorkedHours(employees, store, start, end)));
+
+        String empId = correction.split(",", -1)[0];
+        Map<String, MonthlySummary> employeeFollowed = new HashMap<>(followed);
+        employeeFollowed.keySet().removeIf(key -> !key.startsWith(empId + "-"));
+        TimeEntryIndex index = TimeEntryIndex.load(TimeEntrySource.csv(csv), start, end);
+        check("follow: followed file matches an indexed employee lookup", same(employeeFollowed,
+                MonthlySummary.calculateWorkedHours(employees, index, empId, start, end, monthly)));
+    }
+
+    /**
+     * Sorting by date keeps the summaries, a date range ending before it starts selects no rows,
+     * and tables never share a version.
+     */
+    private static void checkTableRanges(Path dir) throws IOException {
+        // Rows grouped by employee (stable, so repeated punches keep their order) are out of date order
+        Path csv = copyTimeEntries(dir);
+        List<String> lines = new ArrayList<>(Files.readAllLines(csv, StandardCharsets.UTF_8));
+        lines.subList(1, lines.size()).sort(Comparator.comparing(line -> line.substring(0, line.indexOf(','))));
+        writeLines(csv, lines);
+        TimeEntryTable byEmployee = TimeEntryTable.load(csv.toString());
+        boolean wasSorted = byEmployee.isSortedByDate();
+        byEmployee.sortByDate();
+        LocalDate start = LocalDate.of(2024, 1, 1), end = LocalDate.of(2024, 12, 31);
+        check("table: sorting by date keeps the summaries", !wasSorted && byEmployee.isSortedByDate()
+                && same(csvSummaries(csv.toString(), start, end),
+                        MonthlySummary.calculateWorkedHours(employees, byEmployee, start, end)));
+
+        TimeEntryTable table = TimeEntryTable.load(DATA_DIR + "/EmployeeTimeEntries.csv");
+        table.sortByDate();
+        LocalDate june = LocalDate.of(2024, 6, 1), may = LocalDate.of(2024, 5, 31);
+
+        TimeEntryTable inverted = table.filter(june, may);
+        check("table: inverted range filters to no rows", inverted.size() == 0 && !inverted.cursor().next());
+        check("table: inverted range cursor has no rows", !table.cursor(june, may).next());
+        check("table: one-day range", table.filter(june, june).size() == table.filter(june, june.plusDays(1)).size()
+                - table.filter(june.plusDays(1), june.plusDays(1)).size());
+
+        Set<Long> versions = new HashSet<>();
+        for (int i = 0; i < 1000; i++) versions.add(new TimeEntryTable().getVersion());
+        check("table: empty tables have distinct versions", versions.size() == 1000);
+    }
+
+    /**
+     * The server's indexed employee queries must match the batch summaries, before and after
+     * the time entries file changes.
+     */
+    private static void checkServerFollowsSource(Path dir) throws IOException {
+        Path csvPath = copyTimeEntries(dir);
+        String csv = csvPath.toString();
+        LocalDate start = LocalDate.of(2024, 6, 1), end = LocalDate.of(2024, 9, 30);
+        List<String> lines = Files.readAllLines(csvPath, StandardCharsets.UTF_8);
+        String correction = withLaterClockOut(lines.get(rowToEdit(lines)));
+        String empId = correction.split(",", -1)[0];
+
+        PayrollServer server = new PayrollServer(employees, Map.of(), TimeEntrySource.csv(csv),
+                                                 new PayrollCache(dir.resolve("summaries").toString(), 8));
+        InetSocketAddress address = server.start(0);
+        try {
+            String url = "http://127.0.0.1:" + address.getPort() + "/summary?empId=" + empId
+                         + "&start=" + start + "&end=" + end;
+            check("server: summary matches the batch run", get(url).equals(summaryReports(csv, empId, start, end)));
+
+            long modified = Files.getLastModifiedTime(csvPath).toMillis();
+            Files.write(csvPath, (correction + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            csvPath.toFile().setLastModified(modified + 2000L);
+            check("server: summary follows an appended correction", get(url).equals(summaryReports(csv, empId, start, end)));
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * A what-if scenario changes only what it sets: employees whose rule book row differs from
+     * the defaults keep their own premiums under a raise.
+     */
+    private static void checkScenarioKeepsRuleBook(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path book = dir.resolve("PayRuleBook.csv");
+        writeLines(book, List.of(
+                "Status,Position,Grace Period End,Lunch Minutes,Regular Hours,Overtime After Hours,Overtime,Rest Day,"
+                + "Regular Holiday,Regular Holiday Rest Day,Special Holiday",
+                "Regular,*,9:00,60,8,8.5,1.50,1.75,2.50,3.00,1.50"));
+        PayRuleBook previous = PayRuleBook.getDefault();
+        PayRuleBook.setDefault(PayRuleBook.load(book.toString()));
+        try {
+            String csv = DATA_DIR + "/EmployeeTimeEntries.csv";
+            Map<String, MonthlySummary> summaries = csvSummaries(csv, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 8, 31));
+            PayRules unchanged = PayRules.DEFAULT.withName("No change");
+            PayRules raise = PayRules.DEFAULT.withName("Raise 5%").withRaise(500);
+
+            boolean bookRows = false, sameAsPayroll = true, raiseKeepsPremiums = true;
+            for (MonthlySummary summary : summaries.values()) {
+                PayRules own = summary.getRules();
+                bookRows |= own.getOvertimePercent() == 150 && own.getHolidayPercent(HolidayCalendar.REGULAR_HOLIDAY) == 250;
+
+                PayrollResult payroll = PayrollResult.calculate(summary, Map.of());
+                PayrollResult simulated = PayrollResult.simulate(summary, Map.of(), unchanged);
+                sameAsPayroll &= simulated.getGrossIncomeCentavos() == payroll.getGrossIncomeCentavos()
+                                 && simulated.getNetPayCentavos() == payroll.getNetPayCentavos();
+
+                PayrollResult raised = PayrollResult.simulate(summary, Map.of(), raise);
+                PayrollResult expected = PayrollResult.simulate(summary, Map.of(), own.withRaise(500));
+                raiseKeepsPremiums &= raised.getGrossIncomeCentavos() == expected.getGrossIncomeCentavos()
+                                      && raised.getNetPayCentavos() == expected.getNetPayCentavos();
+            }
+            check("scenario: rule book row differs from the defaults", bookRows);
+            check("scenario: blank scenario equals the payroll", sameAsPayroll);
+            check("scenario: raise keeps each employee's own premiums", raiseKeepsPremiums);
+
+            PayrollSimulator simulator = new PayrollSimulator(summaries, Map.of());
+            long payrollGross = 0L;
+            for (MonthlySummary summary : summaries.values()) {
+                payrollGross += PayrollResult.calculate(summary, Map.of()).getGrossIncomeCentavos();
+            }
+            check("scenario: baseline equals the payroll", simulator.getBaseline().getGrossCentavos() == payrollGross);
+        } finally {
+            PayRuleBook.setDefault(previous);
+        }
+    }
+
+    /**
+     * Deduction tables, pay rules and cached summaries come from the repository directory
+     * given, not from the working directory.
+     */
+    private static void checkRepositoryFiles(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        CsvPayrollRepository repository = new CsvPayrollRepository(dir.toString(), dir.resolve("data/entries.bin").toString());
+        check("repository: no tables without the file", repository.loadDeductionSchedules().isEmpty());
+        check("repository: no rule book without the file", repository.loadRuleBook() == null);
+        check("repository: cache beside the store", Paths.get(repository.getCacheDirectory())
+                .equals(dir.resolve("data/cache").toAbsolutePath()));
+
+        Files.copy(Paths.get(DATA_DIR, CsvPayrollRepository.DEDUCTION_TABLES_FILE),
+                dir.resolve(CsvPayrollRepository.DEDUCTION_TABLES_FILE));
+        writeLines(dir.resolve(CsvPayrollRepository.RULE_BOOK_FILE), List.of(
+                "Status,Position,Grace Period End,Lunch Minutes,Regular Hours,Overtime After Hours,Overtime,Rest Day,"
+                + "Regular Holiday,Regular Holiday Rest Day,Special Holiday",
+                "Regular,*,9:00,60,8,8.5,1.50,1.75,2.50,3.00,1.50"));
+        List<DeductionSchedule> bundled = GovernmentDeductions.readSchedules(DATA_DIR + "/" + CsvPayrollRepository.DEDUCTION_TABLES_FILE);
+        check("repository: tables read from its directory", repository.loadDeductionSchedules().size() == bundled.size());
+        PayRuleBook book = repository.loadRuleBook();
+        check("repository: rule book read from its directory", book != null && book.size() == 1);
+    }
+
+    /**
+     * Shards far smaller than a row, cut mid-line and mid-file, must give the same summaries
+     * as one read of the files, including a file whose last row has no newline.
+     */
+    private static void checkTinyShards(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        String csv = DATA_DIR + "/EmployeeTimeEntries.csv";
+        List<String> lines = Files.readAllLines(Paths.get(csv), StandardCharsets.UTF_8);
+        String header = lines.get(0);
+        int third = (lines.size() - 1) / 3;
+
+        // The same rows in three files, read in name order; b.csv ends without a newline
+        List<String> a = new ArrayList<>(lines.subList(0, 1 + third));
+        List<String> b = new ArrayList<>(List.of(header));
+        b.addAll(lines.subList(1 + third, 1 + 2 * third));
+        List<String> c = new ArrayList<>(List.of(header));
+        c.addAll(lines.subList(1 + 2 * third, lines.size()));
+        writeLines(dir.resolve("a.csv"), a);
+        Files.write(dir.resolve("b.csv"), String.join("\n", b).getBytes(StandardCharsets.UTF_8));
+        writeLines(dir.resolve("c.csv"), c);
+        List<File> files = List.of(dir.resolve("a.csv").toFile(), dir.resolve("b.csv").toFile(), dir.resolve("c.csv").toFile());
+
+        LocalDate start = LocalDate.of(2024, 1, 1), end = LocalDate.of(2024, 12, 31);
+        Map<String, MonthlySummary> expected = csvSummaries(csv, start, end);
+        for (long shardBytes : new long[] {1, 7, 50, 333, 4096}) {
+            TimeEntryShards shards = new TimeEntryShards(files, HolidayCalendar.getDefault(), shardBytes);
+            check("shards: " + shardBytes + "-byte shards match one read", same(expected,
+                    MonthlySummary.calculateWorkedHours(employees, shards, start, end)));
+        }
+    }
+
+    /**
+     * Posting a period again replaces its figures, and a ledger whose last record was torn
+     * reopens with every whole record and nothing of the torn one.
+     */
+    private static void checkLedgerRecovery(Path dir) throws IOException {
+        String csv = DATA_DIR + "/EmployeeTimeEntries.csv";
+        List<PayrollResult> june = new ArrayList<>(PayrollBatch.calculateAll(
+                csvSummaries(csv, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30)), Map.of()).values());
+        List<PayrollResult> july = new ArrayList<>(PayrollBatch.calculateAll(
+                csvSummaries(csv, LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 31)), Map.of()).values());
+        Set<String> empIds = new TreeSet<>();
+        for (PayrollResult result : june) empIds.add(result.getEmployee().getEmpId());
+        for (PayrollResult result : july) empIds.add(result.getEmployee().getEmpId());
+
+        // The expected ledger: June and July, each posted once, without July's last result
+        List<PayrollResult> withoutLast = new ArrayList<>(july.subList(0, july.size() - 1));
+        try (YtdLedger once = YtdLedger.open(dir.resolve("once").toString(), 2024);
+             YtdLedger full = YtdLedger.open(dir.resolve("full").toString(), 2024)) {
+            once.post(june);
+            once.post(withoutLast);
+            full.post(june);
+            full.post(july);
+
+            String ledgerDir = dir.resolve("reposted").toString();
+            try (YtdLedger ledger = YtdLedger.open(ledgerDir, 2024)) {
+                ledger.post(june);
+                ledger.post(june);
+                ledger.post(withoutLast);
+                ledger.post(withoutLast);
+                check("ledger: re-posted periods replace their figures", sameTotals(once, ledger, empIds));
+            }
+            try (YtdLedger reopened = YtdLedger.open(ledgerDir, 2024)) {
+                check("ledger: re-posted periods replace their figures after reopening", sameTotals(once, reopened, empIds));
+                reopened.post(july.subList(july.size() - 1, july.size()));
+            }
+
+            // Cut the last record in half, as a crash while appending would
+            Path file = dir.resolve("reposted").resolve("ytd-2024.ledger");
+            long length = Files.size(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(length - 30);
+            }
+            long recordsBefore;
+            try (YtdLedger torn = YtdLedger.open(ledgerDir, 2024)) {
+                check("ledger: torn record is dropped on reopen", sameTotals(once, torn, empIds));
+                recordsBefore = torn.getRecordCount();
+                torn.post(july.subList(july.size() - 1, july.size()));
+                check("ledger: torn record can be posted again", sameTotals(full, torn, empIds));
+            }
+            try (YtdLedger reopened = YtdLedger.open(ledgerDir, 2024)) {
+                check("ledger: reopens whole after the repair", sameTotals(full, reopened, empIds)
+                        && reopened.getRecordCount() == recordsBefore + 1);
+            }
+        }
+    }
+
+    private static boolean sameTotals(YtdLedger expected, YtdLedger actual, Set<String> empIds) {
+        for (String empId : empIds) {
+            YtdTotals want = expected.getTotals(empId), got = actual.getTotals(empId);
+            if (want == null || got == null) {
+                if (want != got) return false;
+                continue;
+            }
+            if (want.getPeriodCount() != got.getPeriodCount()) return false;
+            for (int field = 0; field < YtdTotals.FIELDS; field++) {
+                if (want.getCentavos(field) != got.getCentavos(field)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static String summaryReports(String csv, String empId, LocalDate start, LocalDate end) {
+        Map<String, MonthlySummary> summaries = csvSummaries(csv, start, end);
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(text, true, StandardCharsets.UTF_8);
+        for (PayrollPeriod period : PayrollPeriod.split(PayrollPeriod.Frequency.MONTHLY, start, end)) {
+            MonthlySummary summary = summaries.get(empId + "-" + period.getKey());
+            if (summary != null) MotorPHPayrollG3.printSummaryReport(summary, out);
+        }
+        return text.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String get(String url) throws IOException {
+        try (InputStream in = URI.create(url).toURL().openStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Moves the clock out of a row near the middle of the file one hour later (e.g., 5:02 PM
+     * to 6:02 PM), keeping the file length, and moves its last-modified time forward.
+     *
+     * @return The edited row as it now reads
+     */
+    static String editMiddleRowSameLength(Path csv) throws IOException {
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        int row = rowToEdit(lines);
+        lines.set(row, withLaterClockOut(lines.get(row)));
+        long length = Files.size(csv), modified = Files.getLastModifiedTime(csv).toMillis();
+        writeLines(csv, lines);
+        if (Files.size(csv) != length) throw new IllegalStateException("edit changed the file length");
+        csv.toFile().setLastModified(modified + 2000L); // coarse file system clocks
+        return lines.get(row);
+    }
+
+    /**
+     * Finds a row near the middle of the file whose clock out can be moved an hour later
+     * without changing the line length.
+     */
+    static int rowToEdit(List<String> lines) {
+        for (int i = lines.size() / 2; i < lines.size(); i++) {
+            String[] fields = lines.get(i).split(",", -1);
+            if (fields.length >= 4 && fields[3].matches("[1-8]:\\d\\d PM")) return i;
+        }
+        throw new IllegalStateException("no row to edit");
+    }
+
+    static String withLaterClockOut(String line) {
+        String[] fields = line.split(",", -1);
+        fields[3] = (char) (fields[3].charAt(0) + 1) + fields[3].substring(1);
+        return String.join(",", fields);
+    }
+
+    static Path copyTimeEntries(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path csv = dir.resolve("EmployeeTimeEntries.csv");
+        Files.copy(Paths.get(DATA_DIR, "EmployeeTimeEntries.csv"), csv, StandardCopyOption.REPLACE_EXISTING);
+        return csv;
+    }
+
+    static void writeLines(Path file, List<String> lines) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) text.append(line).append('\n');
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Map<String, MonthlySummary> csvSummaries(String csv, LocalDate start, LocalDate end) {
+        return MonthlySummary.calculateWorkedHours(employees, TimeEntrySource.csv(csv), start, end);
+    }
+
+    /**
+     * Compares two sets of summaries by their full breakdown reports.
+     */
+    static boolean same(Map<String, MonthlySummary> expected, Map<String, MonthlySummary> actual) {
+        if (!expected.keySet().equals(actual.keySet())) {
+            System.out.println("  keys differ: " + expected.size() + " expected, " + actual.size() + " actual");
+            return false;
+        }
+        for (Map.Entry<String, MonthlySummary> entry : expected.entrySet()) {
+            MonthlySummary other = actual.get(entry.getKey());
+            if (!entry.getValue().generateFullBreakdownReport().equals(other.generateFullBreakdownReport())) {
+                System.out.println("  " + entry.getKey() + " differs: " + entry.getValue().getTotalWorkMinutes()
+                                   + " min expected, " + other.getTotalWorkMinutes() + " min actual");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long totalWorkMinutes(Map<String, MonthlySummary> summaries) {
+        long minutes = 0L;
+        for (MonthlySummary summary : summaries.values()) minutes += summary.getTotalWorkMinutes();
+        return minutes;
+    }
+
+    static void check(String name, boolean passed) {
+        System.out.println((passed ? "[ok]   " : "[FAIL] ") + name);
+        if (!passed) failures++;
+    }
+
+    private static boolean selected(String group) {
+        return filter.isEmpty() || group.contains(filter);
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (java.util.stream.Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
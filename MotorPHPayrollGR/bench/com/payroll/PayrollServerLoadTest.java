@@ -0,0 +1,129 @@
+package com.payroll;
+
+import java.io.*;
+import java.net.*;
+import java.net.http.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PayrollServerLoadTest - Hammers the payroll HTTP API with concurrent payslip and summary queries.
+ *
+ * Starts a {@link PayrollServer} in-process over synthetic data (or targets a running server),
+ * then runs a number of clients on virtual threads, each sending requests back to back for
+ * random employees and periods. Prints throughput, latency percentiles and error counts.
+ *
+ * Usage: PayrollServerLoadTest [EMPLOYEES] [DATA_DIR] [SERVER_URL]
+ *  System properties: loadtest.clients (default 64), loadtest.seconds (default 10)
+ */
+public class PayrollServerLoadTest {
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 64);
+    private static final int SECONDS = Integer.getInteger("loadtest.seconds", 10);
+    private static final String[] PERIODS = { "start=2024-06-01&end=2024-06-15", "start=2024-06-01&end=2024-06-30" };
+
+    public static void main(String[] args) throws Exception {
+        int employeeCount = (args.length > 0) ? Integer.parseInt(args[0]) : 10_000;
+        File dataDir = new File((args.length > 1) ? args[1] : "build/bench/data", String.valueOf(employeeCount));
+        String baseUrl = (args.length > 2 && !args[2].isEmpty()) ? args[2] : null;
+
+        PayrollServer server = null;
+        List<String> empIds;
+        if (baseUrl == null) {
+            File employeeFile = new File(dataDir, "EmployeeData.csv");
+            File timeEntryFile = new File(dataDir, "EmployeeTimeEntries.csv");
+            if (!employeeFile.exists() || !timeEntryFile.exists()) {
+                System.out.println("Generating synthetic data for " + employeeCount + " employees in " + dataDir);
+                SyntheticDataGenerator.generate(employeeCount, dataDir, YearMonth.of(2024, 6), 1);
+            }
+
+            HolidayCalendar.loadHolidaysFromCSV("src/com/payroll/HolidayCalendar.csv");
+            EmployeeRoster roster = EmployeeRoster.load(employeeFile.getPath());
+            Map<String, EmployeeData> employees = roster.getEmployees();
+            Map<String, DeMinimisBenefits> benefits = roster.getBenefits();
+            TimeEntryStore store = TimeEntryStore.open(timeEntryFile.getPath(), new File(dataDir, "EmployeeTimeEntries.bin").getPath());
+            TimeEntrySource timeEntries = (store != null) ? store : TimeEntrySource.csv(timeEntryFile.getPath());
+
+            server = new PayrollServer(employees, benefits, timeEntries,
+                    new PayrollCache(new File(dataDir, "cache").getPath(), 64));
+            InetSocketAddress address = server.start(0);
+            baseUrl = "http://" + address.getHostString() + ":" + address.getPort();
+            empIds = new ArrayList<>(employees.keySet());
+        } else {
+            empIds = new ArrayList<>();
+            for (int i = 0; i < employeeCount; i++) empIds.add(String.valueOf(10001 + i));
+        }
+
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        for (String period : PERIODS) {
+            send(client, baseUrl + "/payslip?empId=" + empIds.get(0) + "&" + period); // Warm the summary cache
+        }
+
+        System.out.printf("Server: %s | Employees: %,d | Clients: %d | Duration: %d s%n",
+                baseUrl, empIds.size(), CLIENTS, SECONDS);
+
+        String target = baseUrl;
+        long deadline = System.nanoTime() + SECONDS * 1_000_000_000L;
+        AtomicLong errors = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>();
+        List<Future<Integer>> counts = new ArrayList<>();
+
+        long started = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                long[] clientLatencies = new long[1 << 16];
+                latencies.add(clientLatencies);
+                Random random = new Random(c);
+                counts.add(clients.submit(() -> {
+                    int requests = 0;
+                    while (System.nanoTime() < deadline) {
+                        String endpoint = random.nextBoolean() ? "/payslip" : "/summary";
+                        String url = target + endpoint + "?empId=" + empIds.get(random.nextInt(empIds.size()))
+                                + "&" + PERIODS[random.nextInt(PERIODS.length)];
+                        long start = System.nanoTime();
+                        if (send(client, url) != 200) errors.incrementAndGet();
+                        if (requests < clientLatencies.length) clientLatencies[requests] = System.nanoTime() - start;
+                        requests++;
+                    }
+                    return requests;
+                }));
+            }
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        int total = 0;
+        List<Long> samples = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            int requests = counts.get(c).get();
+            total += requests;
+            long[] clientLatencies = latencies.get(c);
+            for (int i = 0; i < Math.min(requests, clientLatencies.length); i++) samples.add(clientLatencies[i]);
+        }
+        Collections.sort(samples);
+
+        System.out.printf("Requests: %,d | Errors: %,d | Throughput: %,.0f req/s%n", total, errors.get(), total / elapsed);
+        System.out.printf("Latency ms: p50 %.2f | p95 %.2f | p99 %.2f | max %.2f%n",
+                percentile(samples, 0.50), percentile(samples, 0.95), percentile(samples, 0.99), percentile(samples, 1.0));
+
+        if (server != null) server.stop();
+    }
+
+    private static int send(HttpClient client, String url) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private static double percentile(List<Long> sortedNanos, double fraction) {
+        if (sortedNanos.isEmpty()) return 0;
+        int index = (int) Math.ceil(fraction * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, index)) / 1e6;
+    }
+}
@@ -0,0 +1,144 @@
+package com.payroll;
+
+import java.io.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * SyntheticDataGenerator - Scales the sample employee and time entry CSVs to a large workforce.
+ *
+ * Employee rows are cloned from EmployeeData.csv with new IDs and names, arranged in a
+ * reporting tree with ten direct reports per supervisor. Time entries are generated for
+ * every weekday of the requested months with deterministic pseudo-random log in/out times.
+ *
+ * Usage: SyntheticDataGenerator EMPLOYEES OUTPUT_DIR [FIRST_MONTH (YYYY-MM)] [MONTHS]
+ */
+public class SyntheticDataGenerator {
+    private static final String SAMPLE_EMPLOYEES = "src/com/payroll/EmployeeData.csv";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticDataGenerator EMPLOYEES OUTPUT_DIR [FIRST_MONTH] [MONTHS]");
+            return;
+        }
+        int employees = Integer.parseInt(args[0]);
+        File outputDir = new File(args[1]);
+        YearMonth firstMonth = (args.length > 2) ? YearMonth.parse(args[2]) : YearMonth.of(2024, 6);
+        int months = (args.length > 3) ? Integer.parseInt(args[3]) : 1;
+
+        generate(employees, outputDir, firstMonth, months);
+    }
+
+    /**
+     * Writes EmployeeData.csv and EmployeeTimeEntries.csv for the given workforce size.
+     *
+     * @return The employee CSV path; the time entries CSV is written next to it
+     */
+    public static File generate(int employees, File outputDir, YearMonth firstMonth, int months) throws IOException {
+        outputDir.mkdirs();
+        File employeeFile = new File(outputDir, "EmployeeData.csv");
+        File timeEntryFile = new File(outputDir, "EmployeeTimeEntries.csv");
+
+        List<String[]> samples = new ArrayList<>();
+        String header;
+        try (BufferedReader br = new BufferedReader(new FileReader(SAMPLE_EMPLOYEES))) {
+            header = br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                samples.add(splitQuoted(line));
+            }
+        }
+
+        String[] firstNames = new String[employees];
+        String[] lastNames = new String[employees];
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(employeeFile), 1 << 16)) {
+            out.write(header);
+            out.newLine();
+            for (int i = 0; i < employees; i++) {
+                String[] row = samples.get(i % samples.size()).clone();
+                firstNames[i] = row[1] + " " + i;
+                lastNames[i] = row[2];
+                row[0] = String.valueOf(10001 + i);
+                row[1] = firstNames[i];
+                row[17] = (i == 0) ? "N/A" : lastNames[(i - 1) / 10] + ", " + firstNames[(i - 1) / 10];
+                out.write(joinQuoted(row));
+                out.newLine();
+            }
+        }
+
+        Random random = new Random(42);
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(timeEntryFile), 1 << 16)) {
+            out.write("Employee #,Date,Log In,Log Out,First Name,Last Name");
+            out.newLine();
+            LocalDate date = firstMonth.atDay(1);
+            LocalDate end = firstMonth.plusMonths(months).atDay(1);
+            for (; date.isBefore(end); date = date.plusDays(1)) {
+                if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) continue;
+                String day = date.getMonthValue() + "/" + date.getDayOfMonth() + "/" + date.getYear();
+                for (int i = 0; i < employees; i++) {
+                    int logIn = 7 * 60 + 30 + random.nextInt(180);
+                    int logOut = logIn + 8 * 60 + random.nextInt(150);
+                    out.write(String.valueOf(10001 + i));
+                    out.write(',');
+                    out.write(day);
+                    out.write(',');
+                    out.write(formatTime(logIn));
+                    out.write(',');
+                    out.write(formatTime(logOut));
+                    out.write(',');
+                    out.write(quote(firstNames[i]));
+                    out.write(',');
+                    out.write(quote(lastNames[i]));
+                    out.newLine();
+                }
+            }
+        }
+        return employeeFile;
+    }
+
+    private static String formatTime(int minuteOfDay) {
+        int hour = minuteOfDay / 60 % 24;
+        int minute = minuteOfDay % 60;
+        String marker = (hour < 12) ? "AM" : "PM";
+        int displayHour = (hour % 12 == 0) ? 12 : hour % 12;
+        return displayHour + ":" + (minute < 10 ? "0" : "") + minute + " " + marker;
+    }
+
+    private static String[] splitQuoted(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private static String joinQuoted(String[] row) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) line.append(',');
+            line.append(quote(row[i]));
+        }
+        return line.toString();
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
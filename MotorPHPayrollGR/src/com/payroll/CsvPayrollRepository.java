@@ -0,0 +1,172 @@
+package com.payroll;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * CsvPayrollRepository - The payroll data kept as CSV files in one directory.
+ *
+ * Files:
+ *  EmployeeData.csv        - employee master data and de minimis benefits (see {@link EmployeeRoster})
+ *  HolidayCalendar.csv     - national and regional holidays (see {@link HolidayCalendar})
+ *  EmployeeTimeEntries.csv - daily time records (see {@link TimeEntryReader})
+ *  GovernmentDeductionTables.csv - effective-dated contribution and tax tables (optional)
+ *  PayRuleBook.csv         - pay rules by employment status and position (optional)
+ *
+ * Time entries are queried through the date-indexed {@link TimeEntryStore} kept next to the
+ * application data, falling back to parsing the CSV if the store cannot be built. Cached
+ * summaries are kept in a cache directory beside the store. Imported
+ * time entries are appended to the CSV, and the store picks them up on its next open.
+ * Payroll results are not kept in CSV form; posted periods live in the YTD ledger.
+ */
+public class CsvPayrollRepository implements PayrollRepository {
+    public static final String EMPLOYEES_FILE = "EmployeeData.csv";
+    public static final String HOLIDAYS_FILE = "HolidayCalendar.csv";
+    public static final String TIME_ENTRIES_FILE = "EmployeeTimeEntries.csv";
+    public static final String DEDUCTION_TABLES_FILE = "GovernmentDeductionTables.csv";
+    public static final String RULE_BOOK_FILE = "PayRuleBook.csv";
+
+    private final File directory;
+    private final String storeFile;
+
+    /**
+     * Creates a repository over the CSV files in a directory, with the time entry store at
+     * data/EmployeeTimeEntries.bin.
+     *
+     * @param directory Directory holding the CSV files
+     */
+    public CsvPayrollRepository(String directory) {
+        this(directory, "data/EmployeeTimeEntries.bin");
+    }
+
+    /**
+     * Creates a repository over the CSV files in a directory.
+     *
+     * @param directory Directory holding the CSV files
+     * @param storeFile Path of the binary time entry store, or null to always parse the CSV
+     *                  (and keep cached summaries in memory only)
+     */
+    public CsvPayrollRepository(String directory, String storeFile) {
+        this.directory = new File(directory);
+        this.storeFile = storeFile;
+    }
+
+    @Override
+    public EmployeeRoster loadRoster() {
+        return EmployeeRoster.load(new File(directory, EMPLOYEES_FILE).getPath());
+    }
+
+    @Override
+    public HolidayCalendar loadCalendar(String region) {
+        return HolidayCalendar.load(new File(directory, HOLIDAYS_FILE).getPath(), region);
+    }
+
+    /**
+     * Reads GovernmentDeductionTables.csv of the directory; empty if there is none or it cannot be read.
+     */
+    @Override
+    public List<DeductionSchedule> loadDeductionSchedules() {
+        File file = new File(directory, DEDUCTION_TABLES_FILE);
+        if (!file.exists()) {
+            System.err.println("No " + DEDUCTION_TABLES_FILE + " in " + directory + ". Using the bundled tables.");
+            return List.of();
+        }
+        try {
+            return GovernmentDeductions.readSchedules(file.getPath());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error loading deduction tables, using the bundled tables: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Reads PayRuleBook.csv of the directory; null if there is none.
+     */
+    @Override
+    public PayRuleBook loadRuleBook() {
+        File file = new File(directory, RULE_BOOK_FILE);
+        if (!file.exists()) {
+            System.err.println("No " + RULE_BOOK_FILE + " in " + directory + ". Using the default pay rules.");
+            return null;
+        }
+        return PayRuleBook.load(file.getPath());
+    }
+
+    /**
+     * Gets the "cache" directory beside the time entry store, or null if there is no store.
+     */
+    @Override
+    public String getCacheDirectory() {
+        if (storeFile == null) return null;
+        return new File(new File(storeFile).getAbsoluteFile().getParentFile(), "cache").getPath();
+    }
+
+    /**
+     * Returns the time entries, or null if the time entries CSV does not exist.
+     */
+    @Override
+    public TimeEntrySource getTimeEntries(HolidayCalendar calendar) {
+        String csvFile = getTimeEntriesFile();
+        if (!new File(csvFile).exists()) return null;
+
+        // Query the date-indexed time entry store, falling back to the CSV if it cannot be built
+        TimeEntryStore store = (storeFile != null) ? TimeEntryStore.open(csvFile, storeFile, calendar) : null;
+        return (store != null) ? store : TimeEntrySource.csv(csvFile, calendar);
+    }
+
+    /**
+     * Appends the data rows of a time entries CSV file to EmployeeTimeEntries.csv.
+     */
+    @Override
+    public long importTimeEntries(String csvFile, HolidayCalendar calendar) throws IOException {
+        TimeEntryReader reader = new TimeEntryReader(null, null, calendar);
+        if (!reader.read(csvFile, entry -> { })) throw new IOException("Cannot read " + csvFile);
+
+        Path target = Paths.get(getTimeEntriesFile());
+        if (!Files.exists(target)) {
+            Files.copy(Paths.get(csvFile), target);
+            return reader.getRowsAccepted();
+        }
+
+        byte[] bytes = Files.readAllBytes(Paths.get(csvFile));
+        int dataStart = 0;
+        while (dataStart < bytes.length && bytes[dataStart++] != '\n') { } // Skip header row
+        if (dataStart >= bytes.length) return 0L;
+
+        try (OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (!endsWithLineBreak(target)) out.write('\n');
+            out.write(bytes, dataStart, bytes.length - dataStart);
+            if (bytes[bytes.length - 1] != '\n') out.write('\n');
+        }
+        return reader.getRowsAccepted();
+    }
+
+    /**
+     * Does nothing: CSV payroll results are kept only by posting them to the YTD ledger.
+     */
+    @Override
+    public void saveResults(Collection<PayrollResult> results, LocalDate startDate, LocalDate endDate) {
+    }
+
+    /**
+     * Gets the path of the time entries CSV file.
+     */
+    public String getTimeEntriesFile() {
+        return new File(directory, TIME_ENTRIES_FILE).getPath();
+    }
+
+    private static boolean endsWithLineBreak(Path file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file.toFile(), "r")) {
+            if (in.length() == 0) return true;
+            in.seek(in.length() - 1);
+            return in.read() == '\n';
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,122 @@
+package com.payroll;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * CsvReader - Streams records from RFC 4180 CSV text.
+ *
+ * Fields may be enclosed in double quotes, in which case they can contain commas, line
+ * breaks and doubled quotes ("") standing for a literal quote; e.g., "90,000" is read as
+ * the single field 90,000. Records end at LF or CRLF, and blank lines are skipped. Fields
+ * are returned as read, without trimming.
+ */
+public class CsvReader implements Closeable {
+    private final Reader in;
+    private final char[] buffer = new char[64 * 1024];
+    private int position = 0;
+    private int limit = 0;
+
+    private final StringBuilder field = new StringBuilder(64);
+    private final List<String> fields = new ArrayList<>();
+    private long recordNumber = 0;
+
+    /**
+     * Creates a reader over CSV text.
+     *
+     * @param in Source of the CSV text; closed by {@link #close()}
+     */
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Opens a CSV file for reading.
+     *
+     * @param filePath Path to the CSV file
+     */
+    public CsvReader(String filePath) throws FileNotFoundException {
+        this(new FileReader(filePath));
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The record's fields, or null at the end of the input
+     */
+    public String[] readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean started = false;
+
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (!started) return null;
+                break; // Last record without a line break (an unterminated quote ends here too)
+            }
+
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                started = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                started = true;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') read();
+                if (!started) continue; // Blank line
+                break;
+            } else {
+                field.append((char) c);
+                started = true;
+            }
+        }
+
+        fields.add(field.toString());
+        recordNumber++;
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Gets the number of records read so far, including the header.
+     *
+     * @return Records read
+     */
+    public long getRecordNumber() { return recordNumber; }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int count = in.read(buffer, 0, buffer.length);
+        if (count <= 0) return false;
+        position = 0;
+        limit = count;
+        return true;
+    }
+}
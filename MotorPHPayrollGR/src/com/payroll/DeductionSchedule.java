@@ -0,0 +1,121 @@
+package com.payroll;
+
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * DeductionSchedule - The government contribution and tax tables in effect from a given date.
+ *
+ * Schedules are immutable once built, so one instance can be shared by every thread
+ * computing payroll for the period it covers.
+ */
+public final class DeductionSchedule {
+    public static final String SSS = "SSS";
+    public static final String PHILHEALTH = "PHILHEALTH";
+    public static final String PAGIBIG = "PAGIBIG";
+    public static final String BIR = "BIR";
+    public static final String BIR_ANNUAL = "BIR_ANNUAL";
+
+    private final LocalDate effectiveDate;
+    private final Map<String, RateTable> tables;
+    private final RateTable sss;
+    private final RateTable philHealth;
+    private final RateTable pagibig;
+    private final RateTable bir;
+    private final RateTable birAnnual;
+
+    /**
+     * Creates a schedule from its named tables; SSS, PHILHEALTH, PAGIBIG and BIR are required,
+     * BIR_ANNUAL (the annual tax table used at year end) is optional.
+     *
+     * @param effectiveDate First date the schedule applies to
+     * @param tables        Rate tables by name
+     */
+    public DeductionSchedule(LocalDate effectiveDate, Map<String, RateTable> tables) {
+        for (String required : new String[] { SSS, PHILHEALTH, PAGIBIG, BIR }) {
+            if (!tables.containsKey(required)) {
+                throw new IllegalArgumentException("Schedule effective " + effectiveDate + " has no " + required + " table");
+            }
+        }
+        this.effectiveDate = effectiveDate;
+        this.tables = Collections.unmodifiableMap(new HashMap<>(tables));
+        this.sss = tables.get(SSS);
+        this.philHealth = tables.get(PHILHEALTH);
+        this.pagibig = tables.get(PAGIBIG);
+        this.bir = tables.get(BIR);
+        this.birAnnual = tables.get(BIR_ANNUAL);
+    }
+
+    /**
+     * Gets the first date the schedule applies to.
+     *
+     * @return Effective date
+     */
+    public LocalDate getEffectiveDate() { return effectiveDate; }
+
+    /**
+     * Gets a table by name.
+     *
+     * @param name Table name
+     * @return The table, or null if the schedule does not define it
+     */
+    public RateTable getTable(String name) { return tables.get(name); }
+
+    /**
+     * Calculates the monthly SSS contribution for a basic salary.
+     */
+    public float calculateSSS(float basicSalary) { return sss.evaluate(basicSalary); }
+
+    /**
+     * Calculates the monthly PhilHealth contribution (employee share) for a gross income.
+     */
+    public float calculatePhilHealth(float grossIncome) { return philHealth.evaluate(grossIncome); }
+
+    /**
+     * Calculates the monthly Pag-IBIG contribution for a gross income.
+     */
+    public float calculatePagibig(float grossIncome) { return pagibig.evaluate(grossIncome); }
+
+    /**
+     * Calculates the monthly BIR withholding tax for a taxable income.
+     */
+    public float calculateBIR(float taxableIncome) { return bir.evaluate(taxableIncome); }
+
+    /**
+     * Calculates the annual income tax due on a year's taxable compensation. Without a
+     * BIR_ANNUAL table the monthly table is applied to the monthly average and multiplied by 12.
+     */
+    public float calculateAnnualBIR(float annualTaxableIncome) {
+        return (float) Money.toPesos(calculateAnnualBIRCentavos(Money.ofPesos(annualTaxableIncome)));
+    }
+
+    /**
+     * Calculates the monthly SSS contribution for a basic salary, in centavos.
+     */
+    public long calculateSSSCentavos(long basicSalary) { return sss.evaluateCentavos(basicSalary); }
+
+    /**
+     * Calculates the monthly PhilHealth contribution (employee share) for a gross income, in centavos.
+     */
+    public long calculatePhilHealthCentavos(long grossIncome) { return philHealth.evaluateCentavos(grossIncome); }
+
+    /**
+     * Calculates the monthly Pag-IBIG contribution for a gross income, in centavos.
+     */
+    public long calculatePagibigCentavos(long grossIncome) { return pagibig.evaluateCentavos(grossIncome); }
+
+    /**
+     * Calculates the monthly BIR withholding tax for a taxable income, in centavos.
+     */
+    public long calculateBIRCentavos(long taxableIncome) { return bir.evaluateCentavos(taxableIncome); }
+
+    /**
+     * Calculates the annual income tax due on a year's taxable compensation, in centavos.
+     */
+    public long calculateAnnualBIRCentavos(long annualTaxableIncome) {
+        if (birAnnual != null) return birAnnual.evaluateCentavos(annualTaxableIncome);
+        long monthly = Money.multiplyDivide(annualTaxableIncome, 1, 12, RoundingMode.HALF_UP);
+        return bir.evaluateCentavos(monthly) * 12;
+    }
+}
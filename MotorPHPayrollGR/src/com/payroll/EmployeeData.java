@@ -1,22 +1,45 @@
 package com.payroll;
 
-import java.io.*;
 import java.util.*;
 
 /**
  * EmployeeData - Represents an employee's personal and payroll-related information.
- * This class provides access to employee identity, job details, pay rates, and basic salary.
- * It also includes logic for parsing employee records from a structured CSV file.
+ * This class provides access to employee identity, job details, pay rates, allowances,
+ * government IDs and reporting line. Records are parsed from the employee CSV file by
+ * {@link EmployeeRoster}.
  */
 public class EmployeeData {
     private final String empId;       // Employee ID
     private final String name;        // Full name (First Name + Last Name)
+    private final String firstName;
+    private final String lastName;
     private final String dob;         // Date of Birth
     private final float hourlyRate;   // Hourly rate of the employee
     private final float basicSalary;  // Basic monthly salary (from CSV Column K)
+    private final float semiMonthlyRate; // Gross semi-monthly rate (from CSV Column S)
     private String status;            // Employment status (e.g., Regular, Contractual)
     private String position;          // Employee job position or title
 
+    private final float riceSubsidy;
+    private final float phoneAllowance;
+    private final float clothingAllowance;
+
+    private final String address;
+    private final String phoneNumber;
+    private final String sssNumber;
+    private final String philHealthNumber;
+    private final String tinNumber;
+    private final String pagibigNumber;
+    private final String supervisor;  // Immediate supervisor as "Last Name, First Name", or "N/A"
+
+    // The pay rates and allowances in centavos, used by the payroll math (see Money)
+    private final long hourlyRateCentavos;
+    private final long basicSalaryCentavos;
+    private final long semiMonthlyRateCentavos;
+    private final long riceSubsidyCentavos;
+    private final long phoneAllowanceCentavos;
+    private final long clothingAllowanceCentavos;
+
     /**
      * Constructs an EmployeeData object with the specified employee details.
      *
@@ -30,13 +53,79 @@ public class EmployeeData {
      */
     public EmployeeData(String empId, String name, String dob, float hourlyRate,
                         float basicSalary, String status, String position) {
+        this(empId, name, "", dob, hourlyRate, basicSalary, basicSalary / 2f, status, position,
+             0f, 0f, 0f, "", "", "", "", "", "", "N/A");
+    }
+
+    /**
+     * Constructs an EmployeeData object with the full employee record.
+     *
+     * @param empId             Unique employee identifier
+     * @param firstName         First name
+     * @param lastName          Last name
+     * @param dob               Date of birth in string format
+     * @param hourlyRate        Hourly pay rate of the employee
+     * @param basicSalary       Fixed monthly basic salary
+     * @param semiMonthlyRate   Gross semi-monthly rate
+     * @param status            Employment status (e.g., Regular, Probationary)
+     * @param position          Job title or designation
+     * @param riceSubsidy       Monthly rice subsidy
+     * @param phoneAllowance    Monthly phone allowance
+     * @param clothingAllowance Monthly clothing allowance
+     * @param address           Home address
+     * @param phoneNumber       Contact number
+     * @param sssNumber         SSS number
+     * @param philHealthNumber  PhilHealth number
+     * @param tinNumber         BIR tax identification number
+     * @param pagibigNumber     Pag-IBIG number
+     * @param supervisor        Immediate supervisor as "Last Name, First Name", or "N/A"
+     */
+    public EmployeeData(String empId, String firstName, String lastName, String dob, float hourlyRate,
+                        float basicSalary, float semiMonthlyRate, String status, String position,
+                        float riceSubsidy, float phoneAllowance, float clothingAllowance,
+                        String address, String phoneNumber, String sssNumber, String philHealthNumber,
+                        String tinNumber, String pagibigNumber, String supervisor) {
+        this(empId, firstName, lastName, dob, Money.ofPesos(hourlyRate), Money.ofPesos(basicSalary),
+             Money.ofPesos(semiMonthlyRate), status, position, Money.ofPesos(riceSubsidy), Money.ofPesos(phoneAllowance),
+             Money.ofPesos(clothingAllowance), address, phoneNumber, sssNumber, philHealthNumber, tinNumber,
+             pagibigNumber, supervisor);
+    }
+
+    /**
+     * Constructs an EmployeeData object from a full employee record with amounts in centavos,
+     * as parsed from the CSV without going through float.
+     */
+    EmployeeData(String empId, String firstName, String lastName, String dob, long hourlyRate,
+                 long basicSalary, long semiMonthlyRate, String status, String position,
+                 long riceSubsidy, long phoneAllowance, long clothingAllowance,
+                 String address, String phoneNumber, String sssNumber, String philHealthNumber,
+                 String tinNumber, String pagibigNumber, String supervisor) {
         this.empId = empId;
-        this.name = name;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.name = lastName.isEmpty() ? firstName : firstName + " " + lastName;
         this.dob = dob;
-        this.hourlyRate = hourlyRate;
-        this.basicSalary = basicSalary;
+        this.hourlyRateCentavos = hourlyRate;
+        this.basicSalaryCentavos = basicSalary;
+        this.semiMonthlyRateCentavos = semiMonthlyRate;
+        this.riceSubsidyCentavos = riceSubsidy;
+        this.phoneAllowanceCentavos = phoneAllowance;
+        this.clothingAllowanceCentavos = clothingAllowance;
+        this.hourlyRate = (float) Money.toPesos(hourlyRate);
+        this.basicSalary = (float) Money.toPesos(basicSalary);
+        this.semiMonthlyRate = (float) Money.toPesos(semiMonthlyRate);
         this.status = status;
         this.position = position;
+        this.riceSubsidy = (float) Money.toPesos(riceSubsidy);
+        this.phoneAllowance = (float) Money.toPesos(phoneAllowance);
+        this.clothingAllowance = (float) Money.toPesos(clothingAllowance);
+        this.address = address;
+        this.phoneNumber = phoneNumber;
+        this.sssNumber = sssNumber;
+        this.philHealthNumber = philHealthNumber;
+        this.tinNumber = tinNumber;
+        this.pagibigNumber = pagibigNumber;
+        this.supervisor = supervisor;
     }
 
     /**
@@ -88,72 +177,51 @@ public class EmployeeData {
      */
     public String getPosition() { return position; }
 
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+
     /**
-     * Loads employee records from a CSV file into a map.
+     * Gets the employee's gross semi-monthly rate.
      *
-     * Expected CSV Format (Column Index):
-     *  0 - Employee ID  
-     *  1 - First Name  
-     *  2 - Last Name  
-     *  3 - Date of Birth  
-     *  4 - Hourly Rate  
-     *  5-6 - (Unused)  
-     *  7 - Employment Status  
-     *  8 - Position/Designation  
-     * 10 - Basic Salary (Column K)
+     * @return Semi-monthly rate
+     */
+    public float getSemiMonthlyRate() { return semiMonthlyRate; }
+
+    public float getRiceSubsidy() { return riceSubsidy; }
+    public float getPhoneAllowance() { return phoneAllowance; }
+    public float getClothingAllowance() { return clothingAllowance; }
+
+    public long getHourlyRateCentavos() { return hourlyRateCentavos; }
+    public long getBasicSalaryCentavos() { return basicSalaryCentavos; }
+    public long getSemiMonthlyRateCentavos() { return semiMonthlyRateCentavos; }
+    public long getRiceSubsidyCentavos() { return riceSubsidyCentavos; }
+    public long getPhoneAllowanceCentavos() { return phoneAllowanceCentavos; }
+    public long getClothingAllowanceCentavos() { return clothingAllowanceCentavos; }
+
+    public String getAddress() { return address; }
+    public String getPhoneNumber() { return phoneNumber; }
+    public String getSssNumber() { return sssNumber; }
+    public String getPhilHealthNumber() { return philHealthNumber; }
+    public String getTinNumber() { return tinNumber; }
+    public String getPagibigNumber() { return pagibigNumber; }
+
+    /**
+     * Gets the employee's immediate supervisor.
      *
-     * @param filePath Path to the employee CSV file
-     * @return A map containing employee IDs as keys and EmployeeData objects as values
+     * @return Supervisor as "Last Name, First Name", or "N/A" for the head of the company
      */
-    public static Map<String, EmployeeData> loadEmployeeData(String filePath) {
-        Map<String, EmployeeData> employees = new HashMap<>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            boolean isHeader = true;
-
-            while ((line = br.readLine()) != null) {
-                if (isHeader) {
-                    isHeader = false; // Skip header row
-                    continue;
-                }
-
-                String[] data = line.split(",");
-
-                // Validate minimum column count (basic salary at index 10)
-                if (data.length >= 11) {
-                    String empId = data[0].trim();
-                    String name = data[1].trim() + " " + data[2].trim();
-                    String dob = data[3].trim();
-                    float hourlyRate = parseFloat(data[4]);
-                    String status = data[8].trim();
-                    String position = data[9].trim();
-                    float basicSalary = parseFloat(data[10]);
-
-                    employees.put(empId, new EmployeeData(empId, name, dob, hourlyRate, basicSalary, status, position));
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading Employee Data file: " + e.getMessage());
-        } catch (NumberFormatException e) {
-            System.err.println("Error parsing numeric values in Employee Data file: " + e.getMessage());
-        }
-
-        return employees;
-    }
+    public String getSupervisor() { return supervisor; }
 
     /**
-     * Converts a string to a float value, removing commas and trimming whitespace.
-     * Returns 0.00 if parsing fails.
+     * Loads employee records from a CSV file into a map.
+     *
+     * See {@link EmployeeRoster} for the expected columns. Use {@link EmployeeRoster#load(String)}
+     * directly when de minimis benefits are needed too, so the file is only read once.
      *
-     * @param value String value to parse
-     * @return Parsed float value or 0.00 on error
+     * @param filePath Path to the employee CSV file
+     * @return A map containing employee IDs as keys and EmployeeData objects as values
      */
-    private static float parseFloat(String value) {
-        try {
-            return Float.parseFloat(value.replace(",", "").trim());
-        } catch (NumberFormatException e) {
-            return 0.00f;
-        }
+    public static Map<String, EmployeeData> loadEmployeeData(String filePath) {
+        return EmployeeRoster.load(filePath).getEmployees();
     }
 }
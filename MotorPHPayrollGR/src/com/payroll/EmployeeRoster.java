@@ -0,0 +1,150 @@
+package com.payroll;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * EmployeeRoster - Employee master data loaded from EmployeeData.csv in a single pass.
+ *
+ * Each row is parsed once with an RFC 4180 reader, so quoted values such as "90,000" or
+ * addresses containing commas stay in their own column, and yields both the employee
+ * record and its de minimis benefits. Repeated values (status, position, supervisor) are
+ * dictionary-encoded: every employee shares one String instance per distinct value.
+ *
+ * Expected CSV Format (Column Index):
+ *  0 - Employee ID
+ *  1 - First Name
+ *  2 - Last Name
+ *  3 - Date of Birth
+ *  4 - Hourly Rate
+ *  5 - Rice Subsidy
+ *  6 - Phone Allowance
+ *  7 - Clothing Allowance
+ *  8 - Employment Status
+ *  9 - Position/Designation
+ * 10 - Basic Salary (Column K)
+ * 11 - Address
+ * 12 - Phone Number
+ * 13 - SSS #
+ * 14 - PhilHealth #
+ * 15 - TIN #
+ * 16 - Pag-IBIG #
+ * 17 - Immediate Supervisor ("Last Name, First Name" or N/A)
+ * 18 - Gross Semi-monthly Rate
+ *
+ * Columns 11 onwards are optional. Amounts may contain thousands separators and are read
+ * straight into centavos.
+ */
+public class EmployeeRoster {
+    private static final int MIN_COLUMNS = 11;
+
+    private final Map<String, EmployeeData> employees;
+    private final Map<String, DeMinimisBenefits> benefits;
+
+    private EmployeeRoster(Map<String, EmployeeData> employees, Map<String, DeMinimisBenefits> benefits) {
+        this.employees = employees;
+        this.benefits = benefits;
+    }
+
+    /**
+     * Creates a roster from employees and benefits read elsewhere (e.g., a database).
+     */
+    static EmployeeRoster of(Map<String, EmployeeData> employees, Map<String, DeMinimisBenefits> benefits) {
+        return new EmployeeRoster(employees, benefits);
+    }
+
+    /**
+     * Loads the employee master data file.
+     *
+     * @param filePath Path to the employee CSV file
+     * @return The roster; empty if the file cannot be read
+     */
+    public static EmployeeRoster load(String filePath) {
+        Map<String, EmployeeData> employees = new HashMap<>();
+        Map<String, DeMinimisBenefits> benefits = new HashMap<>();
+        Map<String, String> dictionary = new HashMap<>();
+
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadEmployeeData");
+             CsvReader csv = new CsvReader(filePath)) {
+            csv.readRecord(); // Skip header row
+
+            String[] data;
+            while ((data = csv.readRecord()) != null) {
+                if (data.length < MIN_COLUMNS) {
+                    System.err.println("Skipping incomplete employee record " + csv.getRecordNumber());
+                    stage.skipped(1);
+                    continue;
+                }
+
+                String empId = data[0].trim();
+                long basicSalary = parseAmount(data[10]);
+                EmployeeData employee = new EmployeeData(empId, data[1].trim(), data[2].trim(), data[3].trim(),
+                        parseAmount(data[4]), basicSalary,
+                        (data.length > 18) ? parseAmount(data[18]) : basicSalary / 2,
+                        encode(dictionary, data[8]), encode(dictionary, data[9]),
+                        parseAmount(data[5]), parseAmount(data[6]), parseAmount(data[7]),
+                        column(data, 11), column(data, 12), column(data, 13), column(data, 14),
+                        column(data, 15), column(data, 16),
+                        (data.length > 17) ? encode(dictionary, data[17]) : "N/A");
+
+                employees.put(empId, employee);
+                benefits.put(empId, new DeMinimisBenefits(empId, employee.getRiceSubsidyCentavos(),
+                        employee.getPhoneAllowanceCentavos(), employee.getClothingAllowanceCentavos()));
+            }
+            stage.rows(employees.size()).bytes(new File(filePath).length());
+        } catch (IOException e) {
+            System.err.println("Error reading Employee Data file: " + e.getMessage());
+        }
+
+        return new EmployeeRoster(employees, benefits);
+    }
+
+    /**
+     * Gets the employees keyed by employee ID.
+     *
+     * @return Map of employee ID to EmployeeData
+     */
+    public Map<String, EmployeeData> getEmployees() { return employees; }
+
+    /**
+     * Gets the de minimis benefits keyed by employee ID.
+     *
+     * @return Map of employee ID to DeMinimisBenefits
+     */
+    public Map<String, DeMinimisBenefits> getBenefits() { return benefits; }
+
+    /**
+     * Gets the number of employees loaded.
+     *
+     * @return Employee count
+     */
+    public int size() { return employees.size(); }
+
+    private static String column(String[] data, int index) {
+        return (index < data.length) ? data[index].trim() : "";
+    }
+
+    /**
+     * Returns the shared instance of a repeated value.
+     */
+    private static String encode(Map<String, String> dictionary, String value) {
+        String trimmed = value.trim();
+        String shared = dictionary.putIfAbsent(trimmed, trimmed);
+        return (shared != null) ? shared : trimmed;
+    }
+
+    /**
+     * Converts an amount such as "90,000" or "535.71" to centavos without going through float.
+     * Returns 0 if parsing fails.
+     *
+     * @param value String value to parse
+     * @return Parsed amount in centavos or 0 on error
+     */
+    private static long parseAmount(String value) {
+        try {
+            return Money.parse(value);
+        } catch (NumberFormatException | ArithmeticException e) {
+            return 0L;
+        }
+    }
+}
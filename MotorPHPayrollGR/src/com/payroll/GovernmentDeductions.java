@@ -1,126 +1,263 @@
 package com.payroll;
 
-import java.util.Map;
-import java.util.NavigableMap;
-import java.util.TreeMap;
+import java.io.*;
+import java.math.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
 
 /**
  * GovernmentDeductions - Computes mandatory government deductions for employees.
  *
  * This class provides methods to calculate:
  * 1. SSS (Social Security System) - Based on salary bracket system using Basic Salary.
- * 2. PhilHealth (Health Insurance) - 3% of monthly gross income, with cap.
- * 3. Pag-IBIG (Housing Fund) - 1% or 2% depending on gross income.
- * 4. BIR (Income Tax) - Based on progressive tax brackets.
+ * 2. PhilHealth (Health Insurance) - A share of monthly gross income, with floor and cap.
+ * 3. Pag-IBIG (Housing Fund) - A rate depending on gross income, with cap.
+ * 4. BIR (Income Tax) - Based on progressive tax brackets, with an annual table for year-end annualization.
+ *
+ * The rates and brackets are not written here: they come from the loaded tables.
+ *
+ * The tables are effective-dated (see GovernmentDeductionTables.csv) and compiled once into
+ * immutable DeductionSchedule objects, so several years' schedules can coexist and be shared
+ * across threads. The single-value methods use the schedule in effect today; payroll for a
+ * specific period should use {@link #getSchedule(LocalDate)}.
+ *
+ * Until a tables file is loaded, the copy of GovernmentDeductionTables.csv bundled with the
+ * classes is used, so the rates are kept in one place only.
  */
 public class GovernmentDeductions {
+    private static final String BUNDLED_TABLES = "GovernmentDeductionTables.csv";
+    private static final List<DeductionSchedule> BUNDLED_SCHEDULES = readBundledSchedules();
+
+    // Schedules sorted by effective date; replaced as a whole when tables are loaded
+    private static volatile List<DeductionSchedule> schedules = BUNDLED_SCHEDULES;
+    private static volatile DeductionSchedule currentSchedule = getSchedule(BUNDLED_SCHEDULES, LocalDate.now());
+
+    /**
+     * Loads effective-dated contribution and tax tables from a CSV file.
+     *
+     * Expected CSV Format (Column Index):
+     *  0 - Effective Date (M/d/yyyy)
+     *  1 - Table (SSS, PHILHEALTH, PAGIBIG, BIR, BIR_ANNUAL or any additional table name)
+     *  2 - Bound ("From" = lower bound inclusive, "Over" = lower bound exclusive)
+     *  3 - Lower Bound
+     *  4 - Base Amount
+     *  5 - Rate (applied to the amount above Excess Over)
+     *  6 - Excess Over
+     *  7 - Cap (blank for none)
+     *
+     * Each distinct effective date becomes one schedule. If the file cannot be read or a
+     * schedule is incomplete, the previously loaded schedules are kept.
+     *
+     * @param filename Path to the deduction tables CSV file
+     */
+    public static void loadTablesFromCSV(String filename) {
+        try {
+            List<DeductionSchedule> loaded = readSchedules(filename);
+            if (loaded.isEmpty()) {
+                System.err.println("No deduction tables found in " + filename + ". Keeping previous tables.");
+            } else {
+                schedules = loaded;
+                currentSchedule = getSchedule(LocalDate.now());
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading deduction tables: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Invalid deduction tables, keeping previous tables: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the schedules of a deduction tables file (same format as {@link #loadTablesFromCSV})
+     * without installing them, e.g. to simulate a proposed contribution schedule.
+     *
+     * @param filename Path to the deduction tables CSV file
+     * @return The schedules sorted by effective date; empty if the file has no tables
+     * @throws IOException if the file cannot be read
+     * @throws RuntimeException if a table is invalid
+     */
+    public static List<DeductionSchedule> readSchedules(String filename) throws IOException {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadDeductionTables");
+             BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            stage.bytes(new File(filename).length());
+            return readSchedules(br, stage);
+        }
+    }
+
+    /**
+     * Reads the schedules of deduction tables given as CSV text (e.g., as stored in a database).
+     *
+     * @param in Text of a deduction tables file, header row included
+     * @return The schedules sorted by effective date; empty if there are no tables
+     * @throws IOException if the text cannot be read
+     * @throws RuntimeException if a table is invalid
+     */
+    public static List<DeductionSchedule> readSchedules(Reader in) throws IOException {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadDeductionTables");
+             BufferedReader br = new BufferedReader(in)) {
+            return readSchedules(br, stage);
+        }
+    }
+
+    /**
+     * Installs already read schedules (see {@link #readSchedules(String)}).
+     *
+     * @param loaded Schedules sorted by effective date; if empty, the current tables are kept
+     */
+    public static void setSchedules(List<DeductionSchedule> loaded) {
+        if (loaded.isEmpty()) return;
+        schedules = List.copyOf(loaded);
+        currentSchedule = getSchedule(LocalDate.now());
+    }
+
+    /**
+     * Reads the schedules of the deduction tables bundled with the classes.
+     */
+    private static List<DeductionSchedule> readBundledSchedules() {
+        InputStream in = GovernmentDeductions.class.getResourceAsStream(BUNDLED_TABLES);
+        if (in == null) throw new IllegalStateException(BUNDLED_TABLES + " is missing from the classpath");
+
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadDeductionTables");
+             BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<DeductionSchedule> bundled = readSchedules(br, stage);
+            if (bundled.isEmpty()) throw new IllegalStateException(BUNDLED_TABLES + " has no tables");
+            return bundled;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read bundled " + BUNDLED_TABLES, e);
+        }
+    }
+
+    /**
+     * Reads and compiles the schedules of a deduction tables file, after its header row.
+     */
+    private static List<DeductionSchedule> readSchedules(BufferedReader br, PayrollMetrics.Stage stage) throws IOException {
+        Map<LocalDate, Map<String, List<String[]>>> rowsByDate = new TreeMap<>();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("M/d/yyyy");
+        String line;
+        br.readLine(); // Skip header
+
+        while ((line = br.readLine()) != null) {
+            if (line.isBlank()) continue;
+            String[] data = line.split(",", -1);
+            if (data.length < 8) {
+                stage.skipped(1);
+                continue;
+            }
+            stage.rows(1);
+
+            LocalDate effectiveDate = LocalDate.parse(data[0].trim(), formatter);
+            String table = data[1].trim().toUpperCase();
+            rowsByDate.computeIfAbsent(effectiveDate, date -> new LinkedHashMap<>())
+                      .computeIfAbsent(table, name -> new ArrayList<>())
+                      .add(data);
+        }
+
+        List<DeductionSchedule> loaded = new ArrayList<>();
+        for (Map.Entry<LocalDate, Map<String, List<String[]>>> entry : rowsByDate.entrySet()) {
+            Map<String, RateTable> tables = new HashMap<>();
+            for (Map.Entry<String, List<String[]>> table : entry.getValue().entrySet()) {
+                tables.put(table.getKey(), compileTable(table.getKey(), table.getValue()));
+            }
+            loaded.add(new DeductionSchedule(entry.getKey(), tables));
+        }
+        return List.copyOf(loaded);
+    }
+
+    private static RateTable compileTable(String name, List<String[]> rows) {
+        int size = rows.size();
+        long[] lowerBounds = new long[size], baseAmounts = new long[size], rates = new long[size];
+        long[] excessOver = new long[size], caps = new long[size];
+        boolean inclusive = rows.get(0)[2].trim().equalsIgnoreCase("From");
+
+        for (int i = 0; i < size; i++) {
+            String[] data = rows.get(i);
+            if (data[2].trim().equalsIgnoreCase("From") != inclusive) {
+                throw new IllegalArgumentException("Table " + name + " mixes From and Over bounds");
+            }
+            lowerBounds[i] = Money.parse(data[3]);
+            baseAmounts[i] = Money.parse(data[4]);
+            rates[i] = new BigDecimal(data[5].trim()).movePointRight(6).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            excessOver[i] = Money.parse(data[6]);
+            caps[i] = data[7].isBlank() ? Long.MAX_VALUE : Money.parse(data[7]);
+        }
+        return new RateTable(name, inclusive, lowerBounds, baseAmounts, rates, excessOver, caps);
+    }
 
     /**
-     * Calculates the SSS (Social Security System) contribution based on Basic Salary.
+     * Returns the schedule in effect on a date: the latest one whose effective date is on or
+     * before it, or the earliest schedule for dates before all of them.
      *
-     * Contribution is based on a predefined bracket system. If salary exceeds the highest tier,
-     * contribution is capped at the highest applicable value.
+     * @param date Date within the payroll period
+     * @return The applicable deduction schedule
+     */
+    public static DeductionSchedule getSchedule(LocalDate date) {
+        return getSchedule(schedules, date);
+    }
+
+    /**
+     * Returns the schedule of a list (sorted by effective date) in effect on a date.
+     */
+    static DeductionSchedule getSchedule(List<DeductionSchedule> schedules, LocalDate date) {
+        DeductionSchedule applicable = schedules.get(0);
+        for (DeductionSchedule schedule : schedules) {
+            if (schedule.getEffectiveDate().isAfter(date)) break;
+            applicable = schedule;
+        }
+        return applicable;
+    }
+
+    /**
+     * Returns the schedule that was in effect when the tables were loaded, used by the
+     * single-value calculation methods.
+     */
+    private static DeductionSchedule currentSchedule() {
+        return currentSchedule;
+    }
+
+    /**
+     * Calculates the SSS (Social Security System) contribution based on Basic Salary, with the
+     * brackets of the schedule in effect on the current date.
+     *
+     * If salary exceeds the highest tier, contribution is capped at the highest applicable value.
      *
      * @param basicSalary The employee's basic monthly salary (from EmployeeData)
      * @return The monthly SSS contribution
      */
     public static float calculateSSS(float basicSalary) {
-        NavigableMap<Float, Float> sssTable = new TreeMap<>();
-
-        sssTable.put(3250f, 135.00f);
-        sssTable.put(3750f, 157.50f);
-        sssTable.put(4250f, 180.00f);
-        sssTable.put(4750f, 202.50f);
-        sssTable.put(5250f, 225.00f);
-        sssTable.put(5750f, 247.50f);
-        sssTable.put(6250f, 270.00f);
-        sssTable.put(6750f, 292.50f);
-        sssTable.put(7250f, 315.00f);
-        sssTable.put(7750f, 337.50f);
-        sssTable.put(8250f, 360.00f);
-        sssTable.put(8750f, 382.50f);
-        sssTable.put(9250f, 405.00f);
-        sssTable.put(9750f, 427.50f);
-        sssTable.put(10250f, 450.00f);
-        sssTable.put(10750f, 472.50f);
-        sssTable.put(11250f, 495.00f);
-        sssTable.put(11750f, 517.50f);
-        sssTable.put(12250f, 540.00f);
-        sssTable.put(12750f, 562.50f);
-        sssTable.put(13250f, 585.00f);
-        sssTable.put(13750f, 607.50f);
-        sssTable.put(14250f, 630.00f);
-        sssTable.put(14750f, 652.50f);
-        sssTable.put(15250f, 675.00f);
-        sssTable.put(15750f, 697.50f);
-        sssTable.put(16250f, 720.00f);
-        sssTable.put(16750f, 742.50f);
-        sssTable.put(17250f, 765.00f);
-        sssTable.put(17750f, 787.50f);
-        sssTable.put(18250f, 810.00f);
-        sssTable.put(18750f, 832.50f);
-        sssTable.put(19250f, 855.00f);
-        sssTable.put(19750f, 877.50f);
-        sssTable.put(20250f, 900.00f);
-        sssTable.put(24750f, 1125.00f); // Maximum cap tier
-
-        Map.Entry<Float, Float> entry = sssTable.floorEntry(basicSalary);
-
-        // Return closest lower/equal tier contribution or cap at max if salary exceeds table
-        return (entry != null) ? entry.getValue() : sssTable.lastEntry().getValue();
+        return currentSchedule().calculateSSS(basicSalary);
     }
 
     /**
-     * Calculates the PhilHealth (health insurance) contribution based on gross income.
-     * Contribution rate is 3% of gross income, capped at PHP 1,800.
+     * Calculates the PhilHealth (health insurance) contribution based on gross income, with
+     * the rate, floor and cap of the schedule in effect on the current date.
      *
      * @param grossIncome The employee's monthly gross income
      * @return The monthly PhilHealth contribution (employee share only)
      */
     public static float calculatePhilHealth(float grossIncome) {
-        return (grossIncome <= 10000) ? 300f : Math.min(1800f, 0.03f * grossIncome);
+        return currentSchedule().calculatePhilHealth(grossIncome);
     }
 
     /**
-     * Calculates the Pag-IBIG (housing fund) contribution based on gross income.
-     * Rate is 1% for income up to PHP 1,500 and 2% for income above PHP 1,500.
-     * Contribution is capped at PHP 100.
+     * Calculates the Pag-IBIG (housing fund) contribution based on gross income, with the
+     * rates and cap of the schedule in effect on the current date.
      *
      * @param grossIncome The employee's monthly gross income
      * @return The monthly Pag-IBIG contribution
      */
     public static float calculatePagibig(float grossIncome) {
-        return (grossIncome <= 1500) ? Math.min(100f, 0.01f * grossIncome) : Math.min(100f, 0.02f * grossIncome);
+        return currentSchedule().calculatePagibig(grossIncome);
     }
 
     /**
-     * Calculates the BIR (Bureau of Internal Revenue) withholding tax.
-     * Uses progressive monthly tax brackets for individual employees.
-     *
-     * Tax Brackets:
-     *  - ≤ PHP 20,832                → 0%
-     *  - PHP 20,833 – 33,332         → 20% of excess over 20,833
-     *  - PHP 33,333 – 66,666         → PHP 2,500 + 25% of excess over 33,333
-     *  - PHP 66,667 – 166,666        → PHP 10,833 + 30% of excess over 66,667
-     *  - PHP 166,667 – 666,666       → PHP 40,833.33 + 32% of excess over 166,667
-     *  - ≥ PHP 666,667               → PHP 200,833.33 + 35% of excess over 666,667
+     * Calculates the BIR (Bureau of Internal Revenue) withholding tax, with the progressive
+     * monthly brackets of the schedule in effect on the current date.
      *
      * @param taxableIncome The employee's monthly taxable income (gross - deductions)
      * @return The monthly BIR withholding tax
      */
     public static float calculateBIR(float taxableIncome) {
-        if (taxableIncome <= 20832) {
-            return 0f;
-        } else if (taxableIncome <= 33332) {
-            return 0.20f * (taxableIncome - 20833);
-        } else if (taxableIncome <= 66666) {
-            return 2500f + 0.25f * (taxableIncome - 33333);
-        } else if (taxableIncome <= 166666) {
-            return 10833f + 0.30f * (taxableIncome - 66667);
-        } else if (taxableIncome <= 666666) {
-            return 40833.33f + 0.32f * (taxableIncome - 166667);
-        } else {
-            return 200833.33f + 0.35f * (taxableIncome - 666667);
-        }
+        return currentSchedule().calculateBIR(taxableIncome);
     }
 }
@@ -5,42 +5,240 @@ import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 
+/**
+ * HolidayCalendar - Classifies each date as a workday, rest day or holiday.
+ *
+ * A calendar is immutable: when it is loaded, a day-type code is precomputed for every
+ * date of the years covered by the holiday file and stored in a byte[] indexed by epoch
+ * day, so classifying a time entry is a single array read. Dates outside those years
+ * are classified by weekday only. Calendars can be loaded per region and passed to the
+ * time entry readers; the static methods use the default calendar loaded by
+ * {@link #loadHolidaysFromCSV(String)}.
+ *
+ * Day-type codes are bit sets of REGULAR_HOLIDAY, SPECIAL_NON_WORKING, SPECIAL_WORKING
+ * and REST_DAY, with the pay multiplier for each combination in {@link #getMultiplier(byte)}.
+ */
 public class HolidayCalendar {
-    private static final Set<LocalDate> REGULAR_HOLIDAYS = new HashSet<>();
-    private static final Set<LocalDate> SPECIAL_HOLIDAYS = new HashSet<>();
-    private static final Set<LocalDate> SPECIAL_WORKING_DAYS = new HashSet<>();
+    public static final byte REGULAR_HOLIDAY = 1;
+    public static final byte SPECIAL_NON_WORKING = 2;
+    public static final byte SPECIAL_WORKING = 4;
+    public static final byte REST_DAY = 8;
 
+    private static final float[] MULTIPLIERS = new float[16];
+    static {
+        for (int dayType = 0; dayType < MULTIPLIERS.length; dayType++) {
+            boolean isRegularHoliday = (dayType & REGULAR_HOLIDAY) != 0;
+            boolean isRestDay = (dayType & REST_DAY) != 0;
+            if (isRestDay && isRegularHoliday) MULTIPLIERS[dayType] = 2.6f;
+            else if (isRegularHoliday) MULTIPLIERS[dayType] = 2.00f;
+            else if ((dayType & SPECIAL_NON_WORKING) != 0) MULTIPLIERS[dayType] = 1.30f;
+            else if (isRestDay) MULTIPLIERS[dayType] = 1.50f;
+            else MULTIPLIERS[dayType] = 1.00f; // Regular workday or special working day
+        }
+    }
+
+    private static final HolidayCalendar NO_HOLIDAYS = new HolidayCalendar(null, 0, new byte[0]);
+    private static volatile HolidayCalendar defaultCalendar = NO_HOLIDAYS;
+
+    private final String region;
+    private final long firstEpochDay;
+    private final byte[] dayTypes;
+    private final long fingerprint;
+
+    private HolidayCalendar(String region, long firstEpochDay, byte[] dayTypes) {
+        this.region = region;
+        this.firstEpochDay = firstEpochDay;
+        this.dayTypes = dayTypes;
+
+        long hash = firstEpochDay;
+        for (byte dayType : dayTypes) {
+            hash = hash * 31 + dayType;
+        }
+        this.fingerprint = mix(hash);
+    }
+
+    /**
+     * Loads the national holidays into the default calendar used by the static methods.
+     *
+     * @param filename Path to the holiday calendar CSV file
+     */
     public static void loadHolidaysFromCSV(String filename) {
-        REGULAR_HOLIDAYS.clear();
-        SPECIAL_HOLIDAYS.clear();
-        SPECIAL_WORKING_DAYS.clear();
+        defaultCalendar = load(filename, null);
+    }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+    /**
+     * Loads a calendar with the national holidays plus those of one region.
+     *
+     * Expected CSV Format (Column Index):
+     *  0 - Date (M/d/yyyy)
+     *  1 - Holiday Name
+     *  2 - Type of Holiday (Regular Holiday, Special Non-working Holiday, Special Working Day)
+     *  3 - Region (optional; blank for national holidays)
+     *
+     * @param filename Path to the holiday calendar CSV file
+     * @param region   Region whose local holidays are included, or null for national only
+     * @return The loaded calendar (weekday-only classification if the file cannot be read)
+     */
+    public static HolidayCalendar load(String filename, String region) {
+        Map<LocalDate, Byte> holidays = new HashMap<>();
+
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadHolidaysFromCSV");
+             BufferedReader br = new BufferedReader(new FileReader(filename))) {
             String line;
             br.readLine(); // Skip header
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("M/d/yyyy");
+            stage.bytes(new File(filename).length());
 
             while ((line = br.readLine()) != null) {
                 String[] data = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-                if (data.length < 3) continue;
+                if (data.length < 3) {
+                    stage.skipped(1);
+                    continue;
+                }
+
+                String holidayRegion = (data.length > 3) ? data[3].replace("\"", "").trim() : "";
+                if (!holidayRegion.isEmpty() && !holidayRegion.equalsIgnoreCase(region)) continue;
 
                 LocalDate holidayDate = LocalDate.parse(data[0].trim(), formatter);
-                String holidayType = data[2].trim().toLowerCase();
+                String holidayType = data[2].trim().toLowerCase().replace('-', ' ');
 
+                byte type;
                 if (holidayType.contains("regular holiday")) {
-                    REGULAR_HOLIDAYS.add(holidayDate);
-                } else if (holidayType.contains("special non-working holiday")) {
-                    SPECIAL_HOLIDAYS.add(holidayDate);
+                    type = REGULAR_HOLIDAY;
+                } else if (holidayType.contains("special non working holiday")) {
+                    type = SPECIAL_NON_WORKING;
                 } else if (holidayType.contains("special working day")) {
-                    SPECIAL_WORKING_DAYS.add(holidayDate);
+                    type = SPECIAL_WORKING;
+                } else {
+                    stage.skipped(1);
+                    continue;
                 }
+                holidays.merge(holidayDate, type, (a, b) -> (byte) (a | b));
+                stage.rows(1);
             }
         } catch (IOException e) {
             System.err.println("Error loading holidays: " + e.getMessage());
         }
+        return of(region, holidays);
     }
 
-    public static boolean isRegularHoliday(LocalDate date) { return REGULAR_HOLIDAYS.contains(date); }
-    public static boolean isSpecialNonWorkingHoliday(LocalDate date) { return SPECIAL_HOLIDAYS.contains(date); }
-    public static boolean isSpecialWorkingDay(LocalDate date) { return SPECIAL_WORKING_DAYS.contains(date); }
+    /**
+     * Builds a calendar from holiday dates, such as those kept in a payroll repository.
+     *
+     * @param region   Region whose local holidays are included, or null for national only
+     * @param holidays Holiday type bits (REGULAR_HOLIDAY, SPECIAL_NON_WORKING, SPECIAL_WORKING) by date
+     * @return The calendar (weekday-only classification if there are no holidays)
+     */
+    public static HolidayCalendar of(String region, Map<LocalDate, Byte> holidays) {
+        if (holidays.isEmpty()) {
+            return new HolidayCalendar(region, 0, new byte[0]);
+        }
+
+        // Precompute every day of the years the holidays fall in
+        int firstYear = Collections.min(holidays.keySet()).getYear();
+        int lastYear = Collections.max(holidays.keySet()).getYear();
+        LocalDate first = LocalDate.of(firstYear, 1, 1);
+        long firstEpochDay = first.toEpochDay();
+        byte[] dayTypes = new byte[(int) (LocalDate.of(lastYear + 1, 1, 1).toEpochDay() - firstEpochDay)];
+
+        for (int i = 0; i < dayTypes.length; i++) {
+            LocalDate date = first.plusDays(i);
+            byte type = holidays.getOrDefault(date, (byte) 0);
+            if (isWeekend(date.getDayOfWeek()) && (type & SPECIAL_WORKING) == 0) {
+                type |= REST_DAY;
+            }
+            dayTypes[i] = type;
+        }
+        return new HolidayCalendar(region, firstEpochDay, dayTypes);
+    }
+
+    /**
+     * Returns the default calendar loaded by {@link #loadHolidaysFromCSV(String)}.
+     *
+     * @return The default holiday calendar
+     */
+    public static HolidayCalendar getDefault() { return defaultCalendar; }
+
+    /**
+     * Replaces the default calendar used by the static methods.
+     *
+     * @param calendar The new default calendar
+     */
+    public static void setDefault(HolidayCalendar calendar) { defaultCalendar = calendar; }
+
+    /**
+     * Returns the holidays of the calendar, without the weekend rest-day bit.
+     *
+     * @return Holiday type bits by date, in date order
+     */
+    public SortedMap<LocalDate, Byte> getHolidays() {
+        SortedMap<LocalDate, Byte> holidays = new TreeMap<>();
+        for (int i = 0; i < dayTypes.length; i++) {
+            byte type = (byte) (dayTypes[i] & ~REST_DAY);
+            if (type != 0) holidays.put(LocalDate.ofEpochDay(firstEpochDay + i), type);
+        }
+        return holidays;
+    }
+
+    /**
+     * Returns the day-type code of a date.
+     *
+     * @param epochDay Date as days since 1970-01-01
+     * @return Bit set of REGULAR_HOLIDAY, SPECIAL_NON_WORKING, SPECIAL_WORKING and REST_DAY
+     */
+    public byte getDayType(long epochDay) {
+        long index = epochDay - firstEpochDay;
+        if (index >= 0 && index < dayTypes.length) {
+            return dayTypes[(int) index];
+        }
+        // 1970-01-01 was a Thursday; Saturday and Sunday fall on (epochDay + 3) mod 7 = 5, 6
+        long dayOfWeek = Math.floorMod(epochDay + 3, 7);
+        return (dayOfWeek >= 5) ? REST_DAY : 0;
+    }
+
+    /**
+     * Returns the day-type code of a date.
+     */
+    public byte getDayType(LocalDate date) { return getDayType(date.toEpochDay()); }
+
+    /**
+     * Returns the pay multiplier for work on a day of the given type.
+     *
+     * @param dayType Day-type code
+     * @return 2.6 (regular holiday on a rest day), 2.0 (regular holiday), 1.3 (special
+     *         non-working holiday), 1.5 (rest day) or 1.0
+     */
+    public static float getMultiplier(byte dayType) { return MULTIPLIERS[dayType & 15]; }
+
+    /**
+     * Gets the region whose local holidays are included.
+     *
+     * @return Region name, or null for national holidays only
+     */
+    public String getRegion() { return region; }
+
+    /**
+     * Returns a hash of the precomputed day types, used to detect when data derived from
+     * the calendar (such as stored day flags) needs to be rebuilt.
+     */
+    public long getFingerprint() { return fingerprint; }
+
+    public static boolean isRegularHoliday(LocalDate date) { return (defaultCalendar.getDayType(date) & REGULAR_HOLIDAY) != 0; }
+    public static boolean isSpecialNonWorkingHoliday(LocalDate date) { return (defaultCalendar.getDayType(date) & SPECIAL_NON_WORKING) != 0; }
+    public static boolean isSpecialWorkingDay(LocalDate date) { return (defaultCalendar.getDayType(date) & SPECIAL_WORKING) != 0; }
+
+    /**
+     * Returns the fingerprint of the default calendar.
+     */
+    public static long fingerprint() { return defaultCalendar.getFingerprint(); }
+
+    private static boolean isWeekend(DayOfWeek day) {
+        return day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
 }
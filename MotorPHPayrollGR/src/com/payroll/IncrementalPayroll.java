@@ -0,0 +1,162 @@
+package com.payroll;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * IncrementalPayroll - Keeps the monthly summaries of a payroll period up to date while
+ * the biometric terminals append rows to the time entries CSV.
+ *
+ * The CSV is tailed from the byte offset of the last complete line consumed, so each
+ * {@link #refresh()} parses only the rows added since the previous one; a line still being
+ * written is left for the next refresh. Entries can also be applied directly as a batch.
+ *
+ * A time entry for an employee and date that already has a row replaces that row (a
+ * correction, or a harmless re-send of the same punch), and the employee-month totals are
+ * recomputed from its daily rows. This is the rule every batch path applies too (see
+ * {@link MonthlySummary#calculateWorkedHours}), so following the file gives the same hours as
+ * aggregating it once. The cost of a refresh therefore depends only on the number
+ * of new rows, not on the size of the history.
+ *
+ * Entries are summarized per employee and pay period of the given frequency (by default
+ * the one the date range looks like, see {@link PayrollPeriod#infer}).
+ *
+ * If the file shrinks or no longer ends a line where the last refresh stopped, it is treated
+ * as rewritten and the period is aggregated again from the start.
+ */
+public class IncrementalPayroll {
+    private final Map<String, EmployeeData> employees;
+    private final String filename;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final HolidayCalendar calendar;
+    private final PeriodBuckets buckets;
+
+    private final Map<String, MonthlySummary> monthlySummaries = new HashMap<>();
+    private long offset = 0L;
+    private long rowsApplied = 0L;
+
+    /**
+     * Creates an empty incremental payroll for a period; call {@link #refresh()} to load it.
+     *
+     * @param employees  A map of employee ID to EmployeeData
+     * @param filename   Path to the time entries CSV file being appended to
+     * @param startDate  First work date of the payroll period (inclusive)
+     * @param endDate    Last work date of the payroll period (inclusive)
+     */
+    public IncrementalPayroll(Map<String, EmployeeData> employees, String filename,
+                              LocalDate startDate, LocalDate endDate) {
+        this(employees, filename, startDate, endDate, PayrollPeriod.infer(startDate, endDate));
+    }
+
+    /**
+     * Creates an empty incremental payroll for a date range split into pay periods.
+     *
+     * @param employees  A map of employee ID to EmployeeData
+     * @param filename   Path to the time entries CSV file being appended to
+     * @param startDate  First work date of the payroll run (inclusive)
+     * @param endDate    Last work date of the payroll run (inclusive)
+     * @param frequency  Pay frequency the run is split into
+     */
+    public IncrementalPayroll(Map<String, EmployeeData> employees, String filename,
+                              LocalDate startDate, LocalDate endDate, PayrollPeriod.Frequency frequency) {
+        this.employees = employees;
+        this.filename = filename;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.calendar = HolidayCalendar.getDefault();
+        this.buckets = new PeriodBuckets(frequency, startDate, endDate);
+    }
+
+    /**
+     * Reads the rows appended to the CSV since the last refresh and applies those within the period.
+     *
+     * @return Number of entries applied to the summaries
+     */
+    public synchronized int refresh() {
+        File file = new File(filename);
+        if (!file.exists()) {
+            System.err.println("Error: Time entries file not found.");
+            return 0;
+        }
+        if (!endsLineAt(file, offset)) {
+            // The file was truncated or rewritten; start over
+            monthlySummaries.clear();
+            offset = 0L;
+            rowsApplied = 0L;
+        }
+        if (file.length() == offset) return 0;
+
+        TimeEntryReader reader = new TimeEntryReader(startDate, endDate, calendar);
+        int[] applied = new int[1];
+        reader.read(filename, offset, false, entry -> {
+            MonthlySummary.accumulate(monthlySummaries, employees, buckets, entry);
+            applied[0]++;
+        });
+        offset = reader.getPosition();
+        rowsApplied += applied[0];
+        return applied[0];
+    }
+
+    /**
+     * Applies a batch of time entries received outside the CSV (e.g., from a terminal feed).
+     * Entries outside the payroll period are ignored.
+     *
+     * @param timeEntries Entries to add or correct
+     * @return Number of entries applied to the summaries
+     */
+    public synchronized int apply(Collection<TimeEntry> timeEntries) {
+        int applied = 0;
+        for (TimeEntry entry : timeEntries) {
+            LocalDate date = entry.getClockIn().toLocalDate();
+            if (date.isBefore(startDate) || date.isAfter(endDate)) continue;
+
+            MonthlySummary.accumulate(monthlySummaries, employees, buckets, entry);
+            applied++;
+        }
+        rowsApplied += applied;
+        return applied;
+    }
+
+    /**
+     * Returns a snapshot of the current summaries keyed by employee-period.
+     * The summaries themselves keep changing on later refreshes.
+     */
+    public synchronized Map<String, MonthlySummary> getMonthlySummaries() {
+        return new HashMap<>(monthlySummaries);
+    }
+
+    /**
+     * Gets the byte offset just past the last CSV line consumed.
+     *
+     * @return Byte offset into the time entries file
+     */
+    public synchronized long getOffset() { return offset; }
+
+    /**
+     * Gets the number of entries applied since the summaries were last rebuilt from scratch,
+     * including corrections.
+     *
+     * @return Entries applied
+     */
+    public synchronized long getRowsApplied() { return rowsApplied; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public LocalDate getEndDate() { return endDate; }
+
+    /**
+     * Checks that the file still holds at least {@code offset} bytes and that a line ends there.
+     */
+    private static boolean endsLineAt(File file, long offset) {
+        if (offset == 0L) return true;
+        if (file.length() < offset) return false;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(offset - 1);
+            return raf.read() == '\n';
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
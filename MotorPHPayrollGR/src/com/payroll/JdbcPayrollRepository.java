@@ -0,0 +1,495 @@
+package com.payroll;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.*;
+import java.time.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * JdbcPayrollRepository - The payroll data kept in an embedded SQL database.
+ *
+ * Any JDBC database can be used through its URL (e.g., "jdbc:h2:./data/payroll" or
+ * "jdbc:sqlite:data/payroll.db"); the driver jar only has to be on the classpath. The
+ * schema is created on first open:
+ *
+ *  employee       - one row per employee, amounts in centavos
+ *  holiday        - holiday type bits per date and region ('' for national holidays)
+ *  time_entry     - one row per DTR punch: employee, work day, clock-in and clock-out
+ *                   minutes; indexed on (emp_id, work_day) and on work_day
+ *  payroll_result - the figures of each posted payslip, keyed by employee and pay period
+ *  payroll_file   - imported configuration files (deduction tables, pay rule book) as CSV
+ *                   text, keyed by file name
+ *
+ * Dates are stored as epoch days and times as minutes since midnight, so the schema is the
+ * same on every database and range predicates compare plain integers. A period query is an
+ * index range scan on work_day, and a query for one employee an index seek on
+ * (emp_id, work_day); neither parses a file. Time entries keep an import sequence number
+ * (entry_id) and are returned in that order, so payroll built from the database matches
+ * payroll built from the CSV they were imported from. Bulk imports are inserted in JDBC
+ * batches of BATCH_SIZE rows within one transaction.
+ *
+ * The connection is shared, so queries and updates are serialized on it.
+ */
+public class JdbcPayrollRepository implements PayrollRepository {
+    public static final int BATCH_SIZE = 5000;
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS employee ("
+            + "emp_id VARCHAR(16) PRIMARY KEY, first_name VARCHAR(64), last_name VARCHAR(64), dob VARCHAR(16), "
+            + "hourly_rate BIGINT, basic_salary BIGINT, semi_monthly_rate BIGINT, status VARCHAR(32), "
+            + "position VARCHAR(64), rice_subsidy BIGINT, phone_allowance BIGINT, clothing_allowance BIGINT, "
+            + "address VARCHAR(256), phone_number VARCHAR(32), sss_number VARCHAR(32), philhealth_number VARCHAR(32), "
+            + "tin_number VARCHAR(32), pagibig_number VARCHAR(32), supervisor VARCHAR(128))",
+        "CREATE TABLE IF NOT EXISTS holiday ("
+            + "holiday_day INTEGER NOT NULL, region VARCHAR(64) NOT NULL, day_type SMALLINT NOT NULL, "
+            + "PRIMARY KEY (holiday_day, region))",
+        "CREATE TABLE IF NOT EXISTS time_entry ("
+            + "entry_id BIGINT PRIMARY KEY, emp_id VARCHAR(16) NOT NULL, work_day INTEGER NOT NULL, "
+            + "clock_in SMALLINT NOT NULL, clock_out SMALLINT NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS time_entry_emp_day ON time_entry (emp_id, work_day)",
+        "CREATE INDEX IF NOT EXISTS time_entry_day ON time_entry (work_day)",
+        "CREATE TABLE IF NOT EXISTS payroll_result ("
+            + "emp_id VARCHAR(16) NOT NULL, period_start INTEGER NOT NULL, period_end INTEGER NOT NULL, "
+            + "frequency VARCHAR(16) NOT NULL, regular_pay BIGINT, gross_income BIGINT, sss BIGINT, "
+            + "philhealth BIGINT, pagibig BIGINT, withholding_tax BIGINT, late_deductions BIGINT, "
+            + "de_minimis BIGINT, net_pay BIGINT, PRIMARY KEY (emp_id, period_start, period_end))",
+        "CREATE TABLE IF NOT EXISTS payroll_file ("
+            + "name VARCHAR(64) PRIMARY KEY, content CLOB NOT NULL)"
+    };
+
+    private static final String TIME_ENTRY_COLUMNS = "SELECT emp_id, work_day, clock_in, clock_out FROM time_entry ";
+
+    private final Connection connection;
+
+    private JdbcPayrollRepository(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Connects to a database and creates the payroll tables if they do not exist yet.
+     *
+     * @param url JDBC URL of the database
+     * @return The repository
+     * @throws IOException if the database cannot be opened (e.g., its driver is not on the classpath)
+     */
+    public static JdbcPayrollRepository open(String url) throws IOException {
+        try {
+            Connection connection = DriverManager.getConnection(url);
+            try (Statement statement = connection.createStatement()) {
+                for (String ddl : SCHEMA) statement.execute(ddl);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+            return new JdbcPayrollRepository(connection);
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public EmployeeRoster loadRoster() {
+        Map<String, EmployeeData> employees = new HashMap<>();
+        Map<String, DeMinimisBenefits> benefits = new HashMap<>();
+        Map<String, String> dictionary = new HashMap<>();
+
+        synchronized (connection) {
+            try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadEmployeeData");
+                 Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT emp_id, first_name, last_name, dob, hourly_rate, "
+                         + "basic_salary, semi_monthly_rate, status, position, rice_subsidy, phone_allowance, "
+                         + "clothing_allowance, address, phone_number, sss_number, philhealth_number, tin_number, "
+                         + "pagibig_number, supervisor FROM employee")) {
+                while (rows.next()) {
+                    String empId = rows.getString(1);
+                    EmployeeData employee = new EmployeeData(empId, text(rows, 2), text(rows, 3), text(rows, 4),
+                            rows.getLong(5), rows.getLong(6), rows.getLong(7),
+                            dictionary.computeIfAbsent(text(rows, 8), value -> value),
+                            dictionary.computeIfAbsent(text(rows, 9), value -> value),
+                            rows.getLong(10), rows.getLong(11), rows.getLong(12),
+                            text(rows, 13), text(rows, 14), text(rows, 15), text(rows, 16), text(rows, 17), text(rows, 18),
+                            dictionary.computeIfAbsent(text(rows, 19), value -> value));
+                    employees.put(empId, employee);
+                    benefits.put(empId, new DeMinimisBenefits(empId, employee.getRiceSubsidyCentavos(),
+                            employee.getPhoneAllowanceCentavos(), employee.getClothingAllowanceCentavos()));
+                }
+                stage.rows(employees.size());
+            } catch (SQLException e) {
+                System.err.println("Error reading employees: " + e.getMessage());
+            }
+        }
+        return EmployeeRoster.of(employees, benefits);
+    }
+
+    @Override
+    public HolidayCalendar loadCalendar(String region) {
+        Map<LocalDate, Byte> holidays = new HashMap<>();
+        synchronized (connection) {
+            try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadHolidays");
+                 PreparedStatement query = connection.prepareStatement(
+                         "SELECT holiday_day, day_type FROM holiday WHERE region = '' OR region = ?")) {
+                query.setString(1, (region != null) ? region : "");
+                try (ResultSet rows = query.executeQuery()) {
+                    while (rows.next()) {
+                        holidays.merge(LocalDate.ofEpochDay(rows.getInt(1)), (byte) rows.getInt(2), (a, b) -> (byte) (a | b));
+                        stage.rows(1);
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println("Error reading holidays: " + e.getMessage());
+            }
+        }
+        return HolidayCalendar.of(region, holidays);
+    }
+
+    /**
+     * Parses the imported GovernmentDeductionTables.csv; empty if none was imported.
+     */
+    @Override
+    public List<DeductionSchedule> loadDeductionSchedules() {
+        String content = readFile(CsvPayrollRepository.DEDUCTION_TABLES_FILE);
+        if (content == null) return List.of();
+        try {
+            return GovernmentDeductions.readSchedules(new StringReader(content));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error loading deduction tables, using the bundled tables: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Parses the imported PayRuleBook.csv; null if none was imported.
+     */
+    @Override
+    public PayRuleBook loadRuleBook() {
+        String content = readFile(CsvPayrollRepository.RULE_BOOK_FILE);
+        return (content != null) ? PayRuleBook.load(new StringReader(content)) : null;
+    }
+
+    /**
+     * Returns null: summaries are cached in memory only, as the tables have no content hash
+     * to validate summary files against.
+     */
+    @Override
+    public String getCacheDirectory() {
+        return null;
+    }
+
+    private String readFile(String name) {
+        synchronized (connection) {
+            try (PreparedStatement query = connection.prepareStatement("SELECT content FROM payroll_file WHERE name = ?")) {
+                query.setString(1, name);
+                try (ResultSet rows = query.executeQuery()) {
+                    return rows.next() ? rows.getString(1) : null;
+                }
+            } catch (SQLException e) {
+                System.err.println("Error reading " + name + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public TimeEntrySource getTimeEntries(HolidayCalendar calendar) {
+        return new TimeEntrySource() {
+            @Override
+            public void forEach(LocalDate startDate, LocalDate endDate, Consumer<TimeEntry> sink) {
+                queryTimeEntries(null, startDate, endDate, calendar, sink);
+            }
+
+            @Override
+            public void forEach(String empId, LocalDate startDate, LocalDate endDate, Consumer<TimeEntry> sink) {
+                queryTimeEntries(empId, startDate, endDate, calendar, sink);
+            }
+
+            @Override
+            public long getVersion() {
+                synchronized (connection) {
+                    try (Statement statement = connection.createStatement();
+                         ResultSet rows = statement.executeQuery("SELECT COUNT(*), MAX(entry_id) FROM time_entry")) {
+                        rows.next();
+                        return (rows.getLong(1) * 1_000_003L + rows.getLong(2)) * 31 + calendar.getFingerprint();
+                    } catch (SQLException e) {
+                        return UNKNOWN_VERSION;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Streams the time entries of a date range, for all employees or one, in import order.
+     */
+    private void queryTimeEntries(String empId, LocalDate startDate, LocalDate endDate, HolidayCalendar calendar,
+                                  Consumer<TimeEntry> sink) {
+        String sql = TIME_ENTRY_COLUMNS + ((empId != null) ? "WHERE emp_id = ? AND " : "WHERE ")
+                + "work_day BETWEEN ? AND ? ORDER BY entry_id";
+        Map<String, String> ids = new HashMap<>();
+        LocalDate lastDate = null;
+
+        synchronized (connection) {
+            try (PayrollMetrics.Stage stage = PayrollMetrics.start("queryTimeEntries");
+                 PreparedStatement query = connection.prepareStatement(sql)) {
+                int parameter = 1;
+                if (empId != null) query.setString(parameter++, empId);
+                query.setLong(parameter++, (startDate != null) ? startDate.toEpochDay() : Integer.MIN_VALUE);
+                query.setLong(parameter, (endDate != null) ? endDate.toEpochDay() : Integer.MAX_VALUE);
+                query.setFetchSize(BATCH_SIZE);
+
+                try (ResultSet rows = query.executeQuery()) {
+                    while (rows.next()) {
+                        String id = ids.computeIfAbsent(rows.getString(1), value -> value);
+                        int workDay = rows.getInt(2);
+                        if (lastDate == null || lastDate.toEpochDay() != workDay) lastDate = LocalDate.ofEpochDay(workDay);
+                        LocalDateTime clockIn = LocalDateTime.of(lastDate, LocalTime.ofSecondOfDay(rows.getInt(3) * 60L));
+                        LocalDateTime clockOut = LocalDateTime.of(lastDate, LocalTime.ofSecondOfDay(rows.getInt(4) * 60L));
+                        sink.accept(new TimeEntry(id, clockIn, clockOut, calendar.getDayType(workDay)));
+                        stage.rows(1);
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println("Error reading time entries: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public long importTimeEntries(String csvFile, HolidayCalendar calendar) throws IOException {
+        synchronized (connection) {
+            try (PayrollMetrics.Stage stage = PayrollMetrics.start("importTimeEntries")) {
+                long[] imported = new long[1];
+                inTransaction(() -> {
+                    long nextId = 1L;
+                    try (Statement statement = connection.createStatement();
+                         ResultSet rows = statement.executeQuery("SELECT MAX(entry_id) FROM time_entry")) {
+                        if (rows.next()) nextId = rows.getLong(1) + 1;
+                    }
+
+                    try (PreparedStatement insert = connection.prepareStatement(
+                            "INSERT INTO time_entry (entry_id, emp_id, work_day, clock_in, clock_out) VALUES (?, ?, ?, ?, ?)")) {
+                        SQLException[] failure = new SQLException[1];
+                        long firstId = nextId;
+                        long[] id = { nextId };
+                        TimeEntryReader reader = new TimeEntryReader(null, null, calendar);
+                        boolean read = reader.read(csvFile, entry -> {
+                            if (failure[0] != null) return;
+                            try {
+                                insert.setLong(1, id[0]++);
+                                insert.setString(2, entry.getEmpId());
+                                insert.setLong(3, entry.getClockIn().toLocalDate().toEpochDay());
+                                insert.setInt(4, entry.getClockIn().toLocalTime().toSecondOfDay() / 60);
+                                insert.setInt(5, entry.getClockOut().toLocalTime().toSecondOfDay() / 60);
+                                insert.addBatch();
+                                if ((id[0] - firstId) % BATCH_SIZE == 0) insert.executeBatch();
+                            } catch (SQLException e) {
+                                failure[0] = e;
+                            }
+                        });
+                        if (failure[0] != null) throw failure[0];
+                        if (!read) throw new SQLException("Cannot read " + csvFile);
+                        insert.executeBatch();
+                        imported[0] = id[0] - firstId;
+                        stage.bytes(reader.getPosition()).skipped(reader.getRowsSkipped());
+                    }
+                });
+                stage.rows(imported[0]);
+                return imported[0];
+            }
+        }
+    }
+
+    /**
+     * Replaces the employees (and their de minimis benefits) with those of a roster.
+     *
+     * @return Number of employees stored
+     * @throws IOException if the employees cannot be stored
+     */
+    public int importRoster(EmployeeRoster roster) throws IOException {
+        List<EmployeeData> employees = new ArrayList<>(roster.getEmployees().values());
+        employees.sort(Comparator.comparing(EmployeeData::getEmpId));
+
+        synchronized (connection) {
+            inTransaction(() -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("DELETE FROM employee");
+                }
+                try (PreparedStatement insert = connection.prepareStatement("INSERT INTO employee VALUES "
+                        + "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                    for (EmployeeData employee : employees) {
+                        insert.setString(1, employee.getEmpId());
+                        insert.setString(2, employee.getFirstName());
+                        insert.setString(3, employee.getLastName());
+                        insert.setString(4, employee.getDob());
+                        insert.setLong(5, employee.getHourlyRateCentavos());
+                        insert.setLong(6, employee.getBasicSalaryCentavos());
+                        insert.setLong(7, employee.getSemiMonthlyRateCentavos());
+                        insert.setString(8, employee.getStatus());
+                        insert.setString(9, employee.getPosition());
+                        insert.setLong(10, employee.getRiceSubsidyCentavos());
+                        insert.setLong(11, employee.getPhoneAllowanceCentavos());
+                        insert.setLong(12, employee.getClothingAllowanceCentavos());
+                        insert.setString(13, employee.getAddress());
+                        insert.setString(14, employee.getPhoneNumber());
+                        insert.setString(15, employee.getSssNumber());
+                        insert.setString(16, employee.getPhilHealthNumber());
+                        insert.setString(17, employee.getTinNumber());
+                        insert.setString(18, employee.getPagibigNumber());
+                        insert.setString(19, employee.getSupervisor());
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            });
+        }
+        return employees.size();
+    }
+
+    /**
+     * Replaces the holidays of a region (null for national) with those of a calendar.
+     *
+     * @return Number of holidays stored
+     * @throws IOException if the holidays cannot be stored
+     */
+    public int importCalendar(HolidayCalendar calendar, String region) throws IOException {
+        SortedMap<LocalDate, Byte> holidays = calendar.getHolidays();
+        String regionKey = (region != null) ? region : "";
+
+        synchronized (connection) {
+            inTransaction(() -> {
+                try (PreparedStatement delete = connection.prepareStatement("DELETE FROM holiday WHERE region = ?")) {
+                    delete.setString(1, regionKey);
+                    delete.executeUpdate();
+                }
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO holiday (holiday_day, region, day_type) VALUES (?, ?, ?)")) {
+                    for (Map.Entry<LocalDate, Byte> holiday : holidays.entrySet()) {
+                        insert.setLong(1, holiday.getKey().toEpochDay());
+                        insert.setString(2, regionKey);
+                        insert.setInt(3, holiday.getValue());
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            });
+        }
+        return holidays.size();
+    }
+
+    /**
+     * Replaces a stored configuration file (e.g., GovernmentDeductionTables.csv) with the
+     * content of a file.
+     *
+     * @param name Name the file is stored and looked up under
+     * @param path Path of the file to import
+     * @throws IOException if the file cannot be read or stored
+     */
+    public void importFile(String name, String path) throws IOException {
+        String content = new String(Files.readAllBytes(new File(path).toPath()), StandardCharsets.UTF_8);
+
+        synchronized (connection) {
+            inTransaction(() -> {
+                try (PreparedStatement delete = connection.prepareStatement("DELETE FROM payroll_file WHERE name = ?")) {
+                    delete.setString(1, name);
+                    delete.executeUpdate();
+                }
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO payroll_file (name, content) VALUES (?, ?)")) {
+                    insert.setString(1, name);
+                    insert.setString(2, content);
+                    insert.executeUpdate();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void saveResults(Collection<PayrollResult> results, LocalDate startDate, LocalDate endDate) throws IOException {
+        synchronized (connection) {
+            inTransaction(() -> {
+                try (PreparedStatement delete = connection.prepareStatement(
+                             "DELETE FROM payroll_result WHERE emp_id = ? AND period_start = ? AND period_end = ?");
+                     PreparedStatement insert = connection.prepareStatement(
+                             "INSERT INTO payroll_result VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                    int batched = 0;
+                    for (PayrollResult result : results) {
+                        PayrollPeriod period = result.getPeriod();
+                        String empId = result.getEmployee().getEmpId();
+                        delete.setString(1, empId);
+                        delete.setLong(2, period.getStartDate().toEpochDay());
+                        delete.setLong(3, period.getEndDate().toEpochDay());
+                        delete.addBatch();
+
+                        insert.setString(1, empId);
+                        insert.setLong(2, period.getStartDate().toEpochDay());
+                        insert.setLong(3, period.getEndDate().toEpochDay());
+                        insert.setString(4, period.getFrequency().name());
+                        insert.setLong(5, result.getRegularPayCentavos());
+                        insert.setLong(6, result.getGrossIncomeCentavos());
+                        insert.setLong(7, result.getSssCentavos());
+                        insert.setLong(8, result.getPhilHealthCentavos());
+                        insert.setLong(9, result.getPagibigCentavos());
+                        insert.setLong(10, result.getWithholdingTaxCentavos());
+                        insert.setLong(11, result.getSummary().getTotalLateDeductionsCentavos());
+                        insert.setLong(12, result.getTotalDeMinimisBenefitsCentavos());
+                        insert.setLong(13, result.getNetPayCentavos());
+                        insert.addBatch();
+
+                        if (++batched % BATCH_SIZE == 0) {
+                            delete.executeBatch();
+                            insert.executeBatch();
+                        }
+                    }
+                    delete.executeBatch();
+                    insert.executeBatch();
+                }
+            });
+        }
+    }
+
+    /**
+     * Work done on the connection that may fail with a SQLException.
+     */
+    private interface Work {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Runs work in one transaction, rolling it back if it fails.
+     */
+    private void inTransaction(Work work) throws IOException {
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                work.run();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static String text(ResultSet rows, int column) throws SQLException {
+        String value = rows.getString(column);
+        return (value != null) ? value : "";
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (connection) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.payroll;
+
+import java.math.RoundingMode;
+
+/**
+ * Money - Peso amounts as long centavos.
+ *
+ * Payroll amounts are carried as whole centavos in primitive longs, so sums of thousands of
+ * daily amounts are exact and no objects are allocated on the hot path. Every statutory
+ * step (hourly pay, premiums, contribution and tax brackets, proration) is one call to
+ * {@link #multiplyDivide}, which computes amount x numerator / denominator in integer
+ * arithmetic and rounds once with an explicit rounding mode. Multipliers are expressed as
+ * integers: minutes over 60, percentages over 100, bracket rates in parts per million.
+ *
+ * Amounts are converted to pesos (double) only for display; a double holds every centavo
+ * amount below PHP 90 trillion exactly enough to print with two decimals.
+ */
+public final class Money {
+    public static final long CENTAVOS_PER_PESO = 100L;
+    public static final long PARTS_PER_MILLION = 1_000_000L;
+
+    private Money() { }
+
+    /**
+     * Converts a peso amount to centavos, rounding half up. Amounts that were typed with at
+     * most two decimals come back exactly, as long as they survived parsing (below
+     * PHP 131,072 for a float, PHP 35 trillion for a double).
+     *
+     * @param pesos Amount in pesos
+     * @return Amount in centavos
+     */
+    public static long ofPesos(double pesos) {
+        if (Double.isNaN(pesos) || Double.isInfinite(pesos)) {
+            throw new ArithmeticException("Not a peso amount: " + pesos);
+        }
+        double magnitude = Math.abs(pesos);
+        double scaled = Math.floor(magnitude * 100.0);
+        // magnitude * 100 was rounded; fix the floor and the tie using the exact product
+        if (Math.fma(magnitude, 100.0, -scaled) < 0) scaled -= 1.0;
+        else if (Math.fma(magnitude, 100.0, -(scaled + 1.0)) >= 0) scaled += 1.0;
+        long centavos = (long) scaled + ((Math.fma(magnitude, 100.0, -(scaled + 0.5)) >= 0) ? 1 : 0);
+        return (pesos < 0) ? -centavos : centavos;
+    }
+
+    /**
+     * Parses a peso amount such as "1,500", "535.71" or "-90,000.00" to centavos. Digits
+     * after the second decimal are rounded half up. Thousands separators are ignored.
+     *
+     * @param text Amount as written in a CSV file
+     * @return Amount in centavos
+     * @throws NumberFormatException if the text is not an amount
+     */
+    public static long parse(String text) {
+        String value = text.trim();
+        int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+
+        long centavos = 0L;
+        int decimals = -1;
+        boolean roundUp = false, digits = false;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ',' && decimals < 0) continue;
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            if (c < '0' || c > '9') throw new NumberFormatException("Not a peso amount: " + text);
+            digits = true;
+            if (decimals < 0) {
+                centavos = Math.addExact(Math.multiplyExact(centavos, 10L), c - '0');
+            } else if (decimals < 2) {
+                centavos = centavos * 10L + (c - '0');
+                decimals++;
+            } else if (decimals == 2) {
+                roundUp = c >= '5';
+                decimals++;
+            }
+        }
+        if (!digits) throw new NumberFormatException("Not a peso amount: " + text);
+
+        for (int scale = Math.max(decimals, 0); scale < 2; scale++) centavos = Math.multiplyExact(centavos, 10L);
+        if (roundUp) centavos++;
+        return negative ? -centavos : centavos;
+    }
+
+    /**
+     * Converts centavos to pesos for display.
+     */
+    public static double toPesos(long centavos) {
+        return centavos / 100.0;
+    }
+
+    /**
+     * Computes amount x numerator / denominator with a single rounding to whole centavos.
+     *
+     * @param amount      Amount in centavos (or any integer quantity, e.g., minutes)
+     * @param numerator   Multiplier numerator (e.g., a rate in centavos, a percentage)
+     * @param denominator Multiplier denominator; must be positive
+     * @param mode        How the exact quotient is rounded; UNNECESSARY throws if it is not whole
+     * @return The rounded result
+     * @throws ArithmeticException on overflow or an inexact UNNECESSARY result
+     */
+    public static long multiplyDivide(long amount, long numerator, long denominator, RoundingMode mode) {
+        if (denominator <= 0) throw new ArithmeticException("Denominator must be positive: " + denominator);
+        long product = Math.multiplyExact(amount, numerator);
+        if (mode == RoundingMode.HALF_UP && product >= 0 && product <= Long.MAX_VALUE - denominator) {
+            // Common case (pay, premiums, rates): one division, remainder >= half rounds up
+            return (product + denominator / 2) / denominator;
+        }
+        long quotient = product / denominator;
+        long remainder = product % denominator;
+        if (remainder == 0) return quotient;
+
+        int sign = (product < 0) ? -1 : 1;
+        long below = Math.abs(remainder);     // distance to the quotient nearer zero
+        long above = denominator - below;      // distance to the quotient away from zero
+        boolean awayFromZero;
+        switch (mode) {
+            case UP:
+                awayFromZero = true;
+                break;
+            case DOWN:
+                awayFromZero = false;
+                break;
+            case CEILING:
+                awayFromZero = sign > 0;
+                break;
+            case FLOOR:
+                awayFromZero = sign < 0;
+                break;
+            case HALF_UP:
+                awayFromZero = below >= above;
+                break;
+            case HALF_DOWN:
+                awayFromZero = below > above;
+                break;
+            case HALF_EVEN:
+                awayFromZero = below > above || (below == above && (quotient & 1) != 0);
+                break;
+            default:
+                throw new ArithmeticException("Rounding necessary: " + product + "/" + denominator);
+        }
+        return awayFromZero ? quotient + sign : quotient;
+    }
+
+    /**
+     * Applies a rate in parts per million (e.g., 30,000 for 3%) to an amount, rounding half up.
+     */
+    public static long applyRate(long centavos, long ratePpm) {
+        return multiplyDivide(centavos, ratePpm, PARTS_PER_MILLION, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Converts a fractional rate (e.g., 0.03f) to parts per million.
+     */
+    public static long toPartsPerMillion(double rate) {
+        return Math.round(rate * PARTS_PER_MILLION);
+    }
+}
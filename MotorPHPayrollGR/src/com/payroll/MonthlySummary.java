@@ -1,122 +1,344 @@
 package com.payroll;
 
+import java.io.*;
 import java.time.*;
 import java.util.*;
+import java.util.stream.IntStream;
 
 /**
- * MonthlySummary - Computes an employee's monthly work hours, overtime, and deductions.
+ * MonthlySummary - Computes an employee's work hours, overtime, and deductions for one pay period.
+ *
+ * Despite its name a summary covers any {@link PayrollPeriod}: a month, a semi-monthly
+ * cutoff, a week or a custom range.
  */
 public class MonthlySummary {
+    // Work type codes for the daily breakdown rows
+    public static final byte REGULAR_WORKDAY = 0;
+    public static final byte REST_DAY = 1;
+    public static final byte REGULAR_HOLIDAY = 2;
+    public static final byte SPECIAL_HOLIDAY = 3;
+    public static final byte HOLIDAY = 4;
+    public static final byte HOLIDAY_REST_DAY = 5;
+    private static final String[] WORK_TYPE_LABELS = {
+        "Regular Workday", "Rest Day", "Regular Holiday", "Special Holiday", "Holiday", "Holiday + Rest Day"
+    };
+
+    private static final int INITIAL_DAYS = 32;
+
     private final EmployeeData employee;
-    private float totalRegularHours = 0f; // Added declaration for Regular hours
-    private float totalHolidayWorkedHours = 0f; // Added declaration for Holiday Worked Hours
-    private float totalWorkHours = 0f, totalOvertime = 0f, totalLateDeductions = 0f, totalOvertimePay = 0f;
-    private float totalHolidayPay = 0f, totalRestDayOTPay = 0f, totalLateHours = 0f;
-    private final StringBuilder breakdownOutput = new StringBuilder();
+    private final PayrollPeriod period;
+    private final PayRules rules;
+
+    // Totals are kept in whole minutes and centavos, so they are exact for any number of days
+    private long totalRegularMinutes = 0L; // Added declaration for Regular hours
+    private long totalHolidayWorkedMinutes = 0L; // Added declaration for Holiday Worked Hours
+    private long totalWorkMinutes = 0L, totalOvertimeMinutes = 0L, totalLateMinutes = 0L;
+    private long totalLateDeductions = 0L, totalOvertimePay = 0L, totalHolidayPay = 0L, totalRestDayOTPay = 0L;
+
+    // Daily breakdown rows, one array per column; formatted only when a report is rendered
+    private int dayCount = 0;
+    private long[] workDates = new long[INITIAL_DAYS];
+    private byte[] workTypes = new byte[INITIAL_DAYS];
+    private byte[] dayTypes = new byte[INITIAL_DAYS]; // Calendar classification, see HolidayCalendar
+    private int[] workMinutes = new int[INITIAL_DAYS];
+    private int[] overtimeMinutes = new int[INITIAL_DAYS];
+    private long[] overtimePays = new long[INITIAL_DAYS];
+    private int[] lateMinutesByDay = new int[INITIAL_DAYS];
+    private long[] lateDeductions = new long[INITIAL_DAYS];
+    private long[] holidayPays = new long[INITIAL_DAYS];
+    private long[] restDayOTPays = new long[INITIAL_DAYS];
 
     /**
      * Constructor to initialize monthly summary for an employee.
      */
     public MonthlySummary(EmployeeData employee) {
+        this(employee, null);
+    }
+
+    /**
+     * Constructor to initialize the summary of an employee for a pay period, evaluated with the
+     * rules the default {@link PayRuleBook} gives the employee.
+     */
+    public MonthlySummary(EmployeeData employee, PayrollPeriod period) {
+        this(employee, period, PayRuleBook.getDefault().rulesFor(employee));
+    }
+
+    /**
+     * Constructor to initialize the summary of an employee for a pay period, evaluated with the given rules.
+     */
+    public MonthlySummary(EmployeeData employee, PayrollPeriod period, PayRules rules) {
         this.employee = employee;
+        this.period = period;
+        this.rules = rules;
     }
 
     /**
      * Adds daily work details to the monthly summary.
+     *
+     * @param rawMinutesWorked  Minutes between clock in and clock out, lunch included
+     * @param lateMinutes       Minutes clocked in after the grace period
+     * @param holidayMultiplier Pay multiplier of the day (e.g., 2.00 for a regular holiday)
      */
-    public void addDailyWork(LocalDate date, float rawDailyWorkHours, float lateMinutes, float lateDeduction,
+    public void addDailyWork(LocalDate date, int rawMinutesWorked, int lateMinutes,
                          boolean isHoliday, boolean isRestDay, boolean isHolidayRestDay, float holidayMultiplier) {
-        float lateHours = lateMinutes / 60f;
-        totalLateHours += lateHours;
+        byte workType = workTypeOf(isHoliday, isRestDay, isHolidayRestDay, holidayMultiplier);
+        addDailyWork(date.toEpochDay(), rawMinutesWorked, lateMinutes, dayTypeOf(isHoliday, isRestDay, holidayMultiplier),
+                     workType, Math.round(holidayMultiplier * 100f));
+    }
+
+    /**
+     * Adds daily work details of a calendar day type, paying holiday work at the rules' multiplier for it.
+     */
+    void addDailyWork(long epochDay, int rawMinutesWorked, int lateMinutes, byte dayType, byte workType) {
+        addDailyWork(epochDay, rawMinutesWorked, lateMinutes, dayType, workType, rules.getHolidayPercent(dayType));
+    }
 
-        float dailyWorkHours = Math.max(0f, rawDailyWorkHours - 1f); // subtract 1 hr lunch
-        float regularWorkHours = Math.min(8f, dailyWorkHours);       // regular hours up to 8
-        float overtimeHours = (dailyWorkHours >= 9f) ? dailyWorkHours - 8f : 0f;
+    private void addDailyWork(long epochDay, int rawMinutesWorked, int lateMinutes, byte dayType, byte workType,
+                              int holidayPercent) {
+        if (dayCount == workDates.length) growDays();
+        int day = dayCount++;
+        setDailyWork(day, epochDay, rawMinutesWorked, lateMinutes, dayType, workType, holidayPercent);
+        addToTotals(day);
+    }
 
-        totalWorkHours += dailyWorkHours;
-        totalRegularHours += regularWorkHours; // Accumulate regular hours separately
-        totalOvertime += overtimeHours;
-        totalLateDeductions += lateDeduction;
+    /**
+     * Records daily work details, replacing the row already recorded for the same date (e.g., a
+     * corrected or re-sent time entry). The totals are recomputed from the daily rows, so they
+     * equal those of a summary built from the corrected entries alone.
+     */
+    public void replaceDailyWork(LocalDate date, int rawMinutesWorked, int lateMinutes,
+                             boolean isHoliday, boolean isRestDay, boolean isHolidayRestDay, float holidayMultiplier) {
+        byte workType = workTypeOf(isHoliday, isRestDay, isHolidayRestDay, holidayMultiplier);
+        replaceDailyWork(date.toEpochDay(), rawMinutesWorked, lateMinutes, dayTypeOf(isHoliday, isRestDay, holidayMultiplier),
+                         workType, Math.round(holidayMultiplier * 100f));
+    }
 
-        float dailyHolidayPay = 0f;
-        if (isHoliday) {
-            totalHolidayWorkedHours += dailyWorkHours; // ✅ Track holiday hours
-            dailyHolidayPay = dailyWorkHours * employee.getHourlyRate() * (holidayMultiplier - 1f);
-            totalHolidayPay += dailyHolidayPay;
+    /**
+     * Records daily work details of a calendar day type, replacing the row already recorded for
+     * the same date.
+     */
+    void replaceDailyWork(long epochDay, int rawMinutesWorked, int lateMinutes, byte dayType, byte workType) {
+        replaceDailyWork(epochDay, rawMinutesWorked, lateMinutes, dayType, workType, rules.getHolidayPercent(dayType));
+    }
+
+    private void replaceDailyWork(long epochDay, int rawMinutesWorked, int lateMinutes, byte dayType, byte workType,
+                                  int holidayPercent) {
+        int day = (dayCount == 0 || workDates[dayCount - 1] < epochDay) ? -1 : indexOfDay(epochDay);
+        if (day < 0) {
+            addDailyWork(epochDay, rawMinutesWorked, lateMinutes, dayType, workType, holidayPercent);
+            return;
         }
 
-        float dailyRestDayOTPay = 0f;
-        if (isRestDay) {
-            dailyRestDayOTPay = dailyWorkHours * employee.getHourlyRate() * 1.5f;
-            totalRestDayOTPay += dailyRestDayOTPay;
+        setDailyWork(day, epochDay, rawMinutesWorked, lateMinutes, dayType, workType, holidayPercent);
+        totalRegularMinutes = totalHolidayWorkedMinutes = 0L;
+        totalWorkMinutes = totalOvertimeMinutes = totalLateMinutes = 0L;
+        totalLateDeductions = totalOvertimePay = totalHolidayPay = totalRestDayOTPay = 0L;
+        for (int i = 0; i < dayCount; i++) {
+            addToTotals(i);
         }
+    }
 
-        float overtimePay = overtimeHours * employee.getHourlyRate() * 1.25f;
-        totalOvertimePay += overtimePay;
+    /**
+     * Rebuilds the calendar day type of a day given only as flags; a holiday paid at 200% or
+     * more is taken as a regular holiday.
+     */
+    private static byte dayTypeOf(boolean isHoliday, boolean isRestDay, float holidayMultiplier) {
+        int dayType = 0;
+        if (isHoliday) {
+            dayType |= (Math.round(holidayMultiplier * 100f) >= 200) ? HolidayCalendar.REGULAR_HOLIDAY
+                                                                    : HolidayCalendar.SPECIAL_NON_WORKING;
+        }
+        if (isRestDay) dayType |= HolidayCalendar.REST_DAY;
+        return (byte) dayType;
+    }
 
-        // Determine the correct work type label for the breakdown report
-        String workTypeLabel;
+    /**
+     * Determines the work type of a day of a calendar day type (see {@link HolidayCalendar}).
+     */
+    static byte workTypeOf(byte dayType) {
+        boolean isHoliday = (dayType & (HolidayCalendar.REGULAR_HOLIDAY | HolidayCalendar.SPECIAL_NON_WORKING)) != 0;
+        boolean isRestDay = (dayType & HolidayCalendar.REST_DAY) != 0;
+        return workTypeOf(isHoliday, isRestDay, isHoliday && isRestDay, HolidayCalendar.getMultiplier(dayType));
+    }
 
+    /**
+     * Determines the work type of a day for the breakdown report.
+     */
+    static byte workTypeOf(boolean isHoliday, boolean isRestDay, boolean isHolidayRestDay, float holidayMultiplier) {
         if (isHolidayRestDay) {
             // Case: Employee worked on both a holiday and their rest day
-            workTypeLabel = "Holiday + Rest Day";
+            return HOLIDAY_REST_DAY;
         } else if (isHoliday) {
             // Case: Employee worked on a holiday (determine type by holiday multiplier)
-            if (holidayMultiplier == 2.00f) {
-                workTypeLabel = "Regular Holiday";
-            } else if (holidayMultiplier == 1.30f) {
-                workTypeLabel = "Special Holiday";
+            int holidayPercent = Math.round(holidayMultiplier * 100f);
+            if (holidayPercent == 200) {
+                return REGULAR_HOLIDAY;
+            } else if (holidayPercent == 130) {
+                return SPECIAL_HOLIDAY;
             } else {
-                workTypeLabel = "Holiday"; // Fallback for any other special cases
+                return HOLIDAY; // Fallback for any other special cases
             }
         } else if (isRestDay) {
             // Case: Employee worked on their scheduled rest day
-            workTypeLabel = "Rest Day";
+            return REST_DAY;
         } else {
             // Case: Regular working day
-            workTypeLabel = "Regular Workday";
+            return REGULAR_WORKDAY;
+        }
+    }
+
+    /**
+     * Computes the breakdown row of one day with the summary's {@link PayRules}. Each amount is
+     * minutes x hourly rate x premium, computed in centavos and rounded half up once, so a
+     * day's pay does not depend on how the hours were accumulated.
+     */
+    private void setDailyWork(int day, long epochDay, int rawMinutesWorked, int lateMinutes, byte dayType,
+                              byte workType, int holidayPercent) {
+        long hourlyRate = employee.getHourlyRateCentavos();
+        boolean isHoliday = (dayType & (HolidayCalendar.REGULAR_HOLIDAY | HolidayCalendar.SPECIAL_NON_WORKING)) != 0;
+        boolean isRestDay = (dayType & HolidayCalendar.REST_DAY) != 0;
+
+        int dailyWorkMinutes = rules.workMinutes(rawMinutesWorked); // subtract lunch
+        int dailyOvertimeMinutes = rules.overtimeMinutes(dailyWorkMinutes);
+
+        long dailyHolidayPay = 0L;
+        if (isHoliday) {
+            dailyHolidayPay = rules.holidayPay(dailyWorkMinutes, hourlyRate, holidayPercent);
+        }
+
+        long dailyRestDayOTPay = 0L;
+        if (isRestDay) {
+            dailyRestDayOTPay = rules.restDayPay(dailyWorkMinutes, hourlyRate);
+        }
+
+        long overtimePay = rules.overtimePay(dailyOvertimeMinutes, hourlyRate);
+        long lateDeduction = rules.lateDeduction(Math.max(0, lateMinutes), hourlyRate);
+
+        // Record the breakdown row; it is formatted when the report is requested
+        workDates[day] = epochDay;
+        workTypes[day] = workType;
+        dayTypes[day] = dayType;
+        workMinutes[day] = dailyWorkMinutes;
+        overtimeMinutes[day] = dailyOvertimeMinutes;
+        overtimePays[day] = overtimePay;
+        lateMinutesByDay[day] = Math.max(0, lateMinutes);
+        lateDeductions[day] = lateDeduction;
+        holidayPays[day] = dailyHolidayPay;
+        restDayOTPays[day] = dailyRestDayOTPay;
+    }
+
+    /**
+     * Adds one breakdown row to the running totals.
+     */
+    private void addToTotals(int day) {
+        int dailyWorkMinutes = workMinutes[day];
+
+        totalLateMinutes += lateMinutesByDay[day];
+        totalWorkMinutes += dailyWorkMinutes;
+        totalRegularMinutes += rules.regularMinutes(dailyWorkMinutes); // regular hours up to the rules' day
+        totalOvertimeMinutes += overtimeMinutes[day];
+        totalLateDeductions += lateDeductions[day];
+
+        if (workTypes[day] >= REGULAR_HOLIDAY) {
+            totalHolidayWorkedMinutes += dailyWorkMinutes; // ✅ Track holiday hours
+            totalHolidayPay += holidayPays[day];
         }
+        totalRestDayOTPay += restDayOTPays[day];
+        totalOvertimePay += overtimePays[day];
+    }
+
+    /**
+     * Finds the breakdown row of a date, searching from the most recent row.
+     */
+    private int indexOfDay(long epochDay) {
+        for (int day = dayCount - 1; day >= 0; day--) {
+            if (workDates[day] == epochDay) return day;
+        }
+        return -1;
+    }
 
-        // Append the breakdown log entry with aligned formatting
-        breakdownOutput.append(String.format(" %s | %-17s | %8.2f | %.2f   | PHP %8.2f | %12.2f | PHP %8.2f%n",
-            date.toString(), workTypeLabel, overtimeHours, 1.25f, overtimePay, lateMinutes, lateDeduction));
+    private void growDays() {
+        int capacity = workDates.length * 2;
+        workDates = Arrays.copyOf(workDates, capacity);
+        workTypes = Arrays.copyOf(workTypes, capacity);
+        dayTypes = Arrays.copyOf(dayTypes, capacity);
+        workMinutes = Arrays.copyOf(workMinutes, capacity);
+        overtimeMinutes = Arrays.copyOf(overtimeMinutes, capacity);
+        overtimePays = Arrays.copyOf(overtimePays, capacity);
+        lateMinutesByDay = Arrays.copyOf(lateMinutesByDay, capacity);
+        lateDeductions = Arrays.copyOf(lateDeductions, capacity);
+        holidayPays = Arrays.copyOf(holidayPays, capacity);
+        restDayOTPays = Arrays.copyOf(restDayOTPays, capacity);
     }
 
     /**
      * Returns the total number of work hours (excluding lunch breaks) for the employee within the payroll period.
      * @return Total worked hours as a float value.
      */
-    public float getTotalWorkHours() { return totalWorkHours; }
+    public float getTotalWorkHours() { return totalWorkMinutes / 60f; }
+
+    /**
+     * Returns the total work time (excluding lunch breaks) in whole minutes; regular pay is computed from it.
+     */
+    public long getTotalWorkMinutes() { return totalWorkMinutes; }
+
+    /**
+     * Returns the hours worked up to the 8-hour regular shift, summed over the period.
+     * @return Total regular hours as a float value.
+     */
+    public float getTotalRegularHours() { return totalRegularMinutes / 60f; }
+
+    /**
+     * Returns the hours worked on regular and special non-working holidays.
+     * @return Total holiday hours as a float value.
+     */
+    public float getTotalHolidayWorkHours() { return totalHolidayWorkedMinutes / 60f; }
+
+    /**
+     * Returns the total time the employee clocked in after the 8:30 AM grace period.
+     * @return Total late hours as a float value.
+     */
+    public float getTotalLateHours() { return totalLateMinutes / 60f; }
 
     /**
      * Returns the total number of overtime hours worked beyond the standard shift (8 hours/day).
      * @return Total overtime hours as a float value.
      */
-    public float getTotalOvertime() { return totalOvertime; }
+    public float getTotalOvertime() { return totalOvertimeMinutes / 60f; }
 
     /**
      * Returns the total amount of salary deductions due to employee lateness.
      * @return Total late deductions in PHP.
      */
-    public float getTotalLateDeductions() { return totalLateDeductions; }
+    public double getTotalLateDeductions() { return Money.toPesos(totalLateDeductions); }
 
     /**
      * Returns the total monetary compensation received for overtime hours.
      * @return Total overtime pay in PHP.
      */
-    public float getTotalOvertimePay() { return totalOvertimePay; }
+    public double getTotalOvertimePay() { return Money.toPesos(totalOvertimePay); }
 
     /**
      * Returns the total additional compensation received for working during holidays.
      * @return Total holiday pay in PHP.
      */
-    public float getTotalHolidayPay() { return totalHolidayPay; }
+    public double getTotalHolidayPay() { return Money.toPesos(totalHolidayPay); }
 
     /**
      * Returns the total additional compensation received for working on rest days.
      * @return Total rest day overtime pay in PHP.
      */
-    public float getTotalRestDayOTPay() { return totalRestDayOTPay; }
+    public double getTotalRestDayOTPay() { return Money.toPesos(totalRestDayOTPay); }
+
+    // Exact totals: minutes and centavos
+    public long getTotalRegularMinutes() { return totalRegularMinutes; }
+    public long getTotalHolidayWorkMinutes() { return totalHolidayWorkedMinutes; }
+    public long getTotalOvertimeMinutes() { return totalOvertimeMinutes; }
+    public long getTotalLateMinutes() { return totalLateMinutes; }
+    public long getTotalLateDeductionsCentavos() { return totalLateDeductions; }
+    public long getTotalOvertimePayCentavos() { return totalOvertimePay; }
+    public long getTotalHolidayPayCentavos() { return totalHolidayPay; }
+    public long getTotalRestDayOTPayCentavos() { return totalRestDayOTPay; }
 
     /**
      * Returns the employee's personal and payroll-related data object.
@@ -124,20 +346,184 @@ public class MonthlySummary {
      */
     public EmployeeData getEmployee() { return employee; }
 
+    /**
+     * Gets the pay period of the summary. Summaries created without one cover the calendar
+     * month of their first work date.
+     */
+    public PayrollPeriod getPeriod() {
+        if (period != null) return period;
+        LocalDate date = (dayCount > 0) ? LocalDate.ofEpochDay(workDates[0]) : LocalDate.now();
+        return PayrollPeriod.containing(PayrollPeriod.Frequency.MONTHLY, date);
+    }
+
+    /**
+     * Returns the number of daily rows recorded in the breakdown.
+     * @return Number of days with time entries.
+     */
+    public int getDayCount() { return dayCount; }
+
+    /**
+     * Returns the work date of a daily breakdown row.
+     * @param day Row index, from 0 to getDayCount() - 1
+     * @return Work date
+     */
+    public LocalDate getWorkDate(int day) { return LocalDate.ofEpochDay(workDates[checkDay(day)]); }
+
+    /**
+     * Returns the work type code (e.g., REGULAR_WORKDAY, REST_DAY) of a daily breakdown row.
+     */
+    public byte getWorkType(int day) { return workTypes[checkDay(day)]; }
+
+    /**
+     * Returns the calendar day type of a breakdown row (see {@link HolidayCalendar}), from
+     * which the day's premiums are priced.
+     */
+    public byte getDayType(int day) { return dayTypes[checkDay(day)]; }
+
+    /**
+     * Gets the rules the days of this summary were evaluated with.
+     */
+    public PayRules getRules() { return rules; }
+
+    /**
+     * Returns the display label for a work type code.
+     */
+    public static String getWorkTypeLabel(byte workType) { return WORK_TYPE_LABELS[workType]; }
+
+    /**
+     * Returns the hours worked (excluding lunch) on a daily breakdown row.
+     */
+    public float getWorkHours(int day) { return workMinutes[checkDay(day)] / 60f; }
+
+    /**
+     * Returns the overtime hours of a daily breakdown row.
+     */
+    public float getOvertimeHours(int day) { return overtimeMinutes[checkDay(day)] / 60f; }
+
+    /**
+     * Returns the overtime pay of a daily breakdown row in PHP.
+     */
+    public double getOvertimePay(int day) { return Money.toPesos(overtimePays[checkDay(day)]); }
+
+    /**
+     * Returns the minutes late of a daily breakdown row.
+     */
+    public float getLateMinutes(int day) { return lateMinutesByDay[checkDay(day)]; }
+
+    /**
+     * Returns the late deduction of a daily breakdown row in PHP.
+     */
+    public double getLateDeduction(int day) { return Money.toPesos(lateDeductions[checkDay(day)]); }
+
+    /**
+     * Returns the additional holiday pay of a daily breakdown row in PHP.
+     */
+    public double getHolidayPay(int day) { return Money.toPesos(holidayPays[checkDay(day)]); }
+
+    /**
+     * Returns the rest day OT pay of a daily breakdown row in PHP.
+     */
+    public double getRestDayOTPay(int day) { return Money.toPesos(restDayOTPays[checkDay(day)]); }
+
+    // Exact daily values: minutes and centavos
+    public int getWorkMinutes(int day) { return workMinutes[checkDay(day)]; }
+    public int getOvertimeMinutes(int day) { return overtimeMinutes[checkDay(day)]; }
+    public long getOvertimePayCentavos(int day) { return overtimePays[checkDay(day)]; }
+    public long getLateDeductionCentavos(int day) { return lateDeductions[checkDay(day)]; }
+    public long getHolidayPayCentavos(int day) { return holidayPays[checkDay(day)]; }
+    public long getRestDayOTPayCentavos(int day) { return restDayOTPays[checkDay(day)]; }
+
+    private int checkDay(int day) {
+        if (day < 0 || day >= dayCount) throw new IndexOutOfBoundsException("Day " + day + " of " + dayCount);
+        return day;
+    }
+
+    /**
+     * Writes the totals and daily rows so the summary can be restored without its time entries.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        PayrollPeriod period = getPeriod();
+        out.writeByte(period.getFrequency().ordinal());
+        out.writeLong(period.getStartDate().toEpochDay());
+        out.writeLong(period.getEndDate().toEpochDay());
+
+        out.writeLong(totalWorkMinutes);
+        out.writeLong(totalRegularMinutes);
+        out.writeLong(totalHolidayWorkedMinutes);
+        out.writeLong(totalOvertimeMinutes);
+        out.writeLong(totalOvertimePay);
+        out.writeLong(totalHolidayPay);
+        out.writeLong(totalRestDayOTPay);
+        out.writeLong(totalLateMinutes);
+        out.writeLong(totalLateDeductions);
+
+        out.writeInt(dayCount);
+        for (int day = 0; day < dayCount; day++) {
+            out.writeLong(workDates[day]);
+            out.writeByte(workTypes[day]);
+            out.writeByte(dayTypes[day]);
+            out.writeInt(workMinutes[day]);
+            out.writeInt(overtimeMinutes[day]);
+            out.writeLong(overtimePays[day]);
+            out.writeInt(lateMinutesByDay[day]);
+            out.writeLong(lateDeductions[day]);
+            out.writeLong(holidayPays[day]);
+            out.writeLong(restDayOTPays[day]);
+        }
+    }
+
+    /**
+     * Restores a summary written by {@link #writeTo(DataOutput)}.
+     */
+    static MonthlySummary readFrom(DataInput in, EmployeeData employee) throws IOException {
+        PayrollPeriod.Frequency frequency = PayrollPeriod.Frequency.values()[in.readByte()];
+        LocalDate startDate = LocalDate.ofEpochDay(in.readLong());
+        LocalDate endDate = LocalDate.ofEpochDay(in.readLong());
+
+        MonthlySummary summary = new MonthlySummary(employee, new PayrollPeriod(frequency, startDate, endDate));
+        summary.totalWorkMinutes = in.readLong();
+        summary.totalRegularMinutes = in.readLong();
+        summary.totalHolidayWorkedMinutes = in.readLong();
+        summary.totalOvertimeMinutes = in.readLong();
+        summary.totalOvertimePay = in.readLong();
+        summary.totalHolidayPay = in.readLong();
+        summary.totalRestDayOTPay = in.readLong();
+        summary.totalLateMinutes = in.readLong();
+        summary.totalLateDeductions = in.readLong();
+
+        int days = in.readInt();
+        for (int day = 0; day < days; day++) {
+            if (summary.dayCount == summary.workDates.length) summary.growDays();
+            summary.workDates[day] = in.readLong();
+            summary.workTypes[day] = in.readByte();
+            summary.dayTypes[day] = in.readByte();
+            summary.workMinutes[day] = in.readInt();
+            summary.overtimeMinutes[day] = in.readInt();
+            summary.overtimePays[day] = in.readLong();
+            summary.lateMinutesByDay[day] = in.readInt();
+            summary.lateDeductions[day] = in.readLong();
+            summary.holidayPays[day] = in.readLong();
+            summary.restDayOTPays[day] = in.readLong();
+            summary.dayCount++;
+        }
+        return summary;
+    }
+
     /**
      * Returns summary data in key-value map for external use (e.g., payroll report).
+     * Allocates a new map on every call; use the typed getters on hot paths.
      */
     public Map<String, Object> getSummaryData() {
         Map<String, Object> data = new HashMap<>();
-        data.put("totalWorkHours", totalWorkHours);
-        data.put("totalRegularWorkHours", totalRegularHours); // Fixed to return correct regular hours
-        data.put("totalHolidayWorkHours", totalHolidayWorkedHours); // Updated tracker to so that Holiday Work hours won't print 0.00 Values
-        data.put("totalOvertime", totalOvertime);
-        data.put("totalOvertimePay", totalOvertimePay);
-        data.put("totalHolidayPay", totalHolidayPay);
-        data.put("totalRestDayOTPay", totalRestDayOTPay);
-        data.put("totalLateHours", totalLateHours);
-        data.put("totalLateDeductions", totalLateDeductions);
+        data.put("totalWorkHours", getTotalWorkHours());
+        data.put("totalRegularWorkHours", getTotalRegularHours()); // Fixed to return correct regular hours
+        data.put("totalHolidayWorkHours", getTotalHolidayWorkHours()); // Updated tracker to so that Holiday Work hours won't print 0.00 Values
+        data.put("totalOvertime", getTotalOvertime());
+        data.put("totalOvertimePay", getTotalOvertimePay());
+        data.put("totalHolidayPay", getTotalHolidayPay());
+        data.put("totalRestDayOTPay", getTotalRestDayOTPay());
+        data.put("totalLateHours", getTotalLateHours());
+        data.put("totalLateDeductions", getTotalLateDeductions());
         return data;
     }
 
@@ -148,15 +534,15 @@ public class MonthlySummary {
         return "\n--------------------------------------------------------------\n"
             + " Summary of Monthly Work Hours & Deductions \n"
             + "--------------------------------------------------------------\n"
-            + String.format(" Total Worked Hours      : %.2f%n", totalWorkHours)
-            + String.format(" Total Regular Hours     : %.2f%n", totalRegularHours)
-            + String.format(" Total Overtime Hours    : %.2f%n", totalOvertime)
-            + String.format(" Total Holiday Hours      : %.2f%n", totalHolidayWorkedHours)    
-            + String.format(" Total Overtime Pay      : PHP %.2f%n", totalOvertimePay)
-            + String.format(" Total Holiday Pay       : PHP %.2f%n", totalHolidayPay)
-            + String.format(" Total Rest Day OT Pay   : PHP %.2f%n", totalRestDayOTPay)
-            + String.format(" Total Late Hours        : %.2f%n", totalLateHours)
-            + String.format(" Total Late Deductions   : PHP %.2f%n", totalLateDeductions)
+            + String.format(" Total Worked Hours      : %.2f%n", getTotalWorkHours())
+            + String.format(" Total Regular Hours     : %.2f%n", getTotalRegularHours())
+            + String.format(" Total Overtime Hours    : %.2f%n", getTotalOvertime())
+            + String.format(" Total Holiday Hours      : %.2f%n", getTotalHolidayWorkHours())    
+            + String.format(" Total Overtime Pay      : PHP %.2f%n", getTotalOvertimePay())
+            + String.format(" Total Holiday Pay       : PHP %.2f%n", getTotalHolidayPay())
+            + String.format(" Total Rest Day OT Pay   : PHP %.2f%n", getTotalRestDayOTPay())
+            + String.format(" Total Late Hours        : %.2f%n", getTotalLateHours())
+            + String.format(" Total Late Deductions   : PHP %.2f%n", getTotalLateDeductions())
             + "--------------------------------------------------------------\n"
             + getBreakdownReport();
     }
@@ -165,17 +551,9 @@ public class MonthlySummary {
      * Returns detailed daily breakdown of overtime and deductions.
      */
     public String getBreakdownReport() {
-        if (breakdownOutput.length() == 0) {
-            return "\n---------------- Overtime & Unpaid Work Hour Deductions Breakdown ----------------\n"
-                + "     Day     |     Work Type    | OT Hours |OT Rate |    OT Pay    |  Late Minutes|  Late Deduction\n"
-                + "----------------------------------------------------------------------------------------\n"
-                + "No overtime or late deductions recorded.\n";
-        }
-        return "\n---------------- Overtime & Unpaid Work Hour Deductions Breakdown ----------------\n"
-            + "     Day     |     Work Type    | OT Hours |OT Rate |    OT Pay    |  Late Minutes|  Late Deduction\n"
-            + "----------------------------------------------------------------------------------------\n"
-            + breakdownOutput.toString()
-            + "----------------------------------------------------------------------------------------\n";
+        StringBuilder report = new StringBuilder(300 + dayCount * 110);
+        PayslipWriter.TEXT_BREAKDOWN.render(this, report);
+        return report.toString();
     }
 
     /**
@@ -189,15 +567,15 @@ public class MonthlySummary {
         report.append("Employee ID           : ").append(employee.getEmpId()).append("\n");
         report.append("Hourly Rate           : PHP ").append(String.format("%.2f", employee.getHourlyRate())).append("\n");
         report.append("--------------------------------------------------\n");
-        report.append(String.format("Total Work Hours      : %.2f\n", totalWorkHours));
-        report.append(String.format("Total Regular Hours   : %.2f\n", totalRegularHours));
-        report.append(String.format("Total Overtime Hours  : %.2f\n", totalOvertime));
-        report.append(String.format("Total Holiday Hours      : %.2f\n", totalHolidayWorkedHours));
-        report.append(String.format("Total Overtime Pay    : PHP %.2f\n", totalOvertimePay));
-        report.append(String.format("Total Holiday Pay     : PHP %.2f\n", totalHolidayPay));
-        report.append(String.format("Total Rest Day OT Pay : PHP %.2f\n", totalRestDayOTPay));
-        report.append(String.format("Total Late Hours      : %.2f\n", totalLateHours));
-        report.append(String.format("Late Deductions       : PHP %.2f\n", totalLateDeductions));
+        report.append(String.format("Total Work Hours      : %.2f\n", getTotalWorkHours()));
+        report.append(String.format("Total Regular Hours   : %.2f\n", getTotalRegularHours()));
+        report.append(String.format("Total Overtime Hours  : %.2f\n", getTotalOvertime()));
+        report.append(String.format("Total Holiday Hours      : %.2f\n", getTotalHolidayWorkHours()));
+        report.append(String.format("Total Overtime Pay    : PHP %.2f\n", getTotalOvertimePay()));
+        report.append(String.format("Total Holiday Pay     : PHP %.2f\n", getTotalHolidayPay()));
+        report.append(String.format("Total Rest Day OT Pay : PHP %.2f\n", getTotalRestDayOTPay()));
+        report.append(String.format("Total Late Hours      : %.2f\n", getTotalLateHours()));
+        report.append(String.format("Late Deductions       : PHP %.2f\n", getTotalLateDeductions()));
         report.append("==================================================\n");
 
         report.append(getBreakdownReport());
@@ -224,30 +602,250 @@ public class MonthlySummary {
         List<TimeEntry> timeEntries) {
 
         Map<String, MonthlySummary> monthlySummaries = new HashMap<>();
+        if (timeEntries.isEmpty()) return monthlySummaries;
+
+        // Whole calendar months spanning the entries
+        LocalDate first = LocalDate.MAX, last = LocalDate.MIN;
+        for (TimeEntry entry : timeEntries) {
+            LocalDate date = entry.getClockIn().toLocalDate();
+            if (date.isBefore(first)) first = date;
+            if (date.isAfter(last)) last = date;
+        }
+        PeriodBuckets buckets = new PeriodBuckets(PayrollPeriod.Frequency.MONTHLY,
+                first.withDayOfMonth(1), last.withDayOfMonth(last.lengthOfMonth()));
 
         for (TimeEntry entry : timeEntries) {
-            EmployeeData emp = employees.get(entry.getEmpId());
+            accumulate(monthlySummaries, employees, buckets, entry);
+        }
+
+        return monthlySummaries;
+    }
+
+    /**
+     * Streams time entries for a payroll period straight from the CSV file into monthly summaries.
+     *
+     * Produces the same result as loading, filtering and then calling
+     * {@link #calculateWorkedHours(Map, List)}, but each entry is aggregated as soon as it is
+     * parsed, so the full list of time entries is never held in memory.
+     *
+     * @param employees  A map of employee ID to EmployeeData, loaded from the employee CSV.
+     * @param filename   Path to the time entries CSV file.
+     * @param startDate  First work date of the payroll period (inclusive).
+     * @param endDate    Last work date of the payroll period (inclusive).
+     * @return A map of employee-month keys (e.g., "EMP001-2024-06") to their MonthlySummary objects.
+     */
+    public static Map<String, MonthlySummary> calculateWorkedHours(
+        Map<String, EmployeeData> employees,
+        String filename, LocalDate startDate, LocalDate endDate) {
+
+        return calculateWorkedHours(employees, TimeEntrySource.csv(filename), startDate, endDate,
+                                    PayrollPeriod.Frequency.MONTHLY);
+    }
+
+    /**
+     * Streams time entries for a payroll period from any time entry source into monthly summaries.
+     *
+     * @param employees  A map of employee ID to EmployeeData, loaded from the employee CSV.
+     * @param source     Where the time entries are read from (CSV file, binary store, ...).
+     * @param startDate  First work date of the payroll period (inclusive).
+     * @param endDate    Last work date of the payroll period (inclusive).
+     * @return A map of employee-month keys (e.g., "EMP001-2024-06") to their MonthlySummary objects.
+     */
+    public static Map<String, MonthlySummary> calculateWorkedHours(
+        Map<String, EmployeeData> employees,
+        TimeEntrySource source, LocalDate startDate, LocalDate endDate) {
+
+        return calculateWorkedHours(employees, source, startDate, endDate, PayrollPeriod.Frequency.MONTHLY);
+    }
+
+    /**
+     * Streams time entries from a time entry source into one summary per employee and pay period.
+     *
+     * The date range is split into the periods of the frequency before the scan (e.g., every
+     * semi-monthly cutoff of a year), and each entry is added to its period's summary as it is
+     * read, so all periods are produced in a single pass over the time entries.
+     *
+     * @param employees  A map of employee ID to EmployeeData, loaded from the employee CSV.
+     * @param source     Where the time entries are read from (CSV file, binary store, ...).
+     * @param startDate  First work date of the payroll run (inclusive).
+     * @param endDate    Last work date of the payroll run (inclusive).
+     * @param frequency  Pay frequency the run is split into.
+     * @return A map of employee-period keys (e.g., "EMP001-2024-06A", see {@link PayrollPeriod#getKey()})
+     *         to their summaries.
+     */
+    public static Map<String, MonthlySummary> calculateWorkedHours(
+        Map<String, EmployeeData> employees,
+        TimeEntrySource source, LocalDate startDate, LocalDate endDate, PayrollPeriod.Frequency frequency) {
+
+        Map<String, MonthlySummary> summaries = new HashMap<>();
+        PeriodBuckets buckets = new PeriodBuckets(frequency, startDate, endDate);
+        source.forEach(startDate, endDate, entry -> accumulate(summaries, employees, buckets, entry));
+        return summaries;
+    }
+
+    /**
+     * Aggregates the rows of a time entry table into one summary per employee and pay period.
+     *
+     * Produces the same summaries as {@link #calculateWorkedHours(Map, TimeEntrySource, LocalDate, LocalDate, PayrollPeriod.Frequency)}
+     * over the same entries, but reads each row through the table's cursor, so no TimeEntry,
+     * LocalDateTime or key string is created per row: employees are resolved once per table
+     * employee index, and summaries are found by employee index and period.
+     *
+     * @param employees  A map of employee ID to EmployeeData, loaded from the employee CSV.
+     * @param table      Time entries packed in a table.
+     * @param startDate  First work date of the payroll run (inclusive).
+     * @param endDate    Last work date of the payroll run (inclusive).
+     * @param frequency  Pay frequency the run is split into.
+     * @return A map of employee-period keys (e.g., "EMP001-2024-06A", see {@link PayrollPeriod#getKey()})
+     *         to their summaries.
+     */
+    public static Map<String, MonthlySummary> calculateWorkedHours(
+        Map<String, EmployeeData> employees,
+        TimeEntryTable table, LocalDate startDate, LocalDate endDate, PayrollPeriod.Frequency frequency) {
+
+        Map<String, MonthlySummary> summaries = new HashMap<>();
+        PeriodBuckets buckets = new PeriodBuckets(frequency, startDate, endDate);
+        int periods = buckets.size();
+
+        EmployeeData[] employeeOfIndex = new EmployeeData[table.getEmployeeCount()];
+        for (int i = 0; i < employeeOfIndex.length; i++) {
+            employeeOfIndex[i] = employees.get(table.getEmpId(i));
+        }
+        MonthlySummary[] summaryOf = new MonthlySummary[employeeOfIndex.length * periods];
+
+        TimeEntryTable.Cursor row = table.cursor(startDate, endDate);
+        while (row.next()) {
+            int employeeIndex = row.getEmployeeIndex();
+            EmployeeData emp = employeeOfIndex[employeeIndex];
             if (emp == null) continue;
 
-            YearMonth yearMonth = YearMonth.from(entry.getClockIn().toLocalDate());
-            String monthlyKey = entry.getEmpId() + "-" + yearMonth;
+            long epochDay = row.getEpochDay();
+            int bucket = buckets.indexOf(epochDay);
+            if (bucket < 0) continue;
+
+            MonthlySummary summary = summaryOf[employeeIndex * periods + bucket];
+            if (summary == null) {
+                summary = new MonthlySummary(emp, buckets.get(bucket));
+                summaryOf[employeeIndex * periods + bucket] = summary;
+                summaries.put(buckets.key(emp.getEmpId(), bucket), summary);
+            }
+
+            summary.recordDailyWork(row);
+        }
+        return summaries;
+    }
+
+    /**
+     * Aggregates one employee's time entries into their summary per pay period.
+     *
+     * Only the employee's rows of the date range are read, found by hash lookup and binary
+     * search in the index, so the time taken does not grow with the number of employees.
+     * The summaries equal those the whole-company overloads produce for the employee.
+     *
+     * @param employees  A map of employee ID to EmployeeData, loaded from the employee CSV.
+     * @param index      Time entries indexed by employee.
+     * @param empId      The employee to aggregate.
+     * @param startDate  First work date of the payroll run (inclusive).
+     * @param endDate    Last work date of the payroll run (inclusive).
+     * @param frequency  Pay frequency the run is split into.
+     * @return The employee's summaries keyed by employee-period (e.g., "EMP001-2024-06A"); empty
+     *         if the employee is unknown or has no time entries in the range.
+     */
+    public static Map<String, MonthlySummary> calculateWorkedHours(
+        Map<String, EmployeeData> employees,
+        TimeEntryIndex index, String empId, LocalDate startDate, LocalDate endDate, PayrollPeriod.Frequency frequency) {
+
+        Map<String, MonthlySummary> summaries = new HashMap<>();
+        EmployeeData emp = employees.get(empId);
+        if (emp == null) return summaries;
 
-            monthlySummaries.putIfAbsent(monthlyKey, new MonthlySummary(emp));
-            MonthlySummary summary = monthlySummaries.get(monthlyKey);
+        aggregate(summaries, emp, index, new PeriodBuckets(frequency, startDate, endDate), startDate, endDate);
+        return summaries;
+    }
 
-            float rawDailyWorkHours = Math.max(0f, entry.getHoursWorked());
-            float lateMinutes = Math.max(0f, Duration.between(LocalTime.of(8, 30), entry.getClockIn().toLocalTime()).toMinutes());
-            float lateDeduction = (lateMinutes > 0f) ? (lateMinutes / 60f) * emp.getHourlyRate() : 0f;
+    /**
+     * Aggregates every employee's time entries of an index into one summary per employee and
+     * pay period, with the employees partitioned across the fork-join pool.
+     *
+     * Each employee's rows are aggregated by one task into that task's own map, so no summary
+     * is shared between threads, and the maps are merged at the end; their keys never collide
+     * because each holds other employees. The summaries equal those of the single-threaded
+     * overloads over the same entries. Run inside a {@link java.util.concurrent.ForkJoinPool}
+     * task to use that pool instead of the common pool.
+     *
+     * @param employees  A map of employee ID to EmployeeData, loaded from the employee CSV.
+     * @param index      Time entries indexed by employee.
+     * @param startDate  First work date of the payroll run (inclusive).
+     * @param endDate    Last work date of the payroll run (inclusive).
+     * @param frequency  Pay frequency the run is split into.
+     * @return A map of employee-period keys (e.g., "EMP001-2024-06A", see {@link PayrollPeriod#getKey()})
+     *         to their summaries.
+     */
+    public static Map<String, MonthlySummary> calculateWorkedHours(
+        Map<String, EmployeeData> employees,
+        TimeEntryIndex index, LocalDate startDate, LocalDate endDate, PayrollPeriod.Frequency frequency) {
 
-            boolean isHoliday = entry.isRegularHoliday() || entry.isSpecialNonWorking();
-            boolean isRestDay = entry.isRestDay();
-            boolean isHolidayRestDay = entry.isHolidayRestDay();
-            float holidayMultiplier = entry.getHolidayMultiplier();
+        PeriodBuckets buckets = new PeriodBuckets(frequency, startDate, endDate);
+        return IntStream.range(0, index.getEmployeeCount()).parallel().collect(HashMap::new, (summaries, employee) -> {
+            EmployeeData emp = employees.get(index.getEmpId(employee));
+            if (emp != null) aggregate(summaries, emp, index, buckets, startDate, endDate);
+        }, Map::putAll);
+    }
 
-            summary.addDailyWork(entry.getClockIn().toLocalDate(), rawDailyWorkHours, lateMinutes, lateDeduction,
-                                 isHoliday, isRestDay, isHolidayRestDay, holidayMultiplier);
+    /**
+     * Adds one employee's indexed rows within a date range to their summaries per period.
+     */
+    private static void aggregate(Map<String, MonthlySummary> summaries, EmployeeData emp, TimeEntryIndex index,
+                                  PeriodBuckets buckets, LocalDate startDate, LocalDate endDate) {
+        MonthlySummary[] summaryOf = new MonthlySummary[buckets.size()];
+
+        TimeEntryTable.Cursor row = index.cursor(emp.getEmpId(), startDate, endDate);
+        while (row.next()) {
+            int bucket = buckets.indexOf(row.getEpochDay());
+            if (bucket < 0) continue;
+
+            if (summaryOf[bucket] == null) {
+                summaryOf[bucket] = new MonthlySummary(emp, buckets.get(bucket));
+                summaries.put(buckets.key(emp.getEmpId(), bucket), summaryOf[bucket]);
+            }
+            summaryOf[bucket].recordDailyWork(row);
         }
+    }
 
-        return monthlySummaries;
+    /**
+     * Records the time entry at a table cursor, replacing an earlier row of the same date.
+     */
+    private void recordDailyWork(TimeEntryTable.Cursor row) {
+        byte dayType = row.getDayType();
+        replaceDailyWork(row.getEpochDay(), Math.max(0, row.getMinutesWorked()),
+                     rules.lateMinutes(row.getClockInMinuteOfDay()), dayType, workTypeOf(dayType));
+    }
+
+    /**
+     * Records a single time entry in the summary for its employee and pay period. Entries dated
+     * outside the periods of the buckets are skipped.
+     *
+     * An entry for an employee and date that already has a row replaces that row (a correction,
+     * or a re-sent punch), so the last entry read for a date wins. Every aggregation path
+     * applies this rule, so a batch run and a followed file give the same hours.
+     */
+    static void accumulate(Map<String, MonthlySummary> summaries, Map<String, EmployeeData> employees,
+                           PeriodBuckets buckets, TimeEntry entry) {
+        EmployeeData emp = employees.get(entry.getEmpId());
+        if (emp == null) return;
+
+        long epochDay = entry.getClockIn().toLocalDate().toEpochDay();
+        int bucket = buckets.indexOf(epochDay);
+        if (bucket < 0) return;
+
+        MonthlySummary summary = summaries.computeIfAbsent(buckets.key(emp.getEmpId(), bucket),
+                                                           key -> new MonthlySummary(emp, buckets.get(bucket)));
+
+        int rawMinutesWorked = Math.max(0, entry.getMinutesWorked());
+        LocalTime clockIn = entry.getClockIn().toLocalTime();
+        int lateMinutes = summary.rules.lateMinutes(clockIn.getHour() * 60 + clockIn.getMinute());
+
+        byte dayType = entry.getDayType();
+        summary.replaceDailyWork(epochDay, rawMinutesWorked, lateMinutes, dayType, workTypeOf(dayType));
     }
 }
@@ -1,5 +1,7 @@
 package com.payroll;
 
+import java.io.*;
+import java.net.InetSocketAddress;
 import java.util.*;
 import java.time.*;
 
@@ -8,29 +10,152 @@ import java.time.*;
  * Computes monthly salaries, government deductions, and de minimis benefits.
  */
 public class MotorPHPayrollG3 {
+    private static final String YTD_LEDGER_DIRECTORY = "data/ytd";
+    private static final String DEFAULT_REPOSITORY = "src/com/payroll";
 
     public static void main(String[] args) {
+        // Optional run summary of per-stage timings (--metrics FILE), written when the run ends
+        // (for --serve, when the server process is stopped)
+        List<String> rest = new ArrayList<>(Arrays.asList(args));
+        String metricsFile = removeOption(rest, "--metrics");
+
+        // Optional time entry files to read instead of the bundled CSV (--time-entries PATH)
+        String timeEntriesPath = removeOption(rest, "--time-entries");
+
+        // Where the payroll data is kept: a CSV directory or a JDBC URL (--repository LOCATION)
+        String location = removeOption(rest, "--repository");
+        PayrollRepository repository = PayrollRepository.open((location != null) ? location : DEFAULT_REPOSITORY);
+
+        boolean serving = false;
+        try {
+            if (repository != null) serving = run(rest.toArray(new String[0]), timeEntriesPath, repository);
+        } finally {
+            if (serving) {
+                // The server runs until the process is stopped (e.g. Ctrl+C), so finish then
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> finish(metricsFile, repository), "payroll-shutdown"));
+            } else {
+                finish(metricsFile, repository);
+            }
+        }
+    }
+
+    /**
+     * Writes the run summary, if one was asked for, and closes the repository.
+     */
+    private static void finish(String metricsFile, PayrollRepository repository) {
+        if (metricsFile != null) PayrollMetrics.writeJson(metricsFile);
+        if (repository != null) {
+            try {
+                repository.close();
+            } catch (IOException e) {
+                System.err.println("Error closing payroll repository: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Removes an option and its value from the arguments.
+     *
+     * @return The option's value, or null if it is not given
+     */
+    private static String removeOption(List<String> args, String option) {
+        int index = args.indexOf(option);
+        if (index < 0 || index + 1 >= args.size()) return null;
+        String value = args.get(index + 1);
+        args.subList(index, index + 2).clear();
+        return value;
+    }
+
+    /**
+     * Loads the payroll data and runs the import, server, year-end, simulation, batch or interactive mode.
+     *
+     * @param timeEntriesPath Directory, glob or file of time entry CSVs to read in parallel
+     *                        shards (see {@link TimeEntryShards}), or null for the repository's
+     * @param repository      Where employees, holidays and time entries are loaded from
+     * @return true if a server was started and is still using the repository
+     */
+    private static boolean run(String[] args, String timeEntriesPath, PayrollRepository repository) {
         System.out.println("Starting Payroll System...");
         Scanner scanner = new Scanner(System.in);
 
-        // Load Employee Data
-        Map<String, EmployeeData> employees = EmployeeData.loadEmployeeData("src/com/payroll/EmployeeData.csv");
+        // Copy CSV data into the repository (e.g. --repository jdbc:h2:./data/payroll --import)
+        if (args.length > 0 && args[0].equals("--import")) {
+            runImport(args, repository);
+            return false;
+        }
+
+        // Load Employee Data and De Minimis Benefits in one pass over the master file
+        EmployeeRoster roster = repository.loadRoster();
+        Map<String, EmployeeData> employees = roster.getEmployees();
         if (employees.isEmpty()) {
             System.err.println("No employees loaded. Exiting...");
-            return;
+            return false;
         }
 
         // Load Holiday Calendar BEFORE anything else
-        HolidayCalendar.loadHolidaysFromCSV("src/com/payroll/HolidayCalendar.csv");
+        HolidayCalendar.setDefault(repository.loadCalendar(null));
+
+        // Load effective-dated SSS, PhilHealth, Pag-IBIG and BIR tables
+        GovernmentDeductions.setSchedules(repository.loadDeductionSchedules());
+
+        // Load the grace period, overtime and premium rules of each employment status and position
+        PayRuleBook.setDefault(repository.loadRuleBook());
+
+        // De Minimis Benefits come from the same employee rows
+        Map<String, DeMinimisBenefits> benefits = roster.getBenefits();
+
+        // Time entries are streamed once the payroll period is known
+        String timeEntriesFile = null;
+        TimeEntrySource timeEntries;
+        if (timeEntriesPath != null) {
+            // Files given on the command line (e.g. one per site per month) are parsed in parallel
+            TimeEntryShards shards = TimeEntryShards.open(timeEntriesPath);
+            timeEntries = shards;
+            if (shards != null && shards.getFiles().size() == 1) timeEntriesFile = shards.getFiles().get(0).getPath();
+        } else {
+            timeEntries = repository.getTimeEntries(HolidayCalendar.getDefault());
+            if (repository instanceof CsvPayrollRepository) {
+                timeEntriesFile = ((CsvPayrollRepository) repository).getTimeEntriesFile();
+            }
+        }
+        if (timeEntries == null) {
+            System.err.println("No time entries loaded. Exiting...");
+            return false;
+        }
+        if (timeEntriesFile == null && args.length > 0
+                && (args[0].equals("--validate") || Arrays.asList(args).contains("--follow"))) {
+            System.err.println("--validate and --follow read a single time entries CSV file");
+            return false;
+        }
 
-        // Load De Minimis Benefits
-        Map<String, DeMinimisBenefits> benefits = DeMinimisBenefits.loadBenefits("src/com/payroll/EmployeeData.csv");
+        // Reuse summaries of employee-months whose time entries, rates and holidays are unchanged
+        PayrollCache cache = new PayrollCache(repository.getCacheDirectory(), 64);
 
-        // Load Time Entries
-        List<TimeEntry> timeEntries = TimeEntry.loadTimeEntries("src/com/payroll/EmployeeTimeEntries.csv");
-        if (timeEntries.isEmpty()) {
-            System.err.println("No time entries loaded. Exiting...");
-            return;
+        // Long-running query server (e.g. --serve 8080)
+        if (args.length > 0 && args[0].equals("--serve")) {
+            return runServer(args, employees, benefits, timeEntries, cache);
+        }
+
+        if (args.length > 0 && args[0].equals("--validate")) {
+            runValidate(args, employees, timeEntriesFile);
+            return false;
+        }
+
+        if (args.length > 0 && args[0].equals("--year-end")) {
+            runYearEnd(args, employees);
+            return false;
+        }
+
+        // What-if pay rules over the aggregated period (e.g. --simulate scenarios.csv --period ...)
+        if (args.length > 0 && args[0].equals("--simulate")) {
+            runSimulate(args, employees, benefits, timeEntries, cache);
+            return false;
+        }
+
+        // Non-interactive batch run (e.g. --period 2024-06-01..2024-06-30 --all)
+        if (args.length > 0) {
+            runBatch(args, employees, benefits, timeEntriesFile, timeEntries, cache, repository);
+            return false;
         }
 
         // Prompt user for Start and End Dates
@@ -59,31 +184,27 @@ public class MotorPHPayrollG3 {
             }
         }
 
-        // Filter time entries based on user input
-        List<TimeEntry> filteredTimeEntries = TimeEntry.filterTimeEntriesByDate(timeEntries, startDate, endDate);
-        if (filteredTimeEntries.isEmpty()) {
+        // Index the period's time entries by employee, so each lookup reads only that employee's rows
+        PayrollPeriod.Frequency frequency = PayrollPeriod.infer(startDate, endDate);
+        TimeEntryIndex index = TimeEntryIndex.load(timeEntries, startDate, endDate);
+        if (index.size() == 0) {
             System.out.println("No time entries found within the specified period.");
-            return;
+            return false;
         }
 
-        // Calculate Monthly Worked Hours only for the filtered entries
-        Map<String, MonthlySummary> monthlySummaries = MonthlySummary.calculateWorkedHours(employees, filteredTimeEntries);
-
         // Prompt for Employee ID until found in the summary
         boolean employeeFound = false;
         while (!employeeFound) {
             System.out.print("Enter the 5-digit Employee ID to generate the compensation details: ");
             String inputEmpId = scanner.nextLine().trim();
 
-            for (Map.Entry<String, MonthlySummary> entry : monthlySummaries.entrySet()) {
-                MonthlySummary summary = entry.getValue();
-                EmployeeData employee = summary.getEmployee();
-
-                if (employee.getEmpId().equals(inputEmpId)) {
-                    employeeFound = true;
-                    printPayrollReport(summary, employee, benefits, startDate, endDate);
-                    break;
-                }
+            // Aggregate Worked Hours of this employee per pay period (monthly, semi-monthly, ... as the dates suggest)
+            SortedMap<String, MonthlySummary> employeeSummaries = new TreeMap<>(MonthlySummary.calculateWorkedHours(
+                    employees, index, inputEmpId, startDate, endDate, frequency));
+            if (!employeeSummaries.isEmpty()) {
+                employeeFound = true;
+                MonthlySummary summary = employeeSummaries.get(employeeSummaries.firstKey());
+                printPayrollReport(summary, summary.getEmployee(), benefits, startDate, endDate);
             }
 
             if (!employeeFound) {
@@ -92,6 +213,467 @@ public class MotorPHPayrollG3 {
         }
 
         scanner.close();
+        return false;
+    }
+
+    /**
+     * Serves payslip and summary queries over HTTP until the process is stopped.
+     *
+     * Usage: --serve [PORT] (default 8080, loopback only)
+     */
+    private static boolean runServer(String[] args, Map<String, EmployeeData> employees,
+                                     Map<String, DeMinimisBenefits> benefits, TimeEntrySource timeEntries,
+                                     PayrollCache cache) {
+        int port = 8080;
+        try {
+            if (args.length > 1) port = Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            System.err.println("Usage: --serve [PORT]");
+            return false;
+        }
+
+        PayrollServer server = new PayrollServer(employees, benefits, timeEntries, cache);
+        try {
+            InetSocketAddress address = server.start(port);
+            System.out.println("Payroll server listening on http://" + address.getHostString() + ":" + address.getPort()
+                    + " (/payslip, /summary, /register)");
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error starting payroll server: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Copies the CSV payroll data into the repository, or adds a DTR export to its time entries.
+     *
+     * Usage: --import [DIRECTORY]   employees, holidays and time entries from a CSV directory
+     *                               (default src/com/payroll) into a database repository
+     *        --import --dtr FILE    the rows of a time entries CSV file, into any repository
+     */
+    private static void runImport(String[] args, PayrollRepository repository) {
+        String directory = DEFAULT_REPOSITORY;
+        String dtrFile = null;
+        if (args.length == 3 && args[1].equals("--dtr")) {
+            dtrFile = args[2];
+        } else if (args.length == 2) {
+            directory = args[1];
+        } else if (args.length != 1) {
+            System.err.println("Usage: --import [DIRECTORY] | --import --dtr FILE");
+            return;
+        }
+
+        try {
+            if (dtrFile != null) {
+                HolidayCalendar calendar = repository.loadCalendar(null);
+                long imported = repository.importTimeEntries(dtrFile, calendar);
+                System.out.printf("Imported %,d time entries from %s%n", imported, dtrFile);
+                return;
+            }
+
+            if (!(repository instanceof JdbcPayrollRepository)) {
+                System.err.println("--import DIRECTORY copies CSV files into a database; use --repository jdbc:...");
+                return;
+            }
+            JdbcPayrollRepository database = (JdbcPayrollRepository) repository;
+            CsvPayrollRepository csv = new CsvPayrollRepository(directory, null);
+            int employees = database.importRoster(csv.loadRoster());
+            HolidayCalendar calendar = csv.loadCalendar(null);
+            int holidays = database.importCalendar(calendar, null);
+            long timeEntries = database.importTimeEntries(csv.getTimeEntriesFile(), calendar);
+            System.out.printf("Imported %,d employees, %,d holidays and %,d time entries from %s%n",
+                    employees, holidays, timeEntries, directory);
+            for (String name : new String[] {CsvPayrollRepository.DEDUCTION_TABLES_FILE, CsvPayrollRepository.RULE_BOOK_FILE}) {
+                File file = new File(directory, name);
+                if (file.exists()) {
+                    database.importFile(name, file.getPath());
+                    System.out.println("Imported " + name);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error importing payroll data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks the time entries file for malformed rows and anomalies (see {@link TimeEntryValidator})
+     * and writes the exception report.
+     *
+     * Usage: --validate [--period YYYY-MM-DD..YYYY-MM-DD] [--output FILE] [--format text|csv]
+     */
+    private static void runValidate(String[] args, Map<String, EmployeeData> employees, String timeEntriesFile) {
+        LocalDate startDate = null, endDate = null;
+        String outputFile = null;
+        boolean csv = false;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--period":
+                        String[] range = args[++i].split("\\.\\.");
+                        startDate = LocalDate.parse(range[0].trim());
+                        endDate = LocalDate.parse(range[1].trim());
+                        break;
+                    case "--output":
+                        outputFile = args[++i];
+                        break;
+                    case "--format":
+                        String format = args[++i].toLowerCase();
+                        if (!format.equals("text") && !format.equals("csv")) {
+                            throw new IllegalArgumentException("Unknown format " + format);
+                        }
+                        csv = format.equals("csv");
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Invalid arguments: " + e.getMessage());
+            System.err.println("Usage: --validate [--period YYYY-MM-DD..YYYY-MM-DD] [--output FILE] [--format text|csv]");
+            return;
+        }
+
+        TimeEntryValidator validator = TimeEntryValidator.validate(timeEntriesFile, startDate, endDate,
+                employees, HolidayCalendar.getDefault());
+        if (validator == null) return;
+
+        try {
+            Writer out = (outputFile != null) ? new BufferedWriter(new FileWriter(outputFile))
+                                              : new BufferedWriter(new OutputStreamWriter(System.out));
+            try {
+                if (csv) validator.writeCsv(out);
+                else validator.writeReport(out);
+            } finally {
+                if (outputFile != null) out.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing validation report: " + e.getMessage());
+            return;
+        }
+        System.out.printf("Validated %,d rows: %,d anomalies%n", validator.getRowsChecked(), validator.getAnomalyCount());
+    }
+
+    /**
+     * Evaluates the scenarios of a file (see {@link PayRules#loadScenarios}) against the period's
+     * summaries and writes the totals of each, plus the per-employee changes as CSV.
+     *
+     * Usage: --simulate FILE --period YYYY-MM-DD..YYYY-MM-DD [--frequency f] [--output FILE]
+     */
+    private static void runSimulate(String[] args, Map<String, EmployeeData> employees,
+                                    Map<String, DeMinimisBenefits> benefits, TimeEntrySource timeEntries,
+                                    PayrollCache cache) {
+        LocalDate startDate = null, endDate = null;
+        PayrollPeriod.Frequency frequency = null;
+        String outputFile = null;
+        try {
+            for (int i = 2; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--period":
+                        String[] range = args[++i].split("\\.\\.");
+                        startDate = LocalDate.parse(range[0].trim());
+                        endDate = LocalDate.parse(range[1].trim());
+                        break;
+                    case "--frequency":
+                        frequency = PayrollPeriod.Frequency.parse(args[++i]);
+                        break;
+                    case "--output":
+                        outputFile = args[++i];
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Invalid arguments: " + e.getMessage());
+            startDate = null;
+        }
+
+        if (args.length < 2 || startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            System.err.println("Usage: --simulate FILE --period YYYY-MM-DD..YYYY-MM-DD"
+                    + " [--frequency monthly|semi-monthly|weekly|custom] [--output FILE]");
+            return;
+        }
+        if (frequency == null) frequency = PayrollPeriod.infer(startDate, endDate);
+
+        List<PayRules> scenarios = PayRules.loadScenarios(args[1]);
+        if (scenarios.isEmpty()) {
+            System.err.println("No scenarios loaded from " + args[1]);
+            return;
+        }
+
+        Map<String, MonthlySummary> summaries = cache.calculateWorkedHours(employees, timeEntries, startDate, endDate, frequency);
+        if (summaries.isEmpty()) {
+            System.out.println("No time entries found within the specified period.");
+            return;
+        }
+
+        PayrollSimulator simulator = new PayrollSimulator(summaries, benefits);
+        List<PayrollSimulator.Outcome> outcomes = simulator.run(scenarios);
+        try {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+            simulator.writeReport(outcomes, startDate, endDate, out);
+            if (outputFile != null) {
+                try (Writer diffs = new BufferedWriter(new FileWriter(outputFile))) {
+                    simulator.writeDiffCsv(outcomes, diffs);
+                }
+                System.out.println("Per-employee changes written to " + outputFile);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing simulation report: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the year-end tax annualization (13th month pay, BIR 2316 figures) from the YTD ledger.
+     *
+     * Usage: --year-end YEAR [--output FILE]
+     */
+    private static void runYearEnd(String[] args, Map<String, EmployeeData> employees) {
+        int year;
+        String outputFile = null;
+        try {
+            year = Integer.parseInt(args[1]);
+            if (args.length == 4 && args[2].equals("--output")) {
+                outputFile = args[3];
+            } else if (args.length != 2) {
+                throw new IllegalArgumentException("Unknown option " + args[2]);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Usage: --year-end YEAR [--output FILE]");
+            return;
+        }
+
+        List<YearEndTax> figures;
+        try (YtdLedger ledger = YtdLedger.open(YTD_LEDGER_DIRECTORY, year)) {
+            figures = ledger.calculateYearEnd(employees);
+        } catch (IOException e) {
+            System.err.println("Error reading YTD ledger: " + e.getMessage());
+            return;
+        }
+        if (figures.isEmpty()) {
+            System.out.println("No payroll periods posted for " + year + ". Run the batch with --post first.");
+            return;
+        }
+
+        try {
+            if (outputFile != null) {
+                try (Writer out = new BufferedWriter(new FileWriter(outputFile))) {
+                    YearEndTax.writeReport(figures, year, out);
+                }
+                System.out.println("Year-end report written to " + outputFile);
+            } else {
+                YearEndTax.writeReport(figures, year, new BufferedWriter(new OutputStreamWriter(System.out)));
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing year-end report: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs payroll for all employees in the period given on the command line and writes the register.
+     *
+     * Usage: --period YYYY-MM-DD..YYYY-MM-DD --all [--frequency monthly|semi-monthly|weekly|custom]
+     *        [--output FILE] [--follow SECONDS] [--rollup] [--post] [--export FILE]
+     *        [--payslips FILE [--format text|csv|html]]
+     *
+     * The period is split into pay periods of the frequency, which defaults to the one the dates
+     * suggest (e.g., 2024-06-01..2024-06-15 is semi-monthly); a whole year can be run at once.
+     * With --follow, the time entries file is tailed and the register is rewritten whenever
+     * new rows arrive, until the process is stopped. With --rollup, cost totals per supervisor
+     * subtree, division, position and status are written after the register. With --post, the
+     * periods are finalized: their results are appended to the year-to-date ledger (and saved
+     * to the repository, if it keeps payroll results). With
+     * --export, the payslips and daily breakdown rows are streamed to a columnar file (see
+     * {@link PayrollExporter}); with --payslips, every employee's payslip is written to one
+     * file (see {@link PayslipWriter}). In either case the text register is then only written
+     * if --output is given.
+     */
+    private static void runBatch(String[] args, Map<String, EmployeeData> employees,
+                                 Map<String, DeMinimisBenefits> benefits, String timeEntriesFile,
+                                 TimeEntrySource timeEntries, PayrollCache cache, PayrollRepository repository) {
+        LocalDate startDate = null, endDate = null;
+        boolean allEmployees = false;
+        String outputFile = null;
+        int followSeconds = 0;
+        OrgChart orgChart = null;
+        PayrollPeriod.Frequency frequency = null;
+        boolean post = false;
+        String exportFile = null;
+        String payslipFile = null;
+        PayslipWriter.Format payslipFormat = PayslipWriter.Format.TEXT;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--period":
+                        String[] range = args[++i].split("\\.\\.");
+                        startDate = LocalDate.parse(range[0].trim());
+                        endDate = LocalDate.parse(range[1].trim());
+                        break;
+                    case "--frequency":
+                        frequency = PayrollPeriod.Frequency.parse(args[++i]);
+                        break;
+                    case "--all":
+                        allEmployees = true;
+                        break;
+                    case "--output":
+                        outputFile = args[++i];
+                        break;
+                    case "--follow":
+                        followSeconds = Integer.parseInt(args[++i]);
+                        if (followSeconds <= 0) throw new IllegalArgumentException("--follow needs a positive interval");
+                        break;
+                    case "--post":
+                        post = true;
+                        break;
+                    case "--export":
+                        exportFile = args[++i];
+                        break;
+                    case "--payslips":
+                        payslipFile = args[++i];
+                        break;
+                    case "--format":
+                        payslipFormat = PayslipWriter.Format.parse(args[++i]);
+                        break;
+                    case "--rollup":
+                        orgChart = OrgChart.build(employees);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Invalid arguments: " + e.getMessage());
+            startDate = null;
+        }
+
+        if (startDate == null || endDate == null || !allEmployees || endDate.isBefore(startDate)
+                || (post && followSeconds > 0) || ((exportFile != null || payslipFile != null) && followSeconds > 0)) {
+            System.err.println("Usage: --period YYYY-MM-DD..YYYY-MM-DD --all [--frequency monthly|semi-monthly|weekly|custom]"
+                    + " [--output FILE] [--follow SECONDS | --post | --export FILE | --payslips FILE [--format text|csv|html]]"
+                    + " [--rollup]");
+            return;
+        }
+        if (frequency == null) frequency = PayrollPeriod.infer(startDate, endDate);
+
+        if (followSeconds > 0) {
+            followBatch(employees, benefits, timeEntriesFile, startDate, endDate, frequency, outputFile, followSeconds, orgChart);
+            return;
+        }
+
+        if (exportFile != null || payslipFile != null) {
+            Map<String, MonthlySummary> summaries = cache.calculateWorkedHours(employees, timeEntries,
+                                                                               startDate, endDate, frequency);
+            if (exportFile != null) {
+                try {
+                    long rows = PayrollExporter.export(summaries, benefits, exportFile);
+                    System.out.println("Exported " + rows + " payslips to " + exportFile);
+                } catch (IOException e) {
+                    System.err.println("Error writing payroll export: " + e.getMessage());
+                }
+            }
+            if (payslipFile != null) {
+                try {
+                    int written = PayslipWriter.write(summaries, benefits, payslipFormat, payslipFile);
+                    System.out.println("Wrote " + written + " payslips to " + payslipFile);
+                } catch (IOException e) {
+                    System.err.println("Error writing payslips: " + e.getMessage());
+                }
+            }
+            if (outputFile == null && orgChart == null && !post) return;
+        }
+
+        SortedMap<String, PayrollResult> register = cache.calculatePayroll(employees, benefits, timeEntries,
+                                                                           startDate, endDate, frequency);
+        if (register.isEmpty()) {
+            System.out.println("No time entries found within the specified period.");
+            return;
+        }
+
+        for (PayrollResult result : register.values()) {
+            if (result.isFallbackBasicSalary()) {
+                System.err.println("[Warning] Missing or invalid Basic Salary for employee "
+                        + result.getEmployee().getEmpId() + ". Using fallback estimate.");
+            }
+        }
+
+        writeRegister(register, startDate, endDate, outputFile, orgChart);
+        if (post) {
+            postToLedger(register.values(), startDate, endDate);
+            try {
+                repository.saveResults(register.values(), startDate, endDate);
+            } catch (IOException e) {
+                System.err.println("Error saving payroll results: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Appends finalized payroll results to the YTD ledger of each year the periods end in.
+     */
+    private static void postToLedger(Collection<PayrollResult> results, LocalDate startDate, LocalDate endDate) {
+        for (int year = startDate.getYear(); year <= endDate.getYear(); year++) {
+            try (YtdLedger ledger = YtdLedger.open(YTD_LEDGER_DIRECTORY, year)) {
+                int posted = ledger.post(results);
+                if (posted > 0) System.out.println("Posted " + posted + " payroll results to the " + year + " YTD ledger");
+            } catch (IOException e) {
+                System.err.println("Error posting to the " + year + " YTD ledger: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Tails the time entries file, applying appended rows to the running totals and rewriting
+     * the register after each refresh that brought new rows.
+     */
+    private static void followBatch(Map<String, EmployeeData> employees, Map<String, DeMinimisBenefits> benefits,
+                                    String timeEntriesFile, LocalDate startDate, LocalDate endDate,
+                                    PayrollPeriod.Frequency frequency, String outputFile, int followSeconds,
+                                    OrgChart orgChart) {
+        IncrementalPayroll payroll = new IncrementalPayroll(employees, timeEntriesFile, startDate, endDate, frequency);
+        try {
+            while (true) {
+                long started = System.nanoTime();
+                int applied = payroll.refresh();
+                if (applied > 0) {
+                    SortedMap<String, PayrollResult> register = PayrollBatch.calculateAll(payroll.getMonthlySummaries(), benefits);
+                    System.err.printf("[%s] Applied %d time entries in %.1f ms (offset %d)%n", LocalTime.now().withNano(0),
+                            applied, (System.nanoTime() - started) / 1e6, payroll.getOffset());
+                    writeRegister(register, startDate, endDate, outputFile, orgChart);
+                }
+                Thread.sleep(followSeconds * 1000L);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the register, followed by the org rollup when an org chart is given, to a file or the console.
+     */
+    private static void writeRegister(SortedMap<String, PayrollResult> register, LocalDate startDate, LocalDate endDate,
+                                      String outputFile, OrgChart orgChart) {
+        try {
+            if (outputFile != null) {
+                try (Writer out = new BufferedWriter(new FileWriter(outputFile))) {
+                    writeRegister(register, startDate, endDate, out, orgChart);
+                }
+                System.out.println("Payroll register written to " + outputFile);
+            } else {
+                writeRegister(register, startDate, endDate, new BufferedWriter(new OutputStreamWriter(System.out)), orgChart);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing payroll register: " + e.getMessage());
+        }
+    }
+
+    private static void writeRegister(SortedMap<String, PayrollResult> register, LocalDate startDate, LocalDate endDate,
+                                      Writer out, OrgChart orgChart) throws IOException {
+        PayrollBatch.writeRegister(register, startDate, endDate, out);
+        if (orgChart != null) {
+            out.write("\n");
+            OrgRollup.calculate(orgChart, register.values()).writeReport(startDate, endDate, 3, out);
+        }
     }
 
     /**
@@ -99,108 +681,49 @@ public class MotorPHPayrollG3 {
      */
     public static void printPayrollReport(MonthlySummary summary, EmployeeData employee,
                                           Map<String, DeMinimisBenefits> benefits, LocalDate startDate, LocalDate endDate) {
-        // Compute De Minimis Benefits (Monthly)
-        float riceSubsidy = benefits.getOrDefault(employee.getEmpId(), new DeMinimisBenefits(employee.getEmpId(), 0f, 0f, 0f)).getRiceSubsidy();
-        float phoneAllowance = benefits.getOrDefault(employee.getEmpId(), new DeMinimisBenefits(employee.getEmpId(), 0f, 0f, 0f)).getPhoneAllowance();
-        float clothingAllowance = benefits.getOrDefault(employee.getEmpId(), new DeMinimisBenefits(employee.getEmpId(), 0f, 0f, 0f)).getClothingAllowance();
-        float totalDeMinimisBenefits = riceSubsidy + phoneAllowance + clothingAllowance;
-
-        // Compute Monthly Salary (Before Deductions)
-        float regularPay = summary.getTotalWorkHours() * employee.getHourlyRate();
-        float overtimePay = summary.getTotalOvertimePay();
-        float holidayPay = summary.getTotalHolidayPay();
-        float restDayOvertimePay = summary.getTotalRestDayOTPay();
-        float grossIncome = regularPay + overtimePay + holidayPay + restDayOvertimePay;
-
-        // Compute Government Deductions
-        float basicSalary = employee.getBasicSalary();
-        if (basicSalary <= 0f) {
-            System.out.println("[Warning] Missing or invalid Basic Salary. Using fallback estimate.");
-            basicSalary = employee.getHourlyRate() * 8 * 22;
-        }
-
-        float govtSSS = GovernmentDeductions.calculateSSS(basicSalary);
-        float govtPhilHealth = GovernmentDeductions.calculatePhilHealth(grossIncome);
-        float govtHDMF = GovernmentDeductions.calculatePagibig(grossIncome);
-
-        // Compute Taxable Income
-        float taxableIncome = grossIncome - (govtSSS + govtPhilHealth + govtHDMF);
-
-        // Compute BIR Tax
-        float govtBirTax = GovernmentDeductions.calculateBIR(taxableIncome);
-
-        // Compute Total Deductions and Net Pay
-        float totalGovtDeductions = govtSSS + govtHDMF + govtPhilHealth + govtBirTax;
-        float totalDeductions = totalGovtDeductions + summary.getTotalLateDeductions();
-        float netPay = (grossIncome - totalDeductions) + totalDeMinimisBenefits;
-
-        // Print Payroll Report
-        System.out.println("--------------------------------------------------------------");
-        System.out.println("---------------- FINAL PAYROLL REPORT (MONTHLY) ----------------");
-        System.out.printf(" Employee ID: %s | Name: %s | DOB: %s%n",
-                employee.getEmpId(), employee.getName(), employee.getDob());
-        System.out.printf(" Hourly Rate: PHP %,.2f | Status: %s | Position: %s%n",
-                employee.getHourlyRate(), employee.getStatus(), employee.getPosition());
-        System.out.printf(" Payroll Period: %s to %s%n", startDate, endDate);
-        System.out.println("--------------------------------------------------------------");
-        System.out.printf(" Worked Hours               : %.2f hours%n", summary.getTotalWorkHours());
-        System.out.printf(" Overtime Hours             : %.2f hours%n", summary.getTotalOvertime());
-        System.out.printf(" Gross Monthly Income       : PHP %,.2f%n", grossIncome);
-        System.out.printf(" Taxable Income (after SSS, PhilHealth, Pag-IBIG): PHP %,.2f%n", taxableIncome);
-        System.out.println("--------------------------------------------------------------");
-
-        // Deduction Section - Accounting Style
-        System.out.println(" Government Deductions:");
-        System.out.printf(" - SSS Contribution         : PHP (%,.2f)%n", govtSSS);
-        System.out.printf(" - Pag-IBIG Contribution    : PHP (%,.2f)%n", govtHDMF);
-        System.out.printf(" - PhilHealth Contribution  : PHP (%,.2f)%n", govtPhilHealth);
-        System.out.printf(" - BIR Withholding Tax      : PHP (%,.2f)%n", govtBirTax);
-        System.out.println("--------------------------------------------------------------");
-        System.out.printf(" Total Government Deductions: PHP (%,.2f)%n", totalGovtDeductions);
-        System.out.println("--------------------------------------------------------------");
-
-        // Added Late  Deductions for accounting and audit transparency 
-        System.out.println(" Other Deductions:");
-        System.out.printf(" - Late Deductions          : PHP (%,.2f)%n", summary.getTotalLateDeductions());
-        System.out.println("--------------------------------------------------------------");
-        System.out.printf(" Total Deductions           : PHP (%,.2f)%n", totalDeductions);
-        System.out.println("--------------------------------------------------------------");
-
-        // De Minimis Section
-        System.out.println(" De Minimis Benefits:");
-        System.out.printf(" Rice Subsidy              : PHP %,.2f%n", riceSubsidy);
-        System.out.printf(" Phone Allowance           : PHP %,.2f%n", phoneAllowance);
-        System.out.printf(" Clothing Allowance        : PHP %,.2f%n", clothingAllowance);
-        System.out.println("--------------------------------------------------------------");
-        System.out.printf(" Net Monthly Income (After Tax, with Benefits): PHP %,.2f%n", netPay);
-        System.out.println("--------------------------------------------------------------");
-
-        printSummaryReport(summary);
+        printPayrollReport(summary, employee, benefits, startDate, endDate, System.out);
+    }
+
+    /**
+     * Prints the payroll report for an employee to the given stream (e.g., an HTTP response).
+     */
+    public static void printPayrollReport(MonthlySummary summary, EmployeeData employee, Map<String, DeMinimisBenefits> benefits,
+                                          LocalDate startDate, LocalDate endDate, PrintStream out) {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("printPayrollReport")) {
+            StringBuilder report = new StringBuilder(4096);
+            PayslipWriter.TEXT_PAYSLIP.render(summary, PayrollResult.calculate(summary, benefits), startDate, endDate, report);
+            out.append(report);
+            stage.rows(1).bytes(report.length());
+        }
     }
 
     /**
      * Prints the summary report for an employee.
      */
     public static void printSummaryReport(MonthlySummary summary) {
-        System.out.println("\n---------------- Monthly Work Hours & Deductions ----------------");
-        Map<String, Object> data = summary.getSummaryData();
-        System.out.printf(" Total Worked Hours      : %.2f hours%n", data.get("totalWorkHours"));
-        System.out.printf(" Regular Worked Hours    : %.2f hours%n", data.get("totalRegularWorkHours"));
-        System.out.printf(" Overtime Hours          : %.2f hours%n", data.get("totalOvertime"));
-        System.out.printf(" Holiday Worked Hours    : %.2f hours%n", data.get("totalHolidayWorkHours"));
-        System.out.printf(" Late Hours              : %.2f hours%n", summary.getSummaryData().get("totalLateHours")); //Added Late Hours for accounting and audit transparency 
-        System.out.printf(" Overtime Pay            : PHP %,.2f%n", data.get("totalOvertimePay"));
-        System.out.printf(" Holiday Pay             : PHP %,.2f%n", data.get("totalHolidayPay"));
-        System.out.printf(" Rest Day OT Pay         : PHP %,.2f%n", data.get("totalRestDayOTPay"));
-        System.out.println("--------------------------------------------------------------");
+        printSummaryReport(summary, System.out);
+    }
 
-        printBreakdownReport(summary);
+    /**
+     * Prints the summary report for an employee to the given stream.
+     */
+    public static void printSummaryReport(MonthlySummary summary, PrintStream out) {
+        StringBuilder report = new StringBuilder(2048);
+        PayslipWriter.TEXT_SUMMARY.render(summary, report);
+        out.append(report);
     }
 
     /**
      * Prints the breakdown log of daily work and deductions.
      */
     public static void printBreakdownReport(MonthlySummary summary) {
-        System.out.println(summary.getBreakdownReport());
+        printBreakdownReport(summary, System.out);
+    }
+
+    /**
+     * Prints the breakdown log of daily work and deductions to the given stream.
+     */
+    public static void printBreakdownReport(MonthlySummary summary, PrintStream out) {
+        out.println(summary.getBreakdownReport());
     }
 }
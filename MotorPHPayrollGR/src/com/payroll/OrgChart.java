@@ -0,0 +1,199 @@
+package com.payroll;
+
+import java.util.*;
+
+/**
+ * OrgChart - The reporting tree built from the Immediate Supervisor column.
+ *
+ * Employees are numbered 0..size()-1 in employee ID order and the tree is held in arrays:
+ * the parent of each employee, a bottom-up order (every employee before its supervisor)
+ * and group numbers for division, position and employment status. The chart is built once
+ * per roster and reused for every period's {@link OrgRollup}.
+ *
+ * Supervisors are written as "Last Name, First Name" and are matched on the words of the
+ * name regardless of order and commas, so "San, Jose Brad" finds Brad San Jose. Employees
+ * whose supervisor is "N/A" or cannot be found are roots. An employee's division is the
+ * branch directly under a root (the root itself for the head of the company); the master
+ * file has no department column, so divisions stand in for departments.
+ */
+public class OrgChart {
+    private final EmployeeData[] employees;
+    private final Map<String, Integer> indexByEmpId;
+    private final int[] parents;
+    private final int[] depths;
+    private final int[] bottomUpOrder;
+
+    private final int[] divisions;
+    private final String[] positionNames;
+    private final int[] positions;
+    private final String[] statusNames;
+    private final int[] statuses;
+
+    private OrgChart(EmployeeData[] employees) {
+        int size = employees.length;
+        this.employees = employees;
+        this.indexByEmpId = new HashMap<>(size * 2);
+        Map<String, Integer> indexByName = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            indexByEmpId.put(employees[i].getEmpId(), i);
+            indexByName.putIfAbsent(employees[i].getLastName() + ", " + employees[i].getFirstName(), i);
+        }
+
+        // Link each employee to its supervisor; most names match exactly, the rest by their words
+        parents = new int[size];
+        Map<String, Integer> indexByNameKey = null;
+        int unresolved = 0;
+        for (int i = 0; i < size; i++) {
+            String supervisor = employees[i].getSupervisor().trim();
+            if (supervisor.isEmpty() || supervisor.equalsIgnoreCase("N/A")) {
+                parents[i] = -1;
+                continue;
+            }
+
+            Integer parent = indexByName.get(supervisor);
+            if (parent == null) {
+                if (indexByNameKey == null) {
+                    indexByNameKey = new HashMap<>(size * 2);
+                    for (int j = 0; j < size; j++) {
+                        indexByNameKey.putIfAbsent(nameKey(employees[j].getFirstName() + " " + employees[j].getLastName()), j);
+                    }
+                }
+                parent = indexByNameKey.get(nameKey(supervisor));
+            }
+            if (parent == null) unresolved++;
+            parents[i] = (parent == null || parent == i) ? -1 : parent;
+        }
+        if (unresolved > 0) {
+            System.err.println("[Warning] " + unresolved + " supervisor name(s) not found; those employees are treated as top level.");
+        }
+
+        // Children lists in compressed form, then a breadth-first order from the roots
+        int[] childStart = new int[size + 1];
+        for (int parent : parents) {
+            if (parent >= 0) childStart[parent + 1]++;
+        }
+        for (int i = 0; i < size; i++) childStart[i + 1] += childStart[i];
+        int[] children = new int[size];
+        int[] fill = Arrays.copyOf(childStart, size);
+        for (int i = 0; i < size; i++) {
+            if (parents[i] >= 0) children[fill[parents[i]]++] = i;
+        }
+
+        depths = new int[size];
+        divisions = new int[size];
+        int[] topDown = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (parents[i] < 0) {
+                topDown[count++] = i;
+                divisions[i] = i;
+            }
+        }
+        for (int head = 0; head < count; head++) {
+            int node = topDown[head];
+            for (int c = childStart[node]; c < childStart[node + 1]; c++) {
+                int child = children[c];
+                depths[child] = depths[node] + 1;
+                divisions[child] = (depths[child] == 1) ? child : divisions[node];
+                topDown[count++] = child;
+            }
+        }
+        if (count < size) {
+            // Supervisor cycles never reach a root; break them so every employee is counted
+            boolean[] reached = new boolean[size];
+            for (int i = 0; i < count; i++) reached[topDown[i]] = true;
+            for (int i = 0; i < size; i++) {
+                if (!reached[i]) {
+                    parents[i] = -1;
+                    divisions[i] = i;
+                    topDown[count++] = i;
+                }
+            }
+            System.err.println("[Warning] Supervisor cycle found; affected employees are treated as top level.");
+        }
+
+        bottomUpOrder = new int[size];
+        for (int i = 0; i < size; i++) bottomUpOrder[i] = topDown[size - 1 - i];
+
+        Map<String, Integer> positionIndex = new LinkedHashMap<>();
+        Map<String, Integer> statusIndex = new LinkedHashMap<>();
+        positions = new int[size];
+        statuses = new int[size];
+        for (int i = 0; i < size; i++) {
+            positions[i] = positionIndex.computeIfAbsent(employees[i].getPosition(), key -> positionIndex.size());
+            statuses[i] = statusIndex.computeIfAbsent(employees[i].getStatus(), key -> statusIndex.size());
+        }
+        positionNames = positionIndex.keySet().toArray(new String[0]);
+        statusNames = statusIndex.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * Builds the reporting tree of a roster.
+     *
+     * @param employees A map of employee ID to EmployeeData
+     * @return The org chart
+     */
+    public static OrgChart build(Map<String, EmployeeData> employees) {
+        EmployeeData[] sorted = employees.values().toArray(new EmployeeData[0]);
+        Arrays.sort(sorted, Comparator.comparing(EmployeeData::getEmpId));
+        return new OrgChart(sorted);
+    }
+
+    /**
+     * Gets the number of employees in the chart.
+     */
+    public int size() { return employees.length; }
+
+    /**
+     * Gets the node number of an employee.
+     *
+     * @param empId Employee ID
+     * @return Node number, or -1 if the employee is not in the chart
+     */
+    public int indexOf(String empId) {
+        Integer index = indexByEmpId.get(empId);
+        return (index != null) ? index : -1;
+    }
+
+    public EmployeeData getEmployee(int node) { return employees[node]; }
+
+    /**
+     * Gets the node number of an employee's supervisor.
+     *
+     * @return Supervisor node, or -1 for a top-level employee
+     */
+    public int getParent(int node) { return parents[node]; }
+
+    /**
+     * Gets the number of levels between an employee and the top of the chart.
+     */
+    public int getDepth(int node) { return depths[node]; }
+
+    /**
+     * Gets the nodes ordered so that every employee comes before its supervisor.
+     * The returned array must not be modified.
+     */
+    int[] getBottomUpOrder() { return bottomUpOrder; }
+
+    /**
+     * Gets the node heading an employee's division (the branch directly under a top-level employee).
+     */
+    public int getDivision(int node) { return divisions[node]; }
+
+    public int getPositionGroup(int node) { return positions[node]; }
+    public int getPositionCount() { return positionNames.length; }
+    public String getPositionName(int group) { return positionNames[group]; }
+
+    public int getStatusGroup(int node) { return statuses[node]; }
+    public int getStatusCount() { return statusNames.length; }
+    public String getStatusName(int group) { return statusNames[group]; }
+
+    /**
+     * Normalizes a person's name to its lower-case words in sorted order.
+     */
+    private static String nameKey(String name) {
+        String[] words = name.toLowerCase().replace(',', ' ').trim().split("\\s+");
+        Arrays.sort(words);
+        return String.join(" ", words);
+    }
+}
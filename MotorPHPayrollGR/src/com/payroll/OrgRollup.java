@@ -0,0 +1,262 @@
+package com.payroll;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * OrgRollup - Payroll cost totals per supervisor subtree, division, position and status.
+ *
+ * Built from a period's payroll results in one bottom-up pass over the {@link OrgChart}:
+ * each employee's own figures are added to its subtree total, and each subtree total is
+ * then added to its supervisor's, so every node's total covers everyone reporting to it
+ * directly or indirectly. Totals are kept in centavos (see {@link Money}), one long array per
+ * metric, so subtree and group totals equal the sum of their payslips exactly.
+ */
+public class OrgRollup {
+    public static final int GROSS = 0;
+    public static final int OVERTIME_PAY = 1;
+    public static final int HOLIDAY_PAY = 2;
+    public static final int LATE_DEDUCTIONS = 3;
+    public static final int SSS = 4;
+    public static final int PHILHEALTH = 5;
+    public static final int PAGIBIG = 6;
+    public static final int WITHHOLDING_TAX = 7;
+    public static final int NET_PAY = 8;
+    private static final int METRICS = 9;
+
+    private static final String REPORT_LINE = "-".repeat(150);
+
+    private final OrgChart chart;
+    private final long[][] own;
+    private final long[][] subtree;
+    private final int[] subtreeHeadcount;
+    private final boolean[] paid;
+
+    private OrgRollup(OrgChart chart) {
+        int size = chart.size();
+        this.chart = chart;
+        this.own = new long[METRICS][size];
+        this.subtree = new long[METRICS][size];
+        this.subtreeHeadcount = new int[size];
+        this.paid = new boolean[size];
+    }
+
+    /**
+     * Rolls up payroll results over the org chart. Results of several months for the same
+     * employee are added together.
+     *
+     * @param chart   Reporting tree of the roster
+     * @param results Payroll results of the period (e.g., from {@link PayrollBatch#calculateAll})
+     * @return The rollup
+     */
+    public static OrgRollup calculate(OrgChart chart, Collection<PayrollResult> results) {
+        OrgRollup rollup = new OrgRollup(chart);
+
+        for (PayrollResult result : results) {
+            int node = chart.indexOf(result.getEmployee().getEmpId());
+            if (node < 0) continue;
+
+            MonthlySummary summary = result.getSummary();
+            rollup.own[GROSS][node] += result.getGrossIncomeCentavos();
+            rollup.own[OVERTIME_PAY][node] += summary.getTotalOvertimePayCentavos();
+            rollup.own[HOLIDAY_PAY][node] += summary.getTotalHolidayPayCentavos();
+            rollup.own[LATE_DEDUCTIONS][node] += summary.getTotalLateDeductionsCentavos();
+            rollup.own[SSS][node] += result.getSssCentavos();
+            rollup.own[PHILHEALTH][node] += result.getPhilHealthCentavos();
+            rollup.own[PAGIBIG][node] += result.getPagibigCentavos();
+            rollup.own[WITHHOLDING_TAX][node] += result.getWithholdingTaxCentavos();
+            rollup.own[NET_PAY][node] += result.getNetPayCentavos();
+            rollup.paid[node] = true;
+        }
+
+        // Bottom-up: every employee is visited before its supervisor
+        for (int node : chart.getBottomUpOrder()) {
+            if (rollup.paid[node]) rollup.subtreeHeadcount[node]++;
+            for (int metric = 0; metric < METRICS; metric++) {
+                rollup.subtree[metric][node] += rollup.own[metric][node];
+            }
+
+            int parent = chart.getParent(node);
+            if (parent >= 0) {
+                rollup.subtreeHeadcount[parent] += rollup.subtreeHeadcount[node];
+                for (int metric = 0; metric < METRICS; metric++) {
+                    rollup.subtree[metric][parent] += rollup.subtree[metric][node];
+                }
+            }
+        }
+        return rollup;
+    }
+
+    public OrgChart getChart() { return chart; }
+
+    /**
+     * Gets a metric of one employee alone.
+     *
+     * @param node   Node number from {@link OrgChart#indexOf(String)}
+     * @param metric Metric code (e.g., GROSS, NET_PAY)
+     */
+    public double getOwnTotal(int node, int metric) { return Money.toPesos(own[metric][node]); }
+
+    /**
+     * Gets a metric summed over an employee and everyone reporting to them.
+     *
+     * @param node   Node number from {@link OrgChart#indexOf(String)}
+     * @param metric Metric code (e.g., GROSS, NET_PAY)
+     */
+    public double getSubtreeTotal(int node, int metric) { return Money.toPesos(subtree[metric][node]); }
+
+    /**
+     * Gets the number of paid employees in a subtree, including its head.
+     */
+    public int getSubtreeHeadcount(int node) { return subtreeHeadcount[node]; }
+
+    /**
+     * Sums each metric per division (the branches directly under the top-level employees).
+     *
+     * @return Totals indexed [metric][division head node]; zero for non-heads
+     */
+    public double[][] byDivision() {
+        long[][] totals = new long[METRICS][chart.size()];
+        for (int node = 0; node < chart.size(); node++) {
+            if (chart.getDivision(node) != node) continue;
+            boolean isRoot = chart.getParent(node) < 0;
+            for (int metric = 0; metric < METRICS; metric++) {
+                // A top-level employee's division is only their own pay; their reports form divisions of their own
+                totals[metric][node] = isRoot ? own[metric][node] : subtree[metric][node];
+            }
+        }
+        return toPesos(totals);
+    }
+
+    /**
+     * Sums each metric per position.
+     *
+     * @return Totals indexed [metric][position group] (see {@link OrgChart#getPositionName(int)})
+     */
+    public double[][] byPosition() {
+        long[][] totals = new long[METRICS][chart.getPositionCount()];
+        for (int node = 0; node < chart.size(); node++) {
+            int group = chart.getPositionGroup(node);
+            for (int metric = 0; metric < METRICS; metric++) totals[metric][group] += own[metric][node];
+        }
+        return toPesos(totals);
+    }
+
+    /**
+     * Sums each metric per employment status.
+     *
+     * @return Totals indexed [metric][status group] (see {@link OrgChart#getStatusName(int)})
+     */
+    public double[][] byStatus() {
+        long[][] totals = new long[METRICS][chart.getStatusCount()];
+        for (int node = 0; node < chart.size(); node++) {
+            int group = chart.getStatusGroup(node);
+            for (int metric = 0; metric < METRICS; metric++) totals[metric][group] += own[metric][node];
+        }
+        return toPesos(totals);
+    }
+
+    private static double[][] toPesos(long[][] centavos) {
+        double[][] pesos = new double[centavos.length][];
+        for (int metric = 0; metric < centavos.length; metric++) {
+            pesos[metric] = new double[centavos[metric].length];
+            for (int index = 0; index < centavos[metric].length; index++) {
+                pesos[metric][index] = Money.toPesos(centavos[metric][index]);
+            }
+        }
+        return pesos;
+    }
+
+    /**
+     * Writes the cost-center report: supervisor subtrees (top levels of the chart), divisions,
+     * positions and employment statuses.
+     *
+     * @param startDate First day of the payroll period
+     * @param endDate   Last day of the payroll period
+     * @param maxDepth  Deepest chart level listed in the supervisor section (0 = top level only)
+     * @param out       Destination of the report
+     */
+    public void writeReport(LocalDate startDate, LocalDate endDate, int maxDepth, Writer out) throws IOException {
+        out.write(REPORT_LINE + "\n");
+        out.write(String.format(" ORG COST ROLLUP | Payroll Period: %s to %s%n", startDate, endDate));
+
+        writeHeader(out, "Supervisor Subtree");
+        double[][] subtrees = toPesos(subtree);
+        for (int node : topDownOrder()) {
+            if (chart.getDepth(node) > maxDepth || subtreeHeadcount[node] == 0) continue;
+            String label = "  ".repeat(chart.getDepth(node)) + chart.getEmployee(node).getName();
+            writeRow(out, label, subtreeHeadcount[node], subtrees, node);
+        }
+
+        writeHeader(out, "Division");
+        double[][] divisions = byDivision();
+        for (int node = 0; node < chart.size(); node++) {
+            if (chart.getDivision(node) != node) continue;
+            int headcount = (chart.getParent(node) < 0) ? (paid[node] ? 1 : 0) : subtreeHeadcount[node];
+            if (headcount == 0) continue;
+            writeRow(out, chart.getEmployee(node).getName(), headcount, divisions, node);
+        }
+
+        writeGroups(out, "Position", byPosition(), chart.getPositionCount(), true);
+        writeGroups(out, "Status", byStatus(), chart.getStatusCount(), false);
+        out.write(REPORT_LINE + "\n");
+        out.flush();
+    }
+
+    private void writeGroups(Writer out, String title, double[][] totals, int groups, boolean byPosition) throws IOException {
+        int[] headcounts = new int[groups];
+        for (int node = 0; node < chart.size(); node++) {
+            if (paid[node]) headcounts[byPosition ? chart.getPositionGroup(node) : chart.getStatusGroup(node)]++;
+        }
+
+        writeHeader(out, title);
+        for (int group = 0; group < groups; group++) {
+            if (headcounts[group] == 0) continue;
+            String name = byPosition ? chart.getPositionName(group) : chart.getStatusName(group);
+            writeRow(out, name, headcounts[group], totals, group);
+        }
+    }
+
+    private static void writeHeader(Writer out, String title) throws IOException {
+        out.write(REPORT_LINE + "\n");
+        out.write(String.format(" %-40s | %9s | %14s | %12s | %12s | %11s | %13s | %12s | %14s%n",
+                title, "Headcount", "Gross", "OT Pay", "Holiday Pay", "Late Ded.", "Govt Contrib.", "BIR Tax", "Net Pay"));
+        out.write(REPORT_LINE + "\n");
+    }
+
+    private static void writeRow(Writer out, String label, int headcount, double[][] totals, int index) throws IOException {
+        if (label.length() > 40) label = label.substring(0, 40);
+        double contributions = totals[SSS][index] + totals[PHILHEALTH][index] + totals[PAGIBIG][index];
+        out.write(String.format(" %-40s | %9d | %,14.2f | %,12.2f | %,12.2f | %,11.2f | %,13.2f | %,12.2f | %,14.2f%n",
+                label, headcount, totals[GROSS][index], totals[OVERTIME_PAY][index], totals[HOLIDAY_PAY][index],
+                totals[LATE_DEDUCTIONS][index], contributions, totals[WITHHOLDING_TAX][index], totals[NET_PAY][index]));
+    }
+
+    /**
+     * Lists the nodes depth-first so each supervisor is followed by its reports.
+     */
+    private int[] topDownOrder() {
+        int size = chart.size();
+        List<List<Integer>> children = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) children.add(new ArrayList<>());
+        Deque<Integer> stack = new ArrayDeque<>();
+        for (int node = 0; node < size; node++) {
+            int parent = chart.getParent(node);
+            if (parent >= 0) children.get(parent).add(node);
+        }
+        for (int node = size - 1; node >= 0; node--) {
+            if (chart.getParent(node) < 0) stack.push(node);
+        }
+
+        int[] order = new int[size];
+        int count = 0;
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+            order[count++] = node;
+            List<Integer> reports = children.get(node);
+            for (int i = reports.size() - 1; i >= 0; i--) stack.push(reports.get(i));
+        }
+        return order;
+    }
+}
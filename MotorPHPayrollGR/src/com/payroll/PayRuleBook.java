@@ -0,0 +1,201 @@
+package com.payroll;
+
+import java.io.*;
+import java.math.RoundingMode;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PayRuleBook - The pay rules of each employment status and position.
+ *
+ * Rules are declared in a CSV file, one rule per row:
+ *
+ *  Status, Position, Grace Period End, Lunch Minutes, Regular Hours, Overtime After Hours,
+ *  Overtime, Rest Day, Regular Holiday, Regular Holiday Rest Day, Special Holiday
+ *
+ * Status and Position select the employees a row applies to (compared ignoring case; blank
+ * or "*" matches any), and the first matching row wins, so specific rows go before general
+ * ones. The other columns are written as on a timesheet or payslip (e.g., 8:30, 60, 8, 9,
+ * 1.25); a blank column keeps the {@link PayRules#DEFAULT} value. Employees no row matches
+ * get the defaults.
+ *
+ * Each row is compiled once, when loaded, into an immutable {@link PayRules}, and the rules
+ * of an employee are resolved once per status and position pair and remembered; a summary
+ * keeps its employee's rules, so evaluating a day neither looks up nor interprets a rule.
+ */
+public final class PayRuleBook {
+    private static final PayRuleBook EMPTY = new PayRuleBook(new ArrayList<>());
+    private static volatile PayRuleBook defaultBook = EMPTY;
+
+    private final List<Rule> rules;
+    private final Map<String, PayRules> resolved = new ConcurrentHashMap<>();
+    private final long fingerprint;
+
+    /**
+     * One row of the rule book: who it applies to and the rules compiled from it.
+     */
+    private static final class Rule {
+        final String status; // null matches any
+        final String position; // null matches any
+        final PayRules rules;
+
+        Rule(String status, String position, PayRules rules) {
+            this.status = status;
+            this.position = position;
+            this.rules = rules;
+        }
+
+        boolean matches(String employeeStatus, String employeePosition) {
+            return (status == null || status.equalsIgnoreCase(employeeStatus.trim()))
+                   && (position == null || position.equalsIgnoreCase(employeePosition.trim()));
+        }
+    }
+
+    private PayRuleBook(List<Rule> rules) {
+        this.rules = rules;
+        long hash = rules.size();
+        for (Rule rule : rules) {
+            hash = hash * 31 + Objects.hashCode(rule.status);
+            hash = hash * 31 + Objects.hashCode(rule.position);
+            hash = hash * 31 + rule.rules.getFingerprint();
+        }
+        this.fingerprint = hash;
+    }
+
+    /**
+     * Loads a rule book file.
+     *
+     * @param filePath Path to the rule book CSV file
+     * @return The rule book; empty (everyone on the defaults) if the file cannot be read
+     */
+    public static PayRuleBook load(String filePath) {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadPayRules");
+             CsvReader csv = new CsvReader(filePath)) {
+            PayRuleBook book = read(csv, stage);
+            stage.bytes(new File(filePath).length());
+            return book;
+        } catch (IOException e) {
+            System.err.println("Error reading pay rules file: " + e.getMessage());
+            return EMPTY;
+        }
+    }
+
+    /**
+     * Loads a rule book given as CSV text (e.g., as stored in a database).
+     *
+     * @param in Text of a rule book file, header row included
+     * @return The rule book; empty (everyone on the defaults) if the text cannot be read
+     */
+    public static PayRuleBook load(Reader in) {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadPayRules");
+             CsvReader csv = new CsvReader(in)) {
+            return read(csv, stage);
+        } catch (IOException e) {
+            System.err.println("Error reading pay rules: " + e.getMessage());
+            return EMPTY;
+        }
+    }
+
+    private static PayRuleBook read(CsvReader csv, PayrollMetrics.Stage stage) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        csv.readRecord(); // Skip header row
+
+        String[] data;
+        while ((data = csv.readRecord()) != null) {
+            try {
+                rules.add(parseRule(data));
+                stage.rows(1);
+            } catch (RuntimeException e) {
+                System.err.println("Skipping pay rule record " + csv.getRecordNumber() + ": " + e.getMessage());
+                stage.skipped(1);
+            }
+        }
+        return new PayRuleBook(rules);
+    }
+
+    private static Rule parseRule(String[] data) {
+        String status = selector(column(data, 0));
+        String position = selector(column(data, 1));
+        PayRules rules = PayRules.DEFAULT.withName(((status != null) ? status : "*") + " / "
+                                                   + ((position != null) ? position : "*"));
+
+        String value;
+        if (!(value = column(data, 2)).isEmpty()) {
+            LocalTime time = LocalTime.parse((value.length() == 4) ? "0" + value : value);
+            rules = rules.withGracePeriodEnd(time.getHour() * 60 + time.getMinute());
+        }
+        if (!(value = column(data, 3)).isEmpty()) rules = rules.withLunchMinutes(Integer.parseInt(value));
+        if (!(value = column(data, 4)).isEmpty()) rules = rules.withRegularMinutes(minutes(value));
+        if (!(value = column(data, 5)).isEmpty()) rules = rules.withOvertimeAfterMinutes(minutes(value));
+        if (!(value = column(data, 6)).isEmpty()) rules = rules.withOvertimePercent(hundredths(value));
+        if (!(value = column(data, 7)).isEmpty()) rules = rules.withRestDayPercent(hundredths(value));
+        if (!(value = column(data, 8)).isEmpty()) rules = rules.withRegularHolidayPercent(hundredths(value));
+        if (!(value = column(data, 9)).isEmpty()) rules = rules.withRegularHolidayRestDayPercent(hundredths(value));
+        if (!(value = column(data, 10)).isEmpty()) rules = rules.withSpecialHolidayPercent(hundredths(value));
+        return new Rule(status, position, rules);
+    }
+
+    private static String selector(String value) {
+        return (value.isEmpty() || value.equals("*")) ? null : value;
+    }
+
+    private static String column(String[] data, int index) {
+        return (index < data.length) ? data[index].trim() : "";
+    }
+
+    /**
+     * Parses hours such as "8" or "7.5" to whole minutes.
+     */
+    private static int minutes(String text) {
+        return Math.toIntExact(Money.multiplyDivide(Money.parse(text), 60, 100, RoundingMode.HALF_UP));
+    }
+
+    /**
+     * Parses a multiplier such as "1.25" to a percentage (125).
+     */
+    private static int hundredths(String text) {
+        return Math.toIntExact(Money.parse(text));
+    }
+
+    /**
+     * Gets the rules of an employee: those of the first row matching their status and position.
+     *
+     * @param employee The employee
+     * @return The employee's rules, or {@link PayRules#DEFAULT} if no row matches
+     */
+    public PayRules rulesFor(EmployeeData employee) {
+        if (rules.isEmpty()) return PayRules.DEFAULT;
+        String status = employee.getStatus(), position = employee.getPosition();
+        return resolved.computeIfAbsent(status + '\u0000' + position, key -> resolve(status, position));
+    }
+
+    private PayRules resolve(String status, String position) {
+        for (Rule rule : rules) {
+            if (rule.matches(status, position)) return rule.rules;
+        }
+        return PayRules.DEFAULT;
+    }
+
+    /**
+     * Gets the number of rules in the book.
+     */
+    public int size() { return rules.size(); }
+
+    /**
+     * Returns a hash of the rules, to tell whether summaries computed with them are still valid.
+     */
+    public long getFingerprint() { return fingerprint; }
+
+    /**
+     * Installs the rule book used by summaries created without explicit rules.
+     */
+    public static void setDefault(PayRuleBook book) {
+        defaultBook = (book != null) ? book : EMPTY;
+    }
+
+    /**
+     * Gets the rule book used by summaries created without explicit rules.
+     */
+    public static PayRuleBook getDefault() { return defaultBook; }
+}
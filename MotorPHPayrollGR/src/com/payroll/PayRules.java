@@ -0,0 +1,394 @@
+package com.payroll;
+
+import java.io.*;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * PayRules - The workday shape, pay premiums, rate adjustment and deduction tables a payroll is computed with.
+ *
+ * {@link #DEFAULT} holds the company-wide rules: clock-ins after 8:30 are late, one hour of
+ * lunch is unpaid, a day of 9 or more hours earns overtime beyond 8 hours at 125% of the
+ * hourly rate, rest day work is paid 150%, holiday work the multiplier of its day type (see
+ * {@link HolidayCalendar#getMultiplier(byte)}), and deductions follow the installed
+ * {@link GovernmentDeductions} tables. A {@link PayRuleBook} gives other rules to particular
+ * employment statuses or positions, and {@link MonthlySummary} evaluates every day of an
+ * employee with the rules resolved for them. Alternative rules also describe a what-if
+ * scenario (e.g., a 5% raise, or a proposed SSS table) that {@link PayrollSimulator} evaluates
+ * against already aggregated summaries. A scenario only changes what it sets: the raise,
+ * premiums and deduction tables set through its with... methods are laid over each
+ * employee's own rules (see {@link #appliedTo}), and everything else stays as their rule
+ * book row has it.
+ *
+ * Rules are immutable and hold only resolved primitives, so the per-day methods are plain
+ * integer arithmetic. Times are minutes, percentages whole numbers (125 = 1.25x) and the
+ * raise is in basis points (500 = 5%), so every amount stays an exact centavo computation.
+ * The with... methods return a modified copy.
+ */
+public final class PayRules {
+    public static final PayRules DEFAULT = new PayRules("Current", 8 * 60 + 30, 60, 8 * 60, 9 * 60,
+                                                        0, 125, 150, defaultHolidayPercents(), null, 0, 0);
+
+    // What a scenario sets, see appliedTo
+    private static final int RAISE = 1;
+    private static final int OVERTIME = 2;
+    private static final int REST_DAY = 4;
+    private static final int SCHEDULES = 8;
+
+    private final String name;
+    private final int graceMinute; // Minute of the day after which a clock-in is late
+    private final int lunchMinutes;
+    private final int regularMinutes;
+    private final int overtimeAfterMinutes;
+    private final int raiseBasisPoints;
+    private final int overtimePercent;
+    private final int restDayPercent;
+    private final int[] holidayPercents; // By day type, see HolidayCalendar
+    private final List<DeductionSchedule> schedules; // null for the installed tables
+    private final int overrides; // RAISE, OVERTIME, ... bits set by the with... methods
+    private final int holidayOverrides; // Bit per day type whose holiday percent was set
+
+    private PayRules(String name, int graceMinute, int lunchMinutes, int regularMinutes, int overtimeAfterMinutes,
+                     int raiseBasisPoints, int overtimePercent, int restDayPercent,
+                     int[] holidayPercents, List<DeductionSchedule> schedules, int overrides, int holidayOverrides) {
+        this.name = name;
+        this.graceMinute = graceMinute;
+        this.lunchMinutes = lunchMinutes;
+        this.regularMinutes = regularMinutes;
+        this.overtimeAfterMinutes = overtimeAfterMinutes;
+        this.raiseBasisPoints = raiseBasisPoints;
+        this.overtimePercent = overtimePercent;
+        this.restDayPercent = restDayPercent;
+        this.holidayPercents = holidayPercents;
+        this.schedules = schedules;
+        this.overrides = overrides;
+        this.holidayOverrides = holidayOverrides;
+    }
+
+    private static int[] defaultHolidayPercents() {
+        int[] percents = new int[16];
+        for (int dayType = 0; dayType < percents.length; dayType++) {
+            percents[dayType] = Math.round(HolidayCalendar.getMultiplier((byte) dayType) * 100f);
+        }
+        return percents;
+    }
+
+    public PayRules withName(String name) {
+        return new PayRules(name, graceMinute, lunchMinutes, regularMinutes, overtimeAfterMinutes,
+                            raiseBasisPoints, overtimePercent, restDayPercent, holidayPercents, schedules,
+                            overrides, holidayOverrides);
+    }
+
+    /**
+     * Sets the time of day after which a clock-in is late (e.g., 8:30).
+     */
+    public PayRules withGracePeriodEnd(int minuteOfDay) {
+        if (minuteOfDay < 0 || minuteOfDay >= 24 * 60) throw new IllegalArgumentException("Invalid grace period end");
+        return new PayRules(name, minuteOfDay, lunchMinutes, regularMinutes, overtimeAfterMinutes,
+                            raiseBasisPoints, overtimePercent, restDayPercent, holidayPercents, schedules,
+                            overrides, holidayOverrides);
+    }
+
+    /**
+     * Sets the unpaid break subtracted from every day's clocked time.
+     */
+    public PayRules withLunchMinutes(int minutes) {
+        if (minutes < 0) throw new IllegalArgumentException("Negative lunch break");
+        return new PayRules(name, graceMinute, minutes, regularMinutes, overtimeAfterMinutes,
+                            raiseBasisPoints, overtimePercent, restDayPercent, holidayPercents, schedules,
+                            overrides, holidayOverrides);
+    }
+
+    /**
+     * Sets the working time of a regular day, beyond which work is overtime.
+     */
+    public PayRules withRegularMinutes(int minutes) {
+        if (minutes <= 0) throw new IllegalArgumentException("Regular hours must be positive");
+        return new PayRules(name, graceMinute, lunchMinutes, minutes, overtimeAfterMinutes,
+                            raiseBasisPoints, overtimePercent, restDayPercent, holidayPercents, schedules,
+                            overrides, holidayOverrides);
+    }
+
+    /**
+     * Sets the working time a day must reach before its time beyond regular hours is paid as overtime.
+     */
+    public PayRules withOvertimeAfterMinutes(int minutes) {
+        if (minutes < 0) throw new IllegalArgumentException("Negative overtime threshold");
+        return new PayRules(name, graceMinute, lunchMinutes, regularMinutes, minutes,
+                            raiseBasisPoints, overtimePercent, restDayPercent, holidayPercents, schedules,
+                            overrides, holidayOverrides);
+    }
+
+    /**
+     * Raises (or, if negative, cuts) hourly rates and basic salaries by the given basis points.
+     */
+    public PayRules withRaise(int basisPoints) {
+        return new PayRules(name, graceMinute, lunchMinutes, regularMinutes, overtimeAfterMinutes,
+                            basisPoints, overtimePercent, restDayPercent, holidayPercents, schedules,
+                            overrides | RAISE, holidayOverrides);
+    }
+
+    public PayRules withOvertimePercent(int percent) {
+        return new PayRules(name, graceMinute, lunchMinutes, regularMinutes, overtimeAfterMinutes,
+                            raiseBasisPoints, percent, restDayPercent, holidayPercents, schedules,
+                            overrides | OVERTIME, holidayOverrides);
+    }
+
+    public PayRules withRestDayPercent(int percent) {
+        return new PayRules(name, graceMinute, lunchMinutes, regularMinutes, overtimeAfterMinutes,
+                            raiseBasisPoints, overtimePercent, percent, holidayPercents, schedules,
+                            overrides | REST_DAY, holidayOverrides);
+    }
+
+    /**
+     * Sets the pay multiplier of regular holidays that are not rest days.
+     */
+    public PayRules withRegularHolidayPercent(int percent) {
+        return withHolidayPercent(percent, true, false);
+    }
+
+    /**
+     * Sets the pay multiplier of regular holidays falling on a rest day.
+     */
+    public PayRules withRegularHolidayRestDayPercent(int percent) {
+        return withHolidayPercent(percent, true, true);
+    }
+
+    /**
+     * Sets the pay multiplier of special non-working days, rest day or not.
+     */
+    public PayRules withSpecialHolidayPercent(int percent) {
+        int[] percents = holidayPercents.clone();
+        int set = holidayOverrides;
+        for (int dayType = 0; dayType < percents.length; dayType++) {
+            if ((dayType & HolidayCalendar.SPECIAL_NON_WORKING) != 0
+                    && (dayType & HolidayCalendar.REGULAR_HOLIDAY) == 0) {
+                percents[dayType] = percent;
+                set |= 1 << dayType;
+            }
+        }
+        return new PayRules(name, graceMinute, lunchMinutes, regularMinutes, overtimeAfterMinutes,
+                            raiseBasisPoints, overtimePercent, restDayPercent, percents, schedules, overrides, set);
+    }
+
+    private PayRules withHolidayPercent(int percent, boolean regularHoliday, boolean restDay) {
+        int[] percents = holidayPercents.clone();
+        int set = holidayOverrides;
+        for (int dayType = 0; dayType < percents.length; dayType++) {
+            if (((dayType & HolidayCalendar.REGULAR_HOLIDAY) != 0) == regularHoliday
+                    && ((dayType & HolidayCalendar.REST_DAY) != 0) == restDay) {
+                percents[dayType] = percent;
+                set |= 1 << dayType;
+            }
+        }
+        return new PayRules(name, graceMinute, lunchMinutes, regularMinutes, overtimeAfterMinutes,
+                            raiseBasisPoints, overtimePercent, restDayPercent, percents, schedules, overrides, set);
+    }
+
+    /**
+     * Computes deductions with the given schedules instead of the installed tables.
+     *
+     * @param schedules Deduction schedules sorted by effective date (see {@link GovernmentDeductions#readSchedules})
+     */
+    public PayRules withDeductionSchedules(List<DeductionSchedule> schedules) {
+        if (schedules.isEmpty()) throw new IllegalArgumentException("No deduction schedules");
+        return new PayRules(name, graceMinute, lunchMinutes, regularMinutes, overtimeAfterMinutes,
+                            raiseBasisPoints, overtimePercent, restDayPercent, holidayPercents,
+                            List.copyOf(schedules), overrides | SCHEDULES, holidayOverrides);
+    }
+
+    /**
+     * Lays the raise, premiums and deduction tables these rules set (as a scenario) over an
+     * employee's own rules; the day shape and anything not set are taken from the base.
+     *
+     * @param base The rules the employee's summary was evaluated with
+     * @return The rules to price the employee's days with under this scenario
+     */
+    public PayRules appliedTo(PayRules base) {
+        if (overrides == 0 && holidayOverrides == 0) return base;
+
+        int[] percents = base.holidayPercents;
+        if (holidayOverrides != 0) {
+            percents = percents.clone();
+            for (int dayType = 0; dayType < percents.length; dayType++) {
+                if ((holidayOverrides & (1 << dayType)) != 0) percents[dayType] = holidayPercents[dayType];
+            }
+        }
+        return new PayRules(name, base.graceMinute, base.lunchMinutes, base.regularMinutes, base.overtimeAfterMinutes,
+                            ((overrides & RAISE) != 0) ? raiseBasisPoints : base.raiseBasisPoints,
+                            ((overrides & OVERTIME) != 0) ? overtimePercent : base.overtimePercent,
+                            ((overrides & REST_DAY) != 0) ? restDayPercent : base.restDayPercent,
+                            percents, ((overrides & SCHEDULES) != 0) ? schedules : base.schedules,
+                            base.overrides | overrides, base.holidayOverrides | holidayOverrides);
+    }
+
+    public String getName() { return name; }
+    public int getGraceMinute() { return graceMinute; }
+    public int getLunchMinutes() { return lunchMinutes; }
+    public int getRegularMinutes() { return regularMinutes; }
+    public int getOvertimeAfterMinutes() { return overtimeAfterMinutes; }
+    public int getRaiseBasisPoints() { return raiseBasisPoints; }
+    public int getOvertimePercent() { return overtimePercent; }
+    public int getRestDayPercent() { return restDayPercent; }
+    public int getHolidayPercent(byte dayType) { return holidayPercents[dayType & 15]; }
+
+    /**
+     * Returns whether days are priced as the given rules price them (same premiums, no raise),
+     * so the premiums a summary totaled with those rules can be used as they are.
+     */
+    public boolean hasSamePay(PayRules other) {
+        return raiseBasisPoints == 0 && overtimePercent == other.overtimePercent
+               && restDayPercent == other.restDayPercent && Arrays.equals(holidayPercents, other.holidayPercents);
+    }
+
+    /**
+     * Returns a hash of everything that shapes a summary's days (times and premiums, not the
+     * raise or deduction tables), to tell whether cached summaries are still valid.
+     */
+    public long getFingerprint() {
+        long hash = graceMinute;
+        hash = hash * 31 + lunchMinutes;
+        hash = hash * 31 + regularMinutes;
+        hash = hash * 31 + overtimeAfterMinutes;
+        hash = hash * 31 + overtimePercent;
+        hash = hash * 31 + restDayPercent;
+        return hash * 31 + Arrays.hashCode(holidayPercents);
+    }
+
+    // Day shape in minutes
+
+    /**
+     * Computes the late minutes of a clock-in (minutes after the grace period end, or 0).
+     */
+    public int lateMinutes(int clockInMinute) {
+        return Math.max(0, clockInMinute - graceMinute);
+    }
+
+    /**
+     * Computes the paid working time of a day from its clocked time, less the lunch break.
+     */
+    public int workMinutes(int rawMinutes) {
+        return Math.max(0, rawMinutes - lunchMinutes);
+    }
+
+    public int overtimeMinutes(int workMinutes) {
+        return (workMinutes >= overtimeAfterMinutes) ? workMinutes - regularMinutes : 0;
+    }
+
+    public int regularMinutes(int workMinutes) {
+        return Math.min(regularMinutes, workMinutes);
+    }
+
+    /**
+     * Applies the raise to a rate or salary in centavos, rounded half up.
+     */
+    public long raise(long centavos) {
+        if (raiseBasisPoints == 0) return centavos;
+        return Money.multiplyDivide(centavos, 10_000L + raiseBasisPoints, 10_000L, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Gets the deduction schedule in effect on a date.
+     */
+    public DeductionSchedule getSchedule(LocalDate date) {
+        return (schedules == null) ? GovernmentDeductions.getSchedule(date) : GovernmentDeductions.getSchedule(schedules, date);
+    }
+
+    // Daily amounts in centavos: minutes x hourly rate x premium, rounded half up once
+
+    public long overtimePay(int minutes, long hourlyRate) {
+        return Money.multiplyDivide(minutes, hourlyRate * overtimePercent, 60 * 100, RoundingMode.HALF_UP);
+    }
+
+    public long restDayPay(int minutes, long hourlyRate) {
+        return Money.multiplyDivide(minutes, hourlyRate * restDayPercent, 60 * 100, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Computes the holiday premium: the pay above the regular rate for the day's multiplier.
+     */
+    public long holidayPay(int minutes, long hourlyRate, int holidayPercent) {
+        return Money.multiplyDivide(minutes, hourlyRate * (holidayPercent - 100), 60 * 100, RoundingMode.HALF_UP);
+    }
+
+    public long lateDeduction(int minutes, long hourlyRate) {
+        return Money.multiplyDivide(minutes, hourlyRate, 60, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Loads what-if scenarios, one per row, with the columns
+     * Scenario, Raise %, Overtime, Rest Day, Regular Holiday, Regular Holiday Rest Day,
+     * Special Holiday, Deduction Tables. Multipliers are written as on a payslip (e.g., 1.25),
+     * the raise as a percentage (e.g., 5 or -2.5), and the deduction tables as the path of a
+     * file in the format of GovernmentDeductionTables.csv. Blank columns keep each employee's
+     * current rule (see {@link #appliedTo}).
+     *
+     * @param filePath Path to the scenario CSV file
+     * @return The scenarios in file order; empty if the file cannot be read
+     */
+    public static List<PayRules> loadScenarios(String filePath) {
+        List<PayRules> scenarios = new ArrayList<>();
+        Map<String, List<DeductionSchedule>> tables = new HashMap<>();
+
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadScenarios");
+             CsvReader csv = new CsvReader(filePath)) {
+            csv.readRecord(); // Skip header row
+
+            String[] data;
+            while ((data = csv.readRecord()) != null) {
+                try {
+                    scenarios.add(parseScenario(data, tables, csv.getRecordNumber()));
+                    stage.rows(1);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Skipping scenario record " + csv.getRecordNumber() + ": " + e.getMessage());
+                    stage.skipped(1);
+                }
+            }
+            stage.bytes(new File(filePath).length());
+        } catch (IOException e) {
+            System.err.println("Error reading scenario file: " + e.getMessage());
+        }
+        return scenarios;
+    }
+
+    private static PayRules parseScenario(String[] data, Map<String, List<DeductionSchedule>> tables,
+                                          long recordNumber) throws IOException {
+        String name = column(data, 0);
+        PayRules rules = DEFAULT.withName(name.isEmpty() ? "Scenario " + recordNumber : name);
+
+        String value;
+        if (!(value = column(data, 1)).isEmpty()) rules = rules.withRaise(hundredths(value.replace("%", "")));
+        if (!(value = column(data, 2)).isEmpty()) rules = rules.withOvertimePercent(hundredths(value));
+        if (!(value = column(data, 3)).isEmpty()) rules = rules.withRestDayPercent(hundredths(value));
+        if (!(value = column(data, 4)).isEmpty()) rules = rules.withRegularHolidayPercent(hundredths(value));
+        if (!(value = column(data, 5)).isEmpty()) rules = rules.withRegularHolidayRestDayPercent(hundredths(value));
+        if (!(value = column(data, 6)).isEmpty()) rules = rules.withSpecialHolidayPercent(hundredths(value));
+        if (!(value = column(data, 7)).isEmpty()) {
+            List<DeductionSchedule> schedules = tables.get(value);
+            if (schedules == null) {
+                schedules = GovernmentDeductions.readSchedules(value);
+                tables.put(value, schedules);
+            }
+            rules = rules.withDeductionSchedules(schedules);
+        }
+        return rules;
+    }
+
+    private static String column(String[] data, int index) {
+        return (index < data.length) ? data[index].trim() : "";
+    }
+
+    /**
+     * Parses a decimal such as "1.25" to hundredths (125).
+     */
+    private static int hundredths(String text) {
+        return Math.toIntExact(Money.parse(text));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (raise %+.2f%%, OT %d%%, rest day %d%%)", name, raiseBasisPoints / 100.0,
+                             overtimePercent, restDayPercent);
+    }
+}
@@ -0,0 +1,107 @@
+package com.payroll;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * PayrollBatch - Runs payroll for every employee in a period without prompting.
+ *
+ * Monthly summaries are processed on the common fork-join pool, partitioned by their
+ * employee-month key, and the results are written as one consolidated payroll register
+ * ordered by employee ID. The summaries are themselves aggregated with employees
+ * partitioned across the pool (see {@link PayrollCache}); only reading the time entries
+ * is a single pass.
+ */
+public class PayrollBatch {
+    private static final String REGISTER_LINE = "-".repeat(176);
+
+    /**
+     * Computes the payroll results for all monthly summaries in parallel.
+     *
+     * @param monthlySummaries Summaries keyed by employee-month (e.g., "10001-2024-06")
+     * @param benefits         De minimis benefits by employee ID
+     * @return Payroll results keyed and sorted by employee-month
+     */
+    public static SortedMap<String, PayrollResult> calculateAll(Map<String, MonthlySummary> monthlySummaries,
+                                                               Map<String, DeMinimisBenefits> benefits) {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.startParallel("calculatePayroll")) {
+            List<String> keys = new ArrayList<>(monthlySummaries.keySet());
+            Collections.sort(keys);
+
+            List<PayrollResult> results = keys.parallelStream()
+                .map(key -> PayrollResult.calculate(monthlySummaries.get(key), benefits))
+                .collect(Collectors.toList());
+
+            SortedMap<String, PayrollResult> register = new TreeMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                register.put(keys.get(i), results.get(i));
+            }
+            stage.rows(register.size());
+            return register;
+        }
+    }
+
+    /**
+     * Writes the consolidated payroll register: one line per employee-month plus company totals.
+     *
+     * @param register  Payroll results keyed by employee-month
+     * @param startDate First day of the payroll period
+     * @param endDate   Last day of the payroll period
+     * @param out       Destination of the register
+     */
+    public static void writeRegister(SortedMap<String, PayrollResult> register, LocalDate startDate, LocalDate endDate,
+                                     Writer out) throws IOException {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.startParallel("writeRegister")) {
+            out.write(REGISTER_LINE + "\n");
+            out.write(String.format(" PAYROLL REGISTER | Payroll Period: %s to %s | Employees: %d%n",
+                    startDate, endDate, register.size()));
+            out.write(REGISTER_LINE + "\n");
+            out.write(String.format(" %-14s | %-24s | %8s | %13s | %9s | %10s | %9s | %11s | %10s | %10s | %13s%n",
+                    "Payroll Key", "Employee Name", "Hours", "Gross", "SSS", "PhilHealth", "Pag-IBIG", "BIR Tax",
+                    "Late Ded.", "De Minimis", "Net Pay"));
+            out.write(REGISTER_LINE + "\n");
+
+            List<String> lines = register.entrySet().parallelStream()
+                .map(entry -> formatRow(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+            for (String line : lines) {
+                out.write(line);
+            }
+
+            // Totals in minutes and centavos, so they equal the sum of the rows exactly
+            long minutes = 0L, gross = 0L, sss = 0L, philHealth = 0L, pagibig = 0L, tax = 0L;
+            long late = 0L, deMinimis = 0L, net = 0L;
+            for (PayrollResult result : register.values()) {
+                minutes += result.getSummary().getTotalWorkMinutes();
+                gross += result.getGrossIncomeCentavos();
+                sss += result.getSssCentavos();
+                philHealth += result.getPhilHealthCentavos();
+                pagibig += result.getPagibigCentavos();
+                tax += result.getWithholdingTaxCentavos();
+                late += result.getSummary().getTotalLateDeductionsCentavos();
+                deMinimis += result.getTotalDeMinimisBenefitsCentavos();
+                net += result.getNetPayCentavos();
+            }
+
+            out.write(REGISTER_LINE + "\n");
+            out.write(String.format(" %-14s | %-24s | %8.2f | %,13.2f | %,9.2f | %,10.2f | %,9.2f | %,11.2f | %,10.2f | %,10.2f | %,13.2f%n",
+                    "TOTAL", "", minutes / 60.0, Money.toPesos(gross), Money.toPesos(sss), Money.toPesos(philHealth),
+                    Money.toPesos(pagibig), Money.toPesos(tax), Money.toPesos(late), Money.toPesos(deMinimis),
+                    Money.toPesos(net)));
+            out.write(REGISTER_LINE + "\n");
+            out.flush();
+            stage.rows(register.size());
+        }
+    }
+
+    private static String formatRow(String key, PayrollResult result) {
+        String name = result.getEmployee().getName();
+        if (name.length() > 24) name = name.substring(0, 24);
+        return String.format(" %-14s | %-24s | %8.2f | %,13.2f | %,9.2f | %,10.2f | %,9.2f | %,11.2f | %,10.2f | %,10.2f | %,13.2f%n",
+                key, name, result.getSummary().getTotalWorkHours(), result.getGrossIncome(), result.getSss(),
+                result.getPhilHealth(), result.getPagibig(), result.getWithholdingTax(),
+                result.getSummary().getTotalLateDeductions(), result.getTotalDeMinimisBenefits(), result.getNetPay());
+    }
+}
@@ -0,0 +1,335 @@
+package com.payroll;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PayrollCache - Reuses computed monthly summaries across payroll queries.
+ *
+ * Two layers sit in front of {@link MonthlySummary#calculateWorkedHours}:
+ *
+ *  1. An in-memory LRU of whole period queries. A repeat query is answered without
+ *     touching the time entries as long as the source version and content hash, the
+ *     employee data and the benefits are the same objects/versions as when it was cached.
+ *  2. A directory of summary files, one per pay period (e.g., "2024-06" or "2024-06A" for
+ *     a semi-monthly cutoff) and date range, holding the summaries of every employee in it.
+ *     Each file records the source's content hash of the period's time entries (see
+ *     {@link TimeEntrySource#getContentHash}), a hash of the roster's rates and pay rules,
+ *     and the holiday calendar fingerprint; it is reused only if all three still match, so
+ *     closed months are not re-aggregated, or even re-read, after new DTR rows are appended
+ *     for other months. A change to any employee's rates invalidates every period.
+ *
+ * The time entries of the periods that cannot be restored are read in a single pass into a
+ * {@link TimeEntryIndex} (16 bytes per row, held only while aggregating), and the employees
+ * are then aggregated in parallel; sources that cannot hash their content (e.g., a plain
+ * CSV file) always take this path and use only the in-memory layer.
+ *
+ * Payroll results for a cached query are computed once and kept with it. The cache may be
+ * shared by concurrent requests.
+ */
+public class PayrollCache {
+    private static final int MAGIC = 0x4D505343; // "MPSC"
+    private static final int VERSION = 5;
+
+    private final Path directory;
+    private final Map<String, CachedQuery> recentQueries;
+
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a cache storing summary files in the given directory.
+     *
+     * @param directory     Directory for the summary files (created if missing), or null to keep
+     *                      only the recent queries in memory
+     * @param recentQueries Number of period queries kept in memory
+     */
+    public PayrollCache(String directory, int recentQueries) {
+        this.directory = (directory != null) ? Paths.get(directory) : null;
+        this.recentQueries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedQuery> eldest) {
+                return size() > recentQueries;
+            }
+        };
+    }
+
+    /**
+     * Returns the monthly summaries for a period, reusing cached summaries where still valid.
+     *
+     * @param employees  A map of employee ID to EmployeeData
+     * @param source     Where the time entries are read from
+     * @param startDate  First work date of the payroll period (inclusive)
+     * @param endDate    Last work date of the payroll period (inclusive)
+     * @return A map of employee-month keys to their MonthlySummary objects
+     */
+    public Map<String, MonthlySummary> calculateWorkedHours(Map<String, EmployeeData> employees, TimeEntrySource source,
+                                                           LocalDate startDate, LocalDate endDate) {
+        return calculateWorkedHours(employees, source, startDate, endDate, PayrollPeriod.Frequency.MONTHLY);
+    }
+
+    /**
+     * Returns the summaries for each pay period of a date range, reusing cached summaries where still valid.
+     *
+     * @param employees  A map of employee ID to EmployeeData
+     * @param source     Where the time entries are read from
+     * @param startDate  First work date of the payroll run (inclusive)
+     * @param endDate    Last work date of the payroll run (inclusive)
+     * @param frequency  Pay frequency the run is split into
+     * @return A map of employee-period keys to their summaries
+     */
+    public Map<String, MonthlySummary> calculateWorkedHours(Map<String, EmployeeData> employees, TimeEntrySource source,
+                                                           LocalDate startDate, LocalDate endDate,
+                                                           PayrollPeriod.Frequency frequency) {
+        return query(employees, source, startDate, endDate, frequency).summaries;
+    }
+
+    /**
+     * Returns the payroll results for a period, computing them once per cached query.
+     *
+     * @param employees  A map of employee ID to EmployeeData
+     * @param benefits   De minimis benefits by employee ID
+     * @param source     Where the time entries are read from
+     * @param startDate  First work date of the payroll period (inclusive)
+     * @param endDate    Last work date of the payroll period (inclusive)
+     * @return Payroll results keyed and sorted by employee-month
+     */
+    public SortedMap<String, PayrollResult> calculatePayroll(Map<String, EmployeeData> employees,
+                                                             Map<String, DeMinimisBenefits> benefits,
+                                                             TimeEntrySource source, LocalDate startDate, LocalDate endDate) {
+        return calculatePayroll(employees, benefits, source, startDate, endDate, PayrollPeriod.Frequency.MONTHLY);
+    }
+
+    /**
+     * Returns the payroll results for each pay period of a date range, computing them once per cached query.
+     *
+     * @param employees  A map of employee ID to EmployeeData
+     * @param benefits   De minimis benefits by employee ID
+     * @param source     Where the time entries are read from
+     * @param startDate  First work date of the payroll run (inclusive)
+     * @param endDate    Last work date of the payroll run (inclusive)
+     * @param frequency  Pay frequency the run is split into
+     * @return Payroll results keyed and sorted by employee-period
+     */
+    public SortedMap<String, PayrollResult> calculatePayroll(Map<String, EmployeeData> employees,
+                                                             Map<String, DeMinimisBenefits> benefits,
+                                                             TimeEntrySource source, LocalDate startDate, LocalDate endDate,
+                                                             PayrollPeriod.Frequency frequency) {
+        CachedQuery query = query(employees, source, startDate, endDate, frequency);
+        synchronized (query) {
+            if (query.results == null || query.benefits != benefits) {
+                query.results = PayrollBatch.calculateAll(query.summaries, benefits);
+                query.benefits = benefits;
+            }
+            return query.results;
+        }
+    }
+
+    private CachedQuery query(Map<String, EmployeeData> employees, TimeEntrySource source,
+                              LocalDate startDate, LocalDate endDate, PayrollPeriod.Frequency frequency) {
+        String queryKey = startDate + ".." + endDate + " " + frequency;
+        long version = source.getVersion();
+        long contentHash = source.getContentHash(startDate, endDate);
+        long calendarFingerprint = HolidayCalendar.fingerprint();
+        long rulesFingerprint = PayRuleBook.getDefault().getFingerprint();
+
+        synchronized (recentQueries) {
+            CachedQuery cached = recentQueries.get(queryKey);
+            if (cached != null && version != TimeEntrySource.UNKNOWN_VERSION && cached.version == version
+                    && cached.contentHash == contentHash && cached.employees == employees && cached.calendarFingerprint == calendarFingerprint
+                    && cached.rulesFingerprint == rulesFingerprint) {
+                return cached;
+            }
+        }
+
+        CachedQuery computed = new CachedQuery(version, contentHash, employees, calendarFingerprint, rulesFingerprint,
+                loadOrCalculate(employees, source, calendarFingerprint, startDate, endDate, frequency));
+        synchronized (recentQueries) {
+            recentQueries.put(queryKey, computed);
+        }
+        return computed;
+    }
+
+    /**
+     * Restores each pay period's summaries from disk if the source's content hash of the period
+     * still matches, then aggregates the remaining periods in one pass and saves them.
+     */
+    private Map<String, MonthlySummary> loadOrCalculate(Map<String, EmployeeData> employees, TimeEntrySource source,
+                                                        long calendarFingerprint, LocalDate startDate, LocalDate endDate,
+                                                        PayrollPeriod.Frequency frequency) {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("calculateWorkedHours")) {
+            PeriodBuckets buckets = new PeriodBuckets(frequency, startDate, endDate);
+            long rosterHash = rosterHash(employees);
+            Map<String, MonthlySummary> monthlySummaries = new HashMap<>();
+
+            // Restore what is still valid; the rest is read once, from the first to the last missing period
+            long[] contentHashes = new long[buckets.size()];
+            List<Map<String, MonthlySummary>> missing = new ArrayList<>(buckets.size());
+            LocalDate readFrom = null, readTo = null;
+            for (int bucket = 0; bucket < buckets.size(); bucket++) {
+                PayrollPeriod period = buckets.get(bucket);
+                LocalDate first = period.getStartDate().isBefore(startDate) ? startDate : period.getStartDate();
+                LocalDate last = period.getEndDate().isAfter(endDate) ? endDate : period.getEndDate();
+                contentHashes[bucket] = source.getContentHash(first, last);
+
+                if (contentHashes[bucket] != TimeEntrySource.UNKNOWN_VERSION
+                        && read(file(period), employees, contentHashes[bucket], rosterHash, calendarFingerprint,
+                                monthlySummaries)) {
+                    diskHits.incrementAndGet();
+                    missing.add(null);
+                    continue;
+                }
+                misses.incrementAndGet();
+                missing.add(new HashMap<>());
+                if (readFrom == null) readFrom = first;
+                readTo = last;
+            }
+
+            if (readFrom != null) {
+                // One pass over the source into an index by employee, then employees aggregated in parallel
+                TimeEntryIndex index = TimeEntryIndex.load(source, readFrom, readTo);
+                int unknown = 0;
+                for (int employee = 0; employee < index.getEmployeeCount(); employee++) {
+                    String empId = index.getEmpId(employee);
+                    if (!employees.containsKey(empId)) unknown += index.size(empId);
+                }
+                stage.rows(index.size() - unknown).skipped(unknown);
+
+                Map<String, MonthlySummary> calculated = MonthlySummary.calculateWorkedHours(employees, index,
+                                                                                             startDate, endDate, frequency);
+                for (Map.Entry<String, MonthlySummary> entry : calculated.entrySet()) {
+                    int bucket = buckets.indexOf(entry.getValue().getPeriod().getStartDate().toEpochDay());
+                    if (missing.get(bucket) != null) missing.get(bucket).put(entry.getKey(), entry.getValue());
+                }
+
+                for (int bucket = 0; bucket < buckets.size(); bucket++) {
+                    Map<String, MonthlySummary> summaries = missing.get(bucket);
+                    if (summaries == null) continue;
+                    if (contentHashes[bucket] != TimeEntrySource.UNKNOWN_VERSION) {
+                        write(file(buckets.get(bucket)), summaries, contentHashes[bucket], rosterHash, calendarFingerprint);
+                    }
+                    monthlySummaries.putAll(summaries);
+                }
+            }
+            return monthlySummaries;
+        }
+    }
+
+    private Path file(PayrollPeriod period) {
+        if (directory == null) return null;
+        return directory.resolve(period.getKey() + "_" + period.getStartDate() + "_" + period.getEndDate() + ".sum");
+    }
+
+    /**
+     * Reads a period's summaries into the map if the file matches all three hashes.
+     *
+     * @return True if the summaries were restored
+     */
+    private boolean read(Path file, Map<String, EmployeeData> employees, long contentHash, long rosterHash,
+                         long calendarFingerprint, Map<String, MonthlySummary> summaries) {
+        if (file == null || !Files.exists(file)) return false;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return false;
+            if (in.readLong() != contentHash || in.readLong() != rosterHash || in.readLong() != calendarFingerprint) {
+                return false;
+            }
+            int count = in.readInt();
+            Map<String, MonthlySummary> restored = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                EmployeeData employee = employees.get(in.readUTF());
+                if (employee == null) return false;
+                restored.put(key, MonthlySummary.readFrom(in, employee));
+            }
+            summaries.putAll(restored);
+            return true;
+        } catch (IOException e) {
+            return false; // Unreadable entries are recomputed
+        }
+    }
+
+    private void write(Path file, Map<String, MonthlySummary> summaries, long contentHash, long rosterHash,
+                       long calendarFingerprint) {
+        if (file == null) return;
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "summary", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(contentHash);
+                out.writeLong(rosterHash);
+                out.writeLong(calendarFingerprint);
+                out.writeInt(summaries.size());
+                for (Map.Entry<String, MonthlySummary> entry : summaries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue().getEmployee().getEmpId());
+                    entry.getValue().writeTo(out);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error writing payroll cache entry " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hashes every employee's ID, rates and pay rules; independent of the map's iteration order.
+     */
+    private static long rosterHash(Map<String, EmployeeData> employees) {
+        long hash = employees.size();
+        for (Map.Entry<String, EmployeeData> entry : employees.entrySet()) {
+            long mixed = entry.getKey().hashCode() * 1_000_003L + rateHash(entry.getValue());
+            mixed = (mixed ^ (mixed >>> 33)) * 0xff51afd7ed558ccdL;
+            hash += mixed ^ (mixed >>> 33);
+        }
+        return hash;
+    }
+
+    private static long rateHash(EmployeeData employee) {
+        long hash = (employee.getHourlyRateCentavos() << 32) ^ employee.getBasicSalaryCentavos();
+        return hash * 31 + PayRuleBook.getDefault().rulesFor(employee).getFingerprint();
+    }
+
+    /**
+     * Gets the number of pay periods whose summaries were restored from disk instead of being recomputed.
+     *
+     * @return Disk cache hits
+     */
+    public long getDiskHits() { return diskHits.get(); }
+
+    /**
+     * Gets the number of pay periods whose summaries had to be aggregated from time entries.
+     *
+     * @return Cache misses
+     */
+    public long getMisses() { return misses.get(); }
+
+    /**
+     * A period query kept in memory with the versions it was computed from.
+     */
+    private static class CachedQuery {
+        final long version;
+        final long contentHash;
+        final Map<String, EmployeeData> employees;
+        final long calendarFingerprint;
+        final long rulesFingerprint;
+        final Map<String, MonthlySummary> summaries;
+        Map<String, DeMinimisBenefits> benefits;
+        SortedMap<String, PayrollResult> results;
+
+        CachedQuery(long version, long contentHash, Map<String, EmployeeData> employees, long calendarFingerprint,
+                    long rulesFingerprint, Map<String, MonthlySummary> summaries) {
+            this.version = version;
+            this.contentHash = contentHash;
+            this.employees = employees;
+            this.calendarFingerprint = calendarFingerprint;
+            this.rulesFingerprint = rulesFingerprint;
+            this.summaries = Collections.unmodifiableMap(summaries);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.payroll;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * PayrollExportReader - Reads the columnar files written by {@link PayrollExporter}.
+ *
+ * The footer is read on open; rows are then decoded one row group at a time, so a large
+ * export is read in bounded memory. Columns can also be read on their own, which only
+ * inflates the chunks of that column.
+ */
+public class PayrollExportReader implements Closeable {
+    private final RandomAccessFile file;
+    private final List<String> tableNames = new ArrayList<>();
+    private final List<String[]> columnNames = new ArrayList<>();
+    private final List<byte[]> columnTypes = new ArrayList<>();
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+
+    private static final class RowGroup {
+        int table;
+        int rows;
+        byte[] encodings;
+        long[] offsets;
+        int[] compressedLengths;
+        int[] rawLengths;
+    }
+
+    private PayrollExportReader(RandomAccessFile file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens an export and reads its schema and row group index.
+     *
+     * @throws IOException if the file cannot be read or is not a payroll export
+     */
+    public static PayrollExportReader open(String filename) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        PayrollExportReader reader = new PayrollExportReader(file);
+        try {
+            reader.readFooter(filename);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        return reader;
+    }
+
+    private void readFooter(String filename) throws IOException {
+        long length = file.length();
+        if (length < 16) throw new IOException(filename + " is not a payroll export");
+        file.seek(0);
+        if (file.readInt() != PayrollExporter.MAGIC || file.readInt() != PayrollExporter.VERSION) {
+            throw new IOException(filename + " is not a payroll export");
+        }
+        file.seek(length - 8);
+        int footerLength = file.readInt();
+        if (file.readInt() != PayrollExporter.MAGIC || footerLength <= 0 || footerLength > length - 16) {
+            throw new IOException(filename + " is incomplete (no footer)");
+        }
+
+        byte[] footer = new byte[footerLength];
+        file.seek(length - 8 - footerLength);
+        file.readFully(footer);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer));
+
+        int tables = in.readUnsignedByte();
+        for (int table = 0; table < tables; table++) {
+            tableNames.add(in.readUTF());
+            int columns = in.readUnsignedShort();
+            String[] names = new String[columns];
+            byte[] types = new byte[columns];
+            for (int column = 0; column < columns; column++) {
+                names[column] = in.readUTF();
+                types[column] = in.readByte();
+            }
+            columnNames.add(names);
+            columnTypes.add(types);
+        }
+
+        int groups = in.readInt();
+        for (int i = 0; i < groups; i++) {
+            RowGroup group = new RowGroup();
+            group.table = in.readUnsignedByte();
+            group.rows = in.readInt();
+            int columns = columnTypes.get(group.table).length;
+            group.encodings = new byte[columns];
+            group.offsets = new long[columns];
+            group.compressedLengths = new int[columns];
+            group.rawLengths = new int[columns];
+            for (int column = 0; column < columns; column++) {
+                group.encodings[column] = in.readByte();
+                group.offsets[column] = in.readLong();
+                group.compressedLengths[column] = in.readInt();
+                group.rawLengths[column] = in.readInt();
+            }
+            rowGroups.add(group);
+        }
+    }
+
+    /**
+     * Gets the table names (e.g., "payslips", "days").
+     */
+    public List<String> getTableNames() { return Collections.unmodifiableList(tableNames); }
+
+    /**
+     * Gets the column names of a table, in row order.
+     */
+    public List<String> getColumnNames(String table) {
+        return Arrays.asList(columnNames.get(tableIndex(table)).clone());
+    }
+
+    /**
+     * Gets the number of rows in a table.
+     */
+    public long getRowCount(String table) {
+        int index = tableIndex(table);
+        long rows = 0L;
+        for (RowGroup group : rowGroups) {
+            if (group.table == index) rows += group.rows;
+        }
+        return rows;
+    }
+
+    /**
+     * Passes every row of a table to the sink. Values are String, Integer, Long (minutes, or
+     * centavos for money columns) or LocalDate, in the order of {@link #getColumnNames(String)}; the array is
+     * reused between rows.
+     */
+    public void forEachRow(String table, Consumer<Object[]> sink) throws IOException {
+        int index = tableIndex(table);
+        byte[] types = columnTypes.get(index);
+        Object[] row = new Object[types.length];
+        Object[][] columns = new Object[types.length][];
+
+        for (RowGroup group : rowGroups) {
+            if (group.table != index) continue;
+            for (int column = 0; column < types.length; column++) {
+                columns[column] = decode(group, column, types[column]);
+            }
+            for (int r = 0; r < group.rows; r++) {
+                for (int column = 0; column < types.length; column++) row[column] = columns[column][r];
+                sink.accept(row);
+            }
+        }
+    }
+
+    /**
+     * Reads one numeric column of a table (e.g., "net_pay") across all row groups.
+     * Dates are returned as epoch days.
+     */
+    public long[] readLongColumn(String table, String column) throws IOException {
+        int index = tableIndex(table);
+        int columnIndex = Arrays.asList(columnNames.get(index)).indexOf(column);
+        if (columnIndex < 0 || columnTypes.get(index)[columnIndex] == PayrollExporter.STRING) {
+            throw new IllegalArgumentException("No numeric column " + column + " in " + table);
+        }
+
+        long[] values = new long[(int) getRowCount(table)];
+        int row = 0;
+        for (RowGroup group : rowGroups) {
+            if (group.table != index) continue;
+            Decoder decoder = new Decoder(inflate(group, columnIndex));
+            long previous = 0L;
+            for (int r = 0; r < group.rows; r++) {
+                long value = decoder.readZigzag();
+                if (group.encodings[columnIndex] == PayrollExporter.DELTA) value += previous;
+                values[row++] = previous = value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Writes a table as CSV with a header row; money columns are written in pesos.
+     */
+    public void writeCsv(String table, Writer out) throws IOException {
+        String[] names = columnNames.get(tableIndex(table));
+        byte[] types = columnTypes.get(tableIndex(table));
+        out.write(String.join(",", names));
+        out.write("\n");
+
+        StringBuilder line = new StringBuilder(256);
+        IOException[] failure = new IOException[1];
+        forEachRow(table, row -> {
+            if (failure[0] != null) return;
+            line.setLength(0);
+            for (int column = 0; column < row.length; column++) {
+                if (column > 0) line.append(',');
+                Object value = row[column];
+                if (types[column] == PayrollExporter.STRING) {
+                    appendQuoted(line, (String) value);
+                } else if (types[column] == PayrollExporter.MONEY) {
+                    line.append(BigDecimal.valueOf((Long) value, 2).toPlainString());
+                } else {
+                    line.append(value);
+                }
+            }
+            line.append('\n');
+            try {
+                out.write(line.toString());
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+        out.flush();
+    }
+
+    /**
+     * Appends a CSV field, quoting it if it holds a comma, quote or line break.
+     */
+    private static void appendQuoted(StringBuilder line, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private Object[] decode(RowGroup group, int column, byte type) throws IOException {
+        Decoder decoder = new Decoder(inflate(group, column));
+        Object[] values = new Object[group.rows];
+
+        if (group.encodings[column] == PayrollExporter.DICTIONARY) {
+            String[] dictionary = new String[(int) decoder.readVarLong()];
+            for (int i = 0; i < dictionary.length; i++) dictionary[i] = decoder.readString();
+            for (int r = 0; r < group.rows; r++) values[r] = dictionary[(int) decoder.readVarLong()];
+            return values;
+        }
+
+        long previous = 0L;
+        for (int r = 0; r < group.rows; r++) {
+            long value = decoder.readZigzag();
+            if (group.encodings[column] == PayrollExporter.DELTA) value += previous;
+            previous = value;
+            if (type == PayrollExporter.DATE) values[r] = LocalDate.ofEpochDay(value);
+            else if (type == PayrollExporter.INT) values[r] = (int) value;
+            else values[r] = value;
+        }
+        return values;
+    }
+
+    private byte[] inflate(RowGroup group, int column) throws IOException {
+        byte[] compressed = new byte[group.compressedLengths[column]];
+        file.seek(group.offsets[column]);
+        file.readFully(compressed);
+
+        byte[] raw = new byte[group.rawLengths[column]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int read = inflater.inflate(raw, length, raw.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += read;
+            }
+            if (length != raw.length) throw new IOException("Corrupt column chunk at offset " + group.offsets[column]);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column chunk at offset " + group.offsets[column], e);
+        } finally {
+            inflater.end();
+        }
+        return raw;
+    }
+
+    private int tableIndex(String table) {
+        int index = tableNames.indexOf(table);
+        if (index < 0) throw new IllegalArgumentException("No table " + table + " in export");
+        return index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * Reads varints and strings from an inflated column chunk.
+     */
+    private static final class Decoder {
+        private final byte[] bytes;
+        private int position = 0;
+
+        Decoder(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readVarLong() {
+            long value = 0L;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+
+        long readZigzag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
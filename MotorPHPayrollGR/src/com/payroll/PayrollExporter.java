@@ -0,0 +1,389 @@
+package com.payroll;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.Deflater;
+
+/**
+ * PayrollExporter - Writes payroll results to a columnar binary file for analytics.
+ *
+ * Two tables are written side by side: "payslips", one row per employee and pay period
+ * (the summary totals plus the computed gross, contributions, tax, de minimis and net pay),
+ * and "days", one row per daily breakdown entry. Rows are buffered column by column and
+ * written out in row groups of a fixed size, so memory use is bounded by one row group per
+ * table however many results are streamed through {@link #write(PayrollResult)}.
+ *
+ * File layout (all integers big-endian):
+ *
+ *  Header      - magic "MPCF", int version
+ *  Column chunk- one per column per row group; Deflate-compressed encoded values
+ *  Footer      - the schema (per table: name, columns with name and type) and the row
+ *                group index (table, row count, and per column: encoding, file offset,
+ *                compressed and raw length)
+ *  Trailer     - int footer length, magic "MPCF"
+ *
+ * Column encodings:
+ *
+ *  DICTIONARY  - strings: varint dictionary size, the distinct values (varint byte length,
+ *                UTF-8 bytes) in first-seen order, then one varint index per row
+ *  VARINT      - integers (INT, LONG, and MONEY in centavos): one zigzag varint per row
+ *  DELTA       - dates (DATE, as epoch days): zigzag varint of the difference from the
+ *                previous row
+ *
+ * Money columns are whole centavos and time columns whole minutes, so no value is rounded
+ * on export. Read the file back with {@link PayrollExportReader}.
+ */
+public class PayrollExporter implements Closeable {
+    static final int MAGIC = 0x4D504346; // "MPCF"
+    static final int VERSION = 1;
+    public static final int DEFAULT_ROW_GROUP_SIZE = 65_536;
+
+    // Column types
+    static final byte STRING = 0;
+    static final byte INT = 1;
+    static final byte LONG = 2;
+    static final byte DATE = 3;
+    static final byte MONEY = 4;
+
+    // Column encodings
+    static final byte DICTIONARY = 0;
+    static final byte VARINT = 1;
+    static final byte DELTA = 2;
+
+    static final String PAYSLIPS = "payslips";
+    static final String DAYS = "days";
+
+    private static final String[] PAYSLIP_COLUMNS = {
+        "emp_id", "employee_name", "position", "status", "frequency", "period_start", "period_end",
+        "total_work_minutes", "total_regular_minutes", "total_holiday_work_minutes", "total_overtime_minutes",
+        "total_late_minutes", "overtime_pay", "holiday_pay", "rest_day_ot_pay", "late_deductions",
+        "regular_pay", "gross_income", "basic_salary", "sss", "philhealth", "pagibig", "taxable_income",
+        "withholding_tax", "rice_subsidy", "phone_allowance", "clothing_allowance", "de_minimis", "net_pay"
+    };
+    private static final byte[] PAYSLIP_TYPES = {
+        STRING, STRING, STRING, STRING, STRING, DATE, DATE,
+        LONG, LONG, LONG, LONG,
+        LONG, MONEY, MONEY, MONEY, MONEY,
+        MONEY, MONEY, MONEY, MONEY, MONEY, MONEY, MONEY,
+        MONEY, MONEY, MONEY, MONEY, MONEY, MONEY
+    };
+    private static final String[] DAY_COLUMNS = {
+        "emp_id", "period_start", "work_date", "work_type", "work_minutes", "overtime_minutes", "late_minutes",
+        "overtime_pay", "late_deduction", "holiday_pay", "rest_day_ot_pay"
+    };
+    private static final byte[] DAY_TYPES = {
+        STRING, DATE, DATE, STRING, INT, INT, INT,
+        MONEY, MONEY, MONEY, MONEY
+    };
+
+    private final DataOutputStream out;
+    private final Table payslips;
+    private final Table days;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final ByteArrayOutputStream footer = new ByteArrayOutputStream();
+    private final DataOutputStream footerOut = new DataOutputStream(footer);
+    private final Chunk chunk = new Chunk();
+    private byte[] compressed = new byte[1 << 16];
+    private long position;
+    private int rowGroupCount = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates an exporter writing to a stream; the stream is closed with the exporter.
+     *
+     * @param out          Destination of the file
+     * @param rowGroupSize Rows buffered per table before a row group is written
+     */
+    public PayrollExporter(OutputStream out, int rowGroupSize) throws IOException {
+        if (rowGroupSize <= 0) throw new IllegalArgumentException("Row group size must be positive: " + rowGroupSize);
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.payslips = new Table(0, PAYSLIP_TYPES, rowGroupSize);
+        this.days = new Table(1, DAY_TYPES, rowGroupSize);
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+        this.position = 8;
+    }
+
+    /**
+     * Creates an exporter writing to a file with the default row group size.
+     */
+    public static PayrollExporter create(String filename) throws IOException {
+        return new PayrollExporter(new FileOutputStream(filename), DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    /**
+     * Computes and exports the payroll of every summary in payroll key order, one result at
+     * a time, so the results are never all held in memory.
+     *
+     * @param monthlySummaries Summaries keyed by employee-period (e.g., "10001-2024-06")
+     * @param benefits         De minimis benefits by employee ID
+     * @param filename         Path of the columnar file to write
+     * @return Number of payslip rows written
+     */
+    public static long export(Map<String, MonthlySummary> monthlySummaries, Map<String, DeMinimisBenefits> benefits,
+                              String filename) throws IOException {
+        List<String> keys = new ArrayList<>(monthlySummaries.keySet());
+        Collections.sort(keys);
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("exportPayroll")) {
+            long payslips;
+            try (PayrollExporter exporter = create(filename)) {
+                for (String key : keys) {
+                    exporter.write(PayrollResult.calculate(monthlySummaries.get(key), benefits));
+                }
+                payslips = exporter.getPayslipCount();
+                stage.rows(payslips + exporter.getDayCount());
+            }
+            stage.bytes(new File(filename).length());
+            return payslips;
+        }
+    }
+
+    /**
+     * Adds one payslip row and the daily breakdown rows of its summary.
+     */
+    public void write(PayrollResult result) throws IOException {
+        if (closed) throw new IOException("Exporter is closed");
+        MonthlySummary summary = result.getSummary();
+        EmployeeData employee = result.getEmployee();
+        PayrollPeriod period = result.getPeriod();
+        int periodStart = (int) period.getStartDate().toEpochDay();
+
+        Table t = payslips;
+        int c = 0;
+        t.string(c++, employee.getEmpId());
+        t.string(c++, employee.getName());
+        t.string(c++, employee.getPosition());
+        t.string(c++, employee.getStatus());
+        t.string(c++, period.getFrequency().name());
+        t.number(c++, periodStart);
+        t.number(c++, period.getEndDate().toEpochDay());
+        t.number(c++, summary.getTotalWorkMinutes());
+        t.number(c++, summary.getTotalRegularMinutes());
+        t.number(c++, summary.getTotalHolidayWorkMinutes());
+        t.number(c++, summary.getTotalOvertimeMinutes());
+        t.number(c++, summary.getTotalLateMinutes());
+        t.number(c++, summary.getTotalOvertimePayCentavos());
+        t.number(c++, summary.getTotalHolidayPayCentavos());
+        t.number(c++, summary.getTotalRestDayOTPayCentavos());
+        t.number(c++, summary.getTotalLateDeductionsCentavos());
+        t.number(c++, result.getRegularPayCentavos());
+        t.number(c++, result.getGrossIncomeCentavos());
+        t.number(c++, result.getBasicSalaryCentavos());
+        t.number(c++, result.getSssCentavos());
+        t.number(c++, result.getPhilHealthCentavos());
+        t.number(c++, result.getPagibigCentavos());
+        t.number(c++, result.getTaxableIncomeCentavos());
+        t.number(c++, result.getWithholdingTaxCentavos());
+        t.number(c++, result.getRiceSubsidyCentavos());
+        t.number(c++, result.getPhoneAllowanceCentavos());
+        t.number(c++, result.getClothingAllowanceCentavos());
+        t.number(c++, result.getTotalDeMinimisBenefitsCentavos());
+        t.number(c, result.getNetPayCentavos());
+        if (t.endRow()) flush(t);
+
+        for (int day = 0; day < summary.getDayCount(); day++) {
+            t = days;
+            c = 0;
+            t.string(c++, employee.getEmpId());
+            t.number(c++, periodStart);
+            t.number(c++, summary.getWorkDate(day).toEpochDay());
+            t.string(c++, MonthlySummary.getWorkTypeLabel(summary.getWorkType(day)));
+            t.number(c++, summary.getWorkMinutes(day));
+            t.number(c++, summary.getOvertimeMinutes(day));
+            t.number(c++, (long) summary.getLateMinutes(day));
+            t.number(c++, summary.getOvertimePayCentavos(day));
+            t.number(c++, summary.getLateDeductionCentavos(day));
+            t.number(c++, summary.getHolidayPayCentavos(day));
+            t.number(c, summary.getRestDayOTPayCentavos(day));
+            if (t.endRow()) flush(t);
+        }
+    }
+
+    public long getPayslipCount() { return payslips.totalRows; }
+    public long getDayCount() { return days.totalRows; }
+
+    /**
+     * Writes the buffered rows of a table as one row group: each column is encoded, compressed
+     * and appended, and its location is added to the footer index.
+     */
+    private void flush(Table table) throws IOException {
+        if (table.rows == 0) return;
+        footerOut.writeByte(table.id);
+        footerOut.writeInt(table.rows);
+        for (int column = 0; column < table.types.length; column++) {
+            chunk.reset();
+            byte encoding = table.encode(column, chunk);
+
+            deflater.reset();
+            deflater.setInput(chunk.bytes, 0, chunk.length);
+            deflater.finish();
+            int compressedLength = 0;
+            while (!deflater.finished()) {
+                if (compressedLength == compressed.length) compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+            }
+            out.write(compressed, 0, compressedLength);
+
+            footerOut.writeByte(encoding);
+            footerOut.writeLong(position);
+            footerOut.writeInt(compressedLength);
+            footerOut.writeInt(chunk.length);
+            position += compressedLength;
+        }
+        table.clear();
+        rowGroupCount++;
+    }
+
+    /**
+     * Writes the remaining rows and the footer, then closes the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            flush(payslips);
+            flush(days);
+
+            ByteArrayOutputStream schema = new ByteArrayOutputStream();
+            DataOutputStream schemaOut = new DataOutputStream(schema);
+            schemaOut.writeByte(2);
+            writeSchema(schemaOut, PAYSLIPS, PAYSLIP_COLUMNS, PAYSLIP_TYPES);
+            writeSchema(schemaOut, DAYS, DAY_COLUMNS, DAY_TYPES);
+            schemaOut.writeInt(rowGroupCount);
+
+            out.write(schema.toByteArray());
+            footer.writeTo(out);
+            out.writeInt(schema.size() + footer.size());
+            out.writeInt(MAGIC);
+            out.flush();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private static void writeSchema(DataOutputStream out, String name, String[] columns, byte[] types) throws IOException {
+        out.writeUTF(name);
+        out.writeShort(columns.length);
+        for (int column = 0; column < columns.length; column++) {
+            out.writeUTF(columns[column]);
+            out.writeByte(types[column]);
+        }
+    }
+
+    /**
+     * Buffered rows of one table, one primitive array per column.
+     */
+    private static final class Table {
+        private final int id;
+        private final byte[] types;
+        private final int capacity;
+        private final String[][] strings;
+        private final long[][] numbers;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private int rows = 0;
+        private long totalRows = 0L;
+
+        Table(int id, byte[] types, int capacity) {
+            this.id = id;
+            this.types = types;
+            this.capacity = capacity;
+            this.strings = new String[types.length][];
+            this.numbers = new long[types.length][];
+            for (int column = 0; column < types.length; column++) {
+                if (types[column] == STRING) strings[column] = new String[capacity];
+                else numbers[column] = new long[capacity];
+            }
+        }
+
+        void string(int column, String value) { strings[column][rows] = (value != null) ? value : ""; }
+
+        void number(int column, long value) { numbers[column][rows] = value; }
+
+        /**
+         * Completes the current row; returns true when the row group is full.
+         */
+        boolean endRow() {
+            rows++;
+            totalRows++;
+            return rows == capacity;
+        }
+
+        byte encode(int column, Chunk chunk) {
+            if (types[column] == STRING) {
+                String[] values = strings[column];
+                dictionary.clear();
+                List<String> distinct = new ArrayList<>();
+                int[] indices = new int[rows];
+                for (int row = 0; row < rows; row++) {
+                    Integer index = dictionary.get(values[row]);
+                    if (index == null) {
+                        index = distinct.size();
+                        dictionary.put(values[row], index);
+                        distinct.add(values[row]);
+                    }
+                    indices[row] = index;
+                }
+                chunk.writeVarLong(distinct.size());
+                for (String value : distinct) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    chunk.writeVarLong(bytes.length);
+                    chunk.write(bytes);
+                }
+                for (int row = 0; row < rows; row++) chunk.writeVarLong(indices[row]);
+                return DICTIONARY;
+            }
+
+            long[] values = numbers[column];
+            // Dates change little from row to row; store their differences
+            boolean delta = types[column] == DATE;
+            long previous = 0L;
+            for (int row = 0; row < rows; row++) {
+                long value = values[row];
+                chunk.writeVarLong(zigzag(delta ? value - previous : value));
+                previous = value;
+            }
+            return delta ? DELTA : VARINT;
+        }
+
+        void clear() {
+            for (String[] column : strings) {
+                if (column != null) Arrays.fill(column, 0, rows, null);
+            }
+            rows = 0;
+        }
+    }
+
+    private static long zigzag(long value) { return (value << 1) ^ (value >> 63); }
+
+    /**
+     * Growable byte buffer for encoding one column chunk.
+     */
+    private static final class Chunk {
+        private byte[] bytes = new byte[1 << 16];
+        private int length = 0;
+
+        void reset() { length = 0; }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void write(byte[] data) {
+            ensure(data.length);
+            System.arraycopy(data, 0, bytes, length, data.length);
+            length += data.length;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.payroll;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.*;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * PayrollMetrics - Timings and counters for each stage of the payroll pipeline.
+ *
+ * Loaders and calculations wrap their work in a {@link Stage}:
+ *
+ *  try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadEmployeeData")) {
+ *      ...
+ *      stage.rows(employees.size()).bytes(file.length()).skipped(incomplete);
+ *  }
+ *
+ * Each stage records its wall time, rows processed, bytes read, skipped (invalid or
+ * ignored) rows and the heap allocated while it ran. The totals per stage name are kept
+ * for the life of the process and written as a JSON run summary by {@link #writeJson}
+ * (--metrics FILE, or /metrics on the server). Every stage is also a JFR event
+ * (com.payroll.Stage), so a production run can be profiled with -XX:StartFlightRecording
+ * without attaching a profiler.
+ *
+ * Stages nest (e.g., reading time entries inside calculateWorkedHours), and their times
+ * are inclusive. Allocation is measured on the calling thread, which costs a few
+ * nanoseconds; stages that fan out to other threads are started with
+ * {@link #startParallel} and measure the whole process instead, which is slower (it walks
+ * every thread) and also counts anything else running at the same time.
+ */
+public final class PayrollMetrics {
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    private static final Map<String, Totals> TOTALS = new LinkedHashMap<>();
+    private static Instant started = Instant.now();
+    private static long startedNanos = System.nanoTime();
+
+    private PayrollMetrics() { }
+
+    /**
+     * The JFR event committed at the end of every stage.
+     */
+    @Name("com.payroll.Stage")
+    @Label("Payroll Stage")
+    @Category({"MotorPH", "Payroll"})
+    @Description("One stage of a payroll run, such as loading a file or calculating payslips")
+    @StackTrace(false)
+    static final class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Rows")
+        long rows;
+
+        @Label("Bytes Read")
+        @DataAmount
+        long bytes;
+
+        @Label("Skipped Rows")
+        long skipped;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+
+    /**
+     * A running stage. Counters may be set any time before it is closed.
+     */
+    public static final class Stage implements AutoCloseable {
+        private final String name;
+        private final boolean parallel;
+        private final long startNanos;
+        private final long startAllocated;
+        private final StageEvent event = new StageEvent();
+        private long rows, bytes, skipped;
+        private boolean closed;
+
+        private Stage(String name, boolean parallel) {
+            this.name = name;
+            this.parallel = parallel;
+            this.event.begin();
+            this.startAllocated = allocatedBytes(parallel);
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Adds rows processed (e.g., records parsed or payslips written).
+         */
+        public Stage rows(long count) {
+            rows += count;
+            return this;
+        }
+
+        /**
+         * Adds bytes read (or written, for report stages).
+         */
+        public Stage bytes(long count) {
+            bytes += count;
+            return this;
+        }
+
+        /**
+         * Adds rows that were skipped as invalid or out of scope.
+         */
+        public Stage skipped(long count) {
+            skipped += count;
+            return this;
+        }
+
+        /**
+         * Ends the stage and adds it to the run totals.
+         */
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            long nanos = System.nanoTime() - startNanos;
+            long allocated = (startAllocated < 0) ? -1L : Math.max(0L, allocatedBytes(parallel) - startAllocated);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = name;
+                event.rows = rows;
+                event.bytes = bytes;
+                event.skipped = skipped;
+                event.allocated = allocated;
+                event.commit();
+            }
+
+            Totals totals;
+            synchronized (TOTALS) {
+                totals = TOTALS.computeIfAbsent(name, Totals::new);
+            }
+            totals.add(nanos, rows, bytes, skipped, allocated);
+        }
+    }
+
+    /**
+     * Totals of one stage name over the run.
+     */
+    private static final class Totals {
+        final String name;
+        long calls, nanos, rows, bytes, skipped, allocated;
+
+        Totals(String name) {
+            this.name = name;
+        }
+
+        synchronized void add(long nanos, long rows, long bytes, long skipped, long allocated) {
+            this.calls++;
+            this.nanos += nanos;
+            this.rows += rows;
+            this.bytes += bytes;
+            this.skipped += skipped;
+            if (allocated < 0 || this.allocated < 0) this.allocated = -1L;
+            else this.allocated += allocated;
+        }
+    }
+
+    /**
+     * Starts timing a stage; close it (try-with-resources) when the stage is done.
+     *
+     * @param name Stage name, e.g. "loadTimeEntries"
+     * @return The running stage
+     */
+    public static Stage start(String name) {
+        return new Stage(name, false);
+    }
+
+    /**
+     * Starts timing a stage whose work runs on other threads (e.g., a parallel stream), so
+     * that their allocation is counted too.
+     */
+    public static Stage startParallel(String name) {
+        return new Stage(name, true);
+    }
+
+    /**
+     * Clears the totals and restarts the run clock (e.g., between benchmark iterations).
+     */
+    public static void reset() {
+        synchronized (TOTALS) {
+            TOTALS.clear();
+            started = Instant.now();
+            startedNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Writes the run summary: wall time since the run started, and per stage (in the order
+     * first started) the call count, wall time, rows, bytes and skipped rows with their
+     * rates, and the bytes allocated (-1 if the JVM cannot measure allocation).
+     */
+    public static void writeJson(Writer out) throws IOException {
+        List<Totals> stages;
+        Instant runStarted;
+        long runNanos;
+        synchronized (TOTALS) {
+            stages = new ArrayList<>(TOTALS.values());
+            runStarted = started;
+            runNanos = System.nanoTime() - startedNanos;
+        }
+
+        StringBuilder json = new StringBuilder(256 + stages.size() * 320);
+        json.append("{\n");
+        json.append("  \"started\": \"").append(runStarted).append("\",\n");
+        json.append("  \"wallMillis\": ").append(millis(runNanos)).append(",\n");
+        json.append("  \"stages\": [");
+        for (int i = 0; i < stages.size(); i++) {
+            Totals t = stages.get(i);
+            synchronized (t) {
+                double seconds = t.nanos / 1e9;
+                json.append((i == 0) ? "\n" : ",\n");
+                json.append("    {\"name\": \"").append(t.name).append('"');
+                json.append(", \"calls\": ").append(t.calls);
+                json.append(", \"wallMillis\": ").append(millis(t.nanos));
+                json.append(", \"rows\": ").append(t.rows);
+                json.append(", \"rowsPerSecond\": ").append(rate(t.rows, seconds));
+                json.append(", \"bytes\": ").append(t.bytes);
+                json.append(", \"bytesPerSecond\": ").append(rate(t.bytes, seconds));
+                json.append(", \"skippedRows\": ").append(t.skipped);
+                json.append(", \"allocatedBytes\": ").append(t.allocated);
+                json.append(", \"allocationBytesPerSecond\": ").append((t.allocated < 0) ? -1L : rate(t.allocated, seconds));
+                json.append('}');
+            }
+        }
+        json.append(stages.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+
+        out.write(json.toString());
+        out.flush();
+    }
+
+    /**
+     * Writes the run summary to a file, reporting (not throwing) a failure.
+     */
+    public static void writeJson(String filename) {
+        try (Writer out = new BufferedWriter(new FileWriter(filename))) {
+            writeJson(out);
+        } catch (IOException e) {
+            System.err.println("Error writing run metrics: " + e.getMessage());
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static long rate(long count, double seconds) {
+        return (seconds > 0) ? Math.round(count / seconds) : 0L;
+    }
+
+    /**
+     * Returns the heap allocated so far by the current thread, or by all threads, or -1 if
+     * it cannot be measured.
+     */
+    private static long allocatedBytes(boolean allThreads) {
+        if (THREADS == null) return -1L;
+        try {
+            return allThreads ? THREADS.getTotalThreadAllocatedBytes() : THREADS.getCurrentThreadAllocatedBytes();
+        } catch (UnsupportedOperationException e) {
+            return -1L;
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported()) {
+                    threads.setThreadAllocatedMemoryEnabled(true);
+                    return threads;
+                }
+            }
+        } catch (RuntimeException | LinkageError e) {
+            // Allocation is then reported as -1
+        }
+        return null;
+    }
+}
@@ -0,0 +1,237 @@
+package com.payroll;
+
+import java.math.RoundingMode;
+import java.time.*;
+import java.time.temporal.IsoFields;
+import java.util.*;
+
+/**
+ * PayrollPeriod - One pay period (cutoff) of a given frequency.
+ *
+ * Periods are monthly, semi-monthly (1st-15th and 16th-end of month), weekly (Monday to
+ * Sunday) or custom. A payroll run over a date range is split into the periods of its
+ * frequency, clipped to the range; custom runs are split at month ends only. Each period
+ * has a key (e.g., "2024-06", "2024-06A", "2024-W23") used in the employee summary keys,
+ * and a month share used to split monthly contributions and allowances between cutoffs.
+ */
+public class PayrollPeriod {
+
+    /**
+     * How often employees are paid.
+     */
+    public enum Frequency {
+        MONTHLY("MONTHLY", "Monthly"),
+        SEMI_MONTHLY("SEMI-MONTHLY", "Semi-monthly"),
+        WEEKLY("WEEKLY", "Weekly"),
+        CUSTOM("CUSTOM", "Period");
+
+        private final String label;
+        private final String incomeLabel;
+
+        Frequency(String label, String incomeLabel) {
+            this.label = label;
+            this.incomeLabel = incomeLabel;
+        }
+
+        /**
+         * Gets the report heading label (e.g., "SEMI-MONTHLY").
+         */
+        public String getLabel() { return label; }
+
+        /**
+         * Gets the word used in income lines (e.g., "Gross Semi-monthly Income").
+         */
+        public String getIncomeLabel() { return incomeLabel; }
+
+        /**
+         * Parses a frequency name such as "monthly", "semi-monthly" or "weekly".
+         *
+         * @throws IllegalArgumentException if the name is not a frequency
+         */
+        public static Frequency parse(String name) {
+            String normalized = name.trim().toUpperCase().replace('-', '_');
+            return Frequency.valueOf(normalized);
+        }
+    }
+
+    private final Frequency frequency;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+    /**
+     * Creates a pay period.
+     *
+     * @param frequency Pay frequency the period belongs to
+     * @param startDate First day of the period (inclusive)
+     * @param endDate   Last day of the period (inclusive)
+     */
+    public PayrollPeriod(Frequency frequency, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) throw new IllegalArgumentException("End date cannot be before start date");
+        this.frequency = frequency;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    /**
+     * Returns the monthly, semi-monthly or weekly period containing a date.
+     *
+     * @throws IllegalArgumentException for CUSTOM, which has no fixed periods
+     */
+    public static PayrollPeriod containing(Frequency frequency, LocalDate date) {
+        switch (frequency) {
+            case MONTHLY:
+                return new PayrollPeriod(frequency, date.withDayOfMonth(1), date.withDayOfMonth(date.lengthOfMonth()));
+            case SEMI_MONTHLY:
+                return (date.getDayOfMonth() <= 15)
+                    ? new PayrollPeriod(frequency, date.withDayOfMonth(1), date.withDayOfMonth(15))
+                    : new PayrollPeriod(frequency, date.withDayOfMonth(16), date.withDayOfMonth(date.lengthOfMonth()));
+            case WEEKLY:
+                LocalDate monday = date.minusDays(date.getDayOfWeek().getValue() - 1);
+                return new PayrollPeriod(frequency, monday, monday.plusDays(6));
+            default:
+                throw new IllegalArgumentException("Custom periods are defined by their date range");
+        }
+    }
+
+    /**
+     * Splits a date range into the periods of a frequency, clipped to the range.
+     *
+     * @param frequency Pay frequency; CUSTOM splits the range at month ends only
+     * @param startDate First day of the range (inclusive)
+     * @param endDate   Last day of the range (inclusive)
+     * @return The periods in date order
+     */
+    public static List<PayrollPeriod> split(Frequency frequency, LocalDate startDate, LocalDate endDate) {
+        List<PayrollPeriod> periods = new ArrayList<>();
+        LocalDate date = startDate;
+        while (!date.isAfter(endDate)) {
+            LocalDate periodEnd = (frequency == Frequency.CUSTOM)
+                ? date.withDayOfMonth(date.lengthOfMonth())
+                : containing(frequency, date).getEndDate();
+            if (periodEnd.isAfter(endDate)) periodEnd = endDate;
+
+            periods.add(new PayrollPeriod(frequency, date, periodEnd));
+            date = periodEnd.plusDays(1);
+        }
+        return periods;
+    }
+
+    /**
+     * Infers the pay frequency a date range was entered for: whole months are MONTHLY,
+     * 1st-15th / 16th-end of month cutoffs SEMI_MONTHLY, Monday-to-Sunday weeks WEEKLY,
+     * and anything else CUSTOM.
+     */
+    public static Frequency infer(LocalDate startDate, LocalDate endDate) {
+        boolean endsMonth = endDate.getDayOfMonth() == endDate.lengthOfMonth();
+        if (startDate.getDayOfMonth() == 1 && endsMonth) {
+            return Frequency.MONTHLY;
+        }
+        if ((startDate.getDayOfMonth() == 1 || startDate.getDayOfMonth() == 16)
+                && (endDate.getDayOfMonth() == 15 || endsMonth)) {
+            return Frequency.SEMI_MONTHLY;
+        }
+        if (startDate.getDayOfWeek() == DayOfWeek.MONDAY && endDate.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            return Frequency.WEEKLY;
+        }
+        return Frequency.CUSTOM;
+    }
+
+    public Frequency getFrequency() { return frequency; }
+    public LocalDate getStartDate() { return startDate; }
+    public LocalDate getEndDate() { return endDate; }
+
+    /**
+     * Gets the report heading label of the period's frequency (e.g., "MONTHLY").
+     */
+    public String getLabel() { return frequency.getLabel(); }
+
+    /**
+     * Returns the part of a month this period stands for: 1 for a whole month, 0.5 for a
+     * semi-monthly cutoff, otherwise its days over the days of the month it starts in.
+     * Monthly government contributions, tax brackets and allowances are scaled by it.
+     */
+    public float getMonthShare() {
+        return getShareNumerator() / (float) getShareDenominator();
+    }
+
+    /**
+     * Gets the numerator of the month share as a fraction (1 of 1, 1 of 2, or days of month days).
+     */
+    public int getShareNumerator() {
+        if (isWholeMonth()) return 1;
+        if (isSemiMonthlyCutoff()) return 1;
+        return (int) (endDate.toEpochDay() - startDate.toEpochDay() + 1);
+    }
+
+    /**
+     * Gets the denominator of the month share as a fraction.
+     */
+    public int getShareDenominator() {
+        if (isWholeMonth()) return 1;
+        if (isSemiMonthlyCutoff()) return 2;
+        return startDate.lengthOfMonth();
+    }
+
+    /**
+     * Scales a monthly amount in centavos to this period, rounding half up.
+     */
+    public long prorate(long monthlyCentavos) {
+        return Money.multiplyDivide(monthlyCentavos, getShareNumerator(), getShareDenominator(), RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Projects an amount earned in this period to a whole month, rounding half up.
+     */
+    public long toMonthly(long periodCentavos) {
+        return Money.multiplyDivide(periodCentavos, getShareDenominator(), getShareNumerator(), RoundingMode.HALF_UP);
+    }
+
+    private boolean isWholeMonth() {
+        return startDate.getDayOfMonth() == 1 && endDate.equals(startDate.withDayOfMonth(startDate.lengthOfMonth()));
+    }
+
+    private boolean isSemiMonthlyCutoff() {
+        int monthLength = startDate.lengthOfMonth();
+        return frequency == Frequency.SEMI_MONTHLY && YearMonth.from(startDate).equals(YearMonth.from(endDate))
+            && ((startDate.getDayOfMonth() == 1 && endDate.getDayOfMonth() == 15)
+                || (startDate.getDayOfMonth() == 16 && endDate.getDayOfMonth() == monthLength));
+    }
+
+    /**
+     * Gets the key identifying the period within a payroll run, e.g., "2024-06" (monthly or
+     * custom), "2024-06A" / "2024-06B" (semi-monthly halves) or "2024-W23" (ISO week).
+     */
+    public String getKey() {
+        YearMonth month = YearMonth.from(startDate);
+        switch (frequency) {
+            case SEMI_MONTHLY:
+                return month + ((startDate.getDayOfMonth() <= 15) ? "A" : "B");
+            case WEEKLY:
+                int week = startDate.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+                return startDate.get(IsoFields.WEEK_BASED_YEAR) + "-W" + ((week < 10) ? "0" : "") + week;
+            default:
+                return month.toString();
+        }
+    }
+
+    public boolean contains(LocalDate date) {
+        return !date.isBefore(startDate) && !date.isAfter(endDate);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PayrollPeriod)) return false;
+        PayrollPeriod period = (PayrollPeriod) other;
+        return frequency == period.frequency && startDate.equals(period.startDate) && endDate.equals(period.endDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(frequency, startDate, endDate);
+    }
+
+    @Override
+    public String toString() {
+        return frequency.getLabel() + " " + startDate + " to " + endDate;
+    }
+}
@@ -0,0 +1,104 @@
+package com.payroll;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * PayrollRepository - Where employees, holidays, time entries and payroll results are kept.
+ *
+ * Two implementations are provided: {@link CsvPayrollRepository}, the CSV files bundled with
+ * the application (the default), and {@link JdbcPayrollRepository}, an embedded database
+ * such as an H2 or SQLite file, in which time entries are indexed by employee and work date
+ * so that period queries are answered by the database instead of parsing the whole file.
+ */
+public interface PayrollRepository extends Closeable {
+
+    /**
+     * Loads every employee with their de minimis benefits.
+     *
+     * @return The roster; empty if nothing could be read
+     */
+    EmployeeRoster loadRoster();
+
+    /**
+     * Loads the holiday calendar.
+     *
+     * @param region Region whose local holidays are included, or null for national only
+     * @return The calendar (weekday-only classification if there are no holidays)
+     */
+    HolidayCalendar loadCalendar(String region);
+
+    /**
+     * Loads the effective-dated SSS, PhilHealth, Pag-IBIG and BIR tables (see
+     * {@link GovernmentDeductions#loadTablesFromCSV} for their format).
+     *
+     * @return The schedules sorted by effective date; empty if the repository holds none, in
+     *         which case the tables bundled with the classes apply
+     */
+    List<DeductionSchedule> loadDeductionSchedules();
+
+    /**
+     * Loads the pay rules of each employment status and position (see {@link PayRuleBook}).
+     *
+     * @return The rule book, or null if the repository holds none (everyone on the defaults)
+     */
+    PayRuleBook loadRuleBook();
+
+    /**
+     * Gets the directory where summaries derived from this repository's data are cached
+     * (see {@link PayrollCache}).
+     *
+     * @return The directory, or null to keep derived summaries in memory only
+     */
+    String getCacheDirectory();
+
+    /**
+     * Returns the time entries, with work dates classified by the given calendar.
+     *
+     * @param calendar Holiday calendar used to classify each work date
+     * @return A source answering date-range and per-employee queries
+     */
+    TimeEntrySource getTimeEntries(HolidayCalendar calendar);
+
+    /**
+     * Adds the rows of a time entries CSV file (e.g., a new DTR export) to the repository.
+     *
+     * @param csvFile  Path to the time entries CSV file
+     * @param calendar Holiday calendar used to classify each work date
+     * @return Number of time entries added
+     * @throws IOException if the file cannot be read or the entries cannot be stored
+     */
+    long importTimeEntries(String csvFile, HolidayCalendar calendar) throws IOException;
+
+    /**
+     * Records the payroll results of a finalized period, replacing any recorded before for the
+     * same employee and pay period.
+     *
+     * @param results   Results to record
+     * @param startDate First work date of the payroll run
+     * @param endDate   Last work date of the payroll run
+     * @throws IOException if the results cannot be stored
+     */
+    void saveResults(Collection<PayrollResult> results, LocalDate startDate, LocalDate endDate) throws IOException;
+
+    /**
+     * Opens a repository: a JDBC URL (e.g., "jdbc:h2:./data/payroll") opens a database, and
+     * anything else is taken as the directory holding the CSV files.
+     *
+     * @param location JDBC URL or CSV directory
+     * @return The repository, or null if the database cannot be opened
+     */
+    static PayrollRepository open(String location) {
+        if (location.startsWith("jdbc:")) {
+            try {
+                return JdbcPayrollRepository.open(location);
+            } catch (IOException e) {
+                System.err.println("Error opening payroll database (is its JDBC driver on the classpath?): " + e.getMessage());
+                return null;
+            }
+        }
+        return new CsvPayrollRepository(location);
+    }
+}
@@ -0,0 +1,219 @@
+package com.payroll;
+
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * PayrollResult - The computed pay of one employee for one monthly summary.
+ *
+ * Holds gross income, government deductions, de minimis benefits and net pay so the
+ * same figures can be printed on a payslip, listed in a payroll register or exported.
+ *
+ * Summaries shorter than a month (e.g., semi-monthly cutoffs) are paid their share of the
+ * monthly amounts: the SSS contribution and de minimis benefits are scaled by the period's
+ * month share, and PhilHealth, Pag-IBIG and withholding tax are looked up on the period's
+ * income projected to a month and then scaled back, so two cutoffs add up to the month.
+ *
+ * All figures are computed in centavos (see {@link Money}); every multiplication by a rate
+ * or share is rounded half up to the centavo, and sums are exact.
+ *
+ * A result can also be simulated under other {@link PayRules} (a raise, other premiums or
+ * deduction tables); the days of the summary are then re-priced from its recorded minutes.
+ */
+public class PayrollResult {
+    private final MonthlySummary summary;
+    private final EmployeeData employee;
+    private final PayrollPeriod period;
+
+    // Amounts in centavos
+    private final long regularPay;
+    private final long grossIncome;
+    private final long basicSalary;
+    private final boolean fallbackBasicSalary;
+
+    private final long sss;
+    private final long philHealth;
+    private final long pagibig;
+    private final long taxableIncome;
+    private final long withholdingTax;
+    private final long lateDeductions;
+
+    private final long riceSubsidy;
+    private final long phoneAllowance;
+    private final long clothingAllowance;
+
+    private PayrollResult(MonthlySummary summary, DeMinimisBenefits benefits, PayRules rules) {
+        this.summary = summary;
+        this.employee = summary.getEmployee();
+        this.period = summary.getPeriod();
+
+        // Compute De Minimis Benefits (Monthly amounts, prorated to the period)
+        this.riceSubsidy = period.prorate(benefits.getRiceSubsidyCentavos());
+        this.phoneAllowance = period.prorate(benefits.getPhoneAllowanceCentavos());
+        this.clothingAllowance = period.prorate(benefits.getClothingAllowanceCentavos());
+
+        // Compute Monthly Salary (Before Deductions): worked minutes at the hourly rate
+        long hourlyRate = rules.raise(employee.getHourlyRateCentavos());
+        this.regularPay = Money.multiplyDivide(summary.getTotalWorkMinutes(), hourlyRate, 60, RoundingMode.HALF_UP);
+
+        long premiums, late;
+        if (rules.hasSamePay(summary.getRules())) {
+            premiums = summary.getTotalOvertimePayCentavos() + summary.getTotalHolidayPayCentavos()
+                       + summary.getTotalRestDayOTPayCentavos();
+            late = summary.getTotalLateDeductionsCentavos();
+        } else {
+            // Re-price every day as MonthlySummary does, with the given premiums and rate
+            premiums = 0L;
+            late = 0L;
+            for (int day = 0; day < summary.getDayCount(); day++) {
+                byte dayType = summary.getDayType(day);
+                int minutes = summary.getWorkMinutes(day);
+                premiums += rules.overtimePay(summary.getOvertimeMinutes(day), hourlyRate);
+                if ((dayType & (HolidayCalendar.REGULAR_HOLIDAY | HolidayCalendar.SPECIAL_NON_WORKING)) != 0) {
+                    premiums += rules.holidayPay(minutes, hourlyRate, rules.getHolidayPercent(dayType));
+                }
+                if ((dayType & HolidayCalendar.REST_DAY) != 0) {
+                    premiums += rules.restDayPay(minutes, hourlyRate);
+                }
+                late += rules.lateDeduction((int) summary.getLateMinutes(day), hourlyRate);
+            }
+        }
+        this.grossIncome = regularPay + premiums;
+        this.lateDeductions = late;
+
+        // Compute Government Deductions
+        long salary = rules.raise(employee.getBasicSalaryCentavos());
+        if (salary <= 0L) salary = rules.raise(employee.getSemiMonthlyRateCentavos()) * 2;
+        this.fallbackBasicSalary = salary <= 0L;
+        this.basicSalary = fallbackBasicSalary ? hourlyRate * 8 * 22 : salary;
+
+        // Use the contribution and tax tables in effect for the period worked
+        DeductionSchedule schedule = rules.getSchedule(period.getStartDate());
+
+        long monthlyGross = period.toMonthly(grossIncome);
+        this.sss = period.prorate(schedule.calculateSSSCentavos(basicSalary));
+        this.philHealth = period.prorate(schedule.calculatePhilHealthCentavos(monthlyGross));
+        this.pagibig = period.prorate(schedule.calculatePagibigCentavos(monthlyGross));
+
+        // Compute Taxable Income and BIR Tax (monthly brackets applied to the projected month)
+        this.taxableIncome = grossIncome - (sss + philHealth + pagibig);
+        this.withholdingTax = period.prorate(schedule.calculateBIRCentavos(period.toMonthly(taxableIncome)));
+    }
+
+    /**
+     * Computes the payroll figures for a monthly summary.
+     *
+     * @param summary  The employee's aggregated work hours and pay for the month
+     * @param benefits De minimis benefits by employee ID; missing employees receive none
+     * @return The computed payroll result
+     */
+    public static PayrollResult calculate(MonthlySummary summary, Map<String, DeMinimisBenefits> benefits) {
+        String empId = summary.getEmployee().getEmpId();
+        DeMinimisBenefits employeeBenefits = benefits.get(empId);
+        if (employeeBenefits == null) {
+            employeeBenefits = new DeMinimisBenefits(empId, 0L, 0L, 0L);
+        }
+        return new PayrollResult(summary, employeeBenefits, summary.getRules());
+    }
+
+    /**
+     * Computes the payroll figures a monthly summary would have under other pay rules,
+     * without re-reading its time entries.
+     *
+     * @param summary  The employee's aggregated work hours and pay for the month
+     * @param benefits De minimis benefits by employee ID; missing employees receive none
+     * @param rules    Scenario whose raise, premiums and deduction tables are laid over the
+     *                 summary's own rules (see {@link PayRules#appliedTo})
+     * @return The simulated payroll result
+     */
+    public static PayrollResult simulate(MonthlySummary summary, Map<String, DeMinimisBenefits> benefits,
+                                         PayRules rules) {
+        String empId = summary.getEmployee().getEmpId();
+        DeMinimisBenefits employeeBenefits = benefits.get(empId);
+        if (employeeBenefits == null) {
+            employeeBenefits = new DeMinimisBenefits(empId, 0L, 0L, 0L);
+        }
+        return new PayrollResult(summary, employeeBenefits, rules.appliedTo(summary.getRules()));
+    }
+
+    public MonthlySummary getSummary() { return summary; }
+    public EmployeeData getEmployee() { return employee; }
+    public PayrollPeriod getPeriod() { return period; }
+
+    /**
+     * Returns pay for all worked hours at the employee's hourly rate.
+     * @return Regular pay in PHP.
+     */
+    public double getRegularPay() { return Money.toPesos(regularPay); }
+
+    /**
+     * Returns regular pay plus overtime, holiday and rest day OT pay.
+     * @return Gross income in PHP.
+     */
+    public double getGrossIncome() { return Money.toPesos(grossIncome); }
+
+    /**
+     * Returns the basic salary used for the SSS bracket.
+     * @return Basic salary in PHP.
+     */
+    public double getBasicSalary() { return Money.toPesos(basicSalary); }
+
+    /**
+     * Returns whether the basic salary was missing and estimated from the hourly rate.
+     * A missing basic salary is first taken as twice the semi-monthly rate.
+     * @return true if the fallback estimate was used.
+     */
+    public boolean isFallbackBasicSalary() { return fallbackBasicSalary; }
+
+    public double getSss() { return Money.toPesos(sss); }
+    public double getPhilHealth() { return Money.toPesos(philHealth); }
+    public double getPagibig() { return Money.toPesos(pagibig); }
+    public double getTaxableIncome() { return Money.toPesos(taxableIncome); }
+    public double getWithholdingTax() { return Money.toPesos(withholdingTax); }
+
+    /**
+     * Returns the sum of SSS, PhilHealth, Pag-IBIG and BIR withholding tax.
+     * @return Total government deductions in PHP.
+     */
+    public double getTotalGovtDeductions() { return Money.toPesos(getTotalGovtDeductionsCentavos()); }
+
+    /**
+     * Returns government deductions plus late deductions.
+     * @return Total deductions in PHP.
+     */
+    public double getTotalDeductions() { return Money.toPesos(getTotalDeductionsCentavos()); }
+
+    public double getRiceSubsidy() { return Money.toPesos(riceSubsidy); }
+    public double getPhoneAllowance() { return Money.toPesos(phoneAllowance); }
+    public double getClothingAllowance() { return Money.toPesos(clothingAllowance); }
+
+    /**
+     * Returns the sum of rice subsidy, phone and clothing allowances.
+     * @return Total de minimis benefits in PHP.
+     */
+    public double getTotalDeMinimisBenefits() { return Money.toPesos(getTotalDeMinimisBenefitsCentavos()); }
+
+    /**
+     * Returns gross income less all deductions, plus de minimis benefits.
+     * @return Net pay in PHP.
+     */
+    public double getNetPay() { return Money.toPesos(getNetPayCentavos()); }
+
+    // The same figures in centavos, for totals that must add up exactly
+    public long getRegularPayCentavos() { return regularPay; }
+    public long getGrossIncomeCentavos() { return grossIncome; }
+    public long getBasicSalaryCentavos() { return basicSalary; }
+    public long getSssCentavos() { return sss; }
+    public long getPhilHealthCentavos() { return philHealth; }
+    public long getPagibigCentavos() { return pagibig; }
+    public long getTaxableIncomeCentavos() { return taxableIncome; }
+    public long getWithholdingTaxCentavos() { return withholdingTax; }
+    public long getTotalGovtDeductionsCentavos() { return sss + pagibig + philHealth + withholdingTax; }
+    public long getLateDeductionsCentavos() { return lateDeductions; }
+    public long getTotalDeductionsCentavos() { return getTotalGovtDeductionsCentavos() + lateDeductions; }
+    public long getRiceSubsidyCentavos() { return riceSubsidy; }
+    public long getPhoneAllowanceCentavos() { return phoneAllowance; }
+    public long getClothingAllowanceCentavos() { return clothingAllowance; }
+    public long getTotalDeMinimisBenefitsCentavos() { return riceSubsidy + phoneAllowance + clothingAllowance; }
+    public long getNetPayCentavos() { return (grossIncome - getTotalDeductionsCentavos()) + getTotalDeMinimisBenefitsCentavos(); }
+}
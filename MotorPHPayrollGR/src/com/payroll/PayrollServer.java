@@ -0,0 +1,252 @@
+package com.payroll;
+
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * PayrollServer - Answers payslip and summary queries over a local HTTP API.
+ *
+ * Employee data, holidays, benefits and time entries are loaded once by the caller and
+ * shared by every request; each request runs on its own virtual thread. Payslip and summary
+ * queries for one employee are answered from a {@link TimeEntryIndex} of the time entries,
+ * built once per source version, so they read only that employee's rows; register queries
+ * are served from the {@link PayrollCache}. The server only listens on the loopback interface.
+ *
+ * Endpoints (GET, plain text responses):
+ *  /payslip?empId=10001&start=2024-06-01&end=2024-06-30 - payroll report, one per pay period in the range
+ *  /summary?empId=10001&start=2024-06-01&end=2024-06-30 - work hours and deductions summary
+ *  /register?start=2024-06-01&end=2024-06-30             - payroll register of all employees
+ *  /metrics                                               - JSON timings of each pipeline stage so far
+ *  /health                                                - "OK" once the server is up
+ *
+ * The payslip, summary and register endpoints take an optional frequency parameter
+ * (monthly, semi-monthly, weekly or custom); by default it is inferred from the dates.
+ */
+public class PayrollServer {
+    private final Map<String, EmployeeData> employees;
+    private final Map<String, DeMinimisBenefits> benefits;
+    private final TimeEntrySource timeEntries;
+    private final PayrollCache cache;
+
+    private volatile IndexedEntries indexed; // Rebuilt when the source version changes
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Creates a server over already loaded payroll data.
+     *
+     * @param employees   A map of employee ID to EmployeeData
+     * @param benefits    De minimis benefits by employee ID
+     * @param timeEntries Where the time entries are read from
+     * @param cache       Cache of monthly summaries shared by all requests
+     */
+    public PayrollServer(Map<String, EmployeeData> employees, Map<String, DeMinimisBenefits> benefits,
+                         TimeEntrySource timeEntries, PayrollCache cache) {
+        this.employees = employees;
+        this.benefits = benefits;
+        this.timeEntries = timeEntries;
+        this.cache = cache;
+    }
+
+    /**
+     * Starts listening on the loopback interface.
+     *
+     * @param port Port to listen on, or 0 for any free port
+     * @return The address the server is bound to
+     */
+    public InetSocketAddress start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+
+        server.createContext("/payslip", exchange -> handle(exchange, this::payslip));
+        server.createContext("/summary", exchange -> handle(exchange, this::summary));
+        server.createContext("/register", exchange -> handle(exchange, this::register));
+        server.createContext("/metrics", exchange -> handle(exchange,
+                (query, out) -> PayrollMetrics.writeJson(new OutputStreamWriter(out, StandardCharsets.UTF_8))));
+        server.createContext("/health", exchange -> handle(exchange, (query, out) -> out.println("OK")));
+        server.start();
+        return server.getAddress();
+    }
+
+    /**
+     * Stops the server, waiting up to a second for requests in progress.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+        }
+    }
+
+    private void payslip(Map<String, String> query, PrintStream out) {
+        LocalDate startDate = parseDate(query, "start");
+        LocalDate endDate = parseDate(query, "end");
+        if (endDate.isBefore(startDate)) throw new IllegalArgumentException("End date cannot be before start date");
+        for (MonthlySummary summary : findSummaries(query, startDate, endDate, frequency(query, startDate, endDate))) {
+            MotorPHPayrollG3.printPayrollReport(summary, summary.getEmployee(), benefits, startDate, endDate, out);
+        }
+    }
+
+    private void summary(Map<String, String> query, PrintStream out) {
+        LocalDate startDate = parseDate(query, "start");
+        LocalDate endDate = parseDate(query, "end");
+        if (endDate.isBefore(startDate)) throw new IllegalArgumentException("End date cannot be before start date");
+        for (MonthlySummary summary : findSummaries(query, startDate, endDate, frequency(query, startDate, endDate))) {
+            MotorPHPayrollG3.printSummaryReport(summary, out);
+        }
+    }
+
+    private void register(Map<String, String> query, PrintStream out) throws IOException {
+        LocalDate startDate = parseDate(query, "start");
+        LocalDate endDate = parseDate(query, "end");
+        if (endDate.isBefore(startDate)) throw new IllegalArgumentException("End date cannot be before start date");
+        SortedMap<String, PayrollResult> register = cache.calculatePayroll(employees, benefits, timeEntries, startDate, endDate,
+                                                                           frequency(query, startDate, endDate));
+
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        PayrollBatch.writeRegister(register, startDate, endDate, writer);
+    }
+
+    /**
+     * Looks up the summaries of the requested employee, in pay period order.
+     */
+    private List<MonthlySummary> findSummaries(Map<String, String> query, LocalDate startDate, LocalDate endDate,
+                                               PayrollPeriod.Frequency frequency) {
+        String empId = query.get("empId");
+        if (empId == null || empId.isEmpty()) throw new IllegalArgumentException("Missing parameter empId");
+        if (!employees.containsKey(empId)) throw new NoSuchElementException("Unknown Employee ID: " + empId);
+
+        TimeEntryIndex index = index();
+        Map<String, MonthlySummary> summaries = (index != null)
+                ? MonthlySummary.calculateWorkedHours(employees, index, empId, startDate, endDate, frequency)
+                : cache.calculateWorkedHours(employees, timeEntries, startDate, endDate, frequency);
+        List<MonthlySummary> found = new ArrayList<>();
+        for (PayrollPeriod period : PayrollPeriod.split(frequency, startDate, endDate)) {
+            MonthlySummary summary = summaries.get(empId + "-" + period.getKey());
+            if (summary != null) found.add(summary);
+        }
+        if (found.isEmpty()) throw new NoSuchElementException("No payroll data found for Employee ID: " + empId);
+        return found;
+    }
+
+    /**
+     * Returns the index of the current time entries, building it if the source changed since
+     * the last one; null if the source has no version to tell whether an index is current.
+     */
+    private TimeEntryIndex index() {
+        long version = timeEntries.getVersion();
+        if (version == TimeEntrySource.UNKNOWN_VERSION) return null;
+
+        IndexedEntries current = indexed;
+        if (current != null && current.version == version) return current.index;
+        synchronized (this) {
+            current = indexed;
+            if (current == null || current.version != version) {
+                current = new IndexedEntries(version, TimeEntryIndex.load(timeEntries, null, null));
+                indexed = current;
+            }
+            return current.index;
+        }
+    }
+
+    /**
+     * An index together with the source version it was built from.
+     */
+    private static final class IndexedEntries {
+        final long version;
+        final TimeEntryIndex index;
+
+        IndexedEntries(long version, TimeEntryIndex index) {
+            this.version = version;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Reads the optional frequency parameter, defaulting to the one the dates suggest.
+     */
+    private static PayrollPeriod.Frequency frequency(Map<String, String> query, LocalDate startDate, LocalDate endDate) {
+        String value = query.get("frequency");
+        if (value == null || value.isEmpty()) return PayrollPeriod.infer(startDate, endDate);
+        try {
+            return PayrollPeriod.Frequency.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid frequency (expected monthly, semi-monthly, weekly or custom): " + value);
+        }
+    }
+
+    private static LocalDate parseDate(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) throw new IllegalArgumentException("Missing parameter " + name);
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid " + name + " date (expected YYYY-MM-DD): " + value);
+        }
+    }
+
+    /**
+     * Runs an endpoint and sends its output, mapping bad parameters to 400 and missing data to 404.
+     */
+    private static void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        int status = 200;
+        ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                status = 405;
+                body.write("Only GET is supported\n".getBytes(StandardCharsets.UTF_8));
+            } else {
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                PrintStream out = new PrintStream(body, false, StandardCharsets.UTF_8);
+                endpoint.handle(query, out);
+                out.flush();
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            status = 400;
+            body.reset();
+            body.write((e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchElementException e) {
+            status = 404;
+            body.reset();
+            body.write((e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            status = 500;
+            body.reset();
+            body.write(("Internal error: " + e + "\n").getBytes(StandardCharsets.UTF_8));
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+        } finally {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+            exchange.sendResponseHeaders(status, body.size());
+            try (OutputStream response = exchange.getResponseBody()) {
+                body.writeTo(response);
+            }
+            exchange.close();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) return query;
+
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals <= 0) continue;
+            query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                      URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8).trim());
+        }
+        return query;
+    }
+
+    /**
+     * Writes the response body of one endpoint.
+     */
+    private interface Endpoint {
+        void handle(Map<String, String> query, PrintStream out) throws IOException;
+    }
+}
@@ -0,0 +1,214 @@
+package com.payroll;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * PayrollSimulator - Evaluates what-if pay rules against an already aggregated payroll.
+ *
+ * The monthly summaries of a period are aggregated once (see {@link MonthlySummary}) and kept;
+ * each scenario ({@link PayRules}) is then priced from their recorded minutes and day types
+ * by {@link PayrollResult#simulate}, so no time entry is read again whatever the number of
+ * scenarios. Scenarios are evaluated in parallel on the common fork-join pool, and only the
+ * per-employee gross and net pay and the scenario totals are kept, so memory grows with
+ * employees x scenarios rather than with the payroll results.
+ *
+ * The baseline is the payroll under {@link PayRules#DEFAULT}, which sets nothing and so
+ * leaves every employee on their own rule book rules, identical to the payroll register;
+ * every scenario is reported as a change from it.
+ */
+public final class PayrollSimulator {
+    private static final String REPORT_LINE = "-".repeat(134);
+
+    private final List<MonthlySummary> summaries;
+    private final Map<String, DeMinimisBenefits> benefits;
+    private final List<EmployeeData> employees; // Sorted by employee ID
+    private final int[] employeeOfSummary;
+    private final Outcome baseline;
+
+    /**
+     * The totals of one scenario, overall and by employee (over all of their pay periods).
+     */
+    public static final class Outcome {
+        private final PayRules rules;
+        private final long[] grossByEmployee;
+        private final long[] netByEmployee;
+        private long gross, govtDeductions, lateDeductions, net;
+
+        private Outcome(PayRules rules, int employees) {
+            this.rules = rules;
+            this.grossByEmployee = new long[employees];
+            this.netByEmployee = new long[employees];
+        }
+
+        private void add(int employee, PayrollResult result) {
+            grossByEmployee[employee] += result.getGrossIncomeCentavos();
+            netByEmployee[employee] += result.getNetPayCentavos();
+            gross += result.getGrossIncomeCentavos();
+            govtDeductions += result.getTotalGovtDeductionsCentavos();
+            lateDeductions += result.getLateDeductionsCentavos();
+            net += result.getNetPayCentavos();
+        }
+
+        public PayRules getRules() { return rules; }
+
+        // Amounts in centavos
+        public long getGrossCentavos() { return gross; }
+        public long getGovtDeductionsCentavos() { return govtDeductions; }
+        public long getLateDeductionsCentavos() { return lateDeductions; }
+        public long getNetCentavos() { return net; }
+        public long getGrossCentavos(int employee) { return grossByEmployee[employee]; }
+        public long getNetCentavos(int employee) { return netByEmployee[employee]; }
+    }
+
+    /**
+     * Prepares a simulation over the summaries of a payroll run and computes its baseline.
+     *
+     * @param monthlySummaries Summaries keyed by employee-month (e.g., "10001-2024-06")
+     * @param benefits         De minimis benefits by employee ID
+     */
+    public PayrollSimulator(Map<String, MonthlySummary> monthlySummaries, Map<String, DeMinimisBenefits> benefits) {
+        this.benefits = benefits;
+        List<String> keys = new ArrayList<>(monthlySummaries.keySet());
+        Collections.sort(keys);
+
+        this.summaries = new ArrayList<>(keys.size());
+        for (String key : keys) summaries.add(monthlySummaries.get(key));
+
+        Map<String, EmployeeData> byId = new TreeMap<>();
+        for (MonthlySummary summary : summaries) byId.put(summary.getEmployee().getEmpId(), summary.getEmployee());
+        this.employees = new ArrayList<>(byId.values());
+
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < employees.size(); i++) index.put(employees.get(i).getEmpId(), i);
+        this.employeeOfSummary = new int[summaries.size()];
+        for (int i = 0; i < summaries.size(); i++) {
+            employeeOfSummary[i] = index.get(summaries.get(i).getEmployee().getEmpId());
+        }
+
+        this.baseline = evaluate(PayRules.DEFAULT);
+    }
+
+    /**
+     * Evaluates one scenario over every summary.
+     */
+    public Outcome evaluate(PayRules rules) {
+        Outcome outcome = new Outcome(rules, employees.size());
+        for (int i = 0; i < summaries.size(); i++) {
+            outcome.add(employeeOfSummary[i], PayrollResult.simulate(summaries.get(i), benefits, rules));
+        }
+        return outcome;
+    }
+
+    /**
+     * Evaluates scenarios in parallel.
+     *
+     * @param scenarios Pay rules to evaluate
+     * @return The outcomes, in scenario order
+     */
+    public List<Outcome> run(List<PayRules> scenarios) {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.startParallel("simulatePayroll")) {
+            List<Outcome> outcomes = scenarios.parallelStream()
+                .map(this::evaluate)
+                .collect(Collectors.toList());
+            stage.rows((long) scenarios.size() * summaries.size());
+            return outcomes;
+        }
+    }
+
+    public Outcome getBaseline() { return baseline; }
+
+    /**
+     * Gets the employees simulated, in the order of the per-employee totals of an outcome.
+     */
+    public List<EmployeeData> getEmployees() { return Collections.unmodifiableList(employees); }
+
+    /**
+     * Writes one line per scenario with its totals and the change in net pay from the baseline.
+     *
+     * @param outcomes  Outcomes of {@link #run(List)}
+     * @param startDate First day of the payroll period
+     * @param endDate   Last day of the payroll period
+     * @param out       Destination of the report
+     */
+    public void writeReport(List<Outcome> outcomes, LocalDate startDate, LocalDate endDate, Writer out) throws IOException {
+        out.write(REPORT_LINE + "\n");
+        out.write(String.format(" WHAT-IF PAYROLL SIMULATION | Payroll Period: %s to %s | Employees: %d | Scenarios: %d%n",
+                startDate, endDate, employees.size(), outcomes.size()));
+        out.write(REPORT_LINE + "\n");
+        out.write(String.format(" %-28s | %15s | %13s | %13s | %15s | %14s | %7s | %6s | %6s%n",
+                "Scenario", "Gross", "Govt Ded.", "Late Ded.", "Net Pay", "Net Change", "Change", "More", "Less"));
+        out.write(REPORT_LINE + "\n");
+        out.write(formatTotals(baseline));
+        for (Outcome outcome : outcomes) {
+            out.write(formatTotals(outcome));
+        }
+        out.write(REPORT_LINE + "\n");
+        out.flush();
+    }
+
+    private String formatTotals(Outcome outcome) {
+        String name = outcome.rules.getName();
+        if (name.length() > 28) name = name.substring(0, 28);
+
+        int more = 0, less = 0;
+        for (int e = 0; e < employees.size(); e++) {
+            long change = outcome.netByEmployee[e] - baseline.netByEmployee[e];
+            if (change > 0) more++;
+            else if (change < 0) less++;
+        }
+        long change = outcome.net - baseline.net;
+        double percent = (baseline.net != 0L) ? change * 100.0 / baseline.net : 0.0;
+        return String.format(" %-28s | %,15.2f | %,13.2f | %,13.2f | %,15.2f | %+,14.2f | %+6.2f%% | %6d | %6d%n",
+                name, Money.toPesos(outcome.gross), Money.toPesos(outcome.govtDeductions),
+                Money.toPesos(outcome.lateDeductions), Money.toPesos(outcome.net), Money.toPesos(change), percent,
+                more, less);
+    }
+
+    /**
+     * Writes the employees whose pay a scenario changes, one CSV row per scenario and employee.
+     *
+     * @param outcomes Outcomes of {@link #run(List)}
+     * @param out      Destination of the CSV text
+     */
+    public void writeDiffCsv(List<Outcome> outcomes, Writer out) throws IOException {
+        out.write("scenario,emp_id,baseline_gross,gross,baseline_net,net,net_change\n");
+        StringBuilder row = new StringBuilder(128);
+        for (Outcome outcome : outcomes) {
+            String scenario = quote(outcome.rules.getName());
+            for (int e = 0; e < employees.size(); e++) {
+                long gross = outcome.grossByEmployee[e], net = outcome.netByEmployee[e];
+                if (gross == baseline.grossByEmployee[e] && net == baseline.netByEmployee[e]) continue;
+
+                row.setLength(0);
+                row.append(scenario).append(',').append(quote(employees.get(e).getEmpId())).append(',');
+                appendPesos(row, baseline.grossByEmployee[e]).append(',');
+                appendPesos(row, gross).append(',');
+                appendPesos(row, baseline.netByEmployee[e]).append(',');
+                appendPesos(row, net).append(',');
+                appendPesos(row, net - baseline.netByEmployee[e]).append('\n');
+                out.append(row);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Appends centavos as an exact peso amount (e.g., -1234.50).
+     */
+    private static StringBuilder appendPesos(StringBuilder row, long centavos) {
+        if (centavos < 0) row.append('-');
+        long magnitude = Math.abs(centavos);
+        long fraction = magnitude % Money.CENTAVOS_PER_PESO;
+        row.append(magnitude / Money.CENTAVOS_PER_PESO).append('.');
+        if (fraction < 10) row.append('0');
+        return row.append(fraction);
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
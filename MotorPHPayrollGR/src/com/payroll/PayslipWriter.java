@@ -0,0 +1,280 @@
+package com.payroll;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * PayslipWriter - Writes the payslips of a payroll run to one file as text, CSV or HTML.
+ *
+ * Payslips are rendered from precompiled {@link ReportTemplate}s in chunks of employees on
+ * the common fork-join pool. Each chunk is rendered into its own buffer, and the buffers are
+ * written through a single BufferedWriter in employee-month order as they complete, so the
+ * file is the same whatever the thread count and payslips never interleave. Buffers are
+ * reused once written, and only a few chunks are in flight at a time, so memory stays
+ * bounded however many employees are run.
+ */
+public final class PayslipWriter {
+    public static final int CHUNK_SIZE = 64;
+
+    private static final String TEXT_RESULT_SOURCE = """
+        {{?fallbackBasicSalary}}[Warning] Missing or invalid Basic Salary. Using fallback estimate.
+        {{/fallbackBasicSalary}}--------------------------------------------------------------
+        ---------------- FINAL PAYROLL REPORT ({{frequency}}) ----------------
+         Employee ID: {{empId}} | Name: {{name}} | DOB: {{dob}}
+         Hourly Rate: PHP {{hourlyRate:,}} | Status: {{status}} | Position: {{position}}
+        {{?semiMonthly}} Gross Semi-monthly Rate: PHP {{semiMonthlyRate:,}}
+        {{/semiMonthly}} Payroll Period: {{start}} to {{end}}
+        --------------------------------------------------------------
+         Worked Hours               : {{workHours}} hours
+         Overtime Hours             : {{overtimeHours}} hours
+         {{grossIncomeLabel:-27}}: PHP {{grossIncome:,}}
+         Taxable Income (after SSS, PhilHealth, Pag-IBIG): PHP {{taxableIncome:,}}
+        --------------------------------------------------------------
+         Government Deductions:
+         - SSS Contribution         : PHP ({{sss:,}})
+         - Pag-IBIG Contribution    : PHP ({{pagibig:,}})
+         - PhilHealth Contribution  : PHP ({{philHealth:,}})
+         - BIR Withholding Tax      : PHP ({{withholdingTax:,}})
+        --------------------------------------------------------------
+         Total Government Deductions: PHP ({{totalGovtDeductions:,}})
+        --------------------------------------------------------------
+         Other Deductions:
+         - Late Deductions          : PHP ({{lateDeductions:,}})
+        --------------------------------------------------------------
+         Total Deductions           : PHP ({{totalDeductions:,}})
+        --------------------------------------------------------------
+         De Minimis Benefits:
+         Rice Subsidy              : PHP {{riceSubsidy:,}}
+         Phone Allowance           : PHP {{phoneAllowance:,}}
+         Clothing Allowance        : PHP {{clothingAllowance:,}}
+        --------------------------------------------------------------
+         Net {{incomeLabel}} (After Tax, with Benefits): PHP {{netPay:,}}
+        --------------------------------------------------------------
+        """;
+
+    private static final String TEXT_TOTALS_SOURCE = """
+
+        ---------------- Monthly Work Hours & Deductions ----------------
+         Total Worked Hours      : {{workHours}} hours
+         Regular Worked Hours    : {{regularHours}} hours
+         Overtime Hours          : {{overtimeHours}} hours
+         Holiday Worked Hours    : {{holidayHours}} hours
+         Late Hours              : {{lateHours}} hours
+         Overtime Pay            : PHP {{overtimePay:,}}
+         Holiday Pay             : PHP {{holidayPay:,}}
+         Rest Day OT Pay         : PHP {{restDayOTPay:,}}
+        --------------------------------------------------------------
+        """;
+
+    private static final String TEXT_BREAKDOWN_SOURCE = """
+
+        ---------------- Overtime & Unpaid Work Hour Deductions Breakdown ----------------
+             Day     |     Work Type    | OT Hours |OT Rate |    OT Pay    |  Late Minutes|  Late Deduction
+        ----------------------------------------------------------------------------------------
+        {{^days}}No overtime or late deductions recorded.
+        {{/days}}{{#days}} {{day.date}} | {{day.workType:-17}} | {{day.otHours:8}} | 1.25   | PHP {{day.otPay:8}} | {{day.lateMinutes:12}} | PHP {{day.lateDeduction:8}}
+        {{/days}}{{?days}}----------------------------------------------------------------------------------------
+        {{/days}}""";
+
+    /**
+     * The daily breakdown table (see {@link MonthlySummary#getBreakdownReport()}).
+     */
+    public static final ReportTemplate TEXT_BREAKDOWN = ReportTemplate.compile(TEXT_BREAKDOWN_SOURCE);
+
+    /**
+     * The work hours summary followed by the daily breakdown; needs no payroll result.
+     */
+    public static final ReportTemplate TEXT_SUMMARY = ReportTemplate.compile(TEXT_TOTALS_SOURCE + TEXT_BREAKDOWN_SOURCE + "\n");
+
+    /**
+     * The full payroll report printed by the interactive mode and the payslip endpoint.
+     */
+    public static final ReportTemplate TEXT_PAYSLIP = ReportTemplate.compile(TEXT_RESULT_SOURCE + TEXT_TOTALS_SOURCE
+                                                                             + TEXT_BREAKDOWN_SOURCE + "\n");
+
+    private static final String CSV_HEADER = "emp_id,employee_name,position,status,frequency,period_start,period_end,"
+        + "work_hours,overtime_hours,gross_income,sss,philhealth,pagibig,taxable_income,withholding_tax,"
+        + "late_deductions,total_deductions,rice_subsidy,phone_allowance,clothing_allowance,net_pay\n";
+
+    private static final String CSV_SOURCE = "{{empId}},{{name}},{{position}},{{status}},{{frequency}},{{start}},{{end}},"
+        + "{{workHours}},{{overtimeHours}},{{grossIncome}},{{sss}},{{philHealth}},{{pagibig}},{{taxableIncome}},"
+        + "{{withholdingTax}},{{lateDeductions}},{{totalDeductions}},{{riceSubsidy}},{{phoneAllowance}},"
+        + "{{clothingAllowance}},{{netPay}}\n";
+
+    private static final String HTML_HEADER = """
+        <!DOCTYPE html>
+        <html lang="en">
+        <head>
+        <meta charset="UTF-8">
+        <title>MotorPH Payslips</title>
+        <style>
+        body { font-family: sans-serif; font-size: 13px; }
+        .payslip { border: 1px solid #999; margin: 16px 0; padding: 8px 16px; page-break-inside: avoid; }
+        table { border-collapse: collapse; }
+        td, th { padding: 2px 8px; }
+        .amount { text-align: right; }
+        </style>
+        </head>
+        <body>
+        """;
+
+    private static final String HTML_SOURCE = """
+        <section class="payslip">
+        <h2>Payslip ({{frequency}}) - {{name}}</h2>
+        <p>Employee ID: {{empId}} | Position: {{position}} | Status: {{status}}<br>
+        Payroll Period: {{start}} to {{end}}{{?fallbackBasicSalary}}<br>
+        <strong>Missing or invalid Basic Salary. Using fallback estimate.</strong>{{/fallbackBasicSalary}}</p>
+        <table>
+        <tr><td>Worked Hours</td><td class="amount">{{workHours}}</td></tr>
+        <tr><td>Overtime Hours</td><td class="amount">{{overtimeHours}}</td></tr>
+        <tr><td>{{grossIncomeLabel}}</td><td class="amount">{{grossIncome:,}}</td></tr>
+        <tr><td>SSS Contribution</td><td class="amount">({{sss:,}})</td></tr>
+        <tr><td>Pag-IBIG Contribution</td><td class="amount">({{pagibig:,}})</td></tr>
+        <tr><td>PhilHealth Contribution</td><td class="amount">({{philHealth:,}})</td></tr>
+        <tr><td>BIR Withholding Tax</td><td class="amount">({{withholdingTax:,}})</td></tr>
+        <tr><td>Late Deductions</td><td class="amount">({{lateDeductions:,}})</td></tr>
+        <tr><th>Total Deductions</th><th class="amount">({{totalDeductions:,}})</th></tr>
+        <tr><td>Rice Subsidy</td><td class="amount">{{riceSubsidy:,}}</td></tr>
+        <tr><td>Phone Allowance</td><td class="amount">{{phoneAllowance:,}}</td></tr>
+        <tr><td>Clothing Allowance</td><td class="amount">{{clothingAllowance:,}}</td></tr>
+        <tr><th>Net {{incomeLabel}}</th><th class="amount">PHP {{netPay:,}}</th></tr>
+        </table>
+        {{?days}}<table>
+        <tr><th>Day</th><th>Work Type</th><th>Hours</th><th>OT Hours</th><th>OT Pay</th><th>Late Minutes</th><th>Late Deduction</th></tr>
+        {{#days}}<tr><td>{{day.date}}</td><td>{{day.workType}}</td><td class="amount">{{day.workHours}}</td><td class="amount">{{day.otHours}}</td><td class="amount">{{day.otPay:,}}</td><td class="amount">{{day.lateMinutes}}</td><td class="amount">{{day.lateDeduction:,}}</td></tr>
+        {{/days}}</table>
+        {{/days}}</section>
+        """;
+
+    private static final String HTML_FOOTER = "</body>\n</html>\n";
+
+    /**
+     * Output formats: a file header, one rendered template per payslip, and a file footer.
+     */
+    public enum Format {
+        TEXT("", TEXT_PAYSLIP, ""),
+        CSV(CSV_HEADER, ReportTemplate.compile(CSV_SOURCE, ReportTemplate.Escape.CSV), ""),
+        HTML(HTML_HEADER, ReportTemplate.compile(HTML_SOURCE, ReportTemplate.Escape.HTML), HTML_FOOTER);
+
+        private final String header;
+        private final ReportTemplate payslip;
+        private final String footer;
+
+        Format(String header, ReportTemplate payslip, String footer) {
+            this.header = header;
+            this.payslip = payslip;
+            this.footer = footer;
+        }
+
+        /**
+         * Gets the template rendered for each payslip.
+         */
+        public ReportTemplate getPayslipTemplate() { return payslip; }
+
+        /**
+         * Parses a format name: "text", "csv" or "html".
+         *
+         * @throws IllegalArgumentException if the name is not a format
+         */
+        public static Format parse(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown payslip format " + name + " (expected text, csv or html)");
+            }
+        }
+    }
+
+    private PayslipWriter() { }
+
+    /**
+     * Computes and writes the payslips of all summaries to a file, ordered by employee-month.
+     *
+     * @param monthlySummaries Summaries keyed by employee-month (e.g., "10001-2024-06")
+     * @param benefits         De minimis benefits by employee ID
+     * @param format           Output format
+     * @param filename         File to create or overwrite
+     * @return Number of payslips written
+     */
+    public static int write(Map<String, MonthlySummary> monthlySummaries, Map<String, DeMinimisBenefits> benefits,
+                            Format format, String filename) throws IOException {
+        List<String> keys = new ArrayList<>(monthlySummaries.keySet());
+        Collections.sort(keys);
+        List<MonthlySummary> summaries = new ArrayList<>(keys.size());
+        for (String key : keys) summaries.add(monthlySummaries.get(key));
+
+        try (Writer out = new BufferedWriter(new FileWriter(filename), 1 << 16)) {
+            return write(summaries, benefits, format, out);
+        }
+    }
+
+    /**
+     * Computes and writes payslips in the order given.
+     *
+     * @param summaries Summaries in output order
+     * @param benefits  De minimis benefits by employee ID
+     * @param format    Output format
+     * @param out       Destination; flushed, not closed
+     * @return Number of payslips written
+     */
+    public static int write(List<MonthlySummary> summaries, Map<String, DeMinimisBenefits> benefits,
+                            Format format, Writer out) throws IOException {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.startParallel("writePayslips")) {
+            out.write(format.header);
+            stage.rows(summaries.size()).bytes(format.header.length() + format.footer.length());
+
+            int chunks = (summaries.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            int window = 2 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+            Deque<StringBuilder> buffers = new ArrayDeque<>();
+            Deque<CompletableFuture<StringBuilder>> pending = new ArrayDeque<>();
+            char[] chars = new char[8192];
+            int next = 0;
+            try {
+                while (next < chunks || !pending.isEmpty()) {
+                    while (next < chunks && pending.size() < window) {
+                        StringBuilder buffer = buffers.isEmpty() ? new StringBuilder(CHUNK_SIZE * 4096) : buffers.pop();
+                        List<MonthlySummary> chunk = summaries.subList(next * CHUNK_SIZE,
+                                                                       Math.min((next + 1) * CHUNK_SIZE, summaries.size()));
+                        pending.add(CompletableFuture.supplyAsync(() -> render(chunk, benefits, format.payslip, buffer)));
+                        next++;
+                    }
+
+                    StringBuilder rendered = pending.poll().join();
+                    write(rendered, out, chars);
+                    stage.bytes(rendered.length());
+                    rendered.setLength(0);
+                    buffers.push(rendered);
+                }
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+
+            out.write(format.footer);
+            out.flush();
+            return summaries.size();
+        }
+    }
+
+    private static StringBuilder render(List<MonthlySummary> summaries, Map<String, DeMinimisBenefits> benefits,
+                                        ReportTemplate template, StringBuilder buffer) {
+        for (MonthlySummary summary : summaries) {
+            template.render(PayrollResult.calculate(summary, benefits), buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Copies a buffer to the writer through a scratch array, without making a String of it.
+     */
+    private static void write(StringBuilder buffer, Writer out, char[] chars) throws IOException {
+        for (int offset = 0; offset < buffer.length(); offset += chars.length) {
+            int length = Math.min(chars.length, buffer.length() - offset);
+            buffer.getChars(offset, offset + length, chars, 0);
+            out.write(chars, 0, length);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.payroll;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * PeriodBuckets - Maps each work date of a payroll run to its pay period.
+ *
+ * The periods of the run are computed once and every date in the range is given the
+ * number of its period in an int[] indexed by epoch day, so bucketing a time entry during
+ * ingestion is an array read instead of date arithmetic per entry.
+ */
+final class PeriodBuckets {
+    private final long firstEpochDay;
+    private final int[] bucketByDay;
+    private final PayrollPeriod[] periods;
+    private final String[] keySuffixes;
+
+    PeriodBuckets(PayrollPeriod.Frequency frequency, LocalDate startDate, LocalDate endDate) {
+        List<PayrollPeriod> split = PayrollPeriod.split(frequency, startDate, endDate);
+        this.firstEpochDay = startDate.toEpochDay();
+        this.bucketByDay = new int[(int) (endDate.toEpochDay() - firstEpochDay + 1)];
+        this.periods = split.toArray(new PayrollPeriod[0]);
+        this.keySuffixes = new String[periods.length];
+
+        for (int bucket = 0; bucket < periods.length; bucket++) {
+            keySuffixes[bucket] = "-" + periods[bucket].getKey();
+            int from = (int) (periods[bucket].getStartDate().toEpochDay() - firstEpochDay);
+            int to = (int) (periods[bucket].getEndDate().toEpochDay() - firstEpochDay);
+            Arrays.fill(bucketByDay, from, to + 1, bucket);
+        }
+    }
+
+    /**
+     * Returns the period number of a date, or -1 if it is outside the run.
+     */
+    int indexOf(long epochDay) {
+        long day = epochDay - firstEpochDay;
+        return (day >= 0 && day < bucketByDay.length) ? bucketByDay[(int) day] : -1;
+    }
+
+    PayrollPeriod get(int bucket) { return periods[bucket]; }
+
+    int size() { return periods.length; }
+
+    /**
+     * Builds the summary key of an employee and period (e.g., "10001-2024-06").
+     */
+    String key(String empId, int bucket) { return empId + keySuffixes[bucket]; }
+}
@@ -0,0 +1,161 @@
+package com.payroll;
+
+import java.util.*;
+
+/**
+ * RateTable - An immutable bracket table compiled into sorted primitive arrays.
+ *
+ * Each bracket computes: base amount + rate x (value - excess over), optionally capped.
+ * Amounts are held in centavos and rates in parts per million (see {@link Money}), so a
+ * bracket is evaluated in integer arithmetic with one rounding.
+ * The bracket is found by binary search on its lower bound, which is either inclusive
+ * ("from", as in the SSS salary ranges) or exclusive ("over", as in the BIR tax brackets).
+ * Values below the first bracket use the first bracket.
+ */
+public final class RateTable {
+    private final String name;
+    private final boolean inclusiveLowerBound;
+    private final long[] lowerBounds;
+    private final long[] baseAmounts;
+    private final long[] ratesPpm;
+    private final long[] excessOver;
+    private final long[] caps;
+
+    /**
+     * Creates a table from bracket columns in pesos; brackets are sorted by lower bound.
+     *
+     * @param name                Table name (e.g., SSS, BIR)
+     * @param inclusiveLowerBound true if a value equal to a lower bound falls in that bracket
+     * @param lowerBounds         Lower bound of each bracket
+     * @param baseAmounts         Fixed amount of each bracket
+     * @param rates               Rate applied to the excess of each bracket
+     * @param excessOver          Amount the excess is measured from
+     * @param caps                Maximum result of each bracket, or Float.POSITIVE_INFINITY for none
+     */
+    public RateTable(String name, boolean inclusiveLowerBound, float[] lowerBounds, float[] baseAmounts,
+                     float[] rates, float[] excessOver, float[] caps) {
+        this(name, inclusiveLowerBound, toCentavos(lowerBounds), toCentavos(baseAmounts), toPartsPerMillion(rates),
+             toCentavos(excessOver), toCentavos(caps));
+    }
+
+    /**
+     * Creates a table from bracket columns in centavos; brackets are sorted by lower bound.
+     *
+     * @param name                Table name (e.g., SSS, BIR)
+     * @param inclusiveLowerBound true if a value equal to a lower bound falls in that bracket
+     * @param lowerBounds         Lower bound of each bracket, in centavos
+     * @param baseAmounts         Fixed amount of each bracket, in centavos
+     * @param ratesPpm            Rate applied to the excess of each bracket, in parts per million
+     * @param excessOver          Amount the excess is measured from, in centavos
+     * @param caps                Maximum result of each bracket in centavos, or Long.MAX_VALUE for none
+     */
+    public RateTable(String name, boolean inclusiveLowerBound, long[] lowerBounds, long[] baseAmounts,
+                     long[] ratesPpm, long[] excessOver, long[] caps) {
+        int size = lowerBounds.length;
+        if (size == 0 || baseAmounts.length != size || ratesPpm.length != size
+                || excessOver.length != size || caps.length != size) {
+            throw new IllegalArgumentException("Rate table " + name + " needs at least one complete bracket");
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(lowerBounds[a], lowerBounds[b]));
+
+        this.name = name;
+        this.inclusiveLowerBound = inclusiveLowerBound;
+        this.lowerBounds = new long[size];
+        this.baseAmounts = new long[size];
+        this.ratesPpm = new long[size];
+        this.excessOver = new long[size];
+        this.caps = new long[size];
+        for (int i = 0; i < size; i++) {
+            this.lowerBounds[i] = lowerBounds[order[i]];
+            this.baseAmounts[i] = baseAmounts[order[i]];
+            this.ratesPpm[i] = ratesPpm[order[i]];
+            this.excessOver[i] = excessOver[order[i]];
+            this.caps[i] = caps[order[i]];
+        }
+    }
+
+    /**
+     * Computes the table amount for a value in pesos.
+     *
+     * @param value Salary or income the table applies to
+     * @return The amount from the matching bracket
+     */
+    public float evaluate(float value) {
+        return (float) Money.toPesos(evaluateCentavos(Money.ofPesos(value)));
+    }
+
+    /**
+     * Computes the table amount for a value in centavos. The rate is applied to the excess
+     * with one half-up rounding to the centavo, then the cap is applied.
+     *
+     * @param value Salary or income the table applies to, in centavos
+     * @return The amount from the matching bracket, in centavos
+     */
+    public long evaluateCentavos(long value) {
+        int bracket = findBracket(value);
+        long amount = baseAmounts[bracket] + Money.applyRate(value - excessOver[bracket], ratesPpm[bracket]);
+        return Math.min(caps[bracket], amount);
+    }
+
+    /**
+     * Binary search for the last bracket whose lower bound the value has reached.
+     */
+    private int findBracket(long value) {
+        int low = 0, high = lowerBounds.length - 1, found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            boolean reached = inclusiveLowerBound ? lowerBounds[mid] <= value : lowerBounds[mid] < value;
+            if (reached) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static long[] toCentavos(float[] pesos) {
+        long[] centavos = new long[pesos.length];
+        for (int i = 0; i < pesos.length; i++) {
+            centavos[i] = Float.isInfinite(pesos[i]) ? Long.MAX_VALUE : Money.ofPesos(pesos[i]);
+        }
+        return centavos;
+    }
+
+    private static long[] toPartsPerMillion(float[] rates) {
+        long[] ppm = new long[rates.length];
+        for (int i = 0; i < rates.length; i++) ppm[i] = Money.toPartsPerMillion(rates[i]);
+        return ppm;
+    }
+
+    /**
+     * Gets the table name.
+     *
+     * @return Table name
+     */
+    public String getName() { return name; }
+
+    /**
+     * Gets the number of brackets.
+     *
+     * @return Bracket count
+     */
+    public int size() { return lowerBounds.length; }
+
+    /**
+     * Gets whether a value equal to a lower bound falls in that bracket.
+     */
+    public boolean isInclusiveLowerBound() { return inclusiveLowerBound; }
+
+    /**
+     * Gets the columns of a bracket, in sorted order: lower bound, base amount, rate (ppm),
+     * excess over and cap.
+     */
+    long[] getBracket(int bracket) {
+        return new long[] { lowerBounds[bracket], baseAmounts[bracket], ratesPpm[bracket], excessOver[bracket], caps[bracket] };
+    }
+}
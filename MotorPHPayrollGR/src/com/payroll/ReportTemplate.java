@@ -0,0 +1,451 @@
+package com.payroll;
+
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * ReportTemplate - A payslip or summary layout compiled once and rendered many times.
+ *
+ * Templates are plain text with tags:
+ *
+ *  {{name}}              - a field, e.g. {{grossIncome}}, {{start}} or {{day.otPay}}
+ *  {{name:SPEC}}         - a field formatted as in printf, SPEC being [-][,][width]: {{netPay:,}}
+ *                          prints 1,234.56 and {{day.workType:-17}} a left-aligned column
+ *  {{#days}}...{{/days}} - repeated for each row of the daily breakdown (the day.* fields)
+ *  {{?flag}}...{{/flag}} - included only if the flag (or count, e.g. days) is set
+ *  {{^flag}}...{{/flag}} - included only if it is not
+ *
+ * Compiling resolves every field name to its accessor and splits the text into literal and
+ * field segments, so rendering is a walk over an array appending to the caller's buffer:
+ * no format string is parsed and no Formatter or boxed number is created per value. Money
+ * fields are formatted from whole centavos and hour fields from whole minutes (rounded half
+ * up to hundredths), which prints the same digits as %.2f of the peso and hour getters.
+ *
+ * A template is immutable and may be rendered by several threads at once.
+ */
+public final class ReportTemplate {
+
+    /**
+     * How field values are escaped for the output format. Literal text is never escaped.
+     */
+    public enum Escape { NONE, CSV, HTML }
+
+    private enum Scope { SUMMARY, RESULT, DAY }
+
+    private enum Kind { TEXT, DECIMAL, INTEGER, FLAG }
+
+    /**
+     * The values a template can refer to. DECIMAL values are in hundredths (centavos, or
+     * minutes converted to hundredths of an hour).
+     */
+    private enum Field {
+        // Employee and period
+        EMP_ID("empId", c -> c.summary.getEmployee().getEmpId()),
+        NAME("name", c -> c.summary.getEmployee().getName()),
+        DOB("dob", c -> c.summary.getEmployee().getDob()),
+        STATUS("status", c -> c.summary.getEmployee().getStatus()),
+        POSITION("position", c -> c.summary.getEmployee().getPosition()),
+        HOURLY_RATE("hourlyRate", Scope.SUMMARY, Kind.DECIMAL, c -> c.summary.getEmployee().getHourlyRateCentavos()),
+        SEMI_MONTHLY_RATE("semiMonthlyRate", Scope.SUMMARY, Kind.DECIMAL, c -> c.summary.getEmployee().getSemiMonthlyRateCentavos()),
+        FREQUENCY("frequency", c -> c.summary.getPeriod().getFrequency().getLabel()),
+        INCOME_LABEL("incomeLabel", c -> c.summary.getPeriod().getFrequency().getIncomeLabel() + " Income"),
+        GROSS_INCOME_LABEL("grossIncomeLabel", c -> "Gross " + c.summary.getPeriod().getFrequency().getIncomeLabel() + " Income"),
+        SEMI_MONTHLY("semiMonthly", Scope.SUMMARY, Kind.FLAG,
+                     c -> c.summary.getPeriod().getFrequency() == PayrollPeriod.Frequency.SEMI_MONTHLY ? 1 : 0),
+        START("start", c -> c.start.toString()),
+        END("end", c -> c.end.toString()),
+
+        // Summary totals
+        WORK_HOURS("workHours", Scope.SUMMARY, Kind.DECIMAL, c -> hundredthsOfHour(c.summary.getTotalWorkMinutes())),
+        REGULAR_HOURS("regularHours", Scope.SUMMARY, Kind.DECIMAL, c -> hundredthsOfHour(c.summary.getTotalRegularMinutes())),
+        OVERTIME_HOURS("overtimeHours", Scope.SUMMARY, Kind.DECIMAL, c -> hundredthsOfHour(c.summary.getTotalOvertimeMinutes())),
+        HOLIDAY_HOURS("holidayHours", Scope.SUMMARY, Kind.DECIMAL, c -> hundredthsOfHour(c.summary.getTotalHolidayWorkMinutes())),
+        LATE_HOURS("lateHours", Scope.SUMMARY, Kind.DECIMAL, c -> hundredthsOfHour(c.summary.getTotalLateMinutes())),
+        OVERTIME_PAY("overtimePay", Scope.SUMMARY, Kind.DECIMAL, c -> c.summary.getTotalOvertimePayCentavos()),
+        HOLIDAY_PAY("holidayPay", Scope.SUMMARY, Kind.DECIMAL, c -> c.summary.getTotalHolidayPayCentavos()),
+        REST_DAY_OT_PAY("restDayOTPay", Scope.SUMMARY, Kind.DECIMAL, c -> c.summary.getTotalRestDayOTPayCentavos()),
+        LATE_DEDUCTIONS("lateDeductions", Scope.SUMMARY, Kind.DECIMAL, c -> c.summary.getTotalLateDeductionsCentavos()),
+        DAYS("days", Scope.SUMMARY, Kind.INTEGER, c -> c.summary.getDayCount()),
+
+        // Computed payroll
+        FALLBACK_BASIC_SALARY("fallbackBasicSalary", Scope.RESULT, Kind.FLAG, c -> c.result.isFallbackBasicSalary() ? 1 : 0),
+        REGULAR_PAY("regularPay", Scope.RESULT, Kind.DECIMAL, c -> c.result.getRegularPayCentavos()),
+        GROSS_INCOME("grossIncome", Scope.RESULT, Kind.DECIMAL, c -> c.result.getGrossIncomeCentavos()),
+        BASIC_SALARY("basicSalary", Scope.RESULT, Kind.DECIMAL, c -> c.result.getBasicSalaryCentavos()),
+        TAXABLE_INCOME("taxableIncome", Scope.RESULT, Kind.DECIMAL, c -> c.result.getTaxableIncomeCentavos()),
+        SSS("sss", Scope.RESULT, Kind.DECIMAL, c -> c.result.getSssCentavos()),
+        PAGIBIG("pagibig", Scope.RESULT, Kind.DECIMAL, c -> c.result.getPagibigCentavos()),
+        PHILHEALTH("philHealth", Scope.RESULT, Kind.DECIMAL, c -> c.result.getPhilHealthCentavos()),
+        WITHHOLDING_TAX("withholdingTax", Scope.RESULT, Kind.DECIMAL, c -> c.result.getWithholdingTaxCentavos()),
+        TOTAL_GOVT_DEDUCTIONS("totalGovtDeductions", Scope.RESULT, Kind.DECIMAL, c -> c.result.getTotalGovtDeductionsCentavos()),
+        TOTAL_DEDUCTIONS("totalDeductions", Scope.RESULT, Kind.DECIMAL, c -> c.result.getTotalDeductionsCentavos()),
+        RICE_SUBSIDY("riceSubsidy", Scope.RESULT, Kind.DECIMAL, c -> c.result.getRiceSubsidyCentavos()),
+        PHONE_ALLOWANCE("phoneAllowance", Scope.RESULT, Kind.DECIMAL, c -> c.result.getPhoneAllowanceCentavos()),
+        CLOTHING_ALLOWANCE("clothingAllowance", Scope.RESULT, Kind.DECIMAL, c -> c.result.getClothingAllowanceCentavos()),
+        DE_MINIMIS("deMinimis", Scope.RESULT, Kind.DECIMAL, c -> c.result.getTotalDeMinimisBenefitsCentavos()),
+        NET_PAY("netPay", Scope.RESULT, Kind.DECIMAL, c -> c.result.getNetPayCentavos()),
+
+        // Daily breakdown rows
+        DAY_DATE("day.date", Scope.DAY, c -> c.summary.getWorkDate(c.day).toString()),
+        DAY_WORK_TYPE("day.workType", Scope.DAY, c -> MonthlySummary.getWorkTypeLabel(c.summary.getWorkType(c.day))),
+        DAY_WORK_HOURS("day.workHours", Scope.DAY, Kind.DECIMAL, c -> hundredthsOfHour(c.summary.getWorkMinutes(c.day))),
+        DAY_OT_HOURS("day.otHours", Scope.DAY, Kind.DECIMAL, c -> hundredthsOfHour(c.summary.getOvertimeMinutes(c.day))),
+        DAY_OT_PAY("day.otPay", Scope.DAY, Kind.DECIMAL, c -> c.summary.getOvertimePayCentavos(c.day)),
+        DAY_LATE_MINUTES("day.lateMinutes", Scope.DAY, Kind.DECIMAL, c -> (long) c.summary.getLateMinutes(c.day) * 100L),
+        DAY_LATE_DEDUCTION("day.lateDeduction", Scope.DAY, Kind.DECIMAL, c -> c.summary.getLateDeductionCentavos(c.day)),
+        DAY_HOLIDAY_PAY("day.holidayPay", Scope.DAY, Kind.DECIMAL, c -> c.summary.getHolidayPayCentavos(c.day)),
+        DAY_REST_DAY_OT_PAY("day.restDayOTPay", Scope.DAY, Kind.DECIMAL, c -> c.summary.getRestDayOTPayCentavos(c.day));
+
+        private static final Map<String, Field> BY_KEY = new HashMap<>();
+        static {
+            for (Field field : values()) BY_KEY.put(field.key, field);
+        }
+
+        final String key;
+        final Scope scope;
+        final Kind kind;
+        final Function<Context, String> text;
+        final ToLongFunction<Context> number;
+
+        Field(String key, Function<Context, String> text) {
+            this(key, Scope.SUMMARY, text);
+        }
+
+        Field(String key, Scope scope, Function<Context, String> text) {
+            this.key = key;
+            this.scope = scope;
+            this.kind = Kind.TEXT;
+            this.text = text;
+            this.number = null;
+        }
+
+        Field(String key, Scope scope, Kind kind, ToLongFunction<Context> number) {
+            this.key = key;
+            this.scope = scope;
+            this.kind = kind;
+            this.text = null;
+            this.number = number;
+        }
+    }
+
+    /**
+     * What a render call reads from; one per call, so templates stay shareable.
+     */
+    private static final class Context {
+        MonthlySummary summary;
+        PayrollResult result;
+        LocalDate start, end;
+        int day;
+    }
+
+    // Segment types
+    private static final byte LITERAL = 0;
+    private static final byte FIELD = 1;
+    private static final byte EACH_DAY = 2;
+    private static final byte IF = 3;
+    private static final byte UNLESS = 4;
+
+    private static final class Segment {
+        final byte type;
+        final String literal;
+        final Field field;
+        final int width;
+        final boolean leftAligned;
+        final boolean grouped;
+        final Segment[] body;
+
+        Segment(byte type, String literal, Field field, int width, boolean leftAligned, boolean grouped, Segment[] body) {
+            this.type = type;
+            this.literal = literal;
+            this.field = field;
+            this.width = width;
+            this.leftAligned = leftAligned;
+            this.grouped = grouped;
+            this.body = body;
+        }
+    }
+
+    private final Segment[] segments;
+    private final Escape escape;
+    private final boolean usesResult;
+
+    private ReportTemplate(Segment[] segments, Escape escape, boolean usesResult) {
+        this.segments = segments;
+        this.escape = escape;
+        this.usesResult = usesResult;
+    }
+
+    /**
+     * Compiles a template whose field values are written as they are.
+     *
+     * @throws IllegalArgumentException if a tag is malformed or names an unknown field
+     */
+    public static ReportTemplate compile(String source) {
+        return compile(source, Escape.NONE);
+    }
+
+    /**
+     * Compiles a template.
+     *
+     * @param source Template text
+     * @param escape How field values are escaped (e.g., HTML for an HTML payslip)
+     * @return The compiled template
+     * @throws IllegalArgumentException if a tag is malformed or names an unknown field
+     */
+    public static ReportTemplate compile(String source, Escape escape) {
+        Parser parser = new Parser(source);
+        Segment[] segments = parser.parse(null, false);
+        return new ReportTemplate(segments, escape, parser.usesResult);
+    }
+
+    /**
+     * Returns whether the template refers to computed payroll fields (gross, contributions,
+     * net pay, ...), in which case it must be rendered with a {@link PayrollResult}.
+     */
+    public boolean usesResult() { return usesResult; }
+
+    /**
+     * Renders a payroll result for its pay period.
+     */
+    public void render(PayrollResult result, StringBuilder out) {
+        PayrollPeriod period = result.getPeriod();
+        render(result.getSummary(), result, period.getStartDate(), period.getEndDate(), out);
+    }
+
+    /**
+     * Renders a summary for its pay period; the template must not use payroll result fields.
+     */
+    public void render(MonthlySummary summary, StringBuilder out) {
+        PayrollPeriod period = summary.getPeriod();
+        render(summary, null, period.getStartDate(), period.getEndDate(), out);
+    }
+
+    /**
+     * Appends the rendered template to a buffer.
+     *
+     * @param summary Worked hours and daily breakdown
+     * @param result  Payroll computed from the summary; may be null if {@link #usesResult()} is false
+     * @param start   Date printed for {{start}} (e.g., the start of the requested range)
+     * @param end     Date printed for {{end}}
+     * @param out     Buffer the report is appended to
+     */
+    public void render(MonthlySummary summary, PayrollResult result, LocalDate start, LocalDate end, StringBuilder out) {
+        if (usesResult && result == null) throw new IllegalArgumentException("Template needs a payroll result");
+        Context context = new Context();
+        context.summary = summary;
+        context.result = result;
+        context.start = start;
+        context.end = end;
+        render(segments, context, out);
+    }
+
+    private void render(Segment[] segments, Context context, StringBuilder out) {
+        for (Segment segment : segments) {
+            switch (segment.type) {
+                case LITERAL:
+                    out.append(segment.literal);
+                    break;
+                case FIELD:
+                    appendField(segment, context, out);
+                    break;
+                case EACH_DAY:
+                    int days = context.summary.getDayCount();
+                    for (int day = 0; day < days; day++) {
+                        context.day = day;
+                        render(segment.body, context, out);
+                    }
+                    break;
+                case IF:
+                    if (segment.field.number.applyAsLong(context) != 0) render(segment.body, context, out);
+                    break;
+                case UNLESS:
+                    if (segment.field.number.applyAsLong(context) == 0) render(segment.body, context, out);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown segment " + segment.type);
+            }
+        }
+    }
+
+    private void appendField(Segment segment, Context context, StringBuilder out) {
+        Field field = segment.field;
+        int start = out.length();
+        if (field.kind == Kind.TEXT) {
+            out.append(field.text.apply(context));
+        } else {
+            long value = field.number.applyAsLong(context);
+            if (value < 0) {
+                out.append('-');
+                value = -value;
+            }
+            if (field.kind == Kind.DECIMAL) {
+                appendWhole(out, value / 100, segment.grouped);
+                int cents = (int) (value % 100);
+                out.append('.').append((char) ('0' + cents / 10)).append((char) ('0' + cents % 10));
+            } else {
+                appendWhole(out, value, segment.grouped);
+            }
+        }
+
+        int padding = segment.width - (out.length() - start);
+        for (; padding > 0; padding--) {
+            if (segment.leftAligned) out.append(' ');
+            else out.insert(start, ' ');
+        }
+        if (escape != Escape.NONE) escape(out, start);
+    }
+
+    private static void appendWhole(StringBuilder out, long value, boolean grouped) {
+        int start = out.length();
+        out.append(value);
+        if (!grouped) return;
+        for (int position = out.length() - 3; position > start; position -= 3) {
+            out.insert(position, ',');
+        }
+    }
+
+    private void escape(StringBuilder out, int start) {
+        if (escape == Escape.HTML) {
+            for (int i = start; i < out.length(); i++) {
+                String entity;
+                switch (out.charAt(i)) {
+                    case '&': entity = "&amp;"; break;
+                    case '<': entity = "&lt;"; break;
+                    case '>': entity = "&gt;"; break;
+                    case '"': entity = "&quot;"; break;
+                    case '\'': entity = "&#39;"; break;
+                    default: continue;
+                }
+                out.replace(i, i + 1, entity);
+                i += entity.length() - 1;
+            }
+            return;
+        }
+
+        boolean quote = false;
+        for (int i = start; i < out.length() && !quote; i++) {
+            char c = out.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) return;
+        for (int i = start; i < out.length(); i++) {
+            if (out.charAt(i) == '"') out.insert(i++, '"');
+        }
+        out.insert(start, '"').append('"');
+    }
+
+    /**
+     * Converts minutes to hundredths of an hour, rounding half up like %.2f of minutes / 60.
+     */
+    private static long hundredthsOfHour(long minutes) {
+        return Money.multiplyDivide(minutes, 100, 60, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Splits template text into segments, resolving field names as it goes.
+     */
+    private static final class Parser {
+        private final String source;
+        private int position = 0;
+        boolean usesResult = false;
+
+        Parser(String source) {
+            this.source = source;
+        }
+
+        Segment[] parse(String open, boolean inDay) {
+            List<Segment> segments = new ArrayList<>();
+            while (position < source.length()) {
+                int tag = source.indexOf("{{", position);
+                if (tag < 0) tag = source.length();
+                if (tag > position) {
+                    segments.add(new Segment(LITERAL, source.substring(position, tag), null, 0, false, false, null));
+                }
+                if (tag == source.length()) {
+                    position = tag;
+                    break;
+                }
+
+                int close = source.indexOf("}}", tag + 2);
+                if (close < 0) throw error(tag, "Unclosed tag");
+                String name = source.substring(tag + 2, close).trim();
+                position = close + 2;
+                if (name.isEmpty()) throw error(tag, "Empty tag");
+
+                char sigil = name.charAt(0);
+                if (sigil == '/') {
+                    if (!name.substring(1).trim().equals(open)) throw error(tag, "Unexpected {{" + name + "}}");
+                    return segments.toArray(new Segment[0]);
+                }
+
+                if (sigil == '#' || sigil == '?' || sigil == '^') {
+                    String sectionName = name.substring(1).trim();
+                    Field field = lookup(sectionName, tag, inDay);
+                    byte type;
+                    if (sigil == '#') {
+                        if (field != Field.DAYS || inDay) throw error(tag, "Only {{#days}} can be repeated, and not nested");
+                        type = EACH_DAY;
+                    } else {
+                        if (field.kind != Kind.FLAG && field.kind != Kind.INTEGER) throw error(tag, sectionName + " is not a flag");
+                        type = (sigil == '?') ? IF : UNLESS;
+                    }
+                    Segment[] body = parse(sectionName, inDay || type == EACH_DAY);
+                    segments.add(new Segment(type, null, field, 0, false, false, body));
+                    continue;
+                }
+
+                int colon = name.indexOf(':');
+                String fieldName = (colon < 0) ? name : name.substring(0, colon).trim();
+                String spec = (colon < 0) ? "" : name.substring(colon + 1).trim();
+                Field field = lookup(fieldName, tag, inDay);
+                if (field.kind == Kind.FLAG) throw error(tag, fieldName + " is a flag; use it in {{?" + fieldName + "}}");
+
+                int i = 0;
+                boolean leftAligned = false, grouped = false;
+                if (i < spec.length() && spec.charAt(i) == '-') {
+                    leftAligned = true;
+                    i++;
+                }
+                if (i < spec.length() && spec.charAt(i) == ',') {
+                    grouped = true;
+                    i++;
+                }
+                int width = 0;
+                for (; i < spec.length(); i++) {
+                    char c = spec.charAt(i);
+                    if (c < '0' || c > '9' || width > 1000) throw error(tag, "Invalid format " + spec);
+                    width = width * 10 + (c - '0');
+                }
+                if (grouped && field.kind == Kind.TEXT) throw error(tag, fieldName + " is not a number");
+                segments.add(new Segment(FIELD, null, field, width, leftAligned, grouped, null));
+            }
+
+            if (open != null) throw error(source.length(), "Missing {{/" + open + "}}");
+            return segments.toArray(new Segment[0]);
+        }
+
+        private Field lookup(String name, int tag, boolean inDay) {
+            Field field = Field.BY_KEY.get(name);
+            if (field == null) throw error(tag, "Unknown field " + name);
+            if (field.scope == Scope.DAY && !inDay) throw error(tag, name + " is only available inside {{#days}}");
+            if (field.scope == Scope.RESULT) usesResult = true;
+            return field;
+        }
+
+        private IllegalArgumentException error(int offset, String message) {
+            int line = 1, column = 1;
+            for (int i = 0; i < offset && i < source.length(); i++) {
+                if (source.charAt(i) == '\n') {
+                    line++;
+                    column = 1;
+                } else {
+                    column++;
+                }
+            }
+            return new IllegalArgumentException("Template line " + line + ", column " + column + ": " + message);
+        }
+    }
+}
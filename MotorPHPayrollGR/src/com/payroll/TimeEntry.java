@@ -1,97 +1,60 @@
 package com.payroll;
 
-import java.io.*;
 import java.time.*;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 public class TimeEntry {
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("M/d/yyyy h:mm a");
-
     private final String empId;
     private final LocalDateTime clockIn;
     private final LocalDateTime clockOut;
-    private final boolean isRegularHoliday;
-    private final boolean isSpecialNonWorking;
-    private final boolean isSpecialWorking;
-    private final boolean isRestDay;
-    private final float holidayMultiplier;
-    private final float hoursWorked;
+    private final byte dayType;
+    private final int minutesWorked;
 
     public TimeEntry(String empId, LocalDateTime clockIn, LocalDateTime clockOut, boolean hasOvertime) {
-        this.empId = empId;
-        this.clockIn = clockIn;
-        this.clockOut = clockOut;
-
-        LocalDate workDate = clockIn.toLocalDate();
-        boolean isWeekend = (clockIn.getDayOfWeek() == DayOfWeek.SATURDAY || clockIn.getDayOfWeek() == DayOfWeek.SUNDAY);
-
-        this.isRegularHoliday = HolidayCalendar.isRegularHoliday(workDate);
-        this.isSpecialNonWorking = HolidayCalendar.isSpecialNonWorkingHoliday(workDate);
-        this.isSpecialWorking = HolidayCalendar.isSpecialWorkingDay(workDate);
-        this.isRestDay = isWeekend && !isSpecialWorking;
-        this.holidayMultiplier = calculateHolidayMultiplier();
-        this.hoursWorked = calculateWorkHours();
+        this(empId, clockIn, clockOut, HolidayCalendar.getDefault());
     }
 
-    private float calculateHolidayMultiplier() {
-        if (isRestDay && isRegularHoliday) return 2.6f;
-        if (isRegularHoliday) return 2.00f;
-        if (isSpecialNonWorking) return 1.30f;
-        if (isRestDay) return 1.50f;
-        if (isSpecialWorking) return 1.00f;
-        return 1.00f;
+    /**
+     * Creates a time entry classified against a specific holiday calendar.
+     */
+    public TimeEntry(String empId, LocalDateTime clockIn, LocalDateTime clockOut, HolidayCalendar calendar) {
+        this(empId, clockIn, clockOut, calendar.getDayType(clockIn.toLocalDate()));
     }
 
-    private float calculateWorkHours() {
-        return (float) Duration.between(clockIn, clockOut).toMinutes() / 60;
+    /**
+     * Creates a time entry whose day-type code was already resolved (see {@link HolidayCalendar}).
+     */
+    TimeEntry(String empId, LocalDateTime clockIn, LocalDateTime clockOut, byte dayType) {
+        this.empId = empId;
+        this.clockIn = clockIn;
+        this.clockOut = clockOut;
+        this.dayType = dayType;
+        this.minutesWorked = (int) Duration.between(clockIn, clockOut).toMinutes();
     }
 
     public boolean isHolidayRestDay() {
-        return (isRegularHoliday || isSpecialNonWorking) && isRestDay;
+        return (isRegularHoliday() || isSpecialNonWorking()) && isRestDay();
     }
 
     public String getEmpId() { return empId; }
     public LocalDateTime getClockIn() { return clockIn; }
     public LocalDateTime getClockOut() { return clockOut; }
-    public boolean isRegularHoliday() { return isRegularHoliday; }
-    public boolean isSpecialNonWorking() { return isSpecialNonWorking; }
-    public boolean isSpecialWorking() { return isSpecialWorking; }
-    public boolean isRestDay() { return isRestDay; }
-    public float getHolidayMultiplier() { return holidayMultiplier; }
-    public float getHoursWorked() { return hoursWorked; }
+    public boolean isRegularHoliday() { return (dayType & HolidayCalendar.REGULAR_HOLIDAY) != 0; }
+    public boolean isSpecialNonWorking() { return (dayType & HolidayCalendar.SPECIAL_NON_WORKING) != 0; }
+    public boolean isSpecialWorking() { return (dayType & HolidayCalendar.SPECIAL_WORKING) != 0; }
+    public boolean isRestDay() { return (dayType & HolidayCalendar.REST_DAY) != 0; }
+    public float getHolidayMultiplier() { return HolidayCalendar.getMultiplier(dayType); }
+    public float getHoursWorked() { return (float) minutesWorked / 60; }
+
+    /**
+     * Gets the whole minutes between clock in and clock out; pay is computed from these.
+     */
+    public int getMinutesWorked() { return minutesWorked; }
+    public byte getDayType() { return dayType; }
 
     public static List<TimeEntry> loadTimeEntries(String filename) {
         List<TimeEntry> timeEntries = new ArrayList<>();
-        File file = new File(filename);
-
-        if (!file.exists()) {
-            System.err.println("Error: Time entries file not found.");
-            return timeEntries;
-        }
-
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            br.readLine();
-            String line;
-            while ((line = br.readLine()) != null) {
-                try {
-                    String[] data = line.split(",");
-                    if (data.length < 5) continue;
-
-                    String empId = data[0].trim();
-                    LocalDateTime clockIn = LocalDateTime.parse(data[1].trim() + " " + data[2].trim(), DATE_TIME_FORMATTER);
-                    LocalDateTime clockOut = LocalDateTime.parse(data[1].trim() + " " + data[3].trim(), DATE_TIME_FORMATTER);
-                    boolean hasOvertime = Boolean.parseBoolean(data[4].trim());
-
-                    timeEntries.add(new TimeEntry(empId, clockIn, clockOut, hasOvertime));
-                } catch (Exception e) {
-                    System.err.println("Skipping invalid entry: " + e.getMessage());
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading time entries: " + e.getMessage());
-        }
-
+        new TimeEntryReader().read(filename, timeEntries::add);
         return timeEntries;
     }
 
@@ -0,0 +1,111 @@
+package com.payroll;
+
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * TimeEntryIndex - Time entries partitioned by employee and sorted by date, for looking
+ * up one employee's pay period without reading anyone else's rows.
+ *
+ * The entries are copied once into a {@link TimeEntryTable} whose rows are grouped by
+ * employee, with the first row of each employee kept in an array. A query for one employee
+ * and date range is a hash lookup of the employee index, a binary search of the range's
+ * first and last rows within that employee's rows, and a scan of only those rows, so its
+ * cost depends on the employee's entries rather than on the size of the company (see
+ * {@link MonthlySummary#calculateWorkedHours(java.util.Map, TimeEntryIndex, String, LocalDate, LocalDate, PayrollPeriod.Frequency)}).
+ *
+ * The index is a snapshot: entries added to its source afterwards are not seen. It is
+ * read-only once built and may be queried from any number of threads.
+ */
+public class TimeEntryIndex implements TimeEntrySource {
+    private final TimeEntryTable rows; // Grouped by employee index, then ordered by date
+    private final int[] partitionStart; // First row of each employee index; [employee count] = row count
+
+    private TimeEntryIndex(TimeEntryTable table) {
+        this.partitionStart = new int[table.getEmployeeCount() + 1];
+        this.rows = table.partitionByEmployee(partitionStart);
+    }
+
+    /**
+     * Indexes the rows of a time entry table; the table itself is left unchanged.
+     */
+    public static TimeEntryIndex of(TimeEntryTable table) {
+        return new TimeEntryIndex(table);
+    }
+
+    /**
+     * Loads and indexes the time entries of a source within a date range.
+     *
+     * @param source    Where the time entries are read from
+     * @param startDate First work date to include, or null for no lower bound
+     * @param endDate   Last work date to include, or null for no upper bound
+     * @return The index of the loaded entries
+     */
+    public static TimeEntryIndex load(TimeEntrySource source, LocalDate startDate, LocalDate endDate) {
+        TimeEntryTable table = TimeEntryTable.load(source, startDate, endDate);
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("indexTimeEntries")) {
+            TimeEntryIndex index = new TimeEntryIndex(table);
+            stage.rows(index.size()).bytes(index.rows.getMemoryBytes());
+            return index;
+        }
+    }
+
+    /**
+     * Opens a cursor over one employee's rows dated within a range (inclusive), in date order;
+     * rows of the same date are in the order the source gave them.
+     *
+     * @param empId     Employee ID
+     * @param startDate First work date to include, or null for no lower bound
+     * @param endDate   Last work date to include, or null for no upper bound
+     * @return The cursor; it has no rows if the employee has none in the index
+     */
+    public TimeEntryTable.Cursor cursor(String empId, LocalDate startDate, LocalDate endDate) {
+        int employee = rows.getEmployeeIndex(empId);
+        if (employee < 0) return rows.cursor(0, 0);
+
+        int first = partitionStart[employee], last = partitionStart[employee + 1];
+        if (startDate != null) first = rows.firstRowOnOrAfter(startDate.toEpochDay(), first, last);
+        if (endDate != null) last = rows.firstRowOnOrAfter(endDate.toEpochDay() + 1, first, last);
+        return rows.cursor(first, last);
+    }
+
+    /**
+     * Passes the time entries dated within the range to the sink, grouped by employee.
+     */
+    @Override
+    public void forEach(LocalDate startDate, LocalDate endDate, Consumer<TimeEntry> sink) {
+        rows.forEach(startDate, endDate, sink);
+    }
+
+    @Override
+    public void forEach(String empId, LocalDate startDate, LocalDate endDate, Consumer<TimeEntry> sink) {
+        TimeEntryTable.Cursor cursor = cursor(empId, startDate, endDate);
+        while (cursor.next()) sink.accept(cursor.toTimeEntry());
+    }
+
+    @Override
+    public long getVersion() { return rows.getVersion(); }
+
+    /**
+     * Gets the number of indexed time entries.
+     */
+    public int size() { return rows.size(); }
+
+    /**
+     * Gets the number of employees with indexed time entries.
+     */
+    public int getEmployeeCount() { return rows.getEmployeeCount(); }
+
+    /**
+     * Gets the employee ID of an employee index (0 to {@link #getEmployeeCount()} - 1).
+     */
+    public String getEmpId(int employeeIndex) { return rows.getEmpId(employeeIndex); }
+
+    /**
+     * Gets the number of indexed time entries of one employee.
+     */
+    public int size(String empId) {
+        int employee = rows.getEmployeeIndex(empId);
+        return (employee < 0) ? 0 : partitionStart[employee + 1] - partitionStart[employee];
+    }
+}
@@ -0,0 +1,442 @@
+package com.payroll;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * TimeEntryReader - Streams time entries from the DTR CSV file in a single pass.
+ *
+ * Rows are tokenized in place over a reusable byte buffer and the "M/d/yyyy h:mm a"
+ * date/time columns are decoded by hand, so no intermediate String[] or formatter
+ * work is done per row. Rows outside the requested date range are rejected before
+ * a TimeEntry is ever created, and accepted entries are handed to a sink instead of
+ * being collected into a list. A {@link TimeEntryValidator} can be attached to audit
+ * every row in the same pass.
+ *
+ * Expected CSV Format (Column Index):
+ *  0 - Employee ID
+ *  1 - Date (M/d/yyyy)
+ *  2 - Log In (h:mm AM/PM)
+ *  3 - Log Out (h:mm AM/PM)
+ *  4+ - (Unused)
+ */
+public class TimeEntryReader {
+    private static final int MIN_COLUMNS = 5;
+    private static final int MAX_COLUMNS = 8;
+
+    private final long startEpochDay;
+    private final long endEpochDay;
+    private final HolidayCalendar calendar;
+
+    private final int[] fieldStart = new int[MAX_COLUMNS];
+    private final int[] fieldEnd = new int[MAX_COLUMNS];
+    private int cursor;
+
+    private int[] idKeys = new int[256];
+    private String[] idValues = new String[256];
+    private int idCount = 0;
+
+    private long lastEpochDay = Long.MIN_VALUE;
+    private LocalDate lastDate;
+
+    private TimeEntryValidator validator;
+
+    private long position = 0;
+    private long lineNumber = 0;
+    private long rowsRead = 0;
+    private long rowsAccepted = 0;
+    private long rowsSkipped = 0;
+
+    /**
+     * Creates a reader that accepts every row in the file.
+     */
+    public TimeEntryReader() {
+        this(null, null);
+    }
+
+    /**
+     * Creates a reader that only accepts rows dated within the given range (inclusive).
+     *
+     * @param startDate First work date to accept, or null for no lower bound
+     * @param endDate   Last work date to accept, or null for no upper bound
+     */
+    public TimeEntryReader(LocalDate startDate, LocalDate endDate) {
+        this(startDate, endDate, HolidayCalendar.getDefault());
+    }
+
+    /**
+     * Creates a reader for a date range that classifies work dates with the given calendar.
+     *
+     * @param startDate First work date to accept, or null for no lower bound
+     * @param endDate   Last work date to accept, or null for no upper bound
+     * @param calendar  Holiday calendar used to classify each work date
+     */
+    public TimeEntryReader(LocalDate startDate, LocalDate endDate, HolidayCalendar calendar) {
+        this.calendar = calendar;
+        this.startEpochDay = (startDate != null) ? startDate.toEpochDay() : Long.MIN_VALUE;
+        this.endEpochDay = (endDate != null) ? endDate.toEpochDay() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Attaches a validator that is given every row parsed, including malformed ones.
+     *
+     * @param validator Validator to feed, or null to stop validating
+     */
+    public void setValidator(TimeEntryValidator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Reads the time entries file and passes every accepted entry to the sink.
+     *
+     * @param filename Path to the time entries CSV file
+     * @param sink     Receiver for each entry within the date range
+     * @return false if the file could not be found or read
+     */
+    public boolean read(String filename, Consumer<TimeEntry> sink) {
+        return read(filename, 0L, true, sink);
+    }
+
+    /**
+     * Reads the time entries file starting at a byte offset, such as the end of a previous read.
+     * Only rows that start at or after the offset are parsed; the header is skipped only when
+     * reading from the beginning of the file.
+     *
+     * @param filename             Path to the time entries CSV file
+     * @param offset               Byte offset of the first line to read
+     * @param includeUnterminated  Whether a final line without a line break is parsed
+     * @param sink                 Receiver for each entry within the date range
+     * @return false if the file could not be found or read
+     */
+    public boolean read(String filename, long offset, boolean includeUnterminated, Consumer<TimeEntry> sink) {
+        return read(filename, offset, Long.MAX_VALUE, includeUnterminated, sink);
+    }
+
+    /**
+     * Reads the lines of the time entries file that lie in a byte range, such as one shard of a
+     * file being parsed in parallel. The range should start and end at line boundaries; the
+     * header is skipped only when the range starts at the beginning of the file.
+     *
+     * @param filename Path to the time entries CSV file
+     * @param start    Byte offset of the first line to read
+     * @param end      Byte offset just past the last line to read
+     * @param sink     Receiver for each entry within the date range
+     * @return false if the file could not be found or read
+     */
+    public boolean readRange(String filename, long start, long end, Consumer<TimeEntry> sink) {
+        return read(filename, start, end, true, sink);
+    }
+
+    private boolean read(String filename, long offset, long end, boolean includeUnterminated, Consumer<TimeEntry> sink) {
+        File file = new File(filename);
+        if (!file.exists()) {
+            System.err.println("Error: Time entries file not found.");
+            return false;
+        }
+
+        long rowsBefore = rowsRead, skippedBefore = rowsSkipped;
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadTimeEntries");
+             InputStream in = new FileInputStream(file)) {
+            in.skipNBytes(offset);
+            position = offset;
+            try {
+                read(in, end - offset, offset == 0L, includeUnterminated, sink);
+            } finally {
+                stage.rows(rowsRead - rowsBefore).bytes(position - offset).skipped(rowsSkipped - skippedBefore);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error reading time entries: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads time entries from a stream, advancing {@link #getPosition()} past every line consumed.
+     */
+    void read(InputStream in, boolean hasHeader, boolean includeUnterminated, Consumer<TimeEntry> sink) throws IOException {
+        read(in, Long.MAX_VALUE, hasHeader, includeUnterminated, sink);
+    }
+
+    /**
+     * Reads time entries from at most the next limit bytes of a stream.
+     */
+    void read(InputStream in, long limit, boolean hasHeader, boolean includeUnterminated, Consumer<TimeEntry> sink) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(64 * 1024, Math.max(limit, 1024))];
+        int length = 0;
+        boolean isHeader = hasHeader;
+        long remaining = limit;
+        int read;
+
+        while (remaining > 0 && (read = in.read(buffer, length, (int) Math.min(buffer.length - length, remaining))) > 0) {
+            remaining -= read;
+            length += read;
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] == '\n') {
+                    lineNumber++;
+                    if (isHeader) {
+                        isHeader = false; // Skip header row
+                    } else {
+                        processLine(buffer, lineStart, i, sink);
+                    }
+                    position += i + 1 - lineStart;
+                    lineStart = i + 1;
+                }
+            }
+
+            // Carry the unfinished line over to the front of the buffer
+            length -= lineStart;
+            System.arraycopy(buffer, lineStart, buffer, 0, length);
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+
+        if (length > 0 && includeUnterminated) {
+            lineNumber++;
+            if (!isHeader) processLine(buffer, 0, length, sink);
+            position += length;
+        }
+    }
+
+    /**
+     * Parses one CSV line and forwards it to the sink if it falls within the date range.
+     */
+    private void processLine(byte[] buf, int start, int end, Consumer<TimeEntry> sink) {
+        if (end > start && buf[end - 1] == '\r') end--;
+        if (end <= start) return;
+
+        rowsRead++;
+        int columns = tokenize(buf, start, end);
+        if (columns < MIN_COLUMNS) {
+            rowsSkipped++;
+            if (validator != null) {
+                validator.malformed(lineNumber, field(buf, 0), "Expected " + MIN_COLUMNS + " columns, found " + columns);
+            }
+            return;
+        }
+
+        try {
+            long epochDay = parseDate(buf, fieldStart[1], fieldEnd[1]);
+            if (epochDay < startEpochDay || epochDay > endEpochDay) return;
+
+            int clockInMinute = parseTime(buf, fieldStart[2], fieldEnd[2]);
+            int clockOutMinute = parseTime(buf, fieldStart[3], fieldEnd[3]);
+            String empId = empId(buf, fieldStart[0], fieldEnd[0]);
+            if (validator != null) validator.check(lineNumber, empId, epochDay, clockInMinute, clockOutMinute);
+
+            LocalDate workDate = dateOf(epochDay);
+            LocalDateTime clockIn = LocalDateTime.of(workDate, LocalTime.ofSecondOfDay(clockInMinute * 60L));
+            LocalDateTime clockOut = LocalDateTime.of(workDate, LocalTime.ofSecondOfDay(clockOutMinute * 60L));
+
+            rowsAccepted++;
+            byte dayType = calendar.getDayType(epochDay);
+            sink.accept(new TimeEntry(empId, clockIn, clockOut, dayType));
+        } catch (RuntimeException e) {
+            rowsSkipped++;
+            System.err.println("Skipping invalid entry: " + e.getMessage());
+            if (validator != null) validator.malformed(lineNumber, field(buf, 0), e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the text of a field of the current line, or null if it is empty.
+     */
+    private String field(byte[] buf, int column) {
+        int length = fieldEnd[column] - fieldStart[column];
+        return (length > 0) ? new String(buf, fieldStart[column], length, StandardCharsets.ISO_8859_1) : null;
+    }
+
+    /**
+     * Splits a line into trimmed field offsets, honouring double-quoted fields.
+     *
+     * @return Number of fields found (capped at MAX_COLUMNS)
+     */
+    private int tokenize(byte[] buf, int start, int end) {
+        int count = 0;
+        int pos = start;
+
+        while (count < MAX_COLUMNS) {
+            int fieldBegin = pos;
+            int fieldFinish;
+            if (pos < end && buf[pos] == '"') {
+                fieldBegin = ++pos;
+                while (pos < end && buf[pos] != '"') pos++;
+                fieldFinish = pos;
+                while (pos < end && buf[pos] != ',') pos++;
+            } else {
+                while (pos < end && buf[pos] != ',') pos++;
+                fieldFinish = pos;
+            }
+
+            while (fieldBegin < fieldFinish && buf[fieldBegin] == ' ') fieldBegin++;
+            while (fieldFinish > fieldBegin && buf[fieldFinish - 1] == ' ') fieldFinish--;
+            fieldStart[count] = fieldBegin;
+            fieldEnd[count] = fieldFinish;
+            count++;
+
+            if (pos >= end) break;
+            pos++; // Skip the comma
+        }
+        return count;
+    }
+
+    /**
+     * Parses an "M/d/yyyy" date into an epoch day.
+     */
+    private long parseDate(byte[] buf, int start, int end) {
+        cursor = start;
+        int month = parseNumber(buf, end, '/');
+        int day = parseNumber(buf, end, '/');
+        int year = parseNumber(buf, end, 0);
+        if (cursor != end) throw invalid("date", buf, start, end);
+
+        if (lastDate != null && lastDate.getYear() == year
+                && lastDate.getMonthValue() == month && lastDate.getDayOfMonth() == day) {
+            return lastEpochDay;
+        }
+        lastDate = LocalDate.of(year, month, day);
+        lastEpochDay = lastDate.toEpochDay();
+        return lastEpochDay;
+    }
+
+    /**
+     * Parses an "h:mm AM" time into minutes since midnight.
+     */
+    private int parseTime(byte[] buf, int start, int end) {
+        cursor = start;
+        int hour = parseNumber(buf, end, ':');
+        int minute = parseNumber(buf, end, ' ');
+        int p = cursor;
+        while (p < end && buf[p] == ' ') p++;
+
+        if (end - p != 2 || (buf[p + 1] | 0x20) != 'm' || hour < 1 || hour > 12 || minute > 59) {
+            throw invalid("time", buf, start, end);
+        }
+        int marker = buf[p] | 0x20;
+        if (marker == 'a') {
+            hour = (hour == 12) ? 0 : hour;
+        } else if (marker == 'p') {
+            hour = (hour == 12) ? 12 : hour + 12;
+        } else {
+            throw invalid("time", buf, start, end);
+        }
+        return hour * 60 + minute;
+    }
+
+    /**
+     * Reads decimal digits up to the separator and moves the cursor past it.
+     */
+    private int parseNumber(byte[] buf, int end, int separator) {
+        int p = cursor;
+        int value = 0;
+        int digits = 0;
+        while (p < end && buf[p] >= '0' && buf[p] <= '9') {
+            value = value * 10 + (buf[p++] - '0');
+            digits++;
+        }
+        if (digits == 0 || digits > 4) {
+            throw new IllegalArgumentException("Invalid number in '" + new String(buf, cursor, end - cursor) + "'");
+        }
+        if (separator != 0) {
+            if (p >= end || buf[p] != separator) {
+                throw new IllegalArgumentException("Expected '" + (char) separator + "' in '" + new String(buf, cursor, end - cursor) + "'");
+            }
+            p++;
+        }
+        cursor = p;
+        return value;
+    }
+
+    private LocalDate dateOf(long epochDay) {
+        return (epochDay == lastEpochDay) ? lastDate : LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Returns a shared String for the employee ID so repeated IDs are not re-allocated per row.
+     * Numeric IDs are pooled in an open-addressing table keyed by their integer value.
+     */
+    private String empId(byte[] buf, int start, int end) {
+        int key = 0;
+        boolean numeric = end > start && end - start <= 9;
+        for (int i = start; numeric && i < end; i++) {
+            numeric = buf[i] >= '0' && buf[i] <= '9';
+            key = key * 10 + (buf[i] - '0');
+        }
+        if (!numeric) {
+            return new String(buf, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        int mask = idKeys.length - 1;
+        int slot = (key * 0x9E3779B9) >>> 1 & mask;
+        while (idValues[slot] != null) {
+            if (idKeys[slot] == key && idValues[slot].length() == end - start) return idValues[slot];
+            slot = (slot + 1) & mask;
+        }
+
+        String value = new String(buf, start, end - start, StandardCharsets.ISO_8859_1);
+        idKeys[slot] = key;
+        idValues[slot] = value;
+        if (++idCount * 2 > idKeys.length) growIdPool();
+        return value;
+    }
+
+    private void growIdPool() {
+        int[] oldKeys = idKeys;
+        String[] oldValues = idValues;
+        idKeys = new int[oldKeys.length * 2];
+        idValues = new String[oldValues.length * 2];
+        int mask = idKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null) continue;
+            int slot = (oldKeys[i] * 0x9E3779B9) >>> 1 & mask;
+            while (idValues[slot] != null) slot = (slot + 1) & mask;
+            idKeys[slot] = oldKeys[i];
+            idValues[slot] = oldValues[i];
+        }
+    }
+
+    private static IllegalArgumentException invalid(String what, byte[] buf, int start, int end) {
+        return new IllegalArgumentException("Text '" + new String(buf, start, end - start) + "' is not a valid " + what);
+    }
+
+    /**
+     * Gets the byte offset just past the last line consumed, for resuming a later read.
+     *
+     * @return Byte offset into the file
+     */
+    public long getPosition() { return position; }
+
+    /**
+     * Gets the line number of the last line consumed, counting the header as line 1 when
+     * reading from the start of the file (lines before a resume offset are not counted).
+     *
+     * @return Line number
+     */
+    public long getLineNumber() { return lineNumber; }
+
+    /**
+     * Gets the number of non-empty data rows seen.
+     *
+     * @return Rows read (excluding the header)
+     */
+    public long getRowsRead() { return rowsRead; }
+
+    /**
+     * Gets the number of rows that fell within the date range and were passed to the sink.
+     *
+     * @return Rows accepted
+     */
+    public long getRowsAccepted() { return rowsAccepted; }
+
+    /**
+     * Gets the number of malformed rows that were skipped.
+     *
+     * @return Rows skipped
+     */
+    public long getRowsSkipped() { return rowsSkipped; }
+}
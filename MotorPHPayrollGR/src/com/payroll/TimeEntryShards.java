@@ -0,0 +1,213 @@
+package com.payroll;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * TimeEntryShards - Time entries spread over several CSV files, parsed in parallel.
+ *
+ * The files are given as a directory (every *.csv file in it), a glob such as
+ * "dtr/2024-06-*.csv", or a single file. Each file is cut at line boundaries into byte
+ * ranges (shards) of a size chosen from the total input and the core count, so one large
+ * export is split just like many small ones. Shards are parsed on the common fork-join
+ * pool, each by its own {@link TimeEntryReader}, and their entries are handed to the sink
+ * on the calling thread in file-name and file-offset order as they complete. The sink
+ * therefore sees exactly the sequence a single-threaded read of the files one after
+ * another would produce, and the payroll built from it is identical whatever the thread
+ * count. Only a few shards are in flight at a time, so memory stays bounded.
+ */
+public class TimeEntryShards implements TimeEntrySource {
+    public static final long MIN_SHARD_BYTES = 256 * 1024;
+    public static final long MAX_SHARD_BYTES = 16 * 1024 * 1024;
+
+    private final List<File> files;
+    private final HolidayCalendar calendar;
+    private final long shardBytes;
+
+    /**
+     * A byte range of one file, starting and ending at line boundaries.
+     */
+    static final class Shard {
+        final File file;
+        final long start;
+        final long end;
+
+        Shard(File file, long start, long end) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Creates a source over the given files, read in the order given.
+     *
+     * @param files      Time entry CSV files, each with a header row
+     * @param calendar   Holiday calendar used to classify each work date
+     * @param shardBytes Target shard size in bytes, or 0 to choose one from the input size
+     */
+    public TimeEntryShards(List<File> files, HolidayCalendar calendar, long shardBytes) {
+        this.files = new ArrayList<>(files);
+        this.calendar = calendar;
+        this.shardBytes = (shardBytes > 0) ? shardBytes : defaultShardBytes(this.files);
+    }
+
+    /**
+     * Opens the time entry files matching a path with the default holiday calendar.
+     *
+     * @param path A directory, a glob on file names (e.g., "dtr/*.csv") or a single file
+     * @return The source, or null if no file matches
+     */
+    public static TimeEntryShards open(String path) {
+        return open(path, HolidayCalendar.getDefault());
+    }
+
+    /**
+     * Opens the time entry files matching a path.
+     *
+     * @param path     A directory, a glob on file names (e.g., "dtr/*.csv") or a single file
+     * @param calendar Holiday calendar used to classify each work date
+     * @return The source, or null if no file matches
+     */
+    public static TimeEntryShards open(String path, HolidayCalendar calendar) {
+        List<File> files = resolve(path);
+        if (files.isEmpty()) {
+            System.err.println("Error: No time entry files match " + path);
+            return null;
+        }
+        return new TimeEntryShards(files, calendar, 0L);
+    }
+
+    /**
+     * Lists the files a path names, sorted by name.
+     */
+    static List<File> resolve(String path) {
+        File file = new File(path);
+        List<File> files = new ArrayList<>();
+        if (file.isFile()) {
+            files.add(file);
+            return files;
+        }
+
+        File directory;
+        PathMatcher matcher;
+        if (file.isDirectory()) {
+            directory = file;
+            matcher = FileSystems.getDefault().getPathMatcher("glob:*.csv");
+        } else {
+            directory = (file.getParentFile() != null) ? file.getParentFile() : new File(".");
+            try {
+                matcher = FileSystems.getDefault().getPathMatcher("glob:" + file.getName());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error: Invalid time entry file pattern " + path);
+                return files;
+            }
+        }
+
+        File[] children = directory.listFiles();
+        if (children == null) return files;
+        for (File child : children) {
+            if (child.isFile() && matcher.matches(Paths.get(child.getName()))) files.add(child);
+        }
+        files.sort(Comparator.comparing(File::getName));
+        return files;
+    }
+
+    @Override
+    public void forEach(LocalDate startDate, LocalDate endDate, Consumer<TimeEntry> sink) {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.startParallel("ingestTimeEntries")) {
+            List<Shard> shards = split();
+            int window = 2 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+            Deque<CompletableFuture<List<TimeEntry>>> pending = new ArrayDeque<>();
+            int next = 0;
+            try {
+                while (next < shards.size() || !pending.isEmpty()) {
+                    while (next < shards.size() && pending.size() < window) {
+                        Shard shard = shards.get(next++);
+                        pending.add(CompletableFuture.supplyAsync(() -> parse(shard, startDate, endDate)));
+                        stage.bytes(shard.end - shard.start);
+                    }
+
+                    List<TimeEntry> entries = pending.poll().join();
+                    for (TimeEntry entry : entries) sink.accept(entry);
+                    stage.rows(entries.size());
+                }
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+    }
+
+    private List<TimeEntry> parse(Shard shard, LocalDate startDate, LocalDate endDate) {
+        List<TimeEntry> entries = new ArrayList<>((int) Math.min((shard.end - shard.start) / 40, 1 << 20));
+        new TimeEntryReader(startDate, endDate, calendar).readRange(shard.file.getPath(), shard.start, shard.end, entries::add);
+        return entries;
+    }
+
+    /**
+     * Cuts every file into shards of about the target size, ending each shard just after a
+     * line break (the last shard of a file runs to its end).
+     */
+    List<Shard> split() {
+        List<Shard> shards = new ArrayList<>();
+        byte[] buffer = new byte[4096];
+        for (File file : files) {
+            long length = file.length();
+            long start = 0L;
+            try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+                while (length - start > shardBytes) {
+                    long end = nextLineStart(in, start + shardBytes, length, buffer);
+                    if (end >= length) break;
+                    shards.add(new Shard(file, start, end));
+                    start = end;
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading time entries: " + e.getMessage());
+            }
+            shards.add(new Shard(file, start, length));
+        }
+        return shards;
+    }
+
+    /**
+     * Returns the offset just after the first line break at or after the position.
+     */
+    private static long nextLineStart(RandomAccessFile in, long position, long length, byte[] buffer) throws IOException {
+        in.seek(position);
+        while (position < length) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, length - position));
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return length;
+    }
+
+    private static long defaultShardBytes(List<File> files) {
+        long total = 0L;
+        for (File file : files) total += file.length();
+        long perCore = total / (4L * Math.max(1, ForkJoinPool.getCommonPoolParallelism()));
+        return Math.max(MIN_SHARD_BYTES, Math.min(MAX_SHARD_BYTES, perCore));
+    }
+
+    @Override
+    public long getVersion() {
+        long version = files.size();
+        for (File file : files) version = version * 31 + TimeEntrySource.fileVersion(file.getPath());
+        return version * 31 + calendar.getFingerprint();
+    }
+
+    /**
+     * Gets the files read, in reading order.
+     */
+    public List<File> getFiles() { return Collections.unmodifiableList(files); }
+}
@@ -0,0 +1,93 @@
+package com.payroll;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * TimeEntrySource - A place time entries can be streamed from for a payroll period.
+ */
+public interface TimeEntrySource {
+    long UNKNOWN_VERSION = Long.MIN_VALUE;
+
+    /**
+     * Passes every time entry dated within the range (inclusive) to the sink.
+     *
+     * @param startDate First work date to include
+     * @param endDate   Last work date to include
+     * @param sink      Receiver for each matching entry
+     */
+    void forEach(LocalDate startDate, LocalDate endDate, Consumer<TimeEntry> sink);
+
+    /**
+     * Passes one employee's time entries dated within the range (inclusive) to the sink.
+     * Sources that index entries by employee override this; the default scans the range.
+     *
+     * @param empId     Employee ID
+     * @param startDate First work date to include
+     * @param endDate   Last work date to include
+     * @param sink      Receiver for each matching entry
+     */
+    default void forEach(String empId, LocalDate startDate, LocalDate endDate, Consumer<TimeEntry> sink) {
+        forEach(startDate, endDate, entry -> {
+            if (entry.getEmpId().equals(empId)) sink.accept(entry);
+        });
+    }
+
+    /**
+     * Returns a token that changes whenever the underlying time entries may have changed,
+     * so results derived from them can be reused while it stays the same.
+     *
+     * @return Version token, or UNKNOWN_VERSION if the source cannot tell
+     */
+    default long getVersion() { return UNKNOWN_VERSION; }
+
+    /**
+     * Returns a hash of the time entries dated within the range (inclusive), computed without
+     * reading them, so results derived from the range can be reused while it stays the same.
+     *
+     * @param startDate First work date to include
+     * @param endDate   Last work date to include
+     * @return Content hash, or UNKNOWN_VERSION if the source cannot tell without reading the entries
+     */
+    default long getContentHash(LocalDate startDate, LocalDate endDate) { return UNKNOWN_VERSION; }
+
+    /**
+     * Returns a source that parses the time entries CSV file on every query.
+     *
+     * @param filename Path to the time entries CSV file
+     * @return A CSV-backed time entry source
+     */
+    static TimeEntrySource csv(String filename) {
+        return csv(filename, HolidayCalendar.getDefault());
+    }
+
+    /**
+     * Returns a CSV-backed source that classifies work dates with the given holiday calendar.
+     *
+     * @param filename Path to the time entries CSV file
+     * @param calendar Holiday calendar used to classify each work date
+     * @return A CSV-backed time entry source
+     */
+    static TimeEntrySource csv(String filename, HolidayCalendar calendar) {
+        return new TimeEntrySource() {
+            @Override
+            public void forEach(LocalDate startDate, LocalDate endDate, Consumer<TimeEntry> sink) {
+                new TimeEntryReader(startDate, endDate, calendar).read(filename, sink);
+            }
+
+            @Override
+            public long getVersion() {
+                return fileVersion(filename) * 31 + calendar.getFingerprint();
+            }
+        };
+    }
+
+    /**
+     * Returns a version token for a file from its size and last-modified time.
+     */
+    static long fileVersion(String filename) {
+        File file = new File(filename);
+        return file.length() * 1_000_003L + file.lastModified();
+    }
+}
@@ -0,0 +1,493 @@
+package com.payroll;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * TimeEntryStore - A memory-mapped, date-indexed binary copy of the time entries CSV.
+ *
+ * The store is written once from EmployeeTimeEntries.csv and then queried through
+ * FileChannel.map, so a payroll period only touches the pages holding its own rows.
+ * Rows are kept sorted by work date and stored column by column:
+ *
+ *  Header (64 bytes) - magic, version, CSV bytes consumed, CRC of those bytes,
+ *                      holiday calendar fingerprint, row/day counts and capacities,
+ *                      CSV last-modified time
+ *  Day index         - int[dayCapacity + 1], first row number of each work date
+ *  Employee IDs      - int[rowCapacity]
+ *  Clock in          - int[rowCapacity], epoch minutes
+ *  Clock out         - int[rowCapacity], epoch minutes
+ *  Day flags         - byte[rowCapacity], precomputed holiday/rest day bits
+ *  Day hashes        - long[dayCapacity], sum of a hash of every row of each work date
+ *
+ * Rows appended to the CSV after the store was written are added incrementally on the
+ * next {@link #open}. If the CSV was rewritten or the holiday calendar changed, the store
+ * is rebuilt; if that is not possible the caller falls back to reading the CSV directly.
+ *
+ * A CSV whose size and last-modified time are those recorded is taken as unchanged.
+ * Otherwise every byte the store was built from is checksummed again, so a corrected row
+ * anywhere in the file, even one of the same length, rebuilds the store. The check is
+ * repeated before each query, so a long-running process never serves rows the CSV no
+ * longer holds.
+ *
+ * The day hashes answer {@link #getContentHash} without reading any row, so results derived
+ * from a date range (see {@link PayrollCache}) can be checked for staleness for free.
+ */
+public class TimeEntryStore implements TimeEntrySource {
+    private static final int MAGIC = 0x4D505445; // "MPTE"
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 64;
+    private static final int CRC_BUFFER_BYTES = 1 << 16;
+    private static final int MIN_ROW_CAPACITY = 1024;
+    private static final int SPARE_DAYS = 366;
+    private static final int ROW_BYTES = 13; // emp ID, clock in, clock out (ints) and day flags
+
+    private final String csvFile;
+    private final Path storeFile;
+    private final HolidayCalendar calendar;
+    private final long holidayFingerprint;
+
+    private MappedByteBuffer buffer;
+    private long sourceLength;
+    private long checkedLength = -1L, checkedModified; // CSV size and time last found consistent
+    private int rowCount, rowCapacity;
+    private int firstEpochDay, dayCount, dayCapacity;
+
+    private TimeEntryStore(String csvFile, Path storeFile, HolidayCalendar calendar) {
+        this.csvFile = csvFile;
+        this.storeFile = storeFile;
+        this.calendar = calendar;
+        this.holidayFingerprint = calendar.getFingerprint();
+    }
+
+    /**
+     * Opens the store for a time entries CSV, creating, extending or rebuilding it as needed.
+     * The holiday calendar must already be loaded, since day flags are computed from it.
+     *
+     * @param csvFile   Path to the time entries CSV file
+     * @param storeFile Path of the binary store file
+     * @return The opened store, or null if it could not be built (read the CSV instead)
+     */
+    public static TimeEntryStore open(String csvFile, String storeFile) {
+        return open(csvFile, storeFile, HolidayCalendar.getDefault());
+    }
+
+    /**
+     * Opens the store for a time entries CSV, with day flags computed from the given calendar.
+     *
+     * @param csvFile   Path to the time entries CSV file
+     * @param storeFile Path of the binary store file
+     * @param calendar  Holiday calendar used to classify each work date
+     * @return The opened store, or null if it could not be built (read the CSV instead)
+     */
+    public static TimeEntryStore open(String csvFile, String storeFile, HolidayCalendar calendar) {
+        TimeEntryStore store = new TimeEntryStore(csvFile, Paths.get(storeFile), calendar);
+        try {
+            store.refresh();
+            return store;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Time entry store unavailable, reading CSV instead: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Brings the store up to date with the CSV: nothing to do if the CSV is unchanged since
+     * the last check, appended rows are added, and any other change rebuilds the store.
+     */
+    private synchronized void refresh() throws IOException {
+        File csv = new File(csvFile);
+        if (buffer != null && csv.length() == checkedLength && csv.lastModified() == checkedModified) return;
+
+        if (!load()) {
+            rebuild();
+        } else if (csv.length() > sourceLength) {
+            appendFromCsv();
+        }
+    }
+
+    /**
+     * Converts the whole CSV file into a fresh store, replacing any existing one.
+     */
+    public synchronized void rebuild() throws IOException {
+        Rows rows = new Rows();
+        TimeEntryReader reader = new TimeEntryReader(null, null, calendar);
+        if (!reader.read(csvFile, 0L, false, rows::add)) {
+            throw new IOException("cannot read " + csvFile);
+        }
+        rows.sortByDay();
+
+        int first = (rows.size > 0) ? rows.day(0) : 0;
+        int days = (rows.size > 0) ? rows.day(rows.size - 1) - first + 1 : 0;
+        writeFile(rows, first, days, reader.getPosition());
+        load();
+    }
+
+    /**
+     * Adds rows appended to the CSV since the store was last written.
+     * Falls back to a full rebuild if the new rows are dated before the stored ones.
+     */
+    public synchronized void appendFromCsv() throws IOException {
+        Rows rows = new Rows();
+        TimeEntryReader reader = new TimeEntryReader(null, null, calendar);
+        if (!reader.read(csvFile, sourceLength, false, rows::add)) {
+            throw new IOException("cannot read " + csvFile);
+        }
+        if (rows.size == 0 && reader.getPosition() == sourceLength) return;
+
+        rows.sortByDay();
+        if (rows.size > 0 && dayCount > 0 && rows.day(0) < firstEpochDay + dayCount - 1) {
+            rebuild();
+            return;
+        }
+
+        int first = (dayCount > 0) ? firstEpochDay : (rows.size > 0 ? rows.day(0) : 0);
+        int lastDay = (rows.size > 0) ? rows.day(rows.size - 1) : first + dayCount - 1;
+        int days = (rowCount + rows.size > 0) ? lastDay - first + 1 : 0;
+
+        if (rowCount + rows.size > rowCapacity || days > dayCapacity) {
+            Rows all = readAll();
+            all.addAll(rows);
+            writeFile(all, first, days, reader.getPosition());
+        } else {
+            appendInPlace(rows, first, days, reader.getPosition());
+        }
+        load();
+    }
+
+    /**
+     * Streams the stored rows dated within the range, plus any unterminated last CSV line.
+     * Either bound may be null for none.
+     */
+    @Override
+    public synchronized void forEach(LocalDate startDate, LocalDate endDate, Consumer<TimeEntry> sink) {
+        try {
+            refresh();
+        } catch (IOException | IllegalArgumentException e) {
+            // The store cannot follow the CSV any more: answer from the CSV itself
+            System.err.println("Time entry store unavailable, reading CSV instead: " + e.getMessage());
+            new TimeEntryReader(startDate, endDate, calendar).read(csvFile, 0L, true, sink);
+            return;
+        }
+
+        long from = Math.max((startDate != null) ? startDate.toEpochDay() : Long.MIN_VALUE, firstEpochDay);
+        long to = Math.min((endDate != null) ? endDate.toEpochDay() : Long.MAX_VALUE, (long) firstEpochDay + dayCount - 1);
+
+        if (dayCount > 0 && from <= to) {
+            try (PayrollMetrics.Stage stage = PayrollMetrics.start("filterTimeEntriesByDate")) {
+                int firstRow = dayStart((int) (from - firstEpochDay));
+                int endRow = dayStart((int) (to - firstEpochDay) + 1);
+                Map<Integer, String> empIds = new HashMap<>();
+
+                for (int row = firstRow; row < endRow; row++) {
+                    int empId = buffer.getInt(empOffset() + row * 4);
+                    LocalDateTime clockIn = fromEpochMinute(buffer.getInt(clockInOffset() + row * 4));
+                    LocalDateTime clockOut = fromEpochMinute(buffer.getInt(clockOutOffset() + row * 4));
+                    byte flags = buffer.get(flagsOffset() + row);
+                    sink.accept(new TimeEntry(empIds.computeIfAbsent(empId, String::valueOf), clockIn, clockOut, flags));
+                }
+                stage.rows(endRow - firstRow).bytes((long) (endRow - firstRow) * ROW_BYTES);
+            }
+        }
+
+        if (new File(csvFile).length() > sourceLength) {
+            new TimeEntryReader(startDate, endDate, calendar).read(csvFile, sourceLength, true, sink);
+        }
+    }
+
+    /**
+     * Combines the day hashes of the range, plus a hash of any unterminated last CSV line
+     * dated within it.
+     */
+    @Override
+    public synchronized long getContentHash(LocalDate startDate, LocalDate endDate) {
+        Rows tail = new Rows();
+        try {
+            refresh();
+            if (new File(csvFile).length() > sourceLength) {
+                new TimeEntryReader(startDate, endDate, calendar).read(csvFile, sourceLength, true, tail::add);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return UNKNOWN_VERSION;
+        }
+
+        long hash = holidayFingerprint;
+        long from = Math.max((startDate != null) ? startDate.toEpochDay() : Long.MIN_VALUE, firstEpochDay);
+        long to = Math.min((endDate != null) ? endDate.toEpochDay() : Long.MAX_VALUE, (long) firstEpochDay + dayCount - 1);
+        for (long day = from; day <= to; day++) {
+            hash = hash * 31 + buffer.getLong(hashOffset() + (int) (day - firstEpochDay) * 8);
+        }
+        for (int row = 0; row < tail.size; row++) hash = hash * 31 + tail.hash(row);
+        return (hash == UNKNOWN_VERSION) ? hash + 1 : hash;
+    }
+
+    @Override
+    public long getVersion() {
+        return TimeEntrySource.fileVersion(csvFile) * 31 + holidayFingerprint;
+    }
+
+    /**
+     * Gets the number of rows held in the store.
+     *
+     * @return Stored row count
+     */
+    public int getRowCount() { return rowCount; }
+
+    /**
+     * Maps the existing store file and checks that it still matches the CSV and holiday calendar.
+     *
+     * @return false if the store is missing or stale
+     */
+    private boolean load() throws IOException {
+        if (!Files.exists(storeFile)) return false;
+
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) return false;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) return false;
+        sourceLength = buffer.getLong(8);
+        long sourceCrc = buffer.getLong(16);
+        long fingerprint = buffer.getLong(24);
+        rowCount = buffer.getInt(32);
+        rowCapacity = buffer.getInt(36);
+        firstEpochDay = buffer.getInt(40);
+        dayCount = buffer.getInt(44);
+        dayCapacity = buffer.getInt(48);
+        long sourceModified = buffer.getLong(56);
+
+        if (fingerprint != holidayFingerprint) return false;
+        if (buffer.capacity() < hashOffset() + 8L * dayCapacity) return false;
+
+        File csv = new File(csvFile);
+        long length = csv.length(), modified = csv.lastModified();
+        if (length < sourceLength) return false;
+        if (length != sourceLength || modified != sourceModified) {
+            // Touched since the store was written: the rows read from must be byte for byte the same
+            if (crc(sourceLength) != sourceCrc) return false;
+        }
+        checkedLength = length;
+        checkedModified = modified;
+        return true;
+    }
+
+    /**
+     * Writes a complete store file next to the target and atomically moves it into place.
+     */
+    private void writeFile(Rows rows, int first, int days, long consumed) throws IOException {
+        int capacity = Math.max(MIN_ROW_CAPACITY, rows.size + rows.size / 4);
+        int dayCap = days + SPARE_DAYS;
+        long size = HEADER_SIZE + 4L * (dayCap + 1) + 12L * capacity + capacity + 8L * dayCap;
+
+        if (storeFile.getParent() != null) Files.createDirectories(storeFile.getParent());
+        Path temp = storeFile.resolveSibling(storeFile.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            rowCapacity = capacity;
+            dayCapacity = dayCap;
+
+            int[] starts = rows.dayStarts(first, days);
+            for (int i = 0; i <= days; i++) out.putInt(indexOffset() + i * 4, starts[i]);
+            for (int row = 0; row < rows.size; row++) {
+                out.putInt(empOffset() + row * 4, rows.empIds[row]);
+                out.putInt(clockInOffset() + row * 4, rows.clockIns[row]);
+                out.putInt(clockOutOffset() + row * 4, rows.clockOuts[row]);
+                out.put(flagsOffset() + row, rows.flags[row]);
+                int day = hashOffset() + (rows.day(row) - first) * 8;
+                out.putLong(day, out.getLong(day) + rows.hash(row));
+            }
+            putHeader(out, rows.size, first, days, consumed);
+            out.force();
+        }
+        Files.move(temp, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes new rows into the spare capacity of the existing file, updating the header last.
+     */
+    private void appendInPlace(Rows rows, int first, int days, long consumed) throws IOException {
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+
+            int[] starts = rows.dayStarts(first, days);
+            int fromDay = Math.max(0, dayCount);
+            for (int i = fromDay; i <= days; i++) out.putInt(indexOffset() + i * 4, rowCount + starts[i]);
+            for (int row = 0; row < rows.size; row++) {
+                int target = rowCount + row;
+                out.putInt(empOffset() + target * 4, rows.empIds[row]);
+                out.putInt(clockInOffset() + target * 4, rows.clockIns[row]);
+                out.putInt(clockOutOffset() + target * 4, rows.clockOuts[row]);
+                out.put(flagsOffset() + target, rows.flags[row]);
+                int day = hashOffset() + (rows.day(row) - first) * 8;
+                out.putLong(day, out.getLong(day) + rows.hash(row));
+            }
+            out.force();
+            putHeader(out, rowCount + rows.size, first, days, consumed);
+            out.force();
+        }
+    }
+
+    private void putHeader(ByteBuffer out, int rows, int first, int days, long consumed) throws IOException {
+        out.putInt(0, MAGIC);
+        out.putInt(4, VERSION);
+        out.putLong(8, consumed);
+        out.putLong(16, crc(consumed));
+        out.putLong(24, holidayFingerprint);
+        out.putInt(32, rows);
+        out.putInt(36, rowCapacity);
+        out.putInt(40, first);
+        out.putInt(44, days);
+        out.putInt(48, dayCapacity);
+        out.putLong(56, new File(csvFile).lastModified());
+    }
+
+    /**
+     * Reads every stored row back into memory, used when the file must grow.
+     */
+    private Rows readAll() {
+        Rows rows = new Rows();
+        for (int row = 0; row < rowCount; row++) {
+            rows.add(buffer.getInt(empOffset() + row * 4), buffer.getInt(clockInOffset() + row * 4),
+                     buffer.getInt(clockOutOffset() + row * 4), buffer.get(flagsOffset() + row));
+        }
+        return rows;
+    }
+
+    /**
+     * Checksums the CSV bytes consumed so far, to detect any row changed since they were read.
+     */
+    private long crc(long length) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[CRC_BUFFER_BYTES];
+        try (InputStream in = new FileInputStream(csvFile)) {
+            long remaining = length;
+            while (remaining > 0) {
+                int read = in.read(chunk, 0, (int) Math.min(chunk.length, remaining));
+                if (read < 0) throw new EOFException(csvFile + " is shorter than " + length + " bytes");
+                crc.update(chunk, 0, read);
+                remaining -= read;
+            }
+        }
+        return crc.getValue();
+    }
+
+    private int dayStart(int day) { return buffer.getInt(indexOffset() + day * 4); }
+    private int indexOffset() { return HEADER_SIZE; }
+    private int empOffset() { return HEADER_SIZE + 4 * (dayCapacity + 1); }
+    private int clockInOffset() { return empOffset() + 4 * rowCapacity; }
+    private int clockOutOffset() { return clockInOffset() + 4 * rowCapacity; }
+    private int flagsOffset() { return clockOutOffset() + 4 * rowCapacity; }
+    private int hashOffset() { return flagsOffset() + rowCapacity; }
+
+    private static int toEpochMinute(LocalDateTime dateTime) {
+        return (int) (dateTime.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    private static LocalDateTime fromEpochMinute(int epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Growable column buffers used while converting or appending rows.
+     */
+    private static class Rows {
+        int[] empIds = new int[1024];
+        int[] clockIns = new int[1024];
+        int[] clockOuts = new int[1024];
+        byte[] flags = new byte[1024];
+        int size = 0;
+
+        void add(TimeEntry entry) {
+            int empId;
+            try {
+                empId = Integer.parseInt(entry.getEmpId());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("non-numeric employee ID " + entry.getEmpId());
+            }
+            if (!String.valueOf(empId).equals(entry.getEmpId())) {
+                throw new IllegalArgumentException("employee ID " + entry.getEmpId() + " cannot be stored as a number");
+            }
+            add(empId, toEpochMinute(entry.getClockIn()), toEpochMinute(entry.getClockOut()), entry.getDayType());
+        }
+
+        void add(int empId, int clockIn, int clockOut, byte dayFlags) {
+            if (size == empIds.length) {
+                int grown = size * 2;
+                empIds = Arrays.copyOf(empIds, grown);
+                clockIns = Arrays.copyOf(clockIns, grown);
+                clockOuts = Arrays.copyOf(clockOuts, grown);
+                flags = Arrays.copyOf(flags, grown);
+            }
+            empIds[size] = empId;
+            clockIns[size] = clockIn;
+            clockOuts[size] = clockOut;
+            flags[size] = dayFlags;
+            size++;
+        }
+
+        void addAll(Rows other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.empIds[i], other.clockIns[i], other.clockOuts[i], other.flags[i]);
+            }
+        }
+
+        int day(int row) { return Math.floorDiv(clockIns[row], 1440); }
+
+        /**
+         * Hashes a row; rows are combined by addition, so a day's hash does not depend on row order.
+         */
+        long hash(int row) {
+            long hash = empIds[row];
+            hash = hash * 1_000_003L + clockIns[row];
+            hash = hash * 1_000_003L + clockOuts[row];
+            hash = hash * 31 + flags[row];
+            hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+            return hash ^ (hash >>> 33);
+        }
+
+        /**
+         * Stable sort by work date; the CSV is normally already in date order.
+         */
+        void sortByDay() {
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++) sorted = day(i - 1) <= day(i);
+            if (sorted) return;
+
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparingInt(this::day));
+
+            int[] e = new int[size], in = new int[size], out = new int[size];
+            byte[] f = new byte[size];
+            for (int i = 0; i < size; i++) {
+                e[i] = empIds[order[i]];
+                in[i] = clockIns[order[i]];
+                out[i] = clockOuts[order[i]];
+                f[i] = flags[order[i]];
+            }
+            empIds = e; clockIns = in; clockOuts = out; flags = f;
+        }
+
+        /**
+         * Builds the day index: starts[i] is the first row dated first + i, starts[days] is size.
+         */
+        int[] dayStarts(int first, int days) {
+            int[] starts = new int[days + 1];
+            int row = 0;
+            for (int i = 0; i <= days; i++) {
+                while (row < size && day(row) < first + i) row++;
+                starts[i] = row;
+            }
+            return starts;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package com.payroll;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * TimeEntryTable - Time entries packed into a long[] at 16 bytes per row, for keeping years
+ * of DTR history in memory.
+ *
+ * A {@link TimeEntry} costs several hundred bytes (its employee ID string, two LocalDateTime
+ * objects with their nested date and time, and the object headers). Here each row is two
+ * longs and no object:
+ *
+ *  word 0 - clock in (high 32 bits) and clock out (low 32 bits), in epoch minutes
+ *  word 1 - employee index (high 32 bits) and day type byte (low 8 bits, see {@link HolidayCalendar})
+ *
+ * Employee IDs are stored once, in a dictionary indexed by the employee index. Times are
+ * kept to the minute, like the CSV they come from.
+ *
+ * Rows are read through a {@link Cursor}, a flyweight that moves over the rows and decodes
+ * fields on request, so a scan allocates nothing per row; {@link MonthlySummary#calculateWorkedHours(Map, TimeEntryTable, LocalDate, LocalDate, PayrollPeriod.Frequency)}
+ * aggregates straight from it. While rows are added in work-date order (as DTR files are
+ * written) a date range is found by binary search; otherwise {@link #sortByDate()} restores
+ * that order. The table is also a {@link TimeEntrySource}, building a TimeEntry per row for
+ * code that needs one.
+ *
+ * Rows are only ever appended. The table is not thread-safe while rows are added; once
+ * loaded, any number of cursors may read it concurrently.
+ */
+public class TimeEntryTable implements TimeEntrySource {
+    public static final int ROW_BYTES = 16;
+    private static final int WORDS_PER_ROW = 2;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private long[] rows;
+    private int rowCount = 0;
+    private boolean sortedByDate = true;
+    private final long id = NEXT_ID.incrementAndGet(); // Distinct per table in this JVM
+
+    // Employee dictionary: index -> ID and ID -> index
+    private String[] empIds = new String[64];
+    private final Map<String, Integer> employeeIndex = new HashMap<>();
+
+    /**
+     * Creates an empty table.
+     */
+    public TimeEntryTable() {
+        this(1024);
+    }
+
+    /**
+     * Creates an empty table with room for the given number of rows before it grows.
+     */
+    public TimeEntryTable(int expectedRows) {
+        this.rows = new long[Math.max(16, expectedRows) * WORDS_PER_ROW];
+    }
+
+    /**
+     * Loads every row of a time entries CSV file.
+     *
+     * @param filename Path to the time entries CSV file
+     * @return The table; empty if the file cannot be read
+     */
+    public static TimeEntryTable load(String filename) {
+        return load(TimeEntrySource.csv(filename), null, null);
+    }
+
+    /**
+     * Copies the time entries of a source within a date range.
+     *
+     * @param source    Where the time entries are read from
+     * @param startDate First work date to include, or null for no lower bound
+     * @param endDate   Last work date to include, or null for no upper bound
+     * @return The table holding the copied rows
+     */
+    public static TimeEntryTable load(TimeEntrySource source, LocalDate startDate, LocalDate endDate) {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("loadTimeEntryTable")) {
+            TimeEntryTable table = new TimeEntryTable();
+            source.forEach(startDate, endDate, table::add);
+            stage.rows(table.size()).bytes(table.getMemoryBytes());
+            return table;
+        }
+    }
+
+    /**
+     * Appends a time entry.
+     */
+    public void add(TimeEntry entry) {
+        add(entry.getEmpId(), toEpochMinute(entry.getClockIn()), toEpochMinute(entry.getClockOut()), entry.getDayType());
+    }
+
+    /**
+     * Appends a row given in epoch minutes.
+     *
+     * @param empId          Employee ID
+     * @param clockInMinute  Clock in, in minutes since 1970-01-01T00:00
+     * @param clockOutMinute Clock out, in minutes since 1970-01-01T00:00
+     * @param dayType        Day type code of the work date (see {@link HolidayCalendar})
+     */
+    public void add(String empId, int clockInMinute, int clockOutMinute, byte dayType) {
+        Integer index = employeeIndex.get(empId);
+        if (index == null) {
+            index = employeeIndex.size();
+            if (index == empIds.length) empIds = Arrays.copyOf(empIds, index * 2);
+            empIds[index] = empId;
+            employeeIndex.put(empId, index);
+        }
+        if (rowCount * WORDS_PER_ROW == rows.length) rows = Arrays.copyOf(rows, rows.length * 2);
+        if (rowCount > 0 && Math.floorDiv(clockInMinute, MINUTES_PER_DAY) < epochDay(rowCount - 1)) sortedByDate = false;
+
+        int word = rowCount * WORDS_PER_ROW;
+        rows[word] = ((long) clockInMinute << 32) | (clockOutMinute & 0xFFFFFFFFL);
+        rows[word + 1] = ((long) index << 32) | (dayType & 0xFF);
+        rowCount++;
+    }
+
+    /**
+     * Orders the rows by work date, keeping rows of the same date in the order they were added.
+     */
+    public void sortByDate() {
+        if (sortedByDate) return;
+        sortByDay(0, rowCount);
+        sortedByDate = true;
+    }
+
+    /**
+     * Returns the rows dated within a range as a new table, as
+     * {@link TimeEntry#filterTimeEntriesByDate} does for a list.
+     *
+     * @param startDate First work date to include, or null for no lower bound
+     * @param endDate   Last work date to include, or null for no upper bound
+     * @return A table of the matching rows, in table order
+     */
+    public TimeEntryTable filter(LocalDate startDate, LocalDate endDate) {
+        TimeEntryTable filtered = new TimeEntryTable(0);
+        filtered.empIds = empIds.clone();
+        filtered.employeeIndex.putAll(employeeIndex);
+        Cursor cursor = cursor(startDate, endDate);
+        if (sortedByDate) {
+            // The range is contiguous: copy it at once
+            int first = cursor.row + 1;
+            filtered.rows = Arrays.copyOfRange(rows, first * WORDS_PER_ROW, Math.max(first + 16, cursor.end) * WORDS_PER_ROW);
+            filtered.rowCount = cursor.end - first;
+            return filtered;
+        }
+        while (cursor.next()) {
+            if (filtered.rowCount * WORDS_PER_ROW == filtered.rows.length) {
+                filtered.rows = Arrays.copyOf(filtered.rows, filtered.rows.length * 2);
+            }
+            System.arraycopy(rows, cursor.row * WORDS_PER_ROW, filtered.rows, filtered.rowCount * WORDS_PER_ROW, WORDS_PER_ROW);
+            filtered.rowCount++;
+        }
+        filtered.sortedByDate = sortedByDate;
+        return filtered;
+    }
+
+    /**
+     * Opens a cursor over every row.
+     */
+    public Cursor cursor() {
+        return new Cursor(0, rowCount, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Opens a cursor over the rows dated within a range (inclusive). A range ending before it
+     * starts has no rows.
+     *
+     * @param startDate First work date to include, or null for no lower bound
+     * @param endDate   Last work date to include, or null for no upper bound
+     */
+    public Cursor cursor(LocalDate startDate, LocalDate endDate) {
+        long from = (startDate != null) ? startDate.toEpochDay() : Long.MIN_VALUE;
+        long to = (endDate != null) ? endDate.toEpochDay() : Long.MAX_VALUE;
+        if (!sortedByDate) return new Cursor(0, rowCount, from, to);
+
+        int first = firstRowOnOrAfter(from, 0, rowCount);
+        int end = (to == Long.MAX_VALUE) ? rowCount : firstRowOnOrAfter(to + 1, first, rowCount);
+        return new Cursor(first, end, from, to);
+    }
+
+    /**
+     * Opens a cursor over a range of rows.
+     *
+     * @param fromRow First row (inclusive)
+     * @param toRow   Last row (exclusive)
+     */
+    Cursor cursor(int fromRow, int toRow) {
+        return new Cursor(fromRow, toRow, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Binary searches the first row of a range dated on or after an epoch day (the range
+     * sorted by date).
+     *
+     * @param low  First row of the range (inclusive)
+     * @param high Last row of the range (exclusive)
+     */
+    int firstRowOnOrAfter(long epochDay, int low, int high) {
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDay(mid) < epochDay) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private long epochDay(int row) {
+        return Math.floorDiv((int) (rows[row * WORDS_PER_ROW] >> 32), MINUTES_PER_DAY);
+    }
+
+    /**
+     * Copies the rows grouped by employee index, each employee's rows ordered by date; rows of
+     * the same date keep the table order, so a correction still follows the row it corrects.
+     *
+     * @param partitionStart Receives the first row of each employee index in the copy, and
+     *                       the row count at [employee count]; must hold employee count + 1 entries
+     * @return The reordered copy, sharing nothing with this table
+     */
+    TimeEntryTable partitionByEmployee(int[] partitionStart) {
+        int employees = getEmployeeCount();
+        TimeEntryTable partitioned = new TimeEntryTable(rowCount);
+        partitioned.empIds = empIds.clone();
+        partitioned.employeeIndex.putAll(employeeIndex);
+
+        // Counting sort by employee index, keeping the table order within each employee
+        Arrays.fill(partitionStart, 0);
+        for (int row = 0; row < rowCount; row++) {
+            partitionStart[(int) (rows[row * WORDS_PER_ROW + 1] >>> 32) + 1]++;
+        }
+        for (int e = 0; e < employees; e++) partitionStart[e + 1] += partitionStart[e];
+        int[] next = Arrays.copyOf(partitionStart, employees);
+        for (int row = 0; row < rowCount; row++) {
+            int to = next[(int) (rows[row * WORDS_PER_ROW + 1] >>> 32)]++;
+            System.arraycopy(rows, row * WORDS_PER_ROW, partitioned.rows, to * WORDS_PER_ROW, WORDS_PER_ROW);
+        }
+        partitioned.rowCount = rowCount;
+
+        for (int e = 0; e < employees; e++) {
+            partitioned.sortByDay(partitionStart[e], partitionStart[e + 1]);
+        }
+        partitioned.sortedByDate = employees <= 1;
+        return partitioned;
+    }
+
+    /**
+     * Orders a range of rows by date; rows of the same date keep their order.
+     */
+    private void sortByDay(int fromRow, int toRow) {
+        boolean sorted = true;
+        for (int row = fromRow + 1; row < toRow && sorted; row++) {
+            sorted = epochDay(row) >= epochDay(row - 1);
+        }
+        if (sorted) return; // DTR files are usually written in date order
+
+        // Sort keys of date (high 32 bits) and position in the range (low 32 bits)
+        long[] keys = new long[toRow - fromRow];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (epochDay(fromRow + i) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        long[] range = Arrays.copyOfRange(rows, fromRow * WORDS_PER_ROW, toRow * WORDS_PER_ROW);
+        for (int i = 0; i < keys.length; i++) {
+            System.arraycopy(range, (int) keys[i] * WORDS_PER_ROW, rows, (fromRow + i) * WORDS_PER_ROW, WORDS_PER_ROW);
+        }
+    }
+
+    @Override
+    public void forEach(LocalDate startDate, LocalDate endDate, Consumer<TimeEntry> sink) {
+        Cursor cursor = cursor(startDate, endDate);
+        while (cursor.next()) sink.accept(cursor.toTimeEntry());
+    }
+
+    @Override
+    public void forEach(String empId, LocalDate startDate, LocalDate endDate, Consumer<TimeEntry> sink) {
+        Integer index = employeeIndex.get(empId);
+        if (index == null) return;
+        Cursor cursor = cursor(startDate, endDate);
+        while (cursor.next()) {
+            if (cursor.getEmployeeIndex() == index) sink.accept(cursor.toTimeEntry());
+        }
+    }
+
+    /**
+     * Returns a version that changes as rows are added or reordered: the table's ID in the high
+     * 32 bits, so no two tables of a JVM share one, then the row count and the sorted flag.
+     */
+    @Override
+    public long getVersion() {
+        return (id << 32) | ((long) rowCount << 1) | (sortedByDate ? 1 : 0);
+    }
+
+    /**
+     * Gets the number of rows.
+     */
+    public int size() { return rowCount; }
+
+    /**
+     * Gets the number of distinct employees; employee indexes run from 0 to this count - 1.
+     */
+    public int getEmployeeCount() { return employeeIndex.size(); }
+
+    /**
+     * Gets the ID of an employee index.
+     */
+    public String getEmpId(int employeeIndex) {
+        if (employeeIndex < 0 || employeeIndex >= getEmployeeCount()) {
+            throw new IndexOutOfBoundsException("Employee " + employeeIndex + " of " + getEmployeeCount());
+        }
+        return empIds[employeeIndex];
+    }
+
+    /**
+     * Gets the index of an employee ID.
+     *
+     * @return The employee index, or -1 if the table has no rows for the employee
+     */
+    public int getEmployeeIndex(String empId) {
+        Integer index = employeeIndex.get(empId);
+        return (index != null) ? index : -1;
+    }
+
+    /**
+     * Returns whether the rows are in work-date order, so date ranges are found by binary search.
+     */
+    public boolean isSortedByDate() { return sortedByDate; }
+
+    /**
+     * Gets the bytes held by the rows (allocated capacity, not counting the employee dictionary).
+     */
+    public long getMemoryBytes() { return (long) rows.length * Long.BYTES; }
+
+    private static int toEpochMinute(LocalDateTime dateTime) {
+        return (int) Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60L);
+    }
+
+    private static LocalDateTime fromEpochMinute(int epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * A position in the table that decodes the fields of its current row on request.
+     *
+     * A cursor starts before its first row; each {@link #next()} moves to the next row in
+     * range. The same cursor object serves every row, so values must be copied out before
+     * moving on.
+     */
+    public final class Cursor {
+        private final int end;
+        private final long fromDay, toDay;
+        private int row;
+        private long times, employee;
+
+        private Cursor(int start, int end, long fromDay, long toDay) {
+            this.row = start - 1;
+            this.end = end;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+
+        /**
+         * Moves to the next row in range.
+         *
+         * @return false once there are no more rows
+         */
+        public boolean next() {
+            while (++row < end) {
+                times = rows[row * WORDS_PER_ROW];
+                long day = Math.floorDiv((int) (times >> 32), MINUTES_PER_DAY);
+                if (day >= fromDay && day <= toDay) {
+                    employee = rows[row * WORDS_PER_ROW + 1];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public int getRow() { return row; }
+        public int getEmployeeIndex() { return (int) (employee >>> 32); }
+        public String getEmpId() { return empIds[getEmployeeIndex()]; }
+        public byte getDayType() { return (byte) employee; }
+
+        /**
+         * Gets the clock in, in minutes since 1970-01-01T00:00.
+         */
+        public int getClockInEpochMinute() { return (int) (times >> 32); }
+
+        /**
+         * Gets the clock out, in minutes since 1970-01-01T00:00.
+         */
+        public int getClockOutEpochMinute() { return (int) times; }
+
+        /**
+         * Gets the work date (the clock-in date) as days since 1970-01-01.
+         */
+        public long getEpochDay() { return Math.floorDiv(getClockInEpochMinute(), MINUTES_PER_DAY); }
+
+        /**
+         * Gets the clock-in time of day in minutes since midnight.
+         */
+        public int getClockInMinuteOfDay() { return Math.floorMod(getClockInEpochMinute(), MINUTES_PER_DAY); }
+
+        /**
+         * Gets the whole minutes between clock in and clock out, as {@link TimeEntry#getMinutesWorked()}.
+         */
+        public int getMinutesWorked() { return getClockOutEpochMinute() - getClockInEpochMinute(); }
+
+        public boolean isRegularHoliday() { return (getDayType() & HolidayCalendar.REGULAR_HOLIDAY) != 0; }
+        public boolean isSpecialNonWorking() { return (getDayType() & HolidayCalendar.SPECIAL_NON_WORKING) != 0; }
+        public boolean isRestDay() { return (getDayType() & HolidayCalendar.REST_DAY) != 0; }
+        public float getHolidayMultiplier() { return HolidayCalendar.getMultiplier(getDayType()); }
+
+        // Decoded to objects; these allocate
+        public LocalDate getWorkDate() { return LocalDate.ofEpochDay(getEpochDay()); }
+        public LocalDateTime getClockIn() { return fromEpochMinute(getClockInEpochMinute()); }
+        public LocalDateTime getClockOut() { return fromEpochMinute(getClockOutEpochMinute()); }
+
+        /**
+         * Builds a TimeEntry of the current row.
+         */
+        public TimeEntry toTimeEntry() {
+            return new TimeEntry(getEmpId(), getClockIn(), getClockOut(), getDayType());
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.payroll;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * TimeEntryValidator - Audits time entries for errors and anomalies while they are parsed.
+ *
+ * A validator is attached to a {@link TimeEntryReader}, which hands it every row in the
+ * same scan that builds the TimeEntry objects, as primitive values (line number, employee,
+ * epoch day, clock-in and clock-out minutes). Per-row rules are a few integer comparisons
+ * and one store into the employee's array of days seen (rows arrive grouped by employee,
+ * so that array stays in cache), so no second pass over the file is needed.
+ *
+ * Rules:
+ *  MALFORMED_ROW             - too few columns, or an unparsable date or time (the row is skipped)
+ *  UNKNOWN_EMPLOYEE          - employee ID not in the roster (only checked if a roster is given)
+ *  CLOCK_OUT_BEFORE_CLOCK_IN - clock-out not after clock-in on the same day (paid as zero hours)
+ *  OVERNIGHT_SHIFT           - evening clock-in with a morning clock-out, likely a shift past
+ *                              midnight; also paid as zero hours, since rows hold one date
+ *  EXCESSIVE_HOURS           - more than 16 hours between clock-in and clock-out
+ *  DUPLICATE_PUNCH           - a second row for the same employee and date
+ *  MISSING_DAY               - a workday (not a rest day or non-working holiday) with no row,
+ *                              between the employee's first and last entry; found by
+ *                              {@link #finish()} from the days seen, not by re-reading rows
+ *
+ * Counts per rule are exact; the details of at most MAX_ANOMALIES anomalies are kept.
+ */
+public class TimeEntryValidator {
+    public static final int MAX_ANOMALIES = 100_000;
+    public static final int MAX_SHIFT_MINUTES = 16 * 60;
+
+    private static final int EVENING = 18 * 60;
+    private static final int NOON = 12 * 60;
+    private static final String REPORT_LINE = "-".repeat(110);
+
+    /**
+     * The checks applied to each row, in report order.
+     */
+    public enum Rule {
+        MALFORMED_ROW("Malformed row"),
+        UNKNOWN_EMPLOYEE("Unknown employee"),
+        CLOCK_OUT_BEFORE_CLOCK_IN("Clock-out before clock-in"),
+        OVERNIGHT_SHIFT("Overnight shift"),
+        EXCESSIVE_HOURS("Excessive hours"),
+        DUPLICATE_PUNCH("Duplicate punch"),
+        MISSING_DAY("Missing day");
+
+        private final String label;
+
+        Rule(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Gets the heading used in the report (e.g., "Duplicate punch").
+         */
+        public String getLabel() { return label; }
+    }
+
+    /**
+     * One finding: the rule it broke, the employee and line it concerns, and a description.
+     */
+    public static final class Anomaly {
+        private final Rule rule;
+        private final String empId;
+        private final long lineNumber;
+        private final LocalDate date;
+        private final String detail;
+
+        Anomaly(Rule rule, String empId, long lineNumber, LocalDate date, String detail) {
+            this.rule = rule;
+            this.empId = empId;
+            this.lineNumber = lineNumber;
+            this.date = date;
+            this.detail = detail;
+        }
+
+        public Rule getRule() { return rule; }
+        public String getEmpId() { return empId; }
+
+        /**
+         * Gets the line of the CSV file (the header is line 1), or 0 for a missing day.
+         */
+        public long getLineNumber() { return lineNumber; }
+
+        /**
+         * Gets the work date, or null if the row's date could not be read.
+         */
+        public LocalDate getDate() { return date; }
+        public String getDetail() { return detail; }
+    }
+
+    private final Map<String, EmployeeData> employees;
+    private final HolidayCalendar calendar;
+
+    // Dense per-employee state, indexed in order of first appearance; dayLines[e][d] is the
+    // line of employee e's first row on epoch day firstDays[e] + d, or 0 if there is none
+    private final Map<String, Integer> employeeIndex = new HashMap<>();
+    private String[] empIds = new String[256];
+    private int[] firstDays = new int[256];
+    private int[] lastDays = new int[256];
+    private long[][] dayLines = new long[256][];
+    private String lastEmpId;
+    private int lastIndex;
+
+    private final List<Anomaly> anomalies = new ArrayList<>();
+    private final long[] counts = new long[Rule.values().length];
+    private long rowsChecked = 0;
+    private boolean finished = false;
+
+    /**
+     * Creates a validator.
+     *
+     * @param employees Roster to check employee IDs against, or null to skip that rule
+     * @param calendar  Holiday calendar deciding which days are workdays
+     */
+    public TimeEntryValidator(Map<String, EmployeeData> employees, HolidayCalendar calendar) {
+        this.employees = employees;
+        this.calendar = calendar;
+    }
+
+    /**
+     * Reads a time entries file with a validator attached and returns the finished validator.
+     *
+     * @param filename  Path to the time entries CSV file
+     * @param startDate First work date to check, or null for no lower bound
+     * @param endDate   Last work date to check, or null for no upper bound
+     * @param employees Roster to check employee IDs against, or null to skip that rule
+     * @param calendar  Holiday calendar deciding which days are workdays
+     * @return The validator, or null if the file could not be read
+     */
+    public static TimeEntryValidator validate(String filename, LocalDate startDate, LocalDate endDate,
+                                              Map<String, EmployeeData> employees, HolidayCalendar calendar) {
+        try (PayrollMetrics.Stage stage = PayrollMetrics.start("validateTimeEntries")) {
+            TimeEntryValidator validator = new TimeEntryValidator(employees, calendar);
+            TimeEntryReader reader = new TimeEntryReader(startDate, endDate, calendar);
+            reader.setValidator(validator);
+            if (!reader.read(filename, entry -> { })) return null;
+            validator.finish();
+            stage.rows(validator.getRowsChecked()).bytes(reader.getPosition()).skipped(validator.getAnomalyCount());
+            return validator;
+        }
+    }
+
+    /**
+     * Records a row that could not be parsed.
+     *
+     * @param lineNumber Line of the row in the file
+     * @param empId      Text of the employee ID column, or null if the row has none
+     * @param detail     What was wrong
+     */
+    void malformed(long lineNumber, String empId, String detail) {
+        add(Rule.MALFORMED_ROW, (empId != null) ? empId : "", lineNumber, null, detail);
+    }
+
+    /**
+     * Checks one parsed row.
+     *
+     * @param lineNumber    Line of the row in the file
+     * @param empId         Employee ID
+     * @param epochDay      Work date
+     * @param clockInMinute Clock-in, in minutes since midnight
+     * @param clockOutMinute Clock-out, in minutes since midnight
+     */
+    void check(long lineNumber, String empId, long epochDay, int clockInMinute, int clockOutMinute) {
+        rowsChecked++;
+        int employee = indexOf(empId);
+
+        if (employees != null && !employees.containsKey(empId)) {
+            add(Rule.UNKNOWN_EMPLOYEE, empId, lineNumber, epochDay, "Employee ID " + empId + " is not in the roster");
+        }
+
+        if (clockOutMinute <= clockInMinute) {
+            if (clockInMinute >= EVENING && clockOutMinute <= NOON) {
+                add(Rule.OVERNIGHT_SHIFT, empId, lineNumber, epochDay, formatTime(clockInMinute) + " to "
+                        + formatTime(clockOutMinute) + " crosses midnight; no hours are counted");
+            } else {
+                add(Rule.CLOCK_OUT_BEFORE_CLOCK_IN, empId, lineNumber, epochDay, "Clock-out " + formatTime(clockOutMinute)
+                        + " is not after clock-in " + formatTime(clockInMinute) + "; no hours are counted");
+            }
+        } else if (clockOutMinute - clockInMinute > MAX_SHIFT_MINUTES) {
+            add(Rule.EXCESSIVE_HOURS, empId, lineNumber, epochDay, String.format("%.2f hours from %s to %s",
+                    (clockOutMinute - clockInMinute) / 60f, formatTime(clockInMinute), formatTime(clockOutMinute)));
+        }
+
+        long firstLine = putDay(employee, (int) epochDay, lineNumber);
+        if (firstLine != 0L) {
+            add(Rule.DUPLICATE_PUNCH, empId, lineNumber, epochDay, "Same date as line " + firstLine);
+        }
+    }
+
+    /**
+     * Looks for missing workdays among the days seen. Call once all rows are read; later
+     * calls do nothing.
+     */
+    public void finish() {
+        if (finished) return;
+        finished = true;
+
+        for (int employee = 0; employee < employeeIndex.size(); employee++) {
+            long[] lines = dayLines[employee];
+            for (int day = firstDays[employee] + 1; day < lastDays[employee]; day++) {
+                byte dayType = calendar.getDayType(day);
+                boolean workday = (dayType & (HolidayCalendar.REST_DAY | HolidayCalendar.REGULAR_HOLIDAY
+                                              | HolidayCalendar.SPECIAL_NON_WORKING)) == 0;
+                if (workday && lines[day - firstDays[employee]] == 0L) {
+                    add(Rule.MISSING_DAY, empIds[employee], 0L, day, "No time entry on a workday");
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of rows that were parsed and checked (malformed rows excluded).
+     */
+    public long getRowsChecked() { return rowsChecked; }
+
+    /**
+     * Gets the number of anomalies found for a rule.
+     */
+    public long getCount(Rule rule) { return counts[rule.ordinal()]; }
+
+    /**
+     * Gets the total number of anomalies found.
+     */
+    public long getAnomalyCount() {
+        long total = 0L;
+        for (long count : counts) total += count;
+        return total;
+    }
+
+    /**
+     * Gets the anomalies kept, ordered by employee ID, rule, date and line.
+     */
+    public List<Anomaly> getAnomalies() {
+        List<Anomaly> sorted = new ArrayList<>(anomalies);
+        sorted.sort(Comparator.comparing(Anomaly::getEmpId)
+                .thenComparing(Anomaly::getRule)
+                .thenComparing(Anomaly::getDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparingLong(Anomaly::getLineNumber));
+        return sorted;
+    }
+
+    /**
+     * Writes the exception report: counts per rule, then each employee's anomalies grouped by rule.
+     */
+    public void writeReport(Writer out) throws IOException {
+        out.write(REPORT_LINE + "\n");
+        out.write(String.format(" TIME ENTRY VALIDATION | Rows checked: %,d | Anomalies: %,d%n", rowsChecked, getAnomalyCount()));
+        out.write(REPORT_LINE + "\n");
+        for (Rule rule : Rule.values()) {
+            out.write(String.format(" %-28s: %,10d%n", rule.getLabel(), getCount(rule)));
+        }
+        if (anomalies.size() < getAnomalyCount()) {
+            out.write(String.format(" (details of the first %,d anomalies only)%n", anomalies.size()));
+        }
+
+        String empId = null;
+        Rule rule = null;
+        for (Anomaly anomaly : getAnomalies()) {
+            if (!anomaly.empId.equals(empId)) {
+                empId = anomaly.empId;
+                rule = null;
+                EmployeeData employee = (employees != null) ? employees.get(empId) : null;
+                out.write(REPORT_LINE + "\n");
+                out.write(" Employee " + (empId.isEmpty() ? "(none)" : empId)
+                        + ((employee != null) ? " - " + employee.getName() : "") + "\n");
+            }
+            if (anomaly.rule != rule) {
+                rule = anomaly.rule;
+                out.write("   " + rule.getLabel() + "\n");
+            }
+            out.write(String.format("     %-10s | %-9s | %s%n",
+                    (anomaly.date != null) ? anomaly.date : "",
+                    (anomaly.lineNumber > 0) ? "line " + anomaly.lineNumber : "", anomaly.detail));
+        }
+        out.write(REPORT_LINE + "\n");
+        out.flush();
+    }
+
+    /**
+     * Writes the anomalies as CSV: emp_id, rule, line, date, detail.
+     */
+    public void writeCsv(Writer out) throws IOException {
+        out.write("emp_id,rule,line,date,detail\n");
+        for (Anomaly anomaly : getAnomalies()) {
+            out.write(quote(anomaly.empId) + "," + anomaly.rule + "," + (anomaly.lineNumber > 0 ? anomaly.lineNumber : "")
+                    + "," + (anomaly.date != null ? anomaly.date : "") + "," + quote(anomaly.detail) + "\n");
+        }
+        out.flush();
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private void add(Rule rule, String empId, long lineNumber, long epochDay, String detail) {
+        add(rule, empId, lineNumber, LocalDate.ofEpochDay(epochDay), detail);
+    }
+
+    private void add(Rule rule, String empId, long lineNumber, LocalDate date, String detail) {
+        counts[rule.ordinal()]++;
+        if (anomalies.size() < MAX_ANOMALIES) anomalies.add(new Anomaly(rule, empId, lineNumber, date, detail));
+    }
+
+    /**
+     * Returns the dense index of an employee, adding it on its first row.
+     */
+    private int indexOf(String empId) {
+        // Rows are usually grouped by employee, and the reader pools ID strings
+        if (empId == lastEmpId) return lastIndex;
+
+        Integer index = employeeIndex.get(empId);
+        if (index == null) {
+            index = employeeIndex.size();
+            if (index == empIds.length) {
+                empIds = Arrays.copyOf(empIds, index * 2);
+                firstDays = Arrays.copyOf(firstDays, index * 2);
+                lastDays = Arrays.copyOf(lastDays, index * 2);
+                dayLines = Arrays.copyOf(dayLines, index * 2);
+            }
+            employeeIndex.put(empId, index);
+            empIds[index] = empId;
+        }
+        lastEmpId = empId;
+        lastIndex = index;
+        return index;
+    }
+
+    /**
+     * Records the line of an employee's row for a day, widening the employee's day range.
+     *
+     * @return The line already recorded for that day, or 0 if this is the first
+     */
+    private long putDay(int employee, int epochDay, long lineNumber) {
+        long[] lines = dayLines[employee];
+        if (lines == null) {
+            lines = dayLines[employee] = new long[32];
+            firstDays[employee] = lastDays[employee] = epochDay;
+        } else if (epochDay < firstDays[employee]) {
+            int shift = firstDays[employee] - epochDay;
+            long[] widened = new long[Math.max(lines.length + shift, lines.length * 2)];
+            System.arraycopy(lines, 0, widened, shift, lines.length);
+            lines = dayLines[employee] = widened;
+            firstDays[employee] = epochDay;
+        }
+
+        int offset = epochDay - firstDays[employee];
+        if (offset >= lines.length) {
+            lines = dayLines[employee] = Arrays.copyOf(lines, Math.max(offset + 1, lines.length * 2));
+        }
+        if (epochDay > lastDays[employee]) lastDays[employee] = epochDay;
+
+        long firstLine = lines[offset];
+        if (firstLine == 0L) lines[offset] = lineNumber;
+        return firstLine;
+    }
+
+    private static String formatTime(int minuteOfDay) {
+        int hour = minuteOfDay / 60;
+        int hour12 = (hour % 12 == 0) ? 12 : hour % 12;
+        return String.format("%d:%02d %s", hour12, minuteOfDay % 60, (hour < 12) ? "AM" : "PM");
+    }
+}
@@ -0,0 +1,129 @@
+package com.payroll;
+
+import java.io.*;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * YearEndTax - Year-end annualization of an employee's withholding tax (BIR Form 2316 figures).
+ *
+ * Computed from the employee's {@link YtdTotals} alone:
+ *  - 13th month pay is 1/12 of the basic salary earned in the year; up to PHP 90,000 of it
+ *    is non-taxable and the excess is added to taxable compensation.
+ *  - Taxable compensation is the year's gross income less SSS, PhilHealth and Pag-IBIG
+ *    contributions, plus the taxable part of the 13th month pay.
+ *  - The tax due comes from the annual BIR table; the difference from the tax already
+ *    withheld is collected from (positive) or refunded to (negative) the employee in the
+ *    last payroll of the year.
+ */
+public class YearEndTax {
+    public static final float THIRTEENTH_MONTH_EXEMPTION = 90000f;
+
+    private static final String REPORT_LINE = "-".repeat(170);
+
+    private final EmployeeData employee;
+    private final YtdTotals totals;
+
+    // Amounts in centavos
+    private final long thirteenthMonthPay;
+    private final long nonTaxableThirteenthMonth;
+    private final long taxableCompensation;
+    private final long taxDue;
+
+    private YearEndTax(EmployeeData employee, YtdTotals totals, DeductionSchedule schedule) {
+        this.employee = employee;
+        this.totals = totals;
+        this.thirteenthMonthPay = Money.multiplyDivide(totals.getBasicSalaryEarnedCentavos(), 1, 12, RoundingMode.HALF_UP);
+        this.nonTaxableThirteenthMonth = Math.min(thirteenthMonthPay, Money.ofPesos(THIRTEENTH_MONTH_EXEMPTION));
+
+        long taxable = totals.getCentavos(YtdTotals.GROSS_INCOME) - totals.getContributionsCentavos()
+            + (thirteenthMonthPay - nonTaxableThirteenthMonth);
+        this.taxableCompensation = Math.max(0L, taxable);
+        this.taxDue = schedule.calculateAnnualBIRCentavos(taxableCompensation);
+    }
+
+    /**
+     * Annualizes an employee's year-to-date figures.
+     *
+     * @param employee The employee
+     * @param totals   The employee's year-to-date totals
+     * @param schedule Deduction schedule in effect at year end (its BIR_ANNUAL table is used)
+     * @return The year-end tax figures
+     */
+    public static YearEndTax calculate(EmployeeData employee, YtdTotals totals, DeductionSchedule schedule) {
+        return new YearEndTax(employee, totals, schedule);
+    }
+
+    public EmployeeData getEmployee() { return employee; }
+    public YtdTotals getTotals() { return totals; }
+
+    public double getThirteenthMonthPay() { return Money.toPesos(thirteenthMonthPay); }
+    public double getNonTaxableThirteenthMonth() { return Money.toPesos(nonTaxableThirteenthMonth); }
+
+    /**
+     * Returns gross compensation: gross income, 13th month pay and de minimis benefits.
+     */
+    public double getGrossCompensation() {
+        return Money.toPesos(totals.getCentavos(YtdTotals.GROSS_INCOME) + thirteenthMonthPay
+                             + totals.getCentavos(YtdTotals.DE_MINIMIS));
+    }
+
+    /**
+     * Returns non-taxable compensation: exempt 13th month pay, de minimis benefits and
+     * government contributions.
+     */
+    public double getNonTaxableCompensation() {
+        return Money.toPesos(nonTaxableThirteenthMonth + totals.getCentavos(YtdTotals.DE_MINIMIS)
+                             + totals.getContributionsCentavos());
+    }
+
+    public double getTaxableCompensation() { return Money.toPesos(taxableCompensation); }
+    public double getTaxDue() { return Money.toPesos(taxDue); }
+    public double getTaxWithheld() { return totals.get(YtdTotals.WITHHOLDING_TAX); }
+
+    /**
+     * Returns tax due less tax withheld: positive amounts are still to be withheld,
+     * negative amounts are refunded.
+     */
+    public double getAdjustment() { return Money.toPesos(taxDue - totals.getCentavos(YtdTotals.WITHHOLDING_TAX)); }
+
+    /**
+     * Writes the year-end annualization report: one line per employee plus company totals.
+     *
+     * @param figures Year-end figures (e.g., from {@link YtdLedger#calculateYearEnd})
+     * @param year    Calendar year
+     * @param out     Destination of the report
+     */
+    public static void writeReport(List<YearEndTax> figures, int year, Writer out) throws IOException {
+        out.write(REPORT_LINE + "\n");
+        out.write(String.format(" YEAR-END TAX ANNUALIZATION (BIR 2316) | Year: %d | Employees: %d%n", year, figures.size()));
+        out.write(REPORT_LINE + "\n");
+        out.write(String.format(" %-6s | %-24s | %7s | %14s | %12s | %14s | %14s | %12s | %12s | %12s%n",
+                "Emp ID", "Employee Name", "Periods", "Gross Comp.", "13th Month", "Non-Taxable", "Taxable Comp.",
+                "Tax Due", "Tax Withheld", "Adjustment"));
+        out.write(REPORT_LINE + "\n");
+
+        double gross = 0, thirteenth = 0, nonTaxable = 0, taxable = 0, due = 0, withheld = 0;
+        for (YearEndTax tax : figures) {
+            String name = tax.employee.getName();
+            if (name.length() > 24) name = name.substring(0, 24);
+            out.write(String.format(" %-6s | %-24s | %7d | %,14.2f | %,12.2f | %,14.2f | %,14.2f | %,12.2f | %,12.2f | %,12.2f%n",
+                    tax.employee.getEmpId(), name, tax.totals.getPeriodCount(), tax.getGrossCompensation(),
+                    tax.getThirteenthMonthPay(), tax.getNonTaxableCompensation(), tax.getTaxableCompensation(),
+                    tax.getTaxDue(), tax.getTaxWithheld(), tax.getAdjustment()));
+
+            gross += tax.getGrossCompensation();
+            thirteenth += tax.getThirteenthMonthPay();
+            nonTaxable += tax.getNonTaxableCompensation();
+            taxable += tax.getTaxableCompensation();
+            due += tax.getTaxDue();
+            withheld += tax.getTaxWithheld();
+        }
+
+        out.write(REPORT_LINE + "\n");
+        out.write(String.format(" %-6s | %-24s | %7s | %,14.2f | %,12.2f | %,14.2f | %,14.2f | %,12.2f | %,12.2f | %,12.2f%n",
+                "TOTAL", "", "", gross, thirteenth, nonTaxable, taxable, due, withheld, due - withheld));
+        out.write(REPORT_LINE + "\n");
+        out.flush();
+    }
+}
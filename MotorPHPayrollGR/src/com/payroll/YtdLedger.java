@@ -0,0 +1,223 @@
+package com.payroll;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * YtdLedger - Append-only year-to-date payroll ledger, one file per calendar year.
+ *
+ * Each finalized pay period is posted as one record per employee, appended to the file and
+ * forced to disk before the in-memory totals change. On open the records are replayed into
+ * {@link YtdTotals}, so year-end annualization, 13th month pay and BIR 2316 figures come
+ * from one small record per employee-period instead of the year's time entries.
+ *
+ * File layout:
+ *
+ *  Header (12 bytes) - magic, version, calendar year
+ *  Record            - int payload length, payload, int CRC32 of the payload
+ *  Payload           - employee ID (modified UTF-8), frequency ordinal, start and end
+ *                      epoch days, then the ten figures of {@link YtdTotals} in centavos
+ *
+ * A crash can only leave a partly written record at the end of the file. Such a tail
+ * fails its length or CRC check when the ledger is next opened and is cut off, so the
+ * ledger always holds whole postings. Periods belong to the year their last day falls in.
+ */
+public class YtdLedger implements Closeable {
+    private static final int MAGIC = 0x4D50594C; // "MPYL"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 12;
+    private static final int MAX_PAYLOAD = 1024;
+
+    private final Path file;
+    private final int year;
+    private final FileChannel channel;
+    private final Map<String, YtdTotals> totalsByEmpId = new HashMap<>();
+    private long recordCount = 0L;
+
+    private YtdLedger(Path file, int year, FileChannel channel) {
+        this.file = file;
+        this.year = year;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the ledger of a year, creating it if missing and replaying its records.
+     *
+     * @param directory Directory holding the ledger files (created if missing)
+     * @param year      Calendar year of the ledger
+     * @return The opened ledger; close it when done posting
+     * @throws IOException if the file cannot be created or is not a ledger of that year
+     */
+    public static YtdLedger open(String directory, int year) throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("ytd-" + year + ".ledger");
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        YtdLedger ledger = new YtdLedger(file, year, channel);
+        try {
+            ledger.load();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return ledger;
+    }
+
+    /**
+     * Writes the header of a new ledger, or replays an existing one and cuts off a torn tail.
+     */
+    private void load() throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putInt(year);
+            header.flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.force(true);
+            channel.position(HEADER_SIZE);
+            return;
+        }
+
+        // Not closed: closing the stream would close the channel
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0)), 1 << 16));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != year) {
+            throw new IOException(file + " is not a YTD ledger for " + year);
+        }
+
+        long validLength = HEADER_SIZE;
+        long size = channel.size();
+        CRC32 crc = new CRC32();
+        byte[] payload = new byte[MAX_PAYLOAD];
+        while (validLength + 8 <= size) {
+            int length = in.readInt();
+            if (length <= 0 || length > MAX_PAYLOAD || validLength + 8 + length > size) break;
+            in.readFully(payload, 0, length);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if (in.readInt() != (int) crc.getValue()) break;
+
+            apply(new DataInputStream(new ByteArrayInputStream(payload, 0, length)));
+            validLength += 8 + length;
+        }
+
+        if (validLength < channel.size()) {
+            System.err.println("[Warning] Discarded " + (channel.size() - validLength)
+                    + " bytes of an incomplete record at the end of " + file.getFileName());
+            channel.truncate(validLength);
+            channel.force(true);
+        }
+        channel.position(validLength);
+    }
+
+    private void apply(DataInputStream payload) throws IOException {
+        String empId = payload.readUTF();
+        long periodId = YtdTotals.periodId(payload.readByte(), payload.readInt(), payload.readInt());
+        long[] amounts = new long[YtdTotals.FIELDS];
+        for (int field = 0; field < amounts.length; field++) amounts[field] = payload.readLong();
+
+        totalsByEmpId.computeIfAbsent(empId, YtdTotals::new).post(periodId, amounts);
+        recordCount++;
+    }
+
+    /**
+     * Posts the payroll results of finalized pay periods. Results whose period ends in another
+     * year are skipped; a period posted again for an employee replaces its earlier figures.
+     * All records of one call are written and forced to disk together.
+     *
+     * @param results Payroll results (e.g., from {@link PayrollBatch#calculateAll})
+     * @return Number of results posted
+     * @throws IOException if the records could not be written; the totals are then unchanged
+     */
+    public synchronized int post(Collection<PayrollResult> results) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(results.size() * 112);
+        DataOutputStream out = new DataOutputStream(records);
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(112);
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        CRC32 crc = new CRC32();
+
+        List<PayrollResult> posted = new ArrayList<>(results.size());
+        for (PayrollResult result : results) {
+            PayrollPeriod period = result.getPeriod();
+            if (period.getEndDate().getYear() != year) continue;
+
+            payloadBytes.reset();
+            payload.writeUTF(result.getEmployee().getEmpId());
+            payload.writeByte(period.getFrequency().ordinal());
+            payload.writeInt((int) period.getStartDate().toEpochDay());
+            payload.writeInt((int) period.getEndDate().toEpochDay());
+            for (long amount : YtdTotals.amountsOf(result)) payload.writeLong(amount);
+
+            byte[] bytes = payloadBytes.toByteArray();
+            crc.reset();
+            crc.update(bytes);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeInt((int) crc.getValue());
+            posted.add(result);
+        }
+        if (posted.isEmpty()) return 0;
+
+        long start = channel.position();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+        } catch (IOException e) {
+            // Leave no partial posting behind for the next open to find
+            channel.truncate(start);
+            channel.position(start);
+            throw e;
+        }
+
+        for (PayrollResult result : posted) {
+            totalsByEmpId.computeIfAbsent(result.getEmployee().getEmpId(), YtdTotals::new)
+                .post(YtdTotals.periodId(result.getPeriod()), YtdTotals.amountsOf(result));
+        }
+        recordCount += posted.size();
+        return posted.size();
+    }
+
+    public int getYear() { return year; }
+
+    /**
+     * Gets the number of records in the ledger, including periods posted more than once.
+     */
+    public synchronized long getRecordCount() { return recordCount; }
+
+    /**
+     * Gets an employee's year-to-date totals.
+     *
+     * @return The totals, or null if nothing was posted for the employee
+     */
+    public synchronized YtdTotals getTotals(String empId) { return totalsByEmpId.get(empId); }
+
+    /**
+     * Computes the year-end annualization of every employee in the ledger, in employee ID order.
+     *
+     * @param employees A map of employee ID to EmployeeData; employees not in it are skipped
+     * @return Year-end tax figures (BIR 2316) per employee
+     */
+    public synchronized List<YearEndTax> calculateYearEnd(Map<String, EmployeeData> employees) {
+        DeductionSchedule schedule = GovernmentDeductions.getSchedule(LocalDate.of(year, 12, 31));
+        List<String> empIds = new ArrayList<>(totalsByEmpId.keySet());
+        Collections.sort(empIds);
+
+        List<YearEndTax> figures = new ArrayList<>(empIds.size());
+        for (String empId : empIds) {
+            EmployeeData employee = employees.get(empId);
+            if (employee != null) figures.add(YearEndTax.calculate(employee, totalsByEmpId.get(empId), schedule));
+        }
+        return figures;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,141 @@
+package com.payroll;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * YtdTotals - One employee's year-to-date payroll figures, as posted to the {@link YtdLedger}.
+ *
+ * The figures of each posted pay period are kept next to the running totals, so a period
+ * posted again (e.g., after a correction) replaces its earlier figures instead of being
+ * counted twice. Totals are kept in centavos (see {@link Money}), indexed by the field codes
+ * below, so they equal the sum of the posted payslips exactly.
+ */
+public class YtdTotals {
+    public static final int REGULAR_PAY = 0;
+    public static final int GROSS_INCOME = 1;
+    public static final int SSS = 2;
+    public static final int PHILHEALTH = 3;
+    public static final int PAGIBIG = 4;
+    public static final int TAXABLE_INCOME = 5;
+    public static final int WITHHOLDING_TAX = 6;
+    public static final int DE_MINIMIS = 7;
+    public static final int LATE_DEDUCTIONS = 8;
+    public static final int NET_PAY = 9;
+    static final int FIELDS = 10;
+
+    private final String empId;
+    private final long[] totals = new long[FIELDS];
+
+    // Posted periods: packed frequency and dates, and their figures FIELDS at a time
+    private int periodCount = 0;
+    private long[] periodIds = new long[4];
+    private long[] periodAmounts = new long[4 * FIELDS];
+
+    YtdTotals(String empId) {
+        this.empId = empId;
+    }
+
+    /**
+     * Extracts the ledger figures of a payroll result.
+     */
+    static long[] amountsOf(PayrollResult result) {
+        long[] amounts = new long[FIELDS];
+        amounts[REGULAR_PAY] = result.getRegularPayCentavos();
+        amounts[GROSS_INCOME] = result.getGrossIncomeCentavos();
+        amounts[SSS] = result.getSssCentavos();
+        amounts[PHILHEALTH] = result.getPhilHealthCentavos();
+        amounts[PAGIBIG] = result.getPagibigCentavos();
+        amounts[TAXABLE_INCOME] = result.getTaxableIncomeCentavos();
+        amounts[WITHHOLDING_TAX] = result.getWithholdingTaxCentavos();
+        amounts[DE_MINIMIS] = result.getTotalDeMinimisBenefitsCentavos();
+        amounts[LATE_DEDUCTIONS] = result.getSummary().getTotalLateDeductionsCentavos();
+        amounts[NET_PAY] = result.getNetPayCentavos();
+        return amounts;
+    }
+
+    /**
+     * Packs a pay period into one long: frequency in the top byte, then start and end epoch days.
+     */
+    static long periodId(PayrollPeriod period) {
+        return periodId(period.getFrequency().ordinal(), period.getStartDate().toEpochDay(), period.getEndDate().toEpochDay());
+    }
+
+    static long periodId(int frequency, long startEpochDay, long endEpochDay) {
+        return ((long) frequency << 56) | ((startEpochDay & 0xFFFFFFFL) << 28) | (endEpochDay & 0xFFFFFFFL);
+    }
+
+    /**
+     * Adds a period's figures, replacing those of the same period if it was posted before.
+     */
+    void post(long periodId, long[] amounts) {
+        int index = -1;
+        for (int i = 0; i < periodCount; i++) {
+            if (periodIds[i] == periodId) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            if (periodCount == periodIds.length) {
+                periodIds = Arrays.copyOf(periodIds, periodCount * 2);
+                periodAmounts = Arrays.copyOf(periodAmounts, periodCount * 2 * FIELDS);
+            }
+            index = periodCount++;
+        } else {
+            for (int field = 0; field < FIELDS; field++) totals[field] -= periodAmounts[index * FIELDS + field];
+        }
+
+        periodIds[index] = periodId;
+        for (int field = 0; field < FIELDS; field++) {
+            periodAmounts[index * FIELDS + field] = amounts[field];
+            totals[field] += amounts[field];
+        }
+    }
+
+    public String getEmpId() { return empId; }
+
+    /**
+     * Gets the number of distinct pay periods posted for the employee.
+     */
+    public int getPeriodCount() { return periodCount; }
+
+    /**
+     * Gets the last day of the latest period posted.
+     */
+    public LocalDate getLastPeriodEnd() {
+        long latest = Long.MIN_VALUE;
+        for (int i = 0; i < periodCount; i++) latest = Math.max(latest, periodIds[i] & 0xFFFFFFFL);
+        return (periodCount > 0) ? LocalDate.ofEpochDay(latest) : null;
+    }
+
+    /**
+     * Gets a year-to-date total.
+     *
+     * @param field Field code (e.g., GROSS_INCOME, WITHHOLDING_TAX)
+     * @return The total in PHP
+     */
+    public double get(int field) { return Money.toPesos(totals[field]); }
+
+    /**
+     * Gets a year-to-date total in centavos.
+     */
+    public long getCentavos(int field) { return totals[field]; }
+
+    /**
+     * Returns regular pay less late deductions: the basic salary earned in the year that
+     * 13th month pay is computed from (overtime, holiday and rest day pay excluded).
+     */
+    public double getBasicSalaryEarned() { return Money.toPesos(getBasicSalaryEarnedCentavos()); }
+
+    public long getBasicSalaryEarnedCentavos() {
+        return Math.max(0L, totals[REGULAR_PAY] - totals[LATE_DEDUCTIONS]);
+    }
+
+    /**
+     * Returns the SSS, PhilHealth and Pag-IBIG contributions withheld in the year.
+     */
+    public double getContributions() { return Money.toPesos(getContributionsCentavos()); }
+
+    public long getContributionsCentavos() { return totals[SSS] + totals[PHILHEALTH] + totals[PAGIBIG]; }
+}